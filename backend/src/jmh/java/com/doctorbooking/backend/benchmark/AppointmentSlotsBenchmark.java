@@ -0,0 +1,75 @@
+package com.doctorbooking.backend.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.doctorbooking.backend.model.Appointment;
+import com.doctorbooking.backend.repository.AppointmentRepository;
+import com.doctorbooking.backend.service.AppointmentService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tính slot trống trong ngày của bác sĩ (getAvailableTimeSlots) với repository mock:
+ * chỉ đo phần lọc/so khớp slot, không tính truy vấn DB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppointmentSlotsBenchmark {
+
+    private static final Long DOCTOR_ID = 7L;
+
+    // Số lịch hẹn đã có trong ngày (0 = ngày trống, 17 = kín lịch, 40 = nhiều lịch đã hủy/hoàn thành)
+    @Param({"0", "8", "17", "40"})
+    private int bookedAppointments;
+
+    private AppointmentService appointmentService;
+    private LocalDate date;
+
+    @Setup
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        date = LocalDate.of(2025, 12, 15);
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.findByDoctorAndDate(DOCTOR_ID, date)).thenReturn(appointments(bookedAppointments));
+
+        appointmentService = new AppointmentService(appointmentRepository, null, null, null, null, null, null,
+                null, null, null, new SimpleMeterRegistry(), null);
+    }
+
+    @Benchmark
+    public List<String> availableTimeSlots() {
+        return appointmentService.getAvailableTimeSlots(DOCTOR_ID, date);
+    }
+
+    private static List<Appointment> appointments(int count) {
+        Appointment.AppointmentStatus[] statuses = Appointment.AppointmentStatus.values();
+        List<Appointment> appointments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setId((long) i + 1);
+            // 17 slot từ 08:00; lặp lại giờ khi count > 17 (các lịch sau mang trạng thái khác)
+            int slot = i % 17;
+            int minutes = slot < 8 ? 8 * 60 + slot * 30 : 13 * 60 + (slot - 8) * 30;
+            appointment.setAppointmentTime(LocalTime.of(minutes / 60, minutes % 60));
+            appointment.setAppointmentDate(LocalDate.of(2025, 12, 15));
+            appointment.setStatus(count <= 17 ? Appointment.AppointmentStatus.CONFIRMED : statuses[i % statuses.length]);
+            appointments.add(appointment);
+        }
+        return appointments;
+    }
+}
@@ -0,0 +1,149 @@
+package com.doctorbooking.backend.benchmark;
+
+import com.doctorbooking.backend.dto.response.AppointmentResponse;
+import com.doctorbooking.backend.dto.response.DoctorResponse;
+import com.doctorbooking.backend.dto.response.TreatmentResponse;
+import com.doctorbooking.backend.model.Appointment;
+import com.doctorbooking.backend.model.Doctor;
+import com.doctorbooking.backend.model.Patient;
+import com.doctorbooking.backend.model.PrescriptionMedication;
+import com.doctorbooking.backend.model.Treatment;
+import com.doctorbooking.backend.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Map entity -> DTO (fromEntity) cho các danh sách trả về nhiều dòng nhất: lịch hẹn, bác sĩ, điều trị
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMapperBenchmark {
+
+    // Kích thước một trang danh sách
+    @Param({"20", "200"})
+    private int size;
+
+    private List<Appointment> appointments;
+    private List<Doctor> doctors;
+    private List<Treatment> treatments;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.of(2025, 12, 1, 8, 0);
+        doctors = new ArrayList<>(size);
+        List<Patient> patients = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            doctors.add(doctor(i, now));
+            patients.add(patient(i, now));
+        }
+
+        appointments = new ArrayList<>(size);
+        treatments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setId((long) i + 1);
+            appointment.setPatient(patients.get(i));
+            appointment.setDoctor(doctors.get((i * 7) % size));
+            appointment.setAppointmentDate(LocalDate.of(2025, 12, 1).plusDays(i % 30));
+            appointment.setAppointmentTime(LocalTime.of(8 + i % 9, (i % 2) * 30));
+            appointment.setStatus(Appointment.AppointmentStatus.CONFIRMED);
+            appointment.setNotes("Tái khám định kỳ");
+            appointment.setPrice(new BigDecimal("300000"));
+            appointment.setPaymentStatus(Appointment.PaymentStatus.PAID);
+            appointment.setPaymentMethod("VNPAY");
+            appointment.setCreatedAt(now);
+            appointment.setUpdatedAt(now);
+            appointments.add(appointment);
+
+            Treatment treatment = new Treatment();
+            treatment.setId((long) i + 1);
+            treatment.setAppointment(appointment);
+            treatment.setDoctor(appointment.getDoctor());
+            treatment.setPatient(appointment.getPatient());
+            treatment.setDiagnosis("Tăng huyết áp độ 1");
+            treatment.setDiagnosisCode("I10");
+            treatment.setTreatmentNotes("Theo dõi huyết áp tại nhà");
+            treatment.setAdvice("Giảm muối, tập thể dục 30 phút mỗi ngày");
+            treatment.setFollowUpDate(LocalDate.of(2026, 1, 15));
+            treatment.setPrescriptionId("RX-" + (100000 + i));
+            treatment.setCreatedAt(now);
+            treatment.setUpdatedAt(now);
+            for (int m = 0; m < 4; m++) {
+                PrescriptionMedication medication = new PrescriptionMedication();
+                medication.setId((long) i * 4 + m + 1);
+                medication.setTreatment(treatment);
+                medication.setMedicationName("Amlodipine 5mg");
+                medication.setDosage("1 viên");
+                medication.setFrequency("1 lần/ngày");
+                medication.setDuration("30 ngày");
+                medication.setQuantity(30);
+                medication.setUnit("viên");
+                medication.setInstructions("Uống sau ăn sáng");
+                medication.setPrice(new BigDecimal("1500"));
+                medication.setOrderIndex(m);
+                treatment.getMedications().add(medication);
+            }
+            treatments.add(treatment);
+        }
+    }
+
+    @Benchmark
+    public List<AppointmentResponse> appointments() {
+        return appointments.stream().map(AppointmentResponse::fromEntity).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<DoctorResponse> doctors() {
+        return doctors.stream().map(DoctorResponse::fromEntity).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<TreatmentResponse> treatments() {
+        return treatments.stream().map(TreatmentResponse::fromEntity).collect(Collectors.toList());
+    }
+
+    private static Doctor doctor(int i, LocalDateTime now) {
+        User user = new User();
+        user.setId((long) i + 1);
+        user.setUsername("doctor" + i);
+        user.setEmail("doctor" + i + "@doctorbooking.com");
+        user.setRole(User.Role.DOCTOR);
+
+        Doctor doctor = new Doctor();
+        doctor.setId((long) i + 1);
+        doctor.setUser(user);
+        doctor.setFullName("BS. Bác Sĩ " + i);
+        doctor.setSpecialization("Cardiology");
+        doctor.setQualification("Thạc sĩ Y khoa");
+        doctor.setExperience(10);
+        doctor.setPhone("0912345678");
+        doctor.setAddress("123 Nguyễn Huệ, Quận 1, TP.HCM");
+        doctor.setBio("Chuyên điều trị bệnh lý tim mạch");
+        doctor.setConsultationFee(new BigDecimal("300000"));
+        doctor.setCreatedAt(now);
+        doctor.setUpdatedAt(now);
+        return doctor;
+    }
+
+    private static Patient patient(int i, LocalDateTime now) {
+        Patient patient = new Patient();
+        patient.setId((long) i + 1);
+        patient.setFullName("Bệnh Nhân " + i);
+        patient.setPhone("0901234567");
+        patient.setCreatedAt(now);
+        patient.setUpdatedAt(now);
+        return patient;
+    }
+}
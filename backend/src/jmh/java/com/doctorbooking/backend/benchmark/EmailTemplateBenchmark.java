@@ -0,0 +1,73 @@
+package com.doctorbooking.backend.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.doctorbooking.backend.service.EmailService;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thời gian dựng HTML email xác nhận / nhắc hẹn (không gửi SMTP).
+ * Builder là private nên gọi qua Method lấy sẵn một lần trong setUp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    private EmailService emailService;
+    private Method confirmationBuilder;
+    private Method reminderBuilder;
+    private LocalDate appointmentDate;
+    private LocalTime appointmentTime;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        emailService = new EmailService(null, null);
+        confirmationBuilder = EmailService.class.getDeclaredMethod("buildAppointmentConfirmationEmailHtml",
+                String.class, String.class, String.class, String.class, String.class, String.class,
+                LocalDate.class, LocalTime.class, String.class, String.class, String.class, String.class,
+                String.class, String.class, String.class);
+        confirmationBuilder.setAccessible(true);
+        reminderBuilder = EmailService.class.getDeclaredMethod("buildAppointmentReminderEmailHtml",
+                String.class, String.class, String.class, String.class, String.class,
+                LocalDate.class, LocalTime.class, String.class, int.class, String.class, String.class);
+        reminderBuilder.setAccessible(true);
+
+        appointmentDate = LocalDate.of(2025, 12, 15);
+        appointmentTime = LocalTime.of(9, 30);
+    }
+
+    @Benchmark
+    public Object confirmationEmail() throws Exception {
+        return confirmationBuilder.invoke(emailService,
+                "Nguyễn Văn A", "0901234567", "BS. Trần Thị B", "Cardiology", "0912345678",
+                "123 Nguyễn Huệ, Quận 1, TP.HCM", appointmentDate, appointmentTime, "10245",
+                "VNPAY", "PAID", "300,000 VNĐ", "Đau ngực khi leo cầu thang", null, null);
+    }
+
+    @Benchmark
+    public Object confirmationEmailForFamilyMember() throws Exception {
+        return confirmationBuilder.invoke(emailService,
+                "Nguyễn Văn A", "0901234567", "BS. Trần Thị B", "Pediatrics", "0912345678",
+                "123 Nguyễn Huệ, Quận 1, TP.HCM", appointmentDate, appointmentTime, "10246",
+                "WALLET", "PAID", "250,000 VNĐ", null, "Nguyễn Văn C", "CHILD");
+    }
+
+    @Benchmark
+    public Object reminderEmail() throws Exception {
+        return reminderBuilder.invoke(emailService,
+                "Nguyễn Văn A", "BS. Trần Thị B", "Cardiology", "0912345678",
+                "123 Nguyễn Huệ, Quận 1, TP.HCM", appointmentDate, appointmentTime, "10245", 24, null, null);
+    }
+}
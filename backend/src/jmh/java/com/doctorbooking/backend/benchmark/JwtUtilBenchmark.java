@@ -0,0 +1,85 @@
+package com.doctorbooking.backend.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.doctorbooking.backend.config.AuthenticatedUser;
+import com.doctorbooking.backend.model.User;
+import com.doctorbooking.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput ký và verify JWT (access token mỗi request, refresh token khi /api/auth/refresh)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private Map<String, Object> extraClaims;
+    private String accessToken;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "benchmark-secret-key-benchmark-secret-key-0123456789");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 604800000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshMaxLifetime", 2592000000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+
+        userDetails = org.springframework.security.core.userdetails.User.withUsername("patient.bench")
+                .password("unused")
+                .roles(User.Role.PATIENT.name())
+                .build();
+
+        // Cùng bộ claim AuthService đưa vào token khi đăng nhập
+        extraClaims = new HashMap<>();
+        extraClaims.put(AuthenticatedUser.CLAIM_ROLE, User.Role.PATIENT.name());
+        extraClaims.put(AuthenticatedUser.CLAIM_USER_ID, 42L);
+        extraClaims.put(AuthenticatedUser.profileIdClaim(User.Role.PATIENT), 17L);
+
+        accessToken = jwtUtil.generateToken(userDetails, extraClaims);
+        refreshToken = jwtUtil.generateRefreshToken(userDetails.getUsername(), extraClaims, null);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateToken(userDetails, extraClaims);
+    }
+
+    @Benchmark
+    public Claims parseAccessToken() {
+        return jwtUtil.parseAccessToken(accessToken);
+    }
+
+    @Benchmark
+    public AuthenticatedUser parseAccessTokenToPrincipal() {
+        return AuthenticatedUser.fromClaims(jwtUtil.parseAccessToken(accessToken));
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return jwtUtil.generateRefreshToken(userDetails.getUsername(), extraClaims, "bench-family");
+    }
+
+    @Benchmark
+    public Claims parseRefreshToken() {
+        return jwtUtil.parseRefreshToken(refreshToken);
+    }
+}
@@ -0,0 +1,126 @@
+package com.doctorbooking.backend.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.doctorbooking.backend.dto.response.SymptomCheckResponse;
+import com.doctorbooking.backend.repository.DoctorRepository;
+import com.doctorbooking.backend.service.AISymptomService;
+import com.doctorbooking.backend.service.DoctorCatalogCache;
+import com.doctorbooking.backend.service.GroqCircuitBreaker;
+import com.doctorbooking.backend.service.SymptomPromptBuilder;
+import com.doctorbooking.backend.service.SymptomResponseCache;
+import com.doctorbooking.backend.service.SymptomTriageEngine;
+import com.doctorbooking.backend.util.IncrementalSymptomJsonParser;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Phần CPU của luồng AI tư vấn triệu chứng (không gọi Groq):
+ * - dựng request body từ prompt snapshot
+ * - parse response JSON của Groq (non-stream) và parse dần khi stream
+ * - triage cục bộ bằng từ khóa
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SymptomAnalysisBenchmark {
+
+    private static final String USER_INPUT = "Tôi bị đau ngực và khó thở khi leo cầu thang, tim đập nhanh";
+
+    private static final String AI_CONTENT = "```json\n{\"suggestedSpecialization\":\"Cardiology\",\"riskLevel\":\"High\","
+            + "\"advice\":\"Bạn nên đi khám tim mạch sớm để được kiểm tra điện tim và siêu âm tim.\","
+            + "\"reason\":\"Đau ngực kèm khó thở khi gắng sức là dấu hiệu cần loại trừ bệnh mạch vành.\","
+            + "\"homeRemedies\":[\"Nghỉ ngơi, tránh gắng sức\",\"Theo dõi huyết áp hằng ngày\",\"Uống đủ nước\"]}\n```";
+
+    private List<String> specializations;
+    private SymptomPromptBuilder promptBuilder;
+    private SymptomPromptBuilder.PromptSnapshot prompt;
+    private SymptomTriageEngine triageEngine;
+    private AISymptomService aiSymptomService;
+    private Method parseGroqResponse;
+    private String groqResponseBody;
+    private List<String> streamChunks;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        specializations = List.of("Cardiology", "Neurology", "Internal Medicine", "Pediatrics", "Dermatology",
+                "Orthopedics", "Gastroenterology", "Ophthalmology", "ENT", "Psychiatry");
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findDistinctSpecializations()).thenReturn(specializations);
+
+        promptBuilder = new SymptomPromptBuilder(
+                new DoctorCatalogCache(doctorRepository, new SimpleMeterRegistry(), 100, 3600));
+        prompt = promptBuilder.current();
+        triageEngine = new SymptomTriageEngine();
+
+        aiSymptomService = new AISymptomService(new SymptomResponseCache(100, 60), triageEngine,
+                HttpClient.newHttpClient(), promptBuilder,
+                new GroqCircuitBreaker(20, 10, 50, 10_000, 80, 30_000, 3), new SimpleMeterRegistry());
+        parseGroqResponse = AISymptomService.class.getDeclaredMethod("parseGroqResponse", String.class);
+        parseGroqResponse.setAccessible(true);
+
+        groqResponseBody = "{\"id\":\"chatcmpl-bench\",\"object\":\"chat.completion\",\"model\":\"llama-3.3-70b-versatile\","
+                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\""
+                + new String(JsonStringEncoder.getInstance().quoteAsString(AI_CONTENT))
+                + "\"},\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":1450,\"completion_tokens\":160,\"total_tokens\":1610}}";
+
+        // Stream của LLM đến theo từng token ngắn
+        streamChunks = new ArrayList<>();
+        for (int i = 0; i < AI_CONTENT.length(); i += 4) {
+            streamChunks.add(AI_CONTENT.substring(i, Math.min(i + 4, AI_CONTENT.length())));
+        }
+    }
+
+    @Benchmark
+    public byte[] buildRequestBody() {
+        return promptBuilder.buildRequestBody(prompt, USER_INPUT, false);
+    }
+
+    @Benchmark
+    public Object parseGroqResponse() throws Exception {
+        return parseGroqResponse.invoke(aiSymptomService, groqResponseBody);
+    }
+
+    @Benchmark
+    public String parseStreamingResponse(Blackhole blackhole) {
+        IncrementalSymptomJsonParser parser = new IncrementalSymptomJsonParser(new IncrementalSymptomJsonParser.Listener() {
+            @Override
+            public void onAdviceDelta(String delta) {
+                blackhole.consume(delta);
+            }
+
+            @Override
+            public void onHomeRemedy(String remedy) {
+                blackhole.consume(remedy);
+            }
+        });
+        for (String chunk : streamChunks) {
+            parser.feed(chunk);
+        }
+        return parser.getText();
+    }
+
+    @Benchmark
+    public Optional<SymptomCheckResponse> localTriage() {
+        return triageEngine.triage(USER_INPUT, specializations);
+    }
+}
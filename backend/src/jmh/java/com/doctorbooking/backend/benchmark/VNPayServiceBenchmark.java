@@ -0,0 +1,69 @@
+package com.doctorbooking.backend.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.doctorbooking.backend.service.VNPayService;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput ký (tạo payment URL) và verify callback của VNPayService
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VNPayServiceBenchmark {
+
+    private VNPayService vnPayService;
+    private Map<String, String> callbackParams;
+
+    @Setup
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        vnPayService = new VNPayService();
+        ReflectionTestUtils.setField(vnPayService, "tmnCode", "BENCH001");
+        ReflectionTestUtils.setField(vnPayService, "hashSecret", "BENCHMARKSECRETBENCHMARKSECRET01");
+        ReflectionTestUtils.setField(vnPayService, "vnpUrl", "https://sandbox.vnpayment.vn/paymentv2/vpcpay.html");
+        ReflectionTestUtils.setField(vnPayService, "returnUrl", "http://localhost:8080/api/patient/payments/vnpay/callback");
+        ReflectionTestUtils.setField(vnPayService, "appointmentReturnUrl",
+                "http://localhost:8080/api/patient/payments/vnpay/appointment-callback");
+        vnPayService.init();
+
+        // Callback hợp lệ: tái sử dụng chính URL đã ký, thêm các field VNPAY trả về
+        String paymentUrl = vnPayService.createPaymentUrl(500000L, "Nạp tiền vào ví - Nguyễn Văn A",
+                "3f2b8c1e-9a4d-4c55-8f7e-2d1b6a9c0e11");
+        callbackParams = parseQuery(paymentUrl.substring(paymentUrl.indexOf('?') + 1));
+    }
+
+    @Benchmark
+    public String sign() {
+        return vnPayService.createPaymentUrl(500000L, "Nạp tiền vào ví - Nguyễn Văn A",
+                "3f2b8c1e-9a4d-4c55-8f7e-2d1b6a9c0e11");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return vnPayService.verifyPayment(new HashMap<>(callbackParams));
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int idx = pair.indexOf('=');
+            params.put(URLDecoder.decode(pair.substring(0, idx), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(idx + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
@@ -0,0 +1,120 @@
+package com.doctorbooking.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh thông lượng khi dependency chậm: pool 200 platform thread (mặc định của Tomcat)
+ * với virtual thread mỗi request (spring.threads.virtual.enabled=true).
+ * Mỗi lần gọi benchmark = một đợt REQUESTS request đồng thời, mỗi request:
+ * JDBC (qua "pool" 20 kết nối như Hikari) -> gọi LLM chậm -> gửi SMTP chậm. Kết quả là thời gian xử lý hết đợt.
+ * smtpPinned=true: SMTP chặn bên trong synchronized (như SMTPTransport của Jakarta Mail) - trên JDK 21-23
+ * virtual thread bị ghim vào carrier, thông lượng rơi về cỡ số core (xem VirtualThreadPinningMonitor).
+ * Chạy: ./mvnw -Pbenchmark -DskipTests verify -Djmh.includes=VirtualThreadThroughputBenchmark (cần JDK 21)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class VirtualThreadThroughputBenchmark {
+
+    private static final int REQUESTS = 2000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int DB_POOL_SIZE = 20;
+    private static final long DB_LATENCY_MS = 5;
+    private static final long LLM_LATENCY_MS = 300;
+    private static final long SMTP_LATENCY_MS = 50;
+
+    @Param({"platform", "virtual"})
+    public String threading;
+
+    @Param({"false", "true"})
+    public boolean smtpPinned;
+
+    private Executor executor;
+    private Semaphore dbPool;
+    private SimulatedSmtpTransport[] transports;
+
+    @Setup
+    public void setUp() {
+        if ("virtual".equals(threading)) {
+            executor = new VirtualThreadTaskExecutor("bench-vt-");
+        } else {
+            executor = new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+        }
+        dbPool = new Semaphore(DB_POOL_SIZE);
+        transports = new SimulatedSmtpTransport[REQUESTS];
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public int burstOfBlockingRequests() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            int slot = i;
+            executor.execute(() -> {
+                try {
+                    handleRequest(slot);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return REQUESTS;
+    }
+
+    private void handleRequest(int slot) throws InterruptedException {
+        dbPool.acquire();
+        try {
+            Thread.sleep(DB_LATENCY_MS);
+        } finally {
+            dbPool.release();
+        }
+
+        Thread.sleep(LLM_LATENCY_MS);
+
+        // Transport mới mỗi lần gửi (như JavaMailSenderImpl); lưu lại để JIT không bỏ được lock
+        SimulatedSmtpTransport transport = new SimulatedSmtpTransport(smtpPinned);
+        transports[slot] = transport;
+        transport.send();
+    }
+
+    private static final class SimulatedSmtpTransport {
+
+        private final boolean synchronizedIo;
+
+        private SimulatedSmtpTransport(boolean synchronizedIo) {
+            this.synchronizedIo = synchronizedIo;
+        }
+
+        void send() throws InterruptedException {
+            if (synchronizedIo) {
+                synchronized (this) {
+                    Thread.sleep(SMTP_LATENCY_MS);
+                }
+            } else {
+                Thread.sleep(SMTP_LATENCY_MS);
+            }
+        }
+    }
+}
@@ -1,15 +1,17 @@
 package com.doctorbooking.backend;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableScheduling;
 import jakarta.annotation.PostConstruct;
 import java.util.TimeZone;
 
 @SpringBootApplication
-@EnableScheduling
 public class BackendApplication {
 
+	private static final Logger logger = LoggerFactory.getLogger(BackendApplication.class);
+
 	public static void main(String[] args) {
 		SpringApplication.run(BackendApplication.class, args);
 	}
@@ -19,8 +21,7 @@ public class BackendApplication {
 		// Setting default timezone to Vietnam (Asia/Ho_Chi_Minh) to fix VNPay timestamp
 		// issues on Render
 		TimeZone.setDefault(TimeZone.getTimeZone("Asia/Ho_Chi_Minh"));
-		System.out.println(
-				"Application timezone set to: " + TimeZone.getDefault().getID() + " at " + new java.util.Date());
+		logger.info("Application timezone set to: {}", TimeZone.getDefault().getID());
 	}
 
 }
@@ -0,0 +1,91 @@
+package com.doctorbooking.backend.config;
+
+import com.doctorbooking.backend.model.User;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Principal của request đã xác thực, dựng từ claim đã ký trong access token (JwtAuthenticationFilter).
+ * Controller lấy userId/patientId/doctorId trực tiếp từ đây, không cần query users/patients/doctors mỗi request.
+ */
+public record AuthenticatedUser(
+        Long userId,
+        String username,
+        User.Role role,
+        Long patientId,
+        Long doctorId,
+        Long adminId) implements Principal, Serializable {
+
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_PATIENT_ID = "patientId";
+    public static final String CLAIM_DOCTOR_ID = "doctorId";
+    public static final String CLAIM_ADMIN_ID = "adminId";
+
+    /**
+     * Tên claim chứa ID hồ sơ theo role (patientId/doctorId/adminId)
+     */
+    public static String profileIdClaim(User.Role role) {
+        return switch (role) {
+            case PATIENT -> CLAIM_PATIENT_ID;
+            case DOCTOR -> CLAIM_DOCTOR_ID;
+            case ADMIN -> CLAIM_ADMIN_ID;
+        };
+    }
+
+    public static AuthenticatedUser fromClaims(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null) {
+            throw new IllegalArgumentException("Token is missing identity claims");
+        }
+        return new AuthenticatedUser(
+                userId,
+                claims.getSubject(),
+                User.Role.valueOf(role),
+                claims.get(CLAIM_PATIENT_ID, Long.class),
+                claims.get(CLAIM_DOCTOR_ID, Long.class),
+                claims.get(CLAIM_ADMIN_ID, Long.class));
+    }
+
+    /**
+     * Principal của request hiện tại
+     */
+    public static AuthenticatedUser current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            throw new RuntimeException("User not authenticated");
+        }
+        return user;
+    }
+
+    public Long requirePatientId() {
+        if (patientId == null) {
+            throw new RuntimeException("Patient not found");
+        }
+        return patientId;
+    }
+
+    public Long requireDoctorId() {
+        if (doctorId == null) {
+            throw new RuntimeException("Doctor not found");
+        }
+        return doctorId;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,424 @@
+package com.doctorbooking.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sinh dữ liệu giả quy mô lớn để profile các truy vấn ở quy mô production
+ * (mặc định 1k bác sĩ, 1M bệnh nhân, 10M lịch hẹn kèm feedback, điều trị + đơn thuốc, thông báo, giao dịch ví).
+ * Chỉ chạy với profile datagen (không bao giờ cùng prod), ví dụ:
+ * java -jar backend.jar --spring.profiles.active=datagen --app.datagen.patients=200000
+ * <p>
+ * Ghi bằng JDBC batch insert (không qua repository.save), id gán sẵn từ MAX(id) hiện tại nên không phải đọc lại
+ * id sau mỗi insert; lịch hẹn được sinh tuần tự theo ngày nên không giữ toàn bộ dữ liệu trong bộ nhớ.
+ * Random có seed cố định: cùng cấu hình luôn cho cùng dữ liệu. Tài khoản sinh ra có username gen_*,
+ * dùng chung password app.datagen.password.
+ */
+@Component
+@Profile("datagen & !prod")
+@Order(10)
+public class BulkDataGenerator implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkDataGenerator.class);
+
+    private static final String[] SPECIALIZATIONS = {"Cardiology", "Neurology", "Internal Medicine", "Pediatrics",
+            "Dermatology", "Orthopedics", "Gastroenterology", "Ophthalmology", "ENT", "Psychiatry",
+            "Obstetrics and Gynecology", "Urology", "Endocrinology", "Pulmonology", "Dentistry"};
+
+    // Khung giờ khám giống AppointmentService.getAvailableTimeSlots
+    private static final LocalTime[] SLOTS = {
+            LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(9, 0), LocalTime.of(9, 30),
+            LocalTime.of(10, 0), LocalTime.of(10, 30), LocalTime.of(11, 0), LocalTime.of(11, 30),
+            LocalTime.of(13, 0), LocalTime.of(13, 30), LocalTime.of(14, 0), LocalTime.of(14, 30),
+            LocalTime.of(15, 0), LocalTime.of(15, 30), LocalTime.of(16, 0), LocalTime.of(16, 30),
+            LocalTime.of(17, 0)};
+
+    private static final String[][] DIAGNOSES = {
+            {"I10", "Tăng huyết áp vô căn"}, {"E11", "Đái tháo đường type 2"}, {"J06.9", "Viêm đường hô hấp trên cấp"},
+            {"K29.7", "Viêm dạ dày"}, {"M54.5", "Đau thắt lưng"}, {"G43.9", "Đau nửa đầu"},
+            {"L20.9", "Viêm da cơ địa"}, {"H10.9", "Viêm kết mạc"}, {"J45.9", "Hen phế quản"}, {"F41.1", "Rối loạn lo âu"}};
+
+    private static final String[] FEEDBACK_COMMENTS = {"Bác sĩ tư vấn rất tận tình", "Khám nhanh, đúng giờ",
+            "Phải chờ hơi lâu", "Giải thích dễ hiểu", "Rất hài lòng", "Bình thường", "Sẽ quay lại tái khám"};
+
+    // Tỷ lệ ô (bác sĩ x ngày x khung giờ) có lịch hẹn
+    private static final double SLOT_FILL_RATE = 0.7;
+    private static final int FUTURE_DAYS = 30;
+    private static final int MEDICATION_CATALOG_SIZE = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${app.datagen.doctors:1000}")
+    private int doctorCount;
+
+    @Value("${app.datagen.patients:1000000}")
+    private int patientCount;
+
+    @Value("${app.datagen.appointments:10000000}")
+    private long appointmentCount;
+
+    @Value("${app.datagen.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.datagen.seed:42}")
+    private long seed;
+
+    @Value("${app.datagen.password:Datagen-123}")
+    private String password;
+
+    // Tỷ lệ trên lịch hẹn COMPLETED
+    @Value("${app.datagen.treatment-rate:0.6}")
+    private double treatmentRate;
+
+    @Value("${app.datagen.feedback-rate:0.3}")
+    private double feedbackRate;
+
+    // Tỷ lệ trên mọi lịch hẹn
+    @Value("${app.datagen.notification-rate:0.5}")
+    private double notificationRate;
+
+    @Value("${app.datagen.deposits-per-patient:2}")
+    private int depositsPerPatient;
+
+    private Random random;
+    private Timestamp now;
+
+    public BulkDataGenerator(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @Override
+    public void run(String... args) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username LIKE 'gen\\_%'", Integer.class);
+        if (existing != null && existing > 0) {
+            logger.warn("Database already contains {} generated users (gen_*), skipping data generation", existing);
+            return;
+        }
+
+        random = new Random(seed);
+        now = Timestamp.valueOf(LocalDateTime.now());
+        long start = System.nanoTime();
+        logger.info("Generating {} doctors, {} patients, {} appointments (batch size {})",
+                doctorCount, patientCount, appointmentCount, batchSize);
+
+        String passwordHash = passwordEncoder.encode(password);
+        long[] medicationIds = ensureMedicationCatalog();
+        long firstDoctorUserId = maxId("users") + 1;
+        long firstPatientUserId = firstDoctorUserId + doctorCount;
+        long firstDoctorId = maxId("doctors") + 1;
+        long firstPatientId = maxId("patients") + 1;
+
+        BigDecimal[] doctorFees = generateDoctors(firstDoctorUserId, firstDoctorId, passwordHash);
+        generatePatients(firstPatientUserId, firstPatientId, passwordHash);
+        generateAppointments(firstDoctorId, firstPatientId, doctorFees, medicationIds);
+        generateDeposits(firstPatientId);
+
+        logger.info("Data generation finished in {} s", (System.nanoTime() - start) / 1_000_000_000L);
+    }
+
+    private long[] ensureMedicationCatalog() {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM medications ORDER BY id", Long.class);
+        if (ids.isEmpty()) {
+            BatchWriter medications = new BatchWriter(null, "medications", "INSERT INTO medications (id, name, generic_name, "
+                    + "category, unit_price, unit, is_available, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            String[] categories = {"Giảm đau", "Kháng sinh", "Tim mạch", "Tiêu hóa", "Hô hấp", "Da liễu", "Vitamin"};
+            for (int i = 1; i <= MEDICATION_CATALOG_SIZE; i++) {
+                medications.add((long) i, "Thuốc " + i + " " + (250 + (i % 4) * 250) + "mg", "Generic " + i,
+                        categories[i % categories.length], new BigDecimal(500 + (i % 20) * 500), "viên", true, now, now);
+                ids.add((long) i);
+            }
+            medications.close();
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private BigDecimal[] generateDoctors(long firstUserId, long firstDoctorId, String passwordHash) {
+        BatchWriter users = usersWriter();
+        BatchWriter doctors = new BatchWriter(users, "doctors", "INSERT INTO doctors (id, user_id, full_name, specialization, "
+                + "qualification, experience, phone, address, bio, status, consultation_fee, buffer_time, created_at, "
+                + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        BigDecimal[] fees = new BigDecimal[doctorCount];
+        for (int i = 0; i < doctorCount; i++) {
+            long userId = firstUserId + i;
+            String username = "gen_doctor_" + i;
+            users.add(userId, username, passwordHash, username + "@datagen.local", "DOCTOR", true, now, now);
+            fees[i] = new BigDecimal(150000 + random.nextInt(8) * 50000);
+            // 5% bác sĩ ngừng hoạt động
+            doctors.add(firstDoctorId + i, userId, "BS. Datagen " + i, SPECIALIZATIONS[i % SPECIALIZATIONS.length],
+                    "Thạc sĩ Y khoa", 1 + random.nextInt(30), String.format("09%08d", i), "Bệnh viện Datagen",
+                    "Bác sĩ dữ liệu giả", random.nextInt(100) < 95 ? "ACTIVE" : "INACTIVE", fees[i], 15, now, now);
+        }
+        users.close();
+        doctors.close();
+        return fees;
+    }
+
+    private void generatePatients(long firstUserId, long firstPatientId, String passwordHash) {
+        BatchWriter users = usersWriter();
+        BatchWriter patients = new BatchWriter(users, "patients", "INSERT INTO patients (id, user_id, full_name, "
+                + "date_of_birth, gender, phone, address, wallet_balance, loyalty_points, loyalty_tier, created_at, "
+                + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        String[] genders = {"MALE", "FEMALE", "OTHER"};
+        String[] tiers = {"BRONZE", "BRONZE", "BRONZE", "SILVER", "SILVER", "GOLD"};
+        for (int i = 0; i < patientCount; i++) {
+            long userId = firstUserId + i;
+            String username = "gen_patient_" + i;
+            users.add(userId, username, passwordHash, username + "@datagen.local", "PATIENT", true, now, now);
+            patients.add(firstPatientId + i, userId, "Bệnh Nhân " + i,
+                    Date.valueOf(LocalDate.of(1940 + random.nextInt(80), 1 + random.nextInt(12), 1 + random.nextInt(28))),
+                    genders[random.nextInt(genders.length)], String.format("03%08d", i % 100_000_000), "TP.HCM",
+                    new BigDecimal(random.nextInt(50) * 100000), random.nextInt(5000),
+                    tiers[random.nextInt(tiers.length)], now, now);
+        }
+        users.close();
+        patients.close();
+    }
+
+    /**
+     * Lịch hẹn được rải theo ngày (kết thúc FUTURE_DAYS ngày sau hôm nay), mỗi ô (bác sĩ, ngày, khung giờ) tối đa
+     * một lịch nên không vi phạm unique constraint. Trạng thái theo ngày: quá khứ chủ yếu COMPLETED / CANCELLED,
+     * tương lai PENDING / CONFIRMED. Điều trị, feedback, thông báo, giao dịch ví được sinh cùng lúc với lịch hẹn.
+     */
+    private void generateAppointments(long firstDoctorId, long firstPatientId, BigDecimal[] doctorFees,
+                                      long[] medicationIds) {
+        BatchWriter appointments = new BatchWriter(null, "appointments", "INSERT INTO appointments (id, patient_id, "
+                + "doctor_id, appointment_date, appointment_time, status, notes, price, payment_status, payment_method, "
+                + "reminder_24h_sent, reminder_1h_sent, cancellation_reason, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        BatchWriter treatments = new BatchWriter(appointments, "treatments", "INSERT INTO treatments (id, appointment_id, doctor_id, "
+                + "patient_id, diagnosis, diagnosis_code, prescription_id, treatment_notes, advice, follow_up_date, "
+                + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        BatchWriter prescriptionMedications = new BatchWriter(treatments, "prescription_medications", "INSERT INTO "
+                + "prescription_medications (treatment_id, medication_id, medication_name, dosage, frequency, duration, "
+                + "quantity, unit, instructions, price, order_index) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        BatchWriter feedbacks = new BatchWriter(appointments, "feedbacks", "INSERT INTO feedbacks (patient_id, doctor_id, "
+                + "appointment_id, rating, comment, status, doctor_reply, doctor_replied_at, is_hidden, created_at, "
+                + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        BatchWriter notifications = notificationsWriter(appointments);
+        BatchWriter walletTransactions = walletTransactionsWriter(appointments);
+
+        long appointmentId = maxId("appointments");
+        long treatmentId = maxId("treatments");
+        LocalDate today = LocalDate.now();
+        long cellsPerDay = (long) doctorCount * SLOTS.length;
+        long days = (long) Math.ceil(appointmentCount / (cellsPerDay * SLOT_FILL_RATE));
+        LocalDate day = today.plusDays(Math.min(FUTURE_DAYS, days / 10)).minusDays(days - 1);
+
+        long generated = 0;
+        while (generated < appointmentCount) {
+            boolean past = day.isBefore(today);
+            Date sqlDate = Date.valueOf(day);
+            for (int slot = 0; slot < SLOTS.length && generated < appointmentCount; slot++) {
+                for (int doctor = 0; doctor < doctorCount && generated < appointmentCount; doctor++) {
+                    if (random.nextDouble() >= SLOT_FILL_RATE) {
+                        continue;
+                    }
+                    generated++;
+                    long id = ++appointmentId;
+                    long doctorId = firstDoctorId + doctor;
+                    long patientId = firstPatientId + random.nextInt(patientCount);
+                    BigDecimal price = doctorFees[doctor];
+                    String status = past ? pick(65, "COMPLETED", 25, "CANCELLED", 10, "CONFIRMED")
+                            : pick(40, "PENDING", 50, "CONFIRMED", 10, "CANCELLED");
+                    String paymentMethod = pick(50, "CASH", 30, "WALLET", 20, "VNPAY");
+                    String paymentStatus = paymentStatus(status, paymentMethod);
+                    Timestamp createdAt = Timestamp.valueOf(day.minusDays(1 + random.nextInt(14)).atTime(SLOTS[slot]));
+
+                    appointments.add(id, patientId, doctorId, sqlDate, Time.valueOf(SLOTS[slot]), status, null, price,
+                            paymentStatus, paymentMethod, past, past,
+                            "CANCELLED".equals(status) ? "Bệnh nhân bận việc đột xuất" : null, createdAt, createdAt);
+
+                    if ("WALLET".equals(paymentMethod)) {
+                        walletTransactions.add(patientId, "PAYMENT", price, 0, "Thanh toán phí khám bệnh", id,
+                                "COMPLETED", "WALLET", null, createdAt, createdAt);
+                        if ("REFUNDED".equals(paymentStatus)) {
+                            walletTransactions.add(patientId, "REFUND", price, 0, "Hoàn tiền lịch hẹn bị hủy", id,
+                                    "COMPLETED", "WALLET", null, createdAt, createdAt);
+                        }
+                    }
+                    if (random.nextDouble() < notificationRate) {
+                        notifications.add(patientId, "Đặt lịch thành công", "Lịch hẹn #" + id + " ngày " + day
+                                        + " đã được ghi nhận", "APPOINTMENT_CONFIRMED", past || random.nextBoolean(), id,
+                                createdAt, createdAt);
+                    }
+
+                    if ("COMPLETED".equals(status)) {
+                        Timestamp visitedAt = Timestamp.valueOf(day.atTime(SLOTS[slot]));
+                        if (random.nextDouble() < treatmentRate) {
+                            long tId = ++treatmentId;
+                            String[] diagnosis = DIAGNOSES[random.nextInt(DIAGNOSES.length)];
+                            treatments.add(tId, id, doctorId, patientId, diagnosis[1], diagnosis[0], "RX-GEN-" + tId,
+                                    "Theo dõi tại nhà", "Nghỉ ngơi, uống đủ nước",
+                                    random.nextBoolean() ? Date.valueOf(day.plusDays(14 + random.nextInt(30))) : null,
+                                    visitedAt, visitedAt);
+                            int lines = 1 + random.nextInt(4);
+                            for (int line = 0; line < lines; line++) {
+                                long medicationId = medicationIds[random.nextInt(medicationIds.length)];
+                                prescriptionMedications.add(tId, medicationId, "Thuốc " + medicationId, "1 viên",
+                                        (1 + random.nextInt(3)) + " lần/ngày", (5 + random.nextInt(26)) + " ngày",
+                                        10 + random.nextInt(80), "viên", "Uống sau ăn", new BigDecimal(1000 + random.nextInt(20) * 500),
+                                        line);
+                            }
+                        }
+                        if (random.nextDouble() < feedbackRate) {
+                            int rating = pick(50, 5, 30, 4, 20, 1 + random.nextInt(3));
+                            boolean replied = random.nextInt(100) < 40;
+                            feedbacks.add(patientId, doctorId, id, rating,
+                                    FEEDBACK_COMMENTS[random.nextInt(FEEDBACK_COMMENTS.length)],
+                                    replied ? "REPLIED" : pick(50, "PENDING", 50, "READ", 0, "READ"),
+                                    replied ? "Cảm ơn bạn đã phản hồi" : null, replied ? visitedAt : null,
+                                    random.nextInt(100) < 2, visitedAt, visitedAt);
+                        }
+                    }
+                }
+            }
+            day = day.plusDays(1);
+        }
+
+        appointments.close();
+        treatments.close();
+        prescriptionMedications.close();
+        feedbacks.close();
+        notifications.close();
+        walletTransactions.close();
+    }
+
+    private void generateDeposits(long firstPatientId) {
+        BatchWriter walletTransactions = walletTransactionsWriter(null);
+        BatchWriter notifications = notificationsWriter(null);
+        long reference = 0;
+        for (int i = 0; i < patientCount; i++) {
+            long patientId = firstPatientId + i;
+            int deposits = random.nextInt(depositsPerPatient * 2 + 1);
+            for (int d = 0; d < deposits; d++) {
+                BigDecimal amount = new BigDecimal((1 + random.nextInt(20)) * 100000);
+                String status = pick(90, "COMPLETED", 7, "FAILED", 3, "PENDING");
+                Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now().minusDays(random.nextInt(720)));
+                walletTransactions.add(patientId, "DEPOSIT", amount, "COMPLETED".equals(status) ? amount.intValue() / 100 : 0,
+                        "Nạp tiền vào ví qua VNPAY", null, status, "VNPAY", "GEN-DEP-" + seed + "-" + (++reference),
+                        createdAt, createdAt);
+                if ("COMPLETED".equals(status)) {
+                    notifications.add(patientId, "Nạp tiền thành công", "Bạn đã nạp " + amount + " VNĐ vào ví",
+                            "WALLET_DEPOSIT_SUCCESS", random.nextInt(100) < 80, null, createdAt, createdAt);
+                }
+            }
+        }
+        walletTransactions.close();
+        notifications.close();
+    }
+
+    private static String paymentStatus(String status, String paymentMethod) {
+        boolean prepaid = !"CASH".equals(paymentMethod);
+        return switch (status) {
+            case "COMPLETED" -> "PAID";
+            case "CANCELLED" -> prepaid ? "REFUNDED" : "UNPAID";
+            default -> prepaid ? "PAID" : "PENDING";
+        };
+    }
+
+    /**
+     * Chọn một trong ba giá trị theo trọng số (phần trăm)
+     */
+    private <T> T pick(int weightA, T a, int weightB, T b, int weightC, T c) {
+        int roll = random.nextInt(weightA + weightB + weightC);
+        return roll < weightA ? a : roll < weightA + weightB ? b : c;
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    private BatchWriter usersWriter() {
+        return new BatchWriter(null, "users", "INSERT INTO users (id, username, password, email, role, enabled, created_at, "
+                + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    private BatchWriter notificationsWriter(BatchWriter appointments) {
+        return new BatchWriter(appointments, "notifications", "INSERT INTO notifications (patient_id, title, message, type, is_read, "
+                + "appointment_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    private BatchWriter walletTransactionsWriter(BatchWriter appointments) {
+        return new BatchWriter(appointments, "wallet_transactions", "INSERT INTO wallet_transactions (patient_id, transaction_type, "
+                + "amount, points_earned, description, appointment_id, status, payment_method, reference_id, created_at, "
+                + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    /**
+     * Gom dòng và ghi bằng JdbcTemplate.batchUpdate mỗi batchSize dòng; log tiến độ theo bảng.
+     * Trước khi ghi luôn flush bảng cha (parent) để khóa ngoại trỏ tới dòng đã có trong DB.
+     */
+    private final class BatchWriter implements AutoCloseable {
+
+        private static final long PROGRESS_EVERY = 1_000_000;
+
+        private final BatchWriter parent;
+        private final String table;
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>(batchSize);
+        private final long startNanos = System.nanoTime();
+        private long written;
+
+        private BatchWriter(BatchWriter parent, String table, String sql) {
+            this.parent = parent;
+            this.table = table;
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            if (parent != null) {
+                parent.flush();
+            }
+            jdbcTemplate.batchUpdate(sql, rows);
+            long before = written;
+            written += rows.size();
+            rows.clear();
+            if (written / PROGRESS_EVERY != before / PROGRESS_EVERY) {
+                logger.info("{}: {} rows ({} rows/s)", table, written, rate());
+            }
+        }
+
+        private long rate() {
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+            return written * 1000 / elapsedMillis;
+        }
+
+        @Override
+        public void close() {
+            flush();
+            logger.info("{}: {} rows written ({} rows/s)", table, written, rate());
+        }
+    }
+}
@@ -50,12 +50,15 @@ public class DataInitializer implements CommandLineRunner {
                 // Kiểm tra và update password nếu cần
                 log.info("Admin user exists. Verifying password...");
                 
-                // Kiểm tra password hiện tại có đúng không (plain text comparison)
-                if (!adminPassword.equals(adminUser.getPassword())) {
+                // Kiểm tra password hiện tại; password plain text cũ cũng được hash lại
+                if (!passwordEncoder.matches(adminPassword, adminUser.getPassword())) {
                     log.warn("Admin password mismatch. Resetting to default password...");
-                    // Tạm thời dùng plain text password (KHÔNG hash)
-                    adminUser.setPassword(adminPassword); // Plain text
-                    // adminUser.setPassword(passwordEncoder.encode(adminPassword)); // BCrypt - uncomment sau khi test xong
+                    adminUser.setPassword(passwordEncoder.encode(adminPassword));
+                    adminUser.setUpdatedAt(LocalDateTime.now());
+                    needsUpdate = true;
+                } else if (passwordEncoder.upgradeEncoding(adminUser.getPassword())) {
+                    log.info("Upgrading admin password hash...");
+                    adminUser.setPassword(passwordEncoder.encode(adminPassword));
                     adminUser.setUpdatedAt(LocalDateTime.now());
                     needsUpdate = true;
                 }
@@ -115,11 +118,9 @@ public class DataInitializer implements CommandLineRunner {
             log.info("✅ Admin user ready!");
             log.info("   Username: {}", adminUsername);
             log.info("   Email: {}", adminEmail);
-            log.info("   Password: {}", adminPassword);
 
         } catch (Exception e) {
             log.error("❌ Failed to initialize admin user: {}", e.getMessage(), e);
-            e.printStackTrace();
         }
     }
 }
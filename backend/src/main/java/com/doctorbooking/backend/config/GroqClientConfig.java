@@ -0,0 +1,25 @@
+package com.doctorbooking.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class GroqClientConfig {
+
+    /**
+     * HttpClient dùng chung cho mọi lời gọi Groq.
+     * HTTP/2: nhiều request chạy song song trên cùng một kết nối TLS, kết nối được giữ lại giữa các request
+     * (không tốn TLS handshake mỗi lần như khi tạo HttpClient mới cho từng request).
+     */
+    @Bean
+    public HttpClient groqHttpClient(@Value("${ai.groq.connect-timeout-seconds:10}") long connectTimeoutSeconds) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .build();
+    }
+}
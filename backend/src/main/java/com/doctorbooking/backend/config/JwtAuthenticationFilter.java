@@ -1,7 +1,8 @@
 package com.doctorbooking.backend.config;
 
-import com.doctorbooking.backend.service.UserService;
+import com.doctorbooking.backend.service.RefreshTokenReplayCache;
 import com.doctorbooking.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,17 +10,15 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import java.io.IOException;
-import java.util.Collection;
 
 @Component
 @RequiredArgsConstructor
@@ -27,7 +26,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private final JwtUtil jwtUtil;
-    private final UserService userService;
+    private final RefreshTokenReplayCache refreshTokenReplayCache;
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
@@ -50,7 +49,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -59,49 +57,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            username = jwtUtil.extractUsername(jwt);
-            logger.info("JWT Filter - Extracted username from token: {}", username);
-            logger.info("JWT Filter - Request URI: {}", request.getRequestURI());
-
             // Clear existing authentication to ensure stateless behavior
             // This allows multiple users/roles to login simultaneously
             SecurityContextHolder.clearContext();
 
-            if (username != null) {
-                UserDetails userDetails = userService.loadUserByUsername(username);
-                logger.info("JWT Filter - Loaded userDetails for username: {}", username);
-
-                if (jwtUtil.validateToken(jwt, userDetails)) {
-                    // Use authorities from UserDetails (already contains ROLE_ prefix)
-                    // This ensures role is always loaded from database, not from token
-                    Collection<? extends GrantedAuthority> authorities = userDetails.getAuthorities();
-
-                    // Log authorities at INFO level for troubleshooting
-                    String authoritiesStr = authorities.stream()
-                            .map(GrantedAuthority::getAuthority)
-                            .reduce((a, b) -> a + ", " + b)
-                            .orElse("none");
-                    logger.info("JWT Filter - User: {} authenticated with authorities: {}", username, authoritiesStr);
-
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            authorities);
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    logger.info("JWT Filter - Authentication token set in SecurityContext");
-                } else {
-                    logger.warn("JWT Filter - Token validation failed for user: {}", username);
-                    // Clear context if token is invalid
-                    SecurityContextHolder.clearContext();
-                }
-            } else {
-                logger.warn("JWT Filter - Username is null");
-                SecurityContextHolder.clearContext();
+            // Danh tính (userId, role, patientId/doctorId/adminId) lấy từ claim đã ký:
+            // một lần verify HMAC, không query DB mỗi request
+            Claims claims = jwtUtil.parseAccessToken(jwt);
+            AuthenticatedUser principal = AuthenticatedUser.fromClaims(claims);
+            // User bị khóa / xóa / đổi role hoặc mật khẩu sau khi token được cấp -> từ chối (tra map trong bộ nhớ).
+            // iat chỉ chính xác tới giây: lấy cuối giây đó để token cấp ngay sau khi thu hồi vẫn dùng được
+            long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() + 999 : 0L;
+            if (refreshTokenReplayCache.isUserRevoked(principal.userId(), issuedAt)) {
+                throw new IllegalStateException("Token was issued before user " + principal.userId() + " was revoked");
             }
+
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    principal,
+                    null,
+                    principal.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            MDC.put(RequestCorrelationFilter.MDC_USER_ID, String.valueOf(principal.userId()));
+            logger.debug("JWT Filter - User: {} ({}) authenticated for {}",
+                    principal.username(), principal.role(), request.getRequestURI());
         } catch (Exception e) {
             // Token invalid, clear context and continue without authentication
-            logger.error("JWT Filter - Authentication error: {}", e.getMessage(), e);
+            logger.warn("JWT Filter - Authentication error: {}", e.getMessage());
             SecurityContextHolder.clearContext();
         }
 
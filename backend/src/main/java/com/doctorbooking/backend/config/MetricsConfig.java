@@ -0,0 +1,53 @@
+package com.doctorbooking.backend.config;
+
+import com.doctorbooking.backend.service.GroqCircuitBreaker;
+import com.doctorbooking.backend.service.PasswordVerificationExecutor;
+import io.micrometer.core.aop.CountedAspect;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics (Micrometer, xuất dạng Prometheus tại /actuator/prometheus trên management port nội bộ).
+ * HTTP, JVM, HikariCP, @Scheduled đã có sẵn từ Actuator; ở đây thêm phần nghiệp vụ.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Bật @Timed trên method của bean (đặt lịch, lấy slot, gửi email, ví, job nhắc hẹn)
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public CountedAspect countedAspect(MeterRegistry registry) {
+        return new CountedAspect(registry);
+    }
+
+    /**
+     * Gauge cho các thành phần tự quản lý trạng thái: circuit breaker Groq, pool verify password
+     */
+    @Bean
+    public MeterBinder applicationStateMetrics(GroqCircuitBreaker groqCircuitBreaker,
+                                               PasswordVerificationExecutor passwordVerificationExecutor) {
+        return registry -> {
+            Gauge.builder("groq.circuit.state", groqCircuitBreaker, breaker -> breaker.getState().ordinal())
+                    .description("Groq circuit breaker state: 0=CLOSED, 1=OPEN, 2=HALF_OPEN")
+                    .register(registry);
+            Gauge.builder("auth.password.verify.queued", passwordVerificationExecutor,
+                            PasswordVerificationExecutor::getQueuedCount)
+                    .description("Login password verifications waiting for a pool thread")
+                    .register(registry);
+            Gauge.builder("auth.password.verify.active", passwordVerificationExecutor,
+                            PasswordVerificationExecutor::getActiveCount)
+                    .description("Login password verifications currently running")
+                    .register(registry);
+        };
+    }
+}
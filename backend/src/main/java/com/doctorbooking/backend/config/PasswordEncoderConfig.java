@@ -0,0 +1,71 @@
+package com.doctorbooking.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+@Configuration
+public class PasswordEncoderConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordEncoderConfig.class);
+
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 14;
+    private static final String SAMPLE_PASSWORD = "Sample-Password-123";
+
+    /**
+     * Hash mới dùng BCrypt ("{bcrypt}..."). Password cũ lưu plain text (không có prefix) vẫn đăng nhập được
+     * qua PlainTextPasswordEncoder và được hash lại ngay khi đăng nhập thành công
+     * (DaoAuthenticationProvider + UserDetailsPasswordService). Hash BCrypt có cost thấp hơn cấu hình
+     * hiện tại cũng được nâng cấp theo cách đó.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.security.password.bcrypt-strength:0}") int configuredStrength,
+            @Value("${app.security.password.target-verify-ms:100}") long targetVerifyMillis) {
+        int strength = configuredStrength > 0 ? configuredStrength : tuneBCryptStrength(targetVerifyMillis);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(strength)));
+        encoder.setDefaultPasswordEncoderForMatches(new PlainTextPasswordEncoder());
+        return encoder;
+    }
+
+    /**
+     * Chọn cost BCrypt lớn nhất mà một lần verify trên máy hiện tại không vượt quá target
+     * (mỗi bậc cost tăng gấp đôi thời gian)
+     */
+    static int tuneBCryptStrength(long targetVerifyMillis) {
+        // Làm nóng JIT để lần đo đầu không bị chậm bất thường
+        BCryptPasswordEncoder warmUp = new BCryptPasswordEncoder(4);
+        String warmUpHash = warmUp.encode(SAMPLE_PASSWORD);
+        for (int i = 0; i < 20; i++) {
+            warmUp.matches(SAMPLE_PASSWORD, warmUpHash);
+        }
+
+        int strength = MIN_BCRYPT_STRENGTH;
+        long elapsedMillis = measureVerifyMillis(strength);
+        while (strength < MAX_BCRYPT_STRENGTH && elapsedMillis * 2 <= targetVerifyMillis) {
+            strength++;
+            elapsedMillis = measureVerifyMillis(strength);
+        }
+        logger.info("BCrypt strength tuned to {} (~{}ms per verify, target {}ms)",
+                strength, elapsedMillis, targetVerifyMillis);
+        return strength;
+    }
+
+    private static long measureVerifyMillis(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        long start = System.nanoTime();
+        encoder.matches(SAMPLE_PASSWORD, hash);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -2,11 +2,13 @@ package com.doctorbooking.backend.config;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
 /**
- * PlainTextPasswordEncoder - Chỉ dùng cho development/testing
- * KHÔNG sử dụng trong production!
- * 
- * So sánh password plain text (không hash)
+ * PlainTextPasswordEncoder - CHỈ dùng để so khớp các password cũ còn lưu plain text
+ * (default matcher của DelegatingPasswordEncoder). Password mới luôn được hash bằng BCrypt,
+ * password cũ được hash lại ở lần đăng nhập thành công đầu tiên.
  */
 public class PlainTextPasswordEncoder implements PasswordEncoder {
 
@@ -18,23 +20,17 @@ public class PlainTextPasswordEncoder implements PasswordEncoder {
 
     @Override
     public boolean matches(CharSequence rawPassword, String encodedPassword) {
-        // So sánh plain text
         if (rawPassword == null || encodedPassword == null) {
-            System.out.println("🔵 PlainTextPasswordEncoder.matches - Null check failed");
             return false;
         }
-        
-        String raw = rawPassword.toString();
-        String encoded = encodedPassword;
-        
-        boolean matches = raw.equals(encoded);
-        
-        System.out.println("🔵 PlainTextPasswordEncoder.matches - Comparing:");
-        System.out.println("   Raw password: '" + raw + "'");
-        System.out.println("   Encoded password: '" + encoded + "'");
-        System.out.println("   Matches: " + matches);
-        
-        return matches;
+        // So sánh thời gian hằng (không lộ độ dài prefix khớp qua thời gian phản hồi)
+        return MessageDigest.isEqual(
+                rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+                encodedPassword.getBytes(StandardCharsets.UTF_8));
     }
-}
 
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return true;
+    }
+}
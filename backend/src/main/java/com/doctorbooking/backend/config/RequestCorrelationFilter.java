@@ -0,0 +1,80 @@
+package com.doctorbooking.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Gắn correlation ID (MDC "requestId", header X-Request-Id) cho mọi request và chọn ngẫu nhiên
+ * một tỉ lệ nhỏ request được ghi log DEBUG (MDC "sampled", xem SampledDebugTurboFilter).
+ * Chạy trước mọi filter khác, kể cả Spring Security.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestCorrelationFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String MDC_REQUEST_ID = "requestId";
+    public static final String MDC_SAMPLED = "sampled";
+    public static final String MDC_USER_ID = "userId";
+
+    // Chỉ nhận request ID từ client nếu ngắn và an toàn để ghi vào log
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final String SAMPLED_ATTRIBUTE = RequestCorrelationFilter.class.getName() + ".sampled";
+
+    private final double debugSampleRate;
+
+    public RequestCorrelationFilter(@Value("${app.logging.debug-sample-rate:0.0}") double debugSampleRate) {
+        this.debugSampleRate = debugSampleRate;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // Async dispatch (AI endpoints trả CompletableFuture) chạy trên thread khác - gắn lại MDC
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String requestId = (String) request.getAttribute(MDC_REQUEST_ID);
+        Boolean sampled = (Boolean) request.getAttribute(SAMPLED_ATTRIBUTE);
+        if (requestId == null) {
+            String header = request.getHeader(REQUEST_ID_HEADER);
+            requestId = header != null && VALID_REQUEST_ID.matcher(header).matches()
+                    ? header
+                    : UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+            sampled = debugSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < debugSampleRate;
+            request.setAttribute(MDC_REQUEST_ID, requestId);
+            request.setAttribute(SAMPLED_ATTRIBUTE, sampled);
+            response.setHeader(REQUEST_ID_HEADER, requestId);
+        }
+
+        MDC.put(MDC_REQUEST_ID, requestId);
+        if (Boolean.TRUE.equals(sampled)) {
+            MDC.put(MDC_SAMPLED, "true");
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_REQUEST_ID);
+            MDC.remove(MDC_SAMPLED);
+            MDC.remove(MDC_USER_ID);
+        }
+    }
+}
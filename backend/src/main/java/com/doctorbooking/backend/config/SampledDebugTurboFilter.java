@@ -0,0 +1,34 @@
+package com.doctorbooking.backend.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Logback turbo filter: bật log DEBUG của ứng dụng chỉ cho các request được lấy mẫu
+ * (MDC "sampled" do RequestCorrelationFilter gắn). Request còn lại giữ nguyên level cấu hình,
+ * nên log DEBUG không tốn chi phí ghi trên đường nóng.
+ * Khai báo trong logback-spring.xml.
+ */
+public class SampledDebugTurboFilter extends TurboFilter {
+
+    private String loggerPrefix = "com.doctorbooking";
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.INFO)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!"true".equals(MDC.get(RequestCorrelationFilter.MDC_SAMPLED))) {
+            return FilterReply.NEUTRAL;
+        }
+        return logger.getName().startsWith(loggerPrefix) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,15 @@
+package com.doctorbooking.backend.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Bật các job @Scheduled (nhắc lịch hẹn, đối soát thanh toán...).
+ * Tắt bằng app.scheduling.enabled=false cho các tiến trình chạy một lần như profile datagen.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
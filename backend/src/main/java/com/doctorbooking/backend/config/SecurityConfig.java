@@ -1,5 +1,6 @@
 package com.doctorbooking.backend.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,9 +12,9 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
-// import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder; // Uncomment khi đổi lại BCrypt
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -26,23 +27,19 @@ import org.springframework.http.HttpMethod;
 public class SecurityConfig {
 
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final PasswordEncoder passwordEncoder;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CorsConfigurationSource corsConfigurationSource;
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        // Tạm thời dùng PlainTextPasswordEncoder để test (KHÔNG dùng trong production!)
-        // TODO: Đổi lại BCryptPasswordEncoder sau khi test xong
-        return new PlainTextPasswordEncoder();
-        // return new BCryptPasswordEncoder(); // Uncomment sau khi test xong
-    }
-
     @Bean
     @SuppressWarnings("deprecation")
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Hash lại password (plain text cũ / BCrypt cost thấp) ngay khi đăng nhập thành công
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
@@ -62,6 +59,8 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 // Cấu hình quy tắc cho các request HTTP
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatch (controller trả CompletableFuture) đã được xác thực ở lượt REQUEST ban đầu
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Cho phép OPTIONS requests (preflight) cho tất cả endpoints
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         // Cho phép các endpoint authentication không cần xác thực
@@ -75,6 +74,8 @@ public class SecurityConfig {
                         // Public endpoints (health check, etc.)
                         .requestMatchers("/api/public/**").permitAll()
                         .requestMatchers("/error").permitAll()
+                        // Actuator chỉ mở trên management port nội bộ (127.0.0.1), xem management.server.*
+                        .requestMatchers("/actuator/**").permitAll()
                         // Admin endpoints chỉ dành cho ADMIN
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         // Doctor endpoints chỉ dành cho DOCTOR
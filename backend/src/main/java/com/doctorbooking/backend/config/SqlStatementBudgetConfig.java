@@ -0,0 +1,19 @@
+package com.doctorbooking.backend.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SqlStatementBudgetConfig {
+
+    /**
+     * Gắn SqlStatementInspector vào SessionFactory để đếm câu SQL theo request (SqlStatementBudgetFilter)
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementInspectorCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(
+                AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector());
+    }
+}
@@ -0,0 +1,96 @@
+package com.doctorbooking.backend.config;
+
+import com.doctorbooking.backend.util.SqlStatementTracker;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Đếm số câu SQL của mỗi HTTP request và phát hiện N+1 (cùng một shape SQL lặp lại >= threshold lần).
+ * - Metric: http.server.sql.statements (theo uri), http.server.sql.n_plus_one, http.server.sql.budget_exceeded
+ * - Log WARN khi vượt ngân sách hoặc nghi N+1 (kèm shape SQL)
+ * - Header X-SQL-Statements (chỉ khi bật app.sql-budget.expose-header, xem SqlStatementHeaderAdvice)
+ * Chỉ đếm SQL chạy trên thread của request (không tính phần chạy bất đồng bộ).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementBudgetFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+    private final int nPlusOneThreshold;
+
+    public SqlStatementBudgetFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.sql-budget.max-statements-per-request:30}") int maxStatements,
+            @Value("${app.sql-budget.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    public int getNPlusOneThreshold() {
+        return nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementTracker.Scope scope = SqlStatementTracker.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+            report(request, scope);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatementTracker.Scope scope) {
+        int statements = scope.getStatementCount();
+        if (statements == 0) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("http.server.sql.statements")
+                .description("SQL statements issued per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statements);
+
+        if (statements > maxStatements) {
+            meterRegistry.counter("http.server.sql.budget_exceeded", "method", method, "uri", uri).increment();
+            logger.warn("SQL budget exceeded on {} {}: {} statements (budget {})", method, uri, statements, maxStatements);
+        }
+
+        Map<String, Integer> repeated = scope.getRepeatedShapes(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            meterRegistry.counter("http.server.sql.n_plus_one", "method", method, "uri", uri).increment();
+            Map.Entry<String, Integer> worst = repeated.entrySet().iterator().next();
+            logger.warn("Possible N+1 on {} {}: {} repeated statement shapes, worst x{}: {}",
+                    method, uri, repeated.size(), worst.getValue(), worst.getKey());
+        }
+    }
+}
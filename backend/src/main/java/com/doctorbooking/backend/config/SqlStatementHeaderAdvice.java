@@ -0,0 +1,49 @@
+package com.doctorbooking.backend.config;
+
+import com.doctorbooking.backend.util.SqlStatementTracker;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Dev: gắn số câu SQL của request vào response header ngay trước khi ghi body
+ * (sau khi ghi body thì response đã commit, không thêm header được nữa).
+ * - X-SQL-Statements: số câu SQL đã chạy
+ * - X-SQL-Repeated-Shapes: số shape SQL lặp lại >= ngưỡng N+1
+ */
+@RestControllerAdvice
+@ConditionalOnProperty(name = "app.sql-budget.expose-header", havingValue = "true")
+public class SqlStatementHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlStatementBudgetFilter budgetFilter;
+
+    public SqlStatementHeaderAdvice(SqlStatementBudgetFilter budgetFilter) {
+        this.budgetFilter = budgetFilter;
+    }
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType,
+                            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, @NonNull MethodParameter returnType,
+                                  @NonNull MediaType selectedContentType,
+                                  @NonNull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  @NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response) {
+        SqlStatementTracker.Scope scope = SqlStatementTracker.current();
+        if (scope != null) {
+            response.getHeaders().set("X-SQL-Statements", String.valueOf(scope.getStatementCount()));
+            response.getHeaders().set("X-SQL-Repeated-Shapes",
+                    String.valueOf(scope.getRepeatedShapes(budgetFilter.getNPlusOneThreshold()).size()));
+        }
+        return body;
+    }
+}
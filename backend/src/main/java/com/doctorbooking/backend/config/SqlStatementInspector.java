@@ -0,0 +1,17 @@
+package com.doctorbooking.backend.config;
+
+import com.doctorbooking.backend.util.SqlStatementTracker;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate gọi inspect() cho mọi câu SQL trước khi prepare; ở đây chỉ đếm (SqlStatementTracker), không sửa SQL.
+ * Đăng ký qua SqlStatementBudgetConfig.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementTracker.record(sql);
+        return sql;
+    }
+}
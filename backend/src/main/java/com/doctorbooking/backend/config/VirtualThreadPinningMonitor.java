@@ -0,0 +1,108 @@
+package com.doctorbooking.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Chẩn đoán "pinning" khi chạy virtual thread (spring.threads.virtual.enabled=true):
+ * virtual thread bị ghim vào carrier thread khi chặn I/O trong khối synchronized hoặc native frame
+ * (JDK 21-23; vd. SMTPTransport của Jakarta Mail, driver JDBC cũ). Carrier chỉ bằng số core nên vài chỗ
+ * bị ghim lâu là đủ làm nghẽn toàn bộ request.
+ * Đọc sự kiện JFR jdk.VirtualThreadPinned trong tiến trình (không cần bật JFR recording ra file):
+ * - metric jvm.threads.virtual.pinned (timer, thời gian bị ghim)
+ * - WARN kèm stack trace, mỗi vị trí (frame đầu tiên trong code ứng dụng) chỉ log một lần
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.doctorbooking.";
+    private static final int MAX_LOGGED_FRAMES = 12;
+    private static final int MAX_REPORTED_SITES = 200;
+
+    private final Timer pinnedTimer;
+    private final Duration threshold;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${app.virtual-threads.pinning.threshold-ms:20}") long thresholdMs) {
+        this.pinnedTimer = meterRegistry.timer("jvm.threads.virtual.pinned");
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+            recordingStream.startAsync();
+            logger.info("Virtual thread pinning monitor started (threshold={}ms)", threshold.toMillis());
+        } catch (RuntimeException e) {
+            // JFR không có trên một số JVM / bị tắt: chỉ mất phần chẩn đoán
+            logger.warn("Không bật được giám sát pinning của virtual thread: {}", e.getMessage());
+            recordingStream = null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+
+        List<RecordedFrame> frames = event.getStackTrace() != null
+                ? event.getStackTrace().getFrames()
+                : List.of();
+        String site = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith(APP_PACKAGE))
+                .findFirst()
+                .map(VirtualThreadPinningMonitor::describe)
+                .orElse(frames.isEmpty() ? "unknown" : describe(frames.get(0)));
+        if (reportedSites.size() >= MAX_REPORTED_SITES || !reportedSites.add(site)) {
+            return;
+        }
+        logger.warn("Virtual thread bị ghim {}ms tại {}:\n{}", event.getDuration().toMillis(), site,
+                formatStack(event.getStackTrace()));
+    }
+
+    private static String formatStack(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "    (no stack trace)";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(MAX_LOGGED_FRAMES)
+                .map(frame -> "    at " + describe(frame))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
@@ -3,6 +3,9 @@ package com.doctorbooking.backend.controller;
 import com.doctorbooking.backend.dto.request.DoctorRequest;
 import com.doctorbooking.backend.dto.response.*;
 import com.doctorbooking.backend.service.AdminService;
+import com.doctorbooking.backend.util.JsonArrayStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -13,6 +16,7 @@ import java.util.Map;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -24,6 +28,10 @@ public class AdminController {
 
     private final AdminService adminService;
     private final com.doctorbooking.backend.service.AppointmentService appointmentService;
+    private final com.doctorbooking.backend.service.AISymptomService aiSymptomService;
+    private final com.doctorbooking.backend.service.PasswordVerificationExecutor passwordVerificationExecutor;
+    private final com.doctorbooking.backend.service.DoctorCatalogCache doctorCatalogCache;
+    private final ObjectMapper objectMapper;
 
     // ========== Doctor Management ==========
 
@@ -139,11 +147,15 @@ public class AdminController {
 
     // ========== Appointment Management ==========
 
+    /**
+     * Stream JSON array từ cursor DB (bộ nhớ không tăng theo số lịch hẹn), gzip theo Accept-Encoding
+     */
     @GetMapping("/appointments")
-    public ResponseEntity<List<AppointmentResponse>> getAllAppointments(
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        List<AppointmentResponse> appointments = adminService.getAllAppointments(date);
-        return ResponseEntity.ok(appointments);
+    public void getAllAppointments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            HttpServletResponse response) throws IOException {
+        JsonArrayStreamer.<AppointmentResponse>write(response, objectMapper,
+                sink -> adminService.streamAllAppointments(date, sink));
     }
 
     @GetMapping("/appointments/{id}")
@@ -193,10 +205,11 @@ public class AdminController {
     // ========== Feedback Management ==========
 
     @GetMapping("/feedbacks")
-    public ResponseEntity<List<FeedbackResponse>> getAllFeedbacks(
-            @RequestParam(required = false) String status) {
-        List<FeedbackResponse> feedbacks = adminService.getAllFeedbacks(status);
-        return ResponseEntity.ok(feedbacks);
+    public void getAllFeedbacks(
+            @RequestParam(required = false) String status,
+            HttpServletResponse response) throws IOException {
+        JsonArrayStreamer.<FeedbackResponse>write(response, objectMapper,
+                sink -> adminService.streamAllFeedbacks(status, sink));
     }
     
     @GetMapping("/feedbacks/doctor/{doctorId}")
@@ -240,5 +253,24 @@ public class AdminController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    // ========== AI Monitoring ==========
+
+    @GetMapping("/ai/cache-stats")
+    public ResponseEntity<Map<String, Object>> getAiCacheStats() {
+        return ResponseEntity.ok(aiSymptomService.getCacheStats());
+    }
+
+    @GetMapping("/doctors/cache-stats")
+    public ResponseEntity<Map<String, Object>> getDoctorCacheStats() {
+        return ResponseEntity.ok(doctorCatalogCache.getStats());
+    }
+
+    // ========== Security Monitoring ==========
+
+    @GetMapping("/security/password-pool-stats")
+    public ResponseEntity<Map<String, Object>> getPasswordPoolStats() {
+        return ResponseEntity.ok(passwordVerificationExecutor.getStats());
+    }
 }
 
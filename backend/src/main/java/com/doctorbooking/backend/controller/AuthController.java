@@ -1,23 +1,33 @@
 package com.doctorbooking.backend.controller;
 
 import com.doctorbooking.backend.dto.request.LoginRequest;
+import com.doctorbooking.backend.dto.request.RefreshTokenRequest;
 import com.doctorbooking.backend.dto.request.RegisterRequest;
 import com.doctorbooking.backend.dto.response.AuthResponse;
 import com.doctorbooking.backend.service.AuthService;
+import com.doctorbooking.backend.service.PasswordVerificationExecutor;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
     private final AuthService authService;
+    private final PasswordVerificationExecutor passwordVerificationExecutor;
 
     // Re-writing the method to be cleaner and return the error
     @PostMapping("/register")
@@ -31,20 +41,45 @@ public class AuthController {
         }
     }
 
+    /**
+     * Verify password (BCrypt, tốn CPU) chạy trên pool riêng có giới hạn;
+     * Tomcat thread được giải phóng trong lúc chờ, pool đầy -> 503
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest request) {
+        return passwordVerificationExecutor.submit(() -> authService.login(request))
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(error -> {
+                    Throwable e = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (e instanceof org.springframework.security.core.AuthenticationException) {
+                        // Authentication failed (bad credentials, user not found, etc.)
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(Map.of("message", "Invalid username or password", "error", e.getMessage()));
+                    }
+                    if (e instanceof RejectedExecutionException) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header("Retry-After", "1")
+                                .body(Map.of("message", "Hệ thống đang bận, vui lòng thử lại sau giây lát"));
+                    }
+                    // Other exceptions
+                    logger.error("Unexpected error during login", e);
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body(Map.of("message", "An error occurred during login", "error", String.valueOf(e.getMessage())));
+                });
+    }
+
+    /**
+     * Đổi refresh token lấy cặp token mới (không query DB, không verify password).
+     * Refresh token chỉ dùng được một lần; dùng lại -> 401 và cả chuỗi token bị thu hồi
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest request) {
         try {
-            AuthResponse response = authService.login(request);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(authService.refresh(request));
         } catch (org.springframework.security.core.AuthenticationException e) {
-            // Authentication failed (bad credentials, user not found, etc.)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("message", "Invalid username or password", "error", e.getMessage()));
-        } catch (Exception e) {
-            // Other exceptions
-            e.printStackTrace(); // Log for debugging
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "An error occurred during login", "error", e.getMessage()));
+                    .body(Map.of("message", e.getMessage()));
         }
     }
 
@@ -1,21 +1,23 @@
 package com.doctorbooking.backend.controller;
 
+import com.doctorbooking.backend.config.AuthenticatedUser;
 import com.doctorbooking.backend.dto.request.ChangePasswordRequest;
 import com.doctorbooking.backend.dto.request.CreateTreatmentRequest;
 import com.doctorbooking.backend.dto.request.UpdateProfileRequest;
 import com.doctorbooking.backend.dto.request.UpdateTreatmentRequest;
 import com.doctorbooking.backend.dto.response.*;
-import com.doctorbooking.backend.model.User;
 import com.doctorbooking.backend.service.*;
+import com.doctorbooking.backend.util.ResourceVersion;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -26,11 +28,12 @@ import java.util.List;
 @PreAuthorize("hasRole('DOCTOR')")
 public class DoctorController {
 
+    private static final Logger logger = LoggerFactory.getLogger(DoctorController.class);
+
     private final DoctorService doctorService;
     private final PatientService patientService;
     private final AppointmentService appointmentService;
     private final TreatmentService treatmentService;
-    private final UserService userService;
     private final FeedbackService feedbackService;
     private final MedicationService medicationService;
 
@@ -76,37 +79,22 @@ public class DoctorController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         try {
             Long doctorId = getCurrentDoctorId();
-            System.out.println("🔍 Doctor ID: " + doctorId);
-            
             if (date != null) {
                 List<AppointmentResponse> allByDate = appointmentService.getAppointmentsByDate(date);
-                System.out.println("📅 Total appointments on " + date + ": " + allByDate.size());
-                
                 List<AppointmentResponse> appointments = allByDate.stream()
-                        .filter(a -> {
-                            System.out.println("  - Appointment ID: " + a.getId() + ", Doctor ID: " + a.getDoctorId());
-                            return a.getDoctorId().equals(doctorId);
-                        })
+                        .filter(a -> a.getDoctorId().equals(doctorId))
                         .toList();
-                System.out.println("✅ Filtered appointments: " + appointments.size());
                 return ResponseEntity.ok(appointments);
             }
             
             // Get all appointments for this doctor
             List<AppointmentResponse> allAppointments = appointmentService.getAllAppointments();
-            System.out.println("📋 Total appointments in system: " + allAppointments.size());
-            
             List<AppointmentResponse> filtered = allAppointments.stream()
-                    .filter(a -> {
-                        System.out.println("  - Appointment ID: " + a.getId() + ", Doctor ID: " + a.getDoctorId() + ", Patient: " + a.getPatientName());
-                        return a.getDoctorId().equals(doctorId);
-                    })
+                    .filter(a -> a.getDoctorId().equals(doctorId))
                     .toList();
-            System.out.println("✅ Filtered appointments for doctor " + doctorId + ": " + filtered.size());
             return ResponseEntity.ok(filtered);
         } catch (RuntimeException e) {
-            System.err.println("❌ Error getting appointments: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Error getting appointments: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().build();
         }
     }
@@ -279,11 +267,15 @@ public class DoctorController {
     // ========== Feedback Management ==========
 
     @GetMapping("/feedbacks")
-    public ResponseEntity<List<FeedbackResponse>> getDoctorFeedbacks() {
+    public ResponseEntity<List<FeedbackResponse>> getDoctorFeedbacks(WebRequest webRequest) {
         try {
             Long doctorId = getCurrentDoctorId();
+            // 304 trước khi dựng body nếu ETag của client vẫn khớp (xem PatientController)
+            if (feedbackService.getDoctorFeedbacksVersion(doctorId).isNotModified(webRequest, "doctor-feedbacks")) {
+                return null;
+            }
             List<FeedbackResponse> feedbacks = feedbackService.getDoctorFeedbacks(doctorId);
-            return ResponseEntity.ok(feedbacks);
+            return ResponseEntity.ok().cacheControl(ResourceVersion.CACHE_CONTROL).body(feedbacks);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -350,17 +342,14 @@ public class DoctorController {
 
     // ========== Helper Methods ==========
 
+    // userId/doctorId lấy từ claim trong JWT (JwtAuthenticationFilter), không query DB
+
     private Long getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        User user = userService.findByUsername(username);
-        return user.getId();
+        return AuthenticatedUser.current().userId();
     }
 
     private Long getCurrentDoctorId() {
-        Long userId = getCurrentUserId();
-        DoctorResponse doctor = doctorService.getDoctorByUserId(userId);
-        return doctor.getId();
+        return AuthenticatedUser.current().requireDoctorId();
     }
 }
 
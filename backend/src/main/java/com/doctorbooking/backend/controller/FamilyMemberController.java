@@ -1,10 +1,9 @@
 package com.doctorbooking.backend.controller;
 
+import com.doctorbooking.backend.config.AuthenticatedUser;
 import com.doctorbooking.backend.dto.request.CreateFamilyMemberRequest;
 import com.doctorbooking.backend.dto.request.UpdateFamilyMemberRequest;
 import com.doctorbooking.backend.dto.response.FamilyMemberResponse;
-import com.doctorbooking.backend.model.Patient;
-import com.doctorbooking.backend.repository.PatientRepository;
 import com.doctorbooking.backend.service.FamilyMemberService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -14,7 +13,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -28,19 +26,15 @@ public class FamilyMemberController {
     private static final Logger logger = LoggerFactory.getLogger(FamilyMemberController.class);
 
     private final FamilyMemberService familyMemberService;
-    private final PatientRepository patientRepository;
 
     /**
      * Lấy danh sách thành viên gia đình
      */
     @GetMapping("/family-members")
     public ResponseEntity<List<FamilyMemberResponse>> getFamilyMembers(
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            Patient patient = patientRepository.findByUser_Username(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
-
-            List<FamilyMemberResponse> members = familyMemberService.getFamilyMembers(patient.getId());
+            List<FamilyMemberResponse> members = familyMemberService.getFamilyMembers(currentUser.requirePatientId());
             return ResponseEntity.ok(members);
         } catch (Exception e) {
             logger.error("Error getting family members", e);
@@ -53,12 +47,9 @@ public class FamilyMemberController {
      */
     @GetMapping("/family-members/stats")
     public ResponseEntity<FamilyMemberService.FamilyStatsResponse> getFamilyStats(
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser currentUser) {
         try {
-            Patient patient = patientRepository.findByUser_Username(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
-
-            FamilyMemberService.FamilyStatsResponse stats = familyMemberService.getFamilyStats(patient.getId());
+            FamilyMemberService.FamilyStatsResponse stats = familyMemberService.getFamilyStats(currentUser.requirePatientId());
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             logger.error("Error getting family stats", e);
@@ -71,13 +62,10 @@ public class FamilyMemberController {
      */
     @PostMapping("/family-members")
     public ResponseEntity<?> createFamilyMember(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
             @Valid @RequestBody CreateFamilyMemberRequest request) {
         try {
-            Patient patient = patientRepository.findByUser_Username(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
-
-            FamilyMemberResponse response = familyMemberService.createFamilyMember(patient.getId(), request);
+            FamilyMemberResponse response = familyMemberService.createFamilyMember(currentUser.requirePatientId(), request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (RuntimeException e) {
             logger.error("Error creating family member", e);
@@ -93,14 +81,11 @@ public class FamilyMemberController {
      */
     @PutMapping("/family-members/{id}")
     public ResponseEntity<?> updateFamilyMember(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
             @PathVariable Long id,
             @Valid @RequestBody UpdateFamilyMemberRequest request) {
         try {
-            Patient patient = patientRepository.findByUser_Username(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
-
-            FamilyMemberResponse response = familyMemberService.updateFamilyMember(patient.getId(), id, request);
+            FamilyMemberResponse response = familyMemberService.updateFamilyMember(currentUser.requirePatientId(), id, request);
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
             logger.error("Error updating family member", e);
@@ -116,13 +101,10 @@ public class FamilyMemberController {
      */
     @DeleteMapping("/family-members/{id}")
     public ResponseEntity<?> deleteFamilyMember(
-            @AuthenticationPrincipal UserDetails userDetails,
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
             @PathVariable Long id) {
         try {
-            Patient patient = patientRepository.findByUser_Username(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
-
-            familyMemberService.deleteFamilyMember(patient.getId(), id);
+            familyMemberService.deleteFamilyMember(currentUser.requirePatientId(), id);
             return ResponseEntity.ok().body("Family member deleted successfully");
         } catch (RuntimeException e) {
             logger.error("Error deleting family member", e);
@@ -1,5 +1,6 @@
 package com.doctorbooking.backend.controller;
 
+import com.doctorbooking.backend.config.AuthenticatedUser;
 import com.doctorbooking.backend.dto.response.NotificationResponse;
 import com.doctorbooking.backend.service.NotificationService;
 import lombok.RequiredArgsConstructor;
@@ -7,8 +8,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -24,22 +23,12 @@ public class NotificationController {
     private static final Logger logger = LoggerFactory.getLogger(NotificationController.class);
 
     private final NotificationService notificationService;
-    private final com.doctorbooking.backend.repository.PatientRepository patientRepository;
 
     /**
      * Lấy ID của patient hiện tại từ JWT token
      */
     private Long getCurrentPatientId() {
-        Authentication authentication = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetails)) {
-            throw new RuntimeException("User not authenticated");
-        }
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String username = userDetails.getUsername();
-        
-        return patientRepository.findByUser_Username(username)
-                .orElseThrow(() -> new RuntimeException("Patient not found"))
-                .getId();
+        return AuthenticatedUser.current().requirePatientId();
     }
 
     /**
@@ -1,29 +1,34 @@
 package com.doctorbooking.backend.controller;
 
+import com.doctorbooking.backend.config.AuthenticatedUser;
 import com.doctorbooking.backend.dto.request.ChangePasswordRequest;
 import com.doctorbooking.backend.dto.request.CreateAppointmentRequest;
 import com.doctorbooking.backend.dto.request.CreateFeedbackRequest;
 import com.doctorbooking.backend.dto.request.UpdatePatientProfileRequest;
 import com.doctorbooking.backend.dto.response.*;
-import com.doctorbooking.backend.model.User;
 import com.doctorbooking.backend.service.*;
 import com.doctorbooking.backend.dto.request.SymptomCheckRequest; // Thêm import
 import com.doctorbooking.backend.dto.response.SymptomCheckResponse; // Thêm import
+import com.doctorbooking.backend.util.IncrementalSymptomJsonParser;
+import com.doctorbooking.backend.util.ResourceVersion;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/patient")
@@ -36,7 +41,6 @@ public class PatientController {
     private final AppointmentService appointmentService;
     private final TreatmentService treatmentService;
     private final FeedbackService feedbackService;
-    private final UserService userService;
     private final AISymptomService aiSymptomService;
     private final com.doctorbooking.backend.service.VNPayService vnPayService;
 
@@ -174,25 +178,36 @@ public class PatientController {
 
     // ========== Doctor Search ==========
 
+    // Các GET danh sách / chi tiết ít thay đổi hỗ trợ conditional request: client gửi lại ETag (If-None-Match),
+    // nếu phiên bản chưa đổi thì trả 304 ngay (return null sau checkNotModified) mà không dựng body
+
     @GetMapping("/doctors")
     public ResponseEntity<List<DoctorResponse>> searchDoctors(
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search, WebRequest webRequest) {
         if (search != null && !search.trim().isEmpty()) {
             return ResponseEntity.ok(doctorService.searchDoctors(search));
         }
         // Return only active doctors for patients
-        return ResponseEntity.ok(doctorService.getActiveDoctors());
+        if (doctorService.getActiveDoctorsVersion().isNotModified(webRequest, "doctors")) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(ResourceVersion.CACHE_CONTROL).body(doctorService.getActiveDoctors());
     }
 
     @GetMapping("/doctors/{id}")
-    public ResponseEntity<DoctorResponse> getDoctorById(@PathVariable Long id) {
+    public ResponseEntity<DoctorResponse> getDoctorById(@PathVariable Long id, WebRequest webRequest) {
         try {
             DoctorResponse doctor = doctorService.getDoctorById(id);
             // Only return if doctor is active
             if (!doctor.getStatus().equals("ACTIVE")) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(doctor);
+            // Thẻ bác sĩ lấy từ cache nên không tốn DB; 304 chỉ tiết kiệm phần truyền body
+            ResourceVersion version = new ResourceVersion(1L, doctor.getUpdatedAt(), doctor.hashCode());
+            if (version.isNotModified(webRequest, "doctor-" + id)) {
+                return null;
+            }
+            return ResponseEntity.ok().cacheControl(ResourceVersion.CACHE_CONTROL).body(doctor);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -201,11 +216,14 @@ public class PatientController {
     // ========== Treatment Viewing ==========
 
     @GetMapping("/treatments")
-    public ResponseEntity<List<TreatmentResponse>> getTreatments() {
+    public ResponseEntity<List<TreatmentResponse>> getTreatments(WebRequest webRequest) {
         try {
             Long patientId = getCurrentPatientId();
+            if (treatmentService.getTreatmentsVersionByPatientId(patientId).isNotModified(webRequest, "treatments")) {
+                return null;
+            }
             List<TreatmentResponse> treatments = treatmentService.getTreatmentsByPatientId(patientId);
-            return ResponseEntity.ok(treatments);
+            return ResponseEntity.ok().cacheControl(ResourceVersion.CACHE_CONTROL).body(treatments);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -264,11 +282,14 @@ public class PatientController {
     }
 
     @GetMapping("/feedbacks")
-    public ResponseEntity<List<FeedbackResponse>> getFeedbacks() {
+    public ResponseEntity<List<FeedbackResponse>> getFeedbacks(WebRequest webRequest) {
         try {
             Long patientId = getCurrentPatientId();
+            if (feedbackService.getPatientFeedbacksVersion(patientId).isNotModified(webRequest, "feedbacks")) {
+                return null;
+            }
             List<FeedbackResponse> feedbacks = feedbackService.getPatientFeedbacks(patientId);
-            return ResponseEntity.ok(feedbacks);
+            return ResponseEntity.ok().cacheControl(ResourceVersion.CACHE_CONTROL).body(feedbacks);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -300,24 +321,27 @@ public class PatientController {
 
     // ========== Helper Methods ==========
 
+    // userId/patientId lấy từ claim trong JWT (JwtAuthenticationFilter), không query DB
+
     private Long getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        User user = userService.findByUsername(username);
-        return user.getId();
+        return AuthenticatedUser.current().userId();
     }
 
     private Long getCurrentPatientId() {
-        Long userId = getCurrentUserId();
-        PatientResponse patient = patientService.getPatientByUserId(userId);
-        return patient.getId();
+        return AuthenticatedUser.current().requirePatientId();
     }
 
     // ========== Methods AISymptoms ==========
     private static final Logger logger = LoggerFactory.getLogger(PatientController.class);
+    // Đủ cho một lượt sinh 2000 token
+    private static final long SYMPTOM_STREAM_TIMEOUT_MS = 60_000L;
 
+    /**
+     * Trả CompletableFuture: Tomcat thread được giải phóng trong lúc chờ LLM,
+     * request chậm của AI không chiếm thread pool dùng chung với luồng đặt lịch
+     */
     @PostMapping("/ai/check-symptoms")
-    public ResponseEntity<SymptomCheckResponse> checkSymptoms(@Valid @RequestBody SymptomCheckRequest request) {
+    public CompletableFuture<ResponseEntity<SymptomCheckResponse>> checkSymptoms(@Valid @RequestBody SymptomCheckRequest request) {
         logger.info("Nhận request từ Client. Input: {}", request.getSymptoms());
         try {
             // Validate input
@@ -330,14 +354,20 @@ public class PatientController {
                         "Thiếu thông tin đầu vào",
                         List.of("Nhập mô tả triệu chứng hoặc câu hỏi của bạn vào ô chat.")
                 );
-                return ResponseEntity.badRequest().body(errorResponse);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
             }
 
-            // Gọi service
-            SymptomCheckResponse response = aiSymptomService.analyzeSymptoms(request.getSymptoms().trim());
-            logger.info("Trả về response thành công cho input: {}", request.getSymptoms());
-            return ResponseEntity.ok(response);
-            
+            // Gọi service (bất đồng bộ)
+            return aiSymptomService.analyzeSymptomsAsync(request.getSymptoms().trim())
+                    .thenApply(response -> {
+                        logger.info("Trả về response thành công cho input: {}", request.getSymptoms());
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(e -> {
+                        logger.error("Lỗi không mong đợi khi phân tích triệu chứng: ", e);
+                        return systemErrorResponse();
+                    });
+
         } catch (IllegalArgumentException e) {
             logger.warn("Lỗi validation: {}", e.getMessage());
             SymptomCheckResponse errorResponse = new SymptomCheckResponse(
@@ -347,25 +377,82 @@ public class PatientController {
                     "Dữ liệu đầu vào không hợp lệ",
                     List.of("Vui lòng kiểm tra lại thông tin bạn đã nhập.")
             );
-            return ResponseEntity.badRequest().body(errorResponse);
-            
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
+
         } catch (Exception e) {
             logger.error("Lỗi không mong đợi trong Controller: ", e);
             // Service đã xử lý và trả về fallback response, nên ta vẫn trả về response từ service
             // Nếu service throw exception, ta tạo fallback response
-            SymptomCheckResponse fallbackResponse = new SymptomCheckResponse(
+            return CompletableFuture.completedFuture(systemErrorResponse());
+        }
+    }
+
+    /**
+     * Streaming (SSE): gửi từng phần câu trả lời ngay khi AI sinh ra token.
+     * Event "advice" ({"delta": ...}), "homeRemedy" ({"remedy": ...}), cuối cùng "result" (SymptomCheckResponse đầy đủ).
+     */
+    @PostMapping(value = "/ai/check-symptoms/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter checkSymptomsStream(@Valid @RequestBody SymptomCheckRequest request) {
+        logger.info("Nhận request streaming từ Client. Input: {}", request.getSymptoms());
+        SseEmitter emitter = new SseEmitter(SYMPTOM_STREAM_TIMEOUT_MS);
+
+        if (request.getSymptoms() == null || request.getSymptoms().trim().isEmpty()) {
+            sendSymptomEvent(emitter, "result", new SymptomCheckResponse(
                     "Other",
                     "Low",
-                    "Xin lỗi, hệ thống đang gặp sự cố tạm thời. Vui lòng thử lại sau một chút.",
-                    "Lỗi hệ thống",
-                    List.of(
-                            "Thử lại sau vài phút.",
-                            "Kiểm tra kết nối mạng của bạn.",
-                            "Liên hệ hỗ trợ nếu vấn đề vẫn tiếp tục."
-                    )
-            );
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(fallbackResponse);
+                    "Vui lòng mô tả triệu chứng hoặc câu hỏi của bạn.",
+                    "Thiếu thông tin đầu vào",
+                    List.of("Nhập mô tả triệu chứng hoặc câu hỏi của bạn vào ô chat.")
+            ));
+            emitter.complete();
+            return emitter;
+        }
+
+        aiSymptomService.analyzeSymptomsStreaming(request.getSymptoms().trim(), new IncrementalSymptomJsonParser.Listener() {
+                    @Override
+                    public void onAdviceDelta(String delta) {
+                        sendSymptomEvent(emitter, "advice", Map.of("delta", delta));
+                    }
+
+                    @Override
+                    public void onHomeRemedy(String remedy) {
+                        sendSymptomEvent(emitter, "homeRemedy", Map.of("remedy", remedy));
+                    }
+                })
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        logger.error("Lỗi không mong đợi khi stream phân tích triệu chứng: ", e);
+                        sendSymptomEvent(emitter, "result", systemErrorResponse().getBody());
+                    } else {
+                        sendSymptomEvent(emitter, "result", response);
+                    }
+                    emitter.complete();
+                });
+        return emitter;
+    }
+
+    private void sendSymptomEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client đã đóng kết nối - bỏ qua phần còn lại
+            logger.debug("Không gửi được SSE event {}: {}", name, e.getMessage());
         }
     }
+
+    private ResponseEntity<SymptomCheckResponse> systemErrorResponse() {
+        SymptomCheckResponse fallbackResponse = new SymptomCheckResponse(
+                "Other",
+                "Low",
+                "Xin lỗi, hệ thống đang gặp sự cố tạm thời. Vui lòng thử lại sau một chút.",
+                "Lỗi hệ thống",
+                List.of(
+                        "Thử lại sau vài phút.",
+                        "Kiểm tra kết nối mạng của bạn.",
+                        "Liên hệ hỗ trợ nếu vấn đề vẫn tiếp tục."
+                )
+        );
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(fallbackResponse);
+    }
 }
 
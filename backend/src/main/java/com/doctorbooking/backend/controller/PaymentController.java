@@ -1,15 +1,16 @@
 package com.doctorbooking.backend.controller;
 
+import com.doctorbooking.backend.config.AuthenticatedUser;
 import com.doctorbooking.backend.dto.request.TopUpRequest;
 import com.doctorbooking.backend.dto.response.TopUpResponse;
 import com.doctorbooking.backend.dto.response.WalletResponse;
 import com.doctorbooking.backend.dto.response.WalletTransactionResponse;
 import com.doctorbooking.backend.model.Patient;
+import com.doctorbooking.backend.model.PaymentCallback;
 import com.doctorbooking.backend.model.WalletTransaction;
-import com.doctorbooking.backend.model.User;
 import com.doctorbooking.backend.repository.PatientRepository;
 import com.doctorbooking.backend.service.PatientService;
-import com.doctorbooking.backend.service.UserService;
+import com.doctorbooking.backend.service.PaymentCallbackService;
 import com.doctorbooking.backend.service.VNPayService;
 import com.doctorbooking.backend.service.WalletService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,7 +24,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
@@ -39,10 +39,10 @@ public class PaymentController {
     private static final Logger logger = LoggerFactory.getLogger(PaymentController.class);
     private final WalletService walletService;
     private final VNPayService vnPayService;
-    private final UserService userService;
     private final PatientRepository patientRepository;
     private final com.doctorbooking.backend.service.AppointmentService appointmentService;
     private final com.doctorbooking.backend.repository.AppointmentRepository appointmentRepository;
+    private final PaymentCallbackService paymentCallbackService;
 
     @org.springframework.beans.factory.annotation.Value("${app.frontend.url}")
     private String frontendUrl;
@@ -54,8 +54,7 @@ public class PaymentController {
     @PreAuthorize("hasRole('PATIENT')")
     public ResponseEntity<WalletResponse> getWallet() {
         try {
-            Long userId = getCurrentUserId();
-            Patient patient = patientRepository.findByUserId(userId)
+            Patient patient = patientRepository.findById(getCurrentPatientId())
                     .orElseThrow(() -> new RuntimeException("Patient not found"));
 
             WalletResponse response = new WalletResponse(
@@ -76,8 +75,7 @@ public class PaymentController {
     @PreAuthorize("hasRole('PATIENT')")
     public ResponseEntity<TopUpResponse> topUp(@Valid @RequestBody TopUpRequest request) {
         try {
-            Long userId = getCurrentUserId();
-            Patient patient = patientRepository.findByUserId(userId)
+            Patient patient = patientRepository.findById(getCurrentPatientId())
                     .orElseThrow(() -> new RuntimeException("Patient not found"));
             Long patientId = patient.getId();
 
@@ -190,6 +188,15 @@ public class PaymentController {
                 return new org.springframework.web.servlet.ModelAndView("redirect:" + errorRedirectUrl);
             }
 
+            // Callback trùng (VNPAY retry / refresh trang) - không xử lý lại ví
+            if (!paymentCallbackService.tryAcquire(PaymentCallback.CallbackType.WALLET_DEPOSIT,
+                    vnp_TxnRef, vnp_TransactionNo, vnp_ResponseCode)) {
+                queryString.append("00".equals(vnp_ResponseCode)
+                        ? "&message=Thanh%20toan%20thanh%20cong"
+                        : "&message=Thanh%20toan%20that%20bai");
+                return new org.springframework.web.servlet.ModelAndView("redirect:" + redirectUrl + queryString);
+            }
+
             if ("00".equals(vnp_ResponseCode)) {
                 // Thanh toán thành công
                 logger.info("Processing successful payment for transaction: {}", vnp_TxnRef);
@@ -200,7 +207,7 @@ public class PaymentController {
                     queryString.append("&message=Thanh%20toan%20thanh%20cong");
                 } catch (Exception e) {
                     logger.error("Error completing transaction: {}", vnp_TxnRef, e);
-                    e.printStackTrace();
+                    paymentCallbackService.release(vnp_TxnRef, vnp_TransactionNo);
                     queryString.append("&message=Loi%20cap%20nhat%20giao%20dich");
                 }
             } else {
@@ -215,7 +222,7 @@ public class PaymentController {
                     queryString.append("&message=Thanh%20toan%20that%20bai");
                 } catch (Exception e) {
                     logger.error("Error updating transaction to FAILED: {}", vnp_TxnRef, e);
-                    e.printStackTrace();
+                    paymentCallbackService.release(vnp_TxnRef, vnp_TransactionNo);
                     queryString.append("&message=Loi%20cap%20nhat%20giao%20dich");
                 }
             }
@@ -292,6 +299,15 @@ public class PaymentController {
                 queryString.append("&vnp_Amount=").append(vnpParams.get("vnp_Amount"));
             }
 
+            // Callback trùng (VNPAY retry / refresh trang) - không cập nhật lại lịch hẹn
+            if (vnp_TxnRef != null && !paymentCallbackService.tryAcquire(PaymentCallback.CallbackType.APPOINTMENT,
+                    vnp_TxnRef, vnp_TransactionNo, vnp_ResponseCode)) {
+                queryString.append("00".equals(vnp_ResponseCode)
+                        ? "&message=Thanh%20toan%20thanh%20cong"
+                        : "&message=Thanh%20toan%20that%20bai");
+                return new org.springframework.web.servlet.ModelAndView("redirect:" + redirectUrl + queryString);
+            }
+
             if ("00".equals(vnp_ResponseCode)) {
                 // Thanh toán thành công
                 logger.info("Processing successful appointment payment: appointmentId={}", appointmentId);
@@ -307,6 +323,7 @@ public class PaymentController {
                     }
                 } catch (Exception e) {
                     logger.error("Error updating appointment payment status", e);
+                    paymentCallbackService.release(vnp_TxnRef, vnp_TransactionNo);
                     queryString.append("&message=Loi%20cap%20nhat%20trang%20thai");
                 }
             } else {
@@ -324,6 +341,7 @@ public class PaymentController {
                     }
                 } catch (Exception e) {
                     logger.error("Error cancelling appointment", e);
+                    paymentCallbackService.release(vnp_TxnRef, vnp_TransactionNo);
                     queryString.append("&message=Thanh%20toan%20that%20bai");
                 }
             }
@@ -348,10 +366,7 @@ public class PaymentController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            Long userId = getCurrentUserId();
-            Patient patient = patientRepository.findByUserId(userId)
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
-            Long patientId = patient.getId();
+            Long patientId = getCurrentPatientId();
 
             Pageable pageable = PageRequest.of(page, size);
             Page<WalletTransaction> transactions = walletService.getTransactions(patientId, pageable);
@@ -383,11 +398,8 @@ public class PaymentController {
                 transaction.getCreatedAt());
     }
 
-    private Long getCurrentUserId() {
-        org.springframework.security.core.Authentication authentication = SecurityContextHolder.getContext()
-                .getAuthentication();
-        String username = authentication.getName();
-        User user = userService.findByUsername(username);
-        return user.getId();
+    // patientId lấy từ claim trong JWT (JwtAuthenticationFilter), không query DB
+    private Long getCurrentPatientId() {
+        return AuthenticatedUser.current().requirePatientId();
     }
 }
@@ -5,6 +5,9 @@ import com.doctorbooking.backend.dto.request.UpdateUserRequest;
 import com.doctorbooking.backend.dto.request.UserRequest;
 import com.doctorbooking.backend.dto.response.UserResponse;
 import com.doctorbooking.backend.service.UserService;
+import com.doctorbooking.backend.util.JsonArrayStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -12,7 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/admin/users")
@@ -21,14 +24,16 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * Stream JSON array từ cursor DB (bộ nhớ không tăng theo số user), gzip theo Accept-Encoding
+     */
     @GetMapping
-    public ResponseEntity<List<UserResponse>> getAllUsers(
-            @RequestParam(required = false) String search) {
-        if (search != null && !search.trim().isEmpty()) {
-            return ResponseEntity.ok(userService.searchUsers(search));
-        }
-        return ResponseEntity.ok(userService.getAllUsers());
+    public void getAllUsers(
+            @RequestParam(required = false) String search,
+            HttpServletResponse response) throws IOException {
+        JsonArrayStreamer.<UserResponse>write(response, objectMapper, sink -> userService.streamUsers(search, sink));
     }
 
     @GetMapping("/{id}")
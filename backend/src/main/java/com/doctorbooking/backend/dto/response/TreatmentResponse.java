@@ -1,5 +1,6 @@
 package com.doctorbooking.backend.dto.response;
 
+import com.doctorbooking.backend.model.PrescriptionMedication;
 import com.doctorbooking.backend.model.Treatment;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -34,6 +35,13 @@ public class TreatmentResponse {
     private LocalDateTime updatedAt;
 
     public static TreatmentResponse fromEntity(Treatment treatment) {
+        return fromEntity(treatment, treatment.getMedications());
+    }
+
+    /**
+     * medications: các dòng đơn thuốc vừa ghi bằng batch insert (không nằm trong collection của entity)
+     */
+    public static TreatmentResponse fromEntity(Treatment treatment, List<PrescriptionMedication> medications) {
         TreatmentResponse response = new TreatmentResponse();
         response.setId(treatment.getId());
         response.setAppointmentId(treatment.getAppointment() != null ? treatment.getAppointment().getId() : null);
@@ -50,9 +58,9 @@ public class TreatmentResponse {
         response.setFollowUpDate(treatment.getFollowUpDate());
         response.setPrescriptionId(treatment.getPrescriptionId());
         response.setQrCodeUrl(treatment.getQrCodeUrl());
-        if (treatment.getMedications() != null) {
+        if (medications != null) {
             response.setMedications(
-                    treatment.getMedications().stream()
+                    medications.stream()
                             .map(TreatmentMedicationResponse::fromEntity)
                             .collect(Collectors.toList())
             );
@@ -1,5 +1,7 @@
 package com.doctorbooking.backend.exception;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -14,6 +16,8 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(
             MethodArgumentNotValidException ex) {
@@ -64,10 +68,10 @@ public class GlobalExceptionHandler {
         response.put("message", "Invalid username or password");
         response.put("error", ex.getClass().getSimpleName());
         response.put("details", ex.getMessage());
-        
-        // Log for debugging
-        ex.printStackTrace();
-        
+
+        // Sai mật khẩu là chuyện thường - không in stack trace
+        logger.debug("Authentication failed: {}", ex.getMessage());
+
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
     }
 }
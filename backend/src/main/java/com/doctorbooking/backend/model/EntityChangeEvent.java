@@ -0,0 +1,53 @@
+package com.doctorbooking.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sự kiện "entity đã thay đổi" để các node khác bỏ cache cục bộ (CacheInvalidationBus).
+ * Chỉ được lưu DB khi dùng transport jdbc (bảng entity_change_events được các node poll theo id tăng dần).
+ */
+@Entity
+@Table(name = "entity_change_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityChangeEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 30)
+    private EntityType entityType;
+
+    // null = thay đổi hàng loạt, bỏ toàn bộ cache của loại entity này
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(name = "origin_node", nullable = false, length = 64)
+    private String originNode;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public EntityChangeEvent(EntityType entityType, Long entityId, String originNode) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.originNode = originNode;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public enum EntityType {
+        DOCTOR, USER, APPOINTMENT
+    }
+}
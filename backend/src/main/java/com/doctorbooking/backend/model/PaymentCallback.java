@@ -0,0 +1,51 @@
+package com.doctorbooking.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ghi nhận các callback VNPAY đã xử lý (idempotency key = vnp_TxnRef + vnp_TransactionNo)
+ */
+@Entity
+@Table(name = "payment_callbacks",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"txn_ref", "transaction_no"}
+        ))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentCallback {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "txn_ref", nullable = false, length = 100)
+    private String txnRef;
+
+    @Column(name = "transaction_no", nullable = false, length = 50)
+    private String transactionNo = ""; // VNPAY có thể không gửi vnp_TransactionNo khi thất bại
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "callback_type", nullable = false, length = 30)
+    private CallbackType callbackType;
+
+    @Column(name = "response_code", length = 10)
+    private String responseCode;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public enum CallbackType {
+        WALLET_DEPOSIT, APPOINTMENT
+    }
+}
@@ -47,7 +47,7 @@ public class WalletTransaction {
     @Column(name = "payment_method", length = 50)
     private String paymentMethod;
 
-    @Column(name = "reference_id", length = 100)
+    @Column(name = "reference_id", length = 100, unique = true)
     private String referenceId;
 
     @Column(name = "created_at", updatable = false)
@@ -1,15 +1,23 @@
 package com.doctorbooking.backend.repository;
 
 import com.doctorbooking.backend.model.Appointment;
+import com.doctorbooking.backend.util.EntityStreams;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
@@ -23,6 +31,26 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     @Query("SELECT DISTINCT a FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.doctor")
     List<Appointment> findAll();
     
+    /**
+     * Danh sách admin dạng stream (cursor): fetch cả user của patient / doctor để không phát sinh N+1,
+     * không DISTINCT vì chỉ join quan hệ *-to-one
+     */
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient p JOIN FETCH p.user JOIN FETCH a.doctor d JOIN FETCH d.user " +
+           "ORDER BY a.id")
+    @QueryHints({
+        @QueryHint(name = EntityStreams.FETCH_SIZE_HINT, value = EntityStreams.FETCH_SIZE),
+        @QueryHint(name = EntityStreams.READ_ONLY_HINT, value = "true")
+    })
+    Stream<Appointment> streamAllWithRelations();
+
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.patient p JOIN FETCH p.user JOIN FETCH a.doctor d JOIN FETCH d.user " +
+           "WHERE a.appointmentDate = :date ORDER BY a.id")
+    @QueryHints({
+        @QueryHint(name = EntityStreams.FETCH_SIZE_HINT, value = EntityStreams.FETCH_SIZE),
+        @QueryHint(name = EntityStreams.READ_ONLY_HINT, value = "true")
+    })
+    Stream<Appointment> streamByAppointmentDate(@Param("date") LocalDate date);
+
     @Query("SELECT DISTINCT a FROM Appointment a JOIN FETCH a.patient JOIN FETCH a.doctor WHERE a.id = :id")
     Optional<Appointment> findByIdWithRelations(@Param("id") Long id);
     
@@ -70,5 +98,37 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
         @Param("targetDate") java.time.LocalDate targetDate,
         @Param("targetTime") java.time.LocalTime targetTime
     );
+
+    /**
+     * Lấy ID các lịch hẹn chờ thanh toán online đã quá hạn (người dùng bỏ dở trang VNPAY)
+     */
+    @Query("SELECT a.id FROM Appointment a WHERE a.paymentMethod = :paymentMethod " +
+           "AND a.paymentStatus = :paymentStatus AND a.status = :status AND a.createdAt < :cutoff ORDER BY a.id")
+    List<Long> findStaleOnlinePaymentIds(
+        @Param("paymentMethod") String paymentMethod,
+        @Param("paymentStatus") Appointment.PaymentStatus paymentStatus,
+        @Param("status") Appointment.AppointmentStatus status,
+        @Param("cutoff") LocalDateTime cutoff,
+        Pageable pageable
+    );
+
+    /**
+     * Hủy hàng loạt lịch hẹn chưa thanh toán (giải phóng slot) trong một câu UPDATE.
+     * Chỉ cập nhật lịch hẹn vẫn còn PENDING thanh toán để không ghi đè callback VNPAY vừa xử lý.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Appointment a SET a.status = :cancelledStatus, a.paymentStatus = :unpaidStatus, " +
+           "a.cancellationReason = :reason, a.updatedAt = :now " +
+           "WHERE a.id IN :ids AND a.paymentStatus = :pendingPaymentStatus AND a.status = :pendingStatus")
+    int bulkCancelUnpaid(
+        @Param("ids") List<Long> ids,
+        @Param("pendingPaymentStatus") Appointment.PaymentStatus pendingPaymentStatus,
+        @Param("pendingStatus") Appointment.AppointmentStatus pendingStatus,
+        @Param("cancelledStatus") Appointment.AppointmentStatus cancelledStatus,
+        @Param("unpaidStatus") Appointment.PaymentStatus unpaidStatus,
+        @Param("reason") String reason,
+        @Param("now") LocalDateTime now
+    );
 }
 
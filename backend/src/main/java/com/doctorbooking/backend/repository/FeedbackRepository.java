@@ -1,23 +1,47 @@
 package com.doctorbooking.backend.repository;
 
 import com.doctorbooking.backend.model.Feedback;
+import com.doctorbooking.backend.util.EntityStreams;
+import com.doctorbooking.backend.util.ResourceVersion;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     // Patient queries
     List<Feedback> findByPatientIdOrderByCreatedAtDesc(Long patientId);
+
+    @Query("SELECT new com.doctorbooking.backend.util.ResourceVersion(COUNT(f), MAX(f.updatedAt)) " +
+           "FROM Feedback f WHERE f.patient.id = :patientId")
+    ResourceVersion findVersionByPatientId(@Param("patientId") Long patientId);
     Optional<Feedback> findByAppointmentId(Long appointmentId);
     
     // Doctor queries
     List<Feedback> findByDoctorIdOrderByCreatedAtDesc(Long doctorId);
+
+    @Query("SELECT new com.doctorbooking.backend.util.ResourceVersion(COUNT(f), MAX(f.updatedAt)) " +
+           "FROM Feedback f WHERE f.doctor.id = :doctorId")
+    ResourceVersion findVersionByDoctorId(@Param("doctorId") Long doctorId);
     List<Feedback> findByDoctorIdAndRatingOrderByCreatedAtDesc(Long doctorId, Integer rating);
     
     // Admin queries
     List<Feedback> findAllByOrderByCreatedAtDesc();
     List<Feedback> findByStatusOrderByCreatedAtDesc(Feedback.FeedbackStatus status);
+
+    // Admin list dạng stream (cursor), fetch mọi quan hệ *-to-one mà FeedbackResponse dùng
+    @Query("SELECT f FROM Feedback f JOIN FETCH f.patient p JOIN FETCH p.user JOIN FETCH f.doctor d JOIN FETCH d.user " +
+           "JOIN FETCH f.appointment WHERE (:status IS NULL OR f.status = :status) ORDER BY f.createdAt DESC")
+    @QueryHints({
+        @QueryHint(name = EntityStreams.FETCH_SIZE_HINT, value = EntityStreams.FETCH_SIZE),
+        @QueryHint(name = EntityStreams.READ_ONLY_HINT, value = "true")
+    })
+    Stream<Feedback> streamByStatus(@Param("status") Feedback.FeedbackStatus status);
 }
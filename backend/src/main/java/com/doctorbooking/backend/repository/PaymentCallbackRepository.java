@@ -0,0 +1,12 @@
+package com.doctorbooking.backend.repository;
+
+import com.doctorbooking.backend.model.PaymentCallback;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PaymentCallbackRepository extends JpaRepository<PaymentCallback, Long> {
+    Optional<PaymentCallback> findByTxnRefAndTransactionNo(String txnRef, String transactionNo);
+}
@@ -2,11 +2,19 @@ package com.doctorbooking.backend.repository;
 
 import com.doctorbooking.backend.model.PrescriptionMedication;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
-public interface PrescriptionMedicationRepository extends JpaRepository<PrescriptionMedication, Long> {
+public interface PrescriptionMedicationRepository extends JpaRepository<PrescriptionMedication, Long>,
+        PrescriptionMedicationRepositoryCustom {
     List<PrescriptionMedication> findByTreatmentIdOrderByOrderIndexAsc(Long treatmentId);
-    void deleteByTreatmentId(Long treatmentId);
+
+    // Một câu DELETE (derived deleteBy... nạp từng dòng rồi xóa từng dòng)
+    @Modifying
+    @Query("DELETE FROM PrescriptionMedication pm WHERE pm.treatment.id = :treatmentId")
+    int deleteByTreatmentId(@Param("treatmentId") Long treatmentId);
 }
 
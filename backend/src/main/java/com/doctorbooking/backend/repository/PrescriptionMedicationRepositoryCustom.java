@@ -0,0 +1,14 @@
+package com.doctorbooking.backend.repository;
+
+import com.doctorbooking.backend.model.PrescriptionMedication;
+
+import java.util.List;
+
+public interface PrescriptionMedicationRepositoryCustom {
+
+    /**
+     * Ghi nhiều dòng đơn thuốc bằng một JDBC batch (IDENTITY khiến Hibernate không batch được insert).
+     * Id sinh ra được gán lại vào từng phần tử; các phần tử không trở thành entity được quản lý.
+     */
+    void insertAll(List<PrescriptionMedication> medications);
+}
@@ -0,0 +1,65 @@
+package com.doctorbooking.backend.repository;
+
+import com.doctorbooking.backend.model.PrescriptionMedication;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JdbcTemplate dùng chung connection của transaction JPA đang chạy (JpaTransactionManager),
+ * nên treatment vừa lưu đã thấy được và batch này commit / rollback cùng phần còn lại.
+ * Với rewriteBatchedStatements=true driver MySQL gửi cả batch thành một câu INSERT nhiều dòng.
+ */
+@RequiredArgsConstructor
+public class PrescriptionMedicationRepositoryCustomImpl implements PrescriptionMedicationRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO prescription_medications (treatment_id, medication_id, "
+            + "medication_name, dosage, frequency, duration, quantity, unit, instructions, price, order_index) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<PrescriptionMedication> medications) {
+        if (medications.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (PrescriptionMedication pm : medications) {
+                    ps.setLong(1, pm.getTreatment().getId());
+                    if (pm.getMedication() != null) {
+                        ps.setLong(2, pm.getMedication().getId());
+                    } else {
+                        ps.setNull(2, Types.BIGINT);
+                    }
+                    ps.setString(3, pm.getMedicationName());
+                    ps.setString(4, pm.getDosage());
+                    ps.setString(5, pm.getFrequency());
+                    ps.setString(6, pm.getDuration());
+                    ps.setObject(7, pm.getQuantity(), Types.INTEGER);
+                    ps.setString(8, pm.getUnit());
+                    ps.setString(9, pm.getInstructions());
+                    ps.setBigDecimal(10, pm.getPrice());
+                    ps.setObject(11, pm.getOrderIndex(), Types.INTEGER);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < medications.size()) {
+                        medications.get(i++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -1,7 +1,10 @@
 package com.doctorbooking.backend.repository;
 
 import com.doctorbooking.backend.model.Treatment;
+import com.doctorbooking.backend.util.ResourceVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,6 +12,10 @@ import java.util.List;
 @Repository
 public interface TreatmentRepository extends JpaRepository<Treatment, Long> {
     List<Treatment> findByPatientId(Long patientId);
+
+    @Query("SELECT new com.doctorbooking.backend.util.ResourceVersion(COUNT(t), MAX(t.updatedAt)) " +
+           "FROM Treatment t WHERE t.patient.id = :patientId")
+    ResourceVersion findVersionByPatientId(@Param("patientId") Long patientId);
     List<Treatment> findByDoctorId(Long doctorId);
     List<Treatment> findByAppointmentId(Long appointmentId);
 }
@@ -1,10 +1,15 @@
 package com.doctorbooking.backend.repository;
 
 import com.doctorbooking.backend.model.User;
+import com.doctorbooking.backend.util.EntityStreams;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -12,5 +17,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    // Danh sách admin dạng stream (cursor)
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    @QueryHints({
+        @QueryHint(name = EntityStreams.FETCH_SIZE_HINT, value = EntityStreams.FETCH_SIZE),
+        @QueryHint(name = EntityStreams.READ_ONLY_HINT, value = "true")
+    })
+    Stream<User> streamAll();
 }
 
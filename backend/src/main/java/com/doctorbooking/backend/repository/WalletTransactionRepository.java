@@ -4,8 +4,13 @@ import com.doctorbooking.backend.model.WalletTransaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -13,5 +18,34 @@ public interface WalletTransactionRepository extends JpaRepository<WalletTransac
     Page<WalletTransaction> findByPatientIdOrderByCreatedAtDesc(Long patientId, Pageable pageable);
     List<WalletTransaction> findByPatientIdOrderByCreatedAtDesc(Long patientId);
     WalletTransaction findByReferenceId(String referenceId);
+
+    /**
+     * Lấy ID các giao dịch nạp tiền PENDING đã quá hạn (người dùng bỏ dở trang VNPAY)
+     */
+    @Query("SELECT t.id FROM WalletTransaction t WHERE t.transactionType = :type AND t.status = :status " +
+           "AND t.createdAt < :cutoff ORDER BY t.id")
+    List<Long> findStaleTransactionIds(
+        @Param("type") WalletTransaction.TransactionType type,
+        @Param("status") WalletTransaction.TransactionStatus status,
+        @Param("cutoff") LocalDateTime cutoff,
+        Pageable pageable
+    );
+
+    /**
+     * Cập nhật hàng loạt giao dịch PENDING sang trạng thái mới trong một câu UPDATE.
+     * Điều kiện status = PENDING giúp không ghi đè giao dịch vừa được callback hoàn tất.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WalletTransaction t SET t.status = :newStatus, " +
+           "t.description = CONCAT(COALESCE(t.description, ''), :reasonSuffix), t.updatedAt = :now " +
+           "WHERE t.id IN :ids AND t.status = :pendingStatus")
+    int bulkUpdatePendingStatus(
+        @Param("ids") List<Long> ids,
+        @Param("pendingStatus") WalletTransaction.TransactionStatus pendingStatus,
+        @Param("newStatus") WalletTransaction.TransactionStatus newStatus,
+        @Param("reasonSuffix") String reasonSuffix,
+        @Param("now") LocalDateTime now
+    );
 }
 
@@ -1,23 +1,37 @@
 package com.doctorbooking.backend.service;
 
 import com.doctorbooking.backend.dto.response.SymptomCheckResponse;
-import com.doctorbooking.backend.repository.DoctorRepository;
+import com.doctorbooking.backend.util.IncrementalSymptomJsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,7 +39,12 @@ import java.util.regex.Pattern;
 @RequiredArgsConstructor
 public class AISymptomService {
 
-    private final DoctorRepository doctorRepository;
+    private final SymptomResponseCache responseCache;
+    private final SymptomTriageEngine triageEngine;
+    private final HttpClient groqHttpClient;
+    private final SymptomPromptBuilder promptBuilder;
+    private final GroqCircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final Logger logger = LoggerFactory.getLogger(AISymptomService.class);
     private static final int MAX_RETRIES = 2;
@@ -34,213 +53,298 @@ public class AISymptomService {
     @Value("${groq.api-key}")
     private String apiKey;
 
-    // Sử dụng Groq API với model llama-3.3-70b-versatile
-    private final String GROQ_URL = "https://api.groq.com/openai/v1/chat/completions";
-    private final String MODEL = "llama-3.3-70b-versatile";
+    // Số lời gọi Groq đồng thời tối đa (bulkhead) - vượt quá thì trả fallback ngay thay vì xếp hàng
+    @Value("${ai.groq.max-concurrent-calls:8}")
+    private int maxConcurrentCalls;
 
-    // https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent
-    public SymptomCheckResponse analyzeSymptoms(String userInput) {
-        logger.info("--- Nhận input từ người dùng: '{}' ---", userInput);
+    @Value("${ai.groq.retry.base-delay-ms:500}")
+    private long retryBaseDelayMs;
 
-        try {
-            // 1. Lấy danh sách chuyên khoa hiện có
-            List<String> availableSpecializations = doctorRepository.findDistinctSpecializations();
-            String specializationsStr = String.join(", ", availableSpecializations);
-            logger.debug("Khoa hiện có: {}", specializationsStr);
+    // Sử dụng Groq API (OpenAI-compatible); đổi base-url để trỏ tới stub server khi test
+    @Value("${groq.base-url:https://api.groq.com/openai/v1}")
+    private String groqBaseUrl;
 
-            // 2. Tạo Prompt thông minh hơn - có thể xử lý cả câu hỏi chung chung
-            String prompt = buildSmartPrompt(userInput, specializationsStr);
+    private Semaphore groqBulkhead;
+    private URI chatCompletionsUri;
 
-            // 3. Gọi API với retry logic
-            String responseBody = callGroqApiWithRetry(prompt);
+    @PostConstruct
+    public void init() {
+        groqBulkhead = new Semaphore(maxConcurrentCalls);
+        meterRegistry.gauge("groq.bulkhead.in_use", groqBulkhead,
+                bulkhead -> maxConcurrentCalls - bulkhead.availablePermits());
+        chatCompletionsUri = URI.create(groqBaseUrl.replaceAll("/+$", "") + "/chat/completions");
+    }
 
-            // 4. Parse response với xử lý lỗi tốt hơn
-            return parseGroqResponse(responseBody, userInput, specializationsStr);
+    /**
+     * Phân tích triệu chứng không chặn thread: lời gọi Groq chạy bất đồng bộ trên HttpClient dùng chung,
+     * thread của Tomcat được trả lại ngay. Future luôn hoàn thành bình thường (lỗi -> fallback response).
+     */
+    @Timed(value = "ai.symptoms.analyze", extraTags = {"mode", "json"})
+    public CompletableFuture<SymptomCheckResponse> analyzeSymptomsAsync(String userInput) {
+        logger.info("--- Nhận input từ người dùng: '{}' ---", userInput);
+
+        try {
+            // 1. Danh sách chuyên khoa hiện có + system prompt dựng sẵn
+            SymptomPromptBuilder.PromptSnapshot prompt = promptBuilder.current();
+            List<String> availableSpecializations = prompt.specializations();
+            String specializationsStr = prompt.specializationsStr();
+
+            // 2-3. Triage cục bộ, rồi tới cache
+            String cacheKey = responseCache.buildKey(userInput, availableSpecializations);
+            SymptomCheckResponse immediate = answerWithoutLlm(userInput, availableSpecializations, cacheKey);
+            if (immediate != null) {
+                return CompletableFuture.completedFuture(immediate);
+            }
+
+            // 4. Request body: system prompt dùng lại + input của người dùng
+            byte[] requestBody = promptBuilder.buildRequestBody(prompt, userInput, false);
+
+            // 5. Gọi API với retry logic (không chặn thread)
+            return callGroqApiWithRetry(requestBody, 1)
+                    .thenApply(responseBody -> {
+                        // 6. Parse response với xử lý lỗi tốt hơn; chỉ cache câu trả lời parse được từ LLM
+                        SymptomCheckResponse response = parseGroqResponse(responseBody);
+                        if (response == null) {
+                            return createIntelligentFallback(userInput, specializationsStr);
+                        }
+                        responseCache.put(cacheKey, response);
+                        return response;
+                    })
+                    .exceptionally(e -> createFallbackResponse(userInput, e));
 
         } catch (Exception e) {
             logger.error("Lỗi khi phân tích input: ", e);
             // Trả về response thông minh hơn dựa trên loại lỗi
-            return createFallbackResponse(userInput, e);
+            return CompletableFuture.completedFuture(createFallbackResponse(userInput, e));
         }
     }
 
-    private String buildSmartPrompt(String userInput, String specializationsStr) {
-        // Tạo mapping triệu chứng -> chuyên khoa để AI hiểu rõ hơn
-        String symptomMappingGuide = buildSymptomMappingGuide(specializationsStr);
-
-        return String.format(
-                "Bạn là trợ lý sức khỏe thông minh và thân thiện của hệ thống đặt lịch khám bệnh. " +
-                        "Người dùng đã nói: '%s'. " +
-                        "Danh sách các chuyên khoa hiện có trong hệ thống: [%s]. " +
-                        "\n\n" +
-                        "%s" +
-                        "\n\n" +
-                        "NHIỆM VỤ CỦA BẠN (phân tích kỹ loại câu nói của người dùng): " +
-                        "\n\n" +
-                        "1. Nếu người dùng CHÀO HỎI hoặc NÓI CHUYỆN XÃ GIAO (ví dụ: 'xin chào', 'hello', 'chào bạn', 'cảm ơn', 'tạm biệt', v.v.): "
-                        +
-                        "   - Trả lời một cách tự nhiên, thân thiện và ngắn gọn như một cuộc trò chuyện bình thường. " +
-                        "   - Giới thiệu ngắn gọn về khả năng của bạn và hướng dẫn cách sử dụng. " +
-                        "   - 'suggestedSpecialization': 'Other'. " +
-                        "   - 'riskLevel': 'Low'. " +
-                        "   - 'advice': Câu trả lời tự nhiên, thân thiện, KHÔNG dùng từ 'chẩn đoán', KHÔNG đưa ra lời khuyên y tế. "
-                        +
-                        "   - 'reason': Để TRỐNG (empty string \"\") - KHÔNG đưa ra lý do kỹ thuật. " +
-                        "   - 'homeRemedies': Để TRỐNG (mảng rỗng []) - KHÔNG đưa ra lời khuyên tại nhà khi chỉ là chào hỏi. "
-                        +
-                        "\n\n" +
-                        "2. Nếu người dùng mô tả TRIỆU CHỨNG bệnh (ví dụ: 'đau đầu', 'sốt', 'ho', 'đau bụng', 'nôn', 'đau dạ dày', v.v.): "
-                        +
-                        "   - Phân tích triệu chứng một cách chuyên nghiệp và xác định chuyên khoa phù hợp NHẤT từ danh sách trên. "
-                        +
-                        "   - SỬ DỤNG BẢNG MAPPING Ở TRÊN để tìm chuyên khoa phù hợp. " +
-                        "   - Nếu có chuyên khoa phù hợp: 'suggestedSpecialization' = tên khoa (tiếng Anh, chính xác như trong danh sách). "
-                        +
-                        "   - Nếu không có khoa chính xác nhưng có khoa GẦN NHẤT: chọn khoa gần nhất (ví dụ: đau bụng -> Gastroenterology hoặc Internal Medicine nếu có). "
-                        +
-                        "   - CHỈ đặt 'Other' khi thực sự không có khoa nào liên quan. " +
-                        "   - 'riskLevel': Đánh giá mức độ nghiêm trọng dựa trên triệu chứng (Low/Medium/High). " +
-                        "   - 'advice': Lời khuyên cụ thể về việc nên làm gì, BAO GỒM gợi ý khám chuyên khoa nào (Tiếng Việt, chi tiết, chuyên nghiệp). "
-                        +
-                        "   - 'reason': Giải thích ngắn gọn tại sao nên khám khoa đó (Tiếng Việt, dễ hiểu, KHÔNG dùng từ kỹ thuật như 'người dùng'). "
-                        +
-                        "   - 'homeRemedies': Danh sách 2-3 biện pháp tại nhà để giảm triệu chứng (mảng JSON string, Tiếng Việt). "
-                        +
-                        "\n\n" +
-                        "3. Nếu người dùng hỏi CÂU HỎI FOLLOW-UP về khoa khám (ví dụ: 'vậy tôi nên khám khoa nào', 'nên khám ở khoa nào', 'khoa nào phù hợp', 'tôi nên khám khoa nào ở hệ thống bên bạn'): "
-                        +
-                        "   - Đây là câu hỏi follow-up, có nghĩa là người dùng đã nói về triệu chứng trước đó. " +
-                        "   - PHÂN TÍCH câu hỏi để tìm manh mối về triệu chứng (ví dụ: nếu câu hỏi có từ 'đau bụng' -> Gastroenterology). "
-                        +
-                        "   - Nếu câu hỏi KHÔNG chứa triệu chứng cụ thể: trả lời chung chung về cách sử dụng hệ thống và yêu cầu mô tả triệu chứng. "
-                        +
-                        "   - Nếu câu hỏi CÓ chứa triệu chứng: gợi ý khoa phù hợp dựa trên triệu chứng đó. " +
-                        "   - 'suggestedSpecialization': Khoa phù hợp hoặc 'Other' nếu không xác định được. " +
-                        "   - 'riskLevel': 'Low' (vì đây là câu hỏi thông tin). " +
-                        "   - 'advice': Trả lời câu hỏi một cách chi tiết, gợi ý khoa cụ thể nếu có thể. " +
-                        "   - 'reason': Giải thích ngắn gọn tại sao gợi ý khoa đó (Tiếng Việt, dễ hiểu). " +
-                        "   - 'homeRemedies': Để TRỐNG hoặc thêm 1-2 lời khuyên chung nếu phù hợp. " +
-                        "\n\n" +
-                        "4. Nếu người dùng hỏi CÂU HỎI CHUNG về y tế (ví dụ: 'các chuyên khoa có gì', 'tìm bác sĩ', v.v.): "
-                        +
-                        "   - Trả lời câu hỏi một cách hữu ích và chuyên nghiệp (Tiếng Việt). " +
-                        "   - Liệt kê các chuyên khoa có sẵn nếu được hỏi. " +
-                        "   - 'suggestedSpecialization': 'Other' hoặc khoa phù hợp nếu câu hỏi cụ thể. " +
-                        "   - 'riskLevel': 'Low'. " +
-                        "   - 'advice': Trả lời câu hỏi một cách chi tiết và hữu ích. " +
-                        "   - 'reason': Để TRỐNG hoặc giải thích ngắn gọn. " +
-                        "   - 'homeRemedies': Để TRỐNG. " +
-                        "\n\n" +
-                        "5. Nếu người dùng nói điều gì KHÔNG LIÊN QUAN đến y tế: " +
-                        "   - Trả lời lịch sự và chuyên nghiệp. " +
-                        "   - Nhẹ nhàng hướng dẫn người dùng cách sử dụng hệ thống. " +
-                        "   - 'suggestedSpecialization': 'Other'. " +
-                        "   - 'riskLevel': 'Low'. " +
-                        "   - 'advice': Câu trả lời thân thiện, hướng dẫn cách sử dụng. " +
-                        "   - 'reason': Để TRỐNG. " +
-                        "   - 'homeRemedies': Để TRỐNG. " +
-                        "\n\n" +
-                        "QUY TẮC QUAN TRỌNG: " +
-                        "- LUÔN cố gắng tìm chuyên khoa phù hợp từ danh sách, CHỈ dùng 'Other' khi thực sự không có khoa nào liên quan. "
-                        +
-                        "- Nếu không có khoa chính xác, chọn khoa GẦN NHẤT (ví dụ: đau bụng -> Gastroenterology, không có thì Internal Medicine). "
-                        +
-                        "- 'reason' CHỈ điền khi có phân tích y tế thực sự, KHÔNG điền khi chỉ là chào hỏi. " +
-                        "- 'homeRemedies' CHỈ điền khi có triệu chứng cụ thể cần lời khuyên tại nhà. " +
-                        "- 'advice' phải tự nhiên, không dùng từ kỹ thuật như 'người dùng', 'hệ thống', 'phân tích', v.v. "
-                        +
-                        "- Luôn trả lời bằng Tiếng Việt, trừ tên chuyên khoa (tiếng Anh). " +
-                        "- Luôn trả về đúng định dạng JSON, KHÔNG dùng markdown, KHÔNG dùng code block. " +
-                        "\n\n" +
-                        "ĐỊNH DẠNG JSON BẮT BUỘC (chỉ trả về JSON thuần, không có text khác): " +
-                        "{ " +
-                        "\"suggestedSpecialization\": \"Tên khoa hoặc Other\", " +
-                        "\"riskLevel\": \"Low/Medium/High\", " +
-                        "\"advice\": \"Câu trả lời tự nhiên bằng Tiếng Việt\", " +
-                        "\"reason\": \"Lý do (để trống nếu không cần)\", " +
-                        "\"homeRemedies\": [\"Biện pháp 1\", \"Biện pháp 2\"] hoặc [] nếu không cần " +
-                        "}",
-                userInput, specializationsStr, symptomMappingGuide);
+    /**
+     * Phiên bản streaming: yêu cầu Groq trả SSE và parse dần JSON của AI, phát "advice" và từng "homeRemedies"
+     * cho listener ngay khi nhận được token. Future hoàn thành với câu trả lời đầy đủ (đã validate) khi stream kết thúc.
+     * Trả lời cục bộ / cache hit không đi qua listener - chỉ có kết quả cuối cùng.
+     */
+    @Timed(value = "ai.symptoms.analyze", extraTags = {"mode", "stream"})
+    public CompletableFuture<SymptomCheckResponse> analyzeSymptomsStreaming(String userInput,
+                                                                           IncrementalSymptomJsonParser.Listener listener) {
+        logger.info("--- Nhận input (streaming) từ người dùng: '{}' ---", userInput);
+
+        try {
+            SymptomPromptBuilder.PromptSnapshot prompt = promptBuilder.current();
+            List<String> availableSpecializations = prompt.specializations();
+            String specializationsStr = prompt.specializationsStr();
+
+            String cacheKey = responseCache.buildKey(userInput, availableSpecializations);
+            SymptomCheckResponse immediate = answerWithoutLlm(userInput, availableSpecializations, cacheKey);
+            if (immediate != null) {
+                return CompletableFuture.completedFuture(immediate);
+            }
+
+            byte[] requestBody = promptBuilder.buildRequestBody(prompt, userInput, true);
+            IncrementalSymptomJsonParser parser = new IncrementalSymptomJsonParser(listener);
+
+            // Không retry: client có thể đã nhận một phần câu trả lời
+            return callGroqApiStreaming(requestBody, parser)
+                    .thenApply(ignored -> {
+                        SymptomCheckResponse response = parseAiContent(parser.getText());
+                        if (response == null) {
+                            return createIntelligentFallback(userInput, specializationsStr);
+                        }
+                        responseCache.put(cacheKey, response);
+                        return response;
+                    })
+                    .exceptionally(e -> createFallbackResponse(userInput, e));
+
+        } catch (Exception e) {
+            logger.error("Lỗi khi phân tích input (streaming): ", e);
+            return CompletableFuture.completedFuture(createFallbackResponse(userInput, e));
+        }
     }
 
-    private String buildSymptomMappingGuide(String specializationsStr) {
-        return "BẢNG MAPPING TRIỆU CHỨNG -> CHUYÊN KHOA (sử dụng để gợi ý chính xác):\n" +
-                "- Đau bụng, đau dạ dày, nôn, buồn nôn, tiêu chảy, táo bón, đầy hơi, khó tiêu -> Gastroenterology (Tiêu hóa) hoặc Internal Medicine (Nội khoa)\n"
-                +
-                "- Đau đầu, chóng mặt, đau nửa đầu, co giật -> Neurology (Thần kinh)\n" +
-                "- Đau ngực, khó thở, tim đập nhanh, huyết áp cao -> Cardiology (Tim mạch)\n" +
-                "- Ho, đau họng, nghẹt mũi, đau tai -> ENT (Tai mũi họng) hoặc Pulmonology (Hô hấp)\n" +
-                "- Đau khớp, đau lưng, đau cổ, viêm khớp -> Orthopedics (Xương khớp) hoặc Rheumatology (Thấp khớp)\n" +
-                "- Phát ban, ngứa, mụn, viêm da -> Dermatology (Da liễu)\n" +
-                "- Đau mắt, mờ mắt, đỏ mắt -> Ophthalmology (Mắt)\n" +
-                "- Lo âu, trầm cảm, mất ngủ, stress -> Psychiatry (Tâm thần) hoặc Psychology (Tâm lý)\n" +
-                "- Vấn đề về kinh nguyệt, mang thai, phụ khoa -> Obstetrics/Gynecology (Sản phụ khoa)\n" +
-                "- Bệnh trẻ em, sốt ở trẻ, phát triển trẻ -> Pediatrics (Nhi khoa)\n" +
-                "- Tiểu đường, béo phì, rối loạn hormone -> Endocrinology (Nội tiết)\n" +
-                "- Ung thư, khối u -> Oncology (Ung bướu)\n" +
-                "\n" +
-                "LƯU Ý: Nếu trong danh sách chuyên khoa [" + specializationsStr
-                + "] không có khoa chính xác, hãy chọn khoa GẦN NHẤT hoặc phù hợp nhất. " +
-                "Ví dụ: Nếu không có 'Gastroenterology' nhưng có 'Internal Medicine', thì chọn 'Internal Medicine' cho đau bụng.\n";
+    /**
+     * Câu chào hỏi / triệu chứng rõ ràng thuộc một khoa -> trả lời cục bộ; sau đó tra cache theo input đã chuẩn hóa.
+     * Trả về null nếu cần gọi LLM.
+     */
+    private SymptomCheckResponse answerWithoutLlm(String userInput, List<String> availableSpecializations,
+                                                  String cacheKey) {
+        Optional<SymptomCheckResponse> local = triageEngine.triage(userInput, availableSpecializations);
+        if (local.isPresent()) {
+            logger.debug("Triage cục bộ: {}", local.get().getSuggestedSpecialization());
+            return local.get();
+        }
+
+        SymptomCheckResponse cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            logger.debug("AI response cache hit: {}", cacheKey);
+        }
+        return cached;
     }
 
-    private String callGroqApiWithRetry(String prompt) throws Exception {
-        Exception lastException = null;
+    /**
+     * Retry không chặn thread: chờ backoff (có jitter) bằng delayedExecutor thay vì Thread.sleep
+     */
+    private CompletableFuture<String> callGroqApiWithRetry(byte[] requestBody, int attempt) {
+        logger.debug("Gọi Groq API - Lần thử: {}/{}", attempt, MAX_RETRIES);
+        return callGroqApi(requestBody)
+                .handle((body, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(body);
+                    }
+                    Throwable cause = unwrap(error);
+                    if (attempt >= MAX_RETRIES || !isRetryable(cause)) {
+                        return CompletableFuture.<String>failedFuture(new RuntimeException(
+                                "Không thể kết nối đến Groq API sau " + attempt + " lần thử", cause));
+                    }
+                    long delayMs = backoffDelayMs(attempt);
+                    logger.warn("Lần thử {} thất bại: {} - thử lại sau {}ms", attempt, cause.getMessage(), delayMs);
+                    return CompletableFuture.runAsync(() -> { },
+                                    CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> callGroqApiWithRetry(requestBody, attempt + 1));
+                })
+                .thenCompose(Function.identity());
+    }
 
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                logger.debug("Gọi Groq API - Lần thử: {}/{}", attempt, MAX_RETRIES);
-                return callGroqApi(prompt);
-            } catch (Exception e) {
-                lastException = e;
-                logger.warn("Lần thử {} thất bại: {}", attempt, e.getMessage());
-                if (attempt < MAX_RETRIES) {
-                    // Đợi một chút trước khi retry
-                    Thread.sleep(1000 * attempt);
+    private CompletableFuture<String> callGroqApi(byte[] requestBody) {
+        RuntimeException rejected = acquireGroqPermit();
+        if (rejected != null) {
+            return CompletableFuture.failedFuture(rejected);
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            HttpRequest request = buildGroqRequest(requestBody, false);
+
+            return groqHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> {
+                        if (response.statusCode() != 200) {
+                            logger.error("Groq API trả về status code: {}, body: {}", response.statusCode(), response.body());
+                            throw new GroqApiException(response.statusCode(), response.body());
+                        }
+                        return response.body();
+                    })
+                    .whenComplete((body, error) -> releaseGroqPermit(startNanos, error, true));
+        } catch (RuntimeException e) {
+            releaseGroqPermit(startNanos, e, true);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Gọi Groq với "stream": true. Mỗi dòng SSE "data: {...}" chứa một đoạn choices[0].delta.content,
+     * được đưa ngay vào parser. Future hoàn thành khi stream kết thúc.
+     */
+    private CompletableFuture<Void> callGroqApiStreaming(byte[] requestBody, IncrementalSymptomJsonParser parser) {
+        RuntimeException rejected = acquireGroqPermit();
+        if (rejected != null) {
+            return CompletableFuture.failedFuture(rejected);
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            HttpRequest request = buildGroqRequest(requestBody, true);
+            HttpResponse.BodyHandler<Void> bodyHandler = responseInfo -> {
+                if (responseInfo.statusCode() != 200) {
+                    // Lỗi: đọc hết body để đưa vào exception
+                    return HttpResponse.BodySubscribers.mapping(
+                            HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                            body -> {
+                                logger.error("Groq API (stream) trả về status code: {}, body: {}",
+                                        responseInfo.statusCode(), body);
+                                throw new GroqApiException(responseInfo.statusCode(), body);
+                            });
                 }
-            }
+                return HttpResponse.BodySubscribers.fromLineSubscriber(new GroqStreamSubscriber(parser));
+            };
+
+            // Thời gian stream phụ thuộc độ dài câu trả lời -> không tính slow call
+            return groqHttpClient.sendAsync(request, bodyHandler)
+                    .whenComplete((response, error) -> releaseGroqPermit(startNanos, error, false))
+                    .thenApply(response -> null);
+        } catch (RuntimeException e) {
+            releaseGroqPermit(startNanos, e, false);
+            return CompletableFuture.failedFuture(e);
         }
+    }
 
-        throw new RuntimeException("Không thể kết nối đến Groq API sau " + MAX_RETRIES + " lần thử", lastException);
+    /**
+     * Bulkhead (không xếp hàng chờ LLM khi đã đủ số lời gọi đang chạy) + circuit breaker (Groq đang lỗi/chậm
+     * -> fallback cục bộ ngay). Trả về exception nếu không được gọi, null nếu đã lấy được permit.
+     */
+    private RuntimeException acquireGroqPermit() {
+        if (!groqBulkhead.tryAcquire()) {
+            return new GroqBulkheadFullException(maxConcurrentCalls);
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            groqBulkhead.release();
+            return new GroqCircuitOpenException();
+        }
+        return null;
     }
 
-    private String callGroqApi(String prompt) throws Exception {
-        // Escape prompt đúng cách
-        String escapedPrompt = prompt.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
-
-        // Groq sử dụng định dạng OpenAI-compatible
-        String requestBody = String.format(
-                "{ \"model\": \"%s\", \"messages\": [{ \"role\": \"user\", \"content\": \"%s\" }], \"temperature\": 0.7, \"max_tokens\": 2000 }",
-                MODEL, escapedPrompt);
-
-        HttpClient client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(TIMEOUT_SECONDS))
-                .build();
+    private void releaseGroqPermit(long startNanos, Throwable error, boolean measureLatency) {
+        groqBulkhead.release();
+        Timer.builder("groq.calls")
+                .tag("mode", measureLatency ? "json" : "stream")
+                .tag("outcome", error == null ? "success" : unwrap(error).getClass().getSimpleName())
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        // Lỗi 4xx (trừ 429) do request, không phản ánh tình trạng của Groq
+        if (error == null || !isRetryable(unwrap(error))) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            circuitBreaker.onSuccess(measureLatency ? elapsedMillis : 0);
+        } else {
+            circuitBreaker.onError();
+        }
+    }
 
+    private HttpRequest buildGroqRequest(byte[] requestBody, boolean stream) {
         // Groq sử dụng Bearer token authentication
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(GROQ_URL))
+        return HttpRequest.newBuilder()
+                .uri(chatCompletionsUri)
                 .header("Content-Type", "application/json")
+                .header("Accept", stream ? "text/event-stream" : "application/json")
                 .header("Authorization", "Bearer " + apiKey)
                 .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody))
                 .build();
+    }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    // Chỉ retry lỗi tạm thời: lỗi mạng/timeout, 429 (rate limit), 5xx
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof GroqApiException apiError) {
+            return apiError.statusCode == 429 || apiError.statusCode >= 500;
+        }
+        return error instanceof IOException;
+    }
 
-        if (response.statusCode() != 200) {
-            logger.error("Groq API trả về status code: {}, body: {}", response.statusCode(), response.body());
-            throw new RuntimeException("Groq API Error (Status: " + response.statusCode() + "): " + response.body());
+    // Exponential backoff + jitter để các request lỗi cùng lúc không retry dồn cùng một thời điểm
+    private long backoffDelayMs(int attempt) {
+        long exponential = retryBaseDelayMs << (attempt - 1);
+        return exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
         }
+        return error;
+    }
 
-        return response.body();
+    /**
+     * Thống kê cache câu trả lời AI + triage cục bộ (số lần gọi LLM được tránh) + circuit breaker của Groq
+     */
+    public java.util.Map<String, Object> getCacheStats() {
+        java.util.Map<String, Object> stats = responseCache.getStats();
+        stats.put("triageLocalAnswers", triageEngine.getLocalAnswerCount());
+        stats.put("triageEscalations", triageEngine.getEscalationCount());
+        stats.put("groqCircuit", circuitBreaker.getStats());
+        return stats;
     }
 
-    private SymptomCheckResponse parseGroqResponse(String jsonResponse, String userInput, String specializationsStr) {
+    /**
+     * Parse response từ Groq, trả về null nếu không parse được (caller dùng fallback, không cache)
+     */
+    private SymptomCheckResponse parseGroqResponse(String jsonResponse) {
         try {
             JsonNode root = objectMapper.readTree(jsonResponse);
 
@@ -257,23 +361,37 @@ public class AISymptomService {
             String aiText = choice.get("message").get("content").asText();
             logger.debug("Raw AI response: {}", aiText);
 
-            // Làm sạch response - loại bỏ markdown và code blocks
-            aiText = cleanJsonResponse(aiText);
-
-            // Parse JSON
-            SymptomCheckResponse response = objectMapper.readValue(aiText, SymptomCheckResponse.class);
-
-            // Validate và fix response
-            return validateAndFixResponse(response, userInput, specializationsStr);
+            return readAiJson(aiText);
 
         } catch (Exception e) {
             logger.error("Lỗi khi parse response từ Groq: {}", e.getMessage());
             logger.debug("Response gốc: {}", jsonResponse);
             // Thử parse thủ công nếu có thể
-            return tryManualParse(jsonResponse, userInput, specializationsStr, e);
+            return tryManualParse(jsonResponse);
         }
     }
 
+    /**
+     * Parse text JSON do AI sinh ra (đã ghép đủ từ stream), trả về null nếu không parse được
+     */
+    private SymptomCheckResponse parseAiContent(String aiText) {
+        try {
+            return readAiJson(aiText);
+        } catch (Exception e) {
+            logger.error("Lỗi khi parse response (stream) từ Groq: {}", e.getMessage());
+            logger.debug("Text gốc: {}", aiText);
+            return null;
+        }
+    }
+
+    private SymptomCheckResponse readAiJson(String aiText) throws IOException {
+        // Làm sạch response - loại bỏ markdown và code blocks
+        String cleaned = cleanJsonResponse(aiText);
+
+        // Parse JSON rồi validate và fix response
+        return validateAndFixResponse(objectMapper.readValue(cleaned, SymptomCheckResponse.class));
+    }
+
     private String cleanJsonResponse(String text) {
         // Loại bỏ markdown code blocks
         text = text.replace("```json", "").replace("```", "").trim();
@@ -289,8 +407,7 @@ public class AISymptomService {
         return text.trim();
     }
 
-    private SymptomCheckResponse validateAndFixResponse(SymptomCheckResponse response, String userInput,
-            String specializationsStr) {
+    private SymptomCheckResponse validateAndFixResponse(SymptomCheckResponse response) {
         // Đảm bảo các field không null
         if (response.getSuggestedSpecialization() == null || response.getSuggestedSpecialization().isEmpty()) {
             response.setSuggestedSpecialization("Other");
@@ -326,8 +443,7 @@ public class AISymptomService {
         return response;
     }
 
-    private SymptomCheckResponse tryManualParse(String jsonResponse, String userInput, String specializationsStr,
-            Exception originalError) {
+    private SymptomCheckResponse tryManualParse(String jsonResponse) {
         try {
             // Thử extract text từ response
             Pattern textPattern = Pattern.compile("\"text\"\\s*:\\s*\"([^\"]+)\"", Pattern.DOTALL);
@@ -340,18 +456,17 @@ public class AISymptomService {
 
                 // Thử tìm JSON trong text
                 String cleaned = cleanJsonResponse(aiText);
-                return objectMapper.readValue(cleaned, SymptomCheckResponse.class);
+                return validateAndFixResponse(objectMapper.readValue(cleaned, SymptomCheckResponse.class));
             }
         } catch (Exception e) {
             logger.debug("Manual parse cũng thất bại: {}", e.getMessage());
         }
 
-        // Nếu không parse được, tạo response thông minh dựa trên input
-        return createIntelligentFallback(userInput, specializationsStr, originalError);
+        // Không parse được - caller sẽ tạo response thông minh dựa trên input
+        return null;
     }
 
-    private SymptomCheckResponse createIntelligentFallback(String userInput, String specializationsStr,
-            Exception error) {
+    private SymptomCheckResponse createIntelligentFallback(String userInput, String specializationsStr) {
         String lowerInput = userInput.toLowerCase().trim();
 
         // Phát hiện câu chào hỏi
@@ -405,7 +520,8 @@ public class AISymptomService {
                 homeRemedies);
     }
 
-    private SymptomCheckResponse createFallbackResponse(String userInput, Exception error) {
+    private SymptomCheckResponse createFallbackResponse(String userInput, Throwable error) {
+        error = unwrap(error);
         logger.error("Tạo fallback response do lỗi: {}", error.getMessage());
 
         // Phân tích input để tạo response phù hợp
@@ -458,4 +574,70 @@ public class AISymptomService {
                 reason,
                 homeRemedies);
     }
-}
\ No newline at end of file
+
+    private static class GroqApiException extends RuntimeException {
+        private final int statusCode;
+
+        GroqApiException(int statusCode, String body) {
+            super("Groq API Error (Status: " + statusCode + "): " + body);
+            this.statusCode = statusCode;
+        }
+    }
+
+    private static class GroqBulkheadFullException extends RuntimeException {
+        GroqBulkheadFullException(int limit) {
+            super("Groq API đang quá tải (" + limit + " lời gọi đang chạy)");
+        }
+    }
+
+    private static class GroqCircuitOpenException extends RuntimeException {
+        GroqCircuitOpenException() {
+            super("Groq API tạm thời không khả dụng (circuit breaker đang mở)");
+        }
+    }
+
+    /**
+     * Nhận từng dòng SSE từ Groq, lấy choices[0].delta.content và đưa vào parser
+     */
+    private class GroqStreamSubscriber implements Flow.Subscriber<String> {
+
+        private final IncrementalSymptomJsonParser parser;
+
+        GroqStreamSubscriber(IncrementalSymptomJsonParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!line.startsWith("data:")) {
+                return;
+            }
+            String data = line.substring(5).trim();
+            if (data.isEmpty() || "[DONE]".equals(data)) {
+                return;
+            }
+            try {
+                JsonNode content = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content");
+                if (content.isTextual()) {
+                    parser.feed(content.asText());
+                }
+            } catch (Exception e) {
+                logger.warn("Bỏ qua chunk SSE không hợp lệ từ Groq: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            logger.warn("Stream từ Groq bị lỗi: {}", throwable.getMessage());
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
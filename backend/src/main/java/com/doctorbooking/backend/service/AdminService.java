@@ -4,6 +4,7 @@ import com.doctorbooking.backend.dto.request.AdminUpdatePatientRequest;
 import com.doctorbooking.backend.dto.request.DoctorRequest;
 import com.doctorbooking.backend.dto.request.PatientRequest;
 import com.doctorbooking.backend.dto.response.*;
+import com.doctorbooking.backend.model.EntityChangeEvent;
 import com.doctorbooking.backend.model.Patient;
 import com.doctorbooking.backend.model.User;
 import com.doctorbooking.backend.repository.PatientRepository;
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -27,6 +29,7 @@ public class AdminService {
     private final PatientRepository patientRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     // Doctor Management
     public List<DoctorResponse> getAllDoctors() {
@@ -134,14 +137,12 @@ public class AdminService {
         User user = patient.getUser();
         patientRepository.delete(patient);
         userRepository.delete(user);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.USER, user.getId());
     }
 
     // Appointment Management
-    public List<AppointmentResponse> getAllAppointments(LocalDate date) {
-        if (date != null) {
-            return appointmentService.getAppointmentsByDate(date);
-        }
-        return appointmentService.getAllAppointments();
+    public long streamAllAppointments(LocalDate date, Consumer<AppointmentResponse> sink) {
+        return appointmentService.streamAppointments(date, sink);
     }
 
     public AppointmentResponse getAppointmentById(Long id) {
@@ -159,8 +160,8 @@ public class AdminService {
     }
 
     // Feedback Management
-    public List<FeedbackResponse> getAllFeedbacks(String status) {
-        return feedbackService.getFeedbacksByStatus(status);
+    public long streamAllFeedbacks(String status, Consumer<FeedbackResponse> sink) {
+        return feedbackService.streamFeedbacksByStatus(status, sink);
     }
     
     public List<FeedbackResponse> getFeedbacksByDoctor(Long doctorId) {
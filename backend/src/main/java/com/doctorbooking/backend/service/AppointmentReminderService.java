@@ -4,6 +4,8 @@ import com.doctorbooking.backend.model.Appointment;
 import com.doctorbooking.backend.model.FamilyAppointment;
 import com.doctorbooking.backend.repository.AppointmentRepository;
 import com.doctorbooking.backend.repository.FamilyAppointmentRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,12 +28,16 @@ public class AppointmentReminderService {
     private final FamilyAppointmentRepository familyAppointmentRepository;
     private final EmailService emailService;
     private final NotificationService notificationService;
+    private final MeterRegistry meterRegistry;
 
     /**
-     * Chạy mỗi 30 phút để kiểm tra và gửi nhắc hẹn 24 giờ
+     * Chạy mỗi 30 phút để kiểm tra và gửi nhắc hẹn 24 giờ.
+     * fixedDelay (không phải fixedRate): với virtual thread, scheduler chạy job fixedRate trên thread riêng và
+     * có thể chồng lần chạy khi gửi mail chậm -> gửi trùng nhắc hẹn
      */
-    @Scheduled(fixedRate = 1800000) // 30 phút = 1800000 milliseconds
+    @Scheduled(fixedDelay = 1800000) // 30 phút = 1800000 milliseconds
     @Transactional
+    @Timed(value = "reminders.job", extraTags = {"window", "24h"})
     public void send24HourReminders() {
         try {
             LocalDate tomorrow = LocalDate.now().plusDays(1);
@@ -51,7 +57,9 @@ public class AppointmentReminderService {
                     appointment.setReminder24hSent(true);
                     appointmentRepository.save(appointment);
                     logger.info("✅ 24h reminder sent for appointment ID: {}", appointment.getId());
+                    meterRegistry.counter("reminders.sent", "window", "24h", "outcome", "success").increment();
                 } catch (Exception e) {
+                    meterRegistry.counter("reminders.sent", "window", "24h", "outcome", "error").increment();
                     logger.error("❌ Error sending 24h reminder for appointment ID: {}", appointment.getId(), e);
                 }
             }
@@ -63,8 +71,9 @@ public class AppointmentReminderService {
     /**
      * Chạy mỗi 15 phút để kiểm tra và gửi nhắc hẹn 1 giờ
      */
-    @Scheduled(fixedRate = 900000) // 15 phút = 900000 milliseconds
+    @Scheduled(fixedDelay = 900000) // 15 phút = 900000 milliseconds
     @Transactional
+    @Timed(value = "reminders.job", extraTags = {"window", "1h"})
     public void send1HourReminders() {
         try {
             LocalDateTime now = LocalDateTime.now();
@@ -99,11 +108,13 @@ public class AppointmentReminderService {
                         appointment.setReminder1hSent(true);
                         appointmentRepository.save(appointment);
                         logger.info("✅ 1h reminder sent for appointment ID: {}", appointment.getId());
+                        meterRegistry.counter("reminders.sent", "window", "1h", "outcome", "success").increment();
                     } else {
                         logger.debug("Skipping appointment ID: {} - time difference: {} minutes (not in 45-75 range)", 
                                    appointment.getId(), minutesUntilAppointment);
                     }
                 } catch (Exception e) {
+                    meterRegistry.counter("reminders.sent", "window", "1h", "outcome", "error").increment();
                     logger.error("❌ Error sending 1h reminder for appointment ID: {}", appointment.getId(), e);
                 }
             }
@@ -4,6 +4,7 @@ import com.doctorbooking.backend.dto.request.CreateAppointmentRequest;
 import com.doctorbooking.backend.dto.response.AppointmentResponse;
 import com.doctorbooking.backend.model.Appointment;
 import com.doctorbooking.backend.model.Doctor;
+import com.doctorbooking.backend.model.EntityChangeEvent;
 import com.doctorbooking.backend.model.Patient;
 import com.doctorbooking.backend.repository.AppointmentRepository;
 import com.doctorbooking.backend.repository.DoctorRepository;
@@ -13,6 +14,9 @@ import com.doctorbooking.backend.repository.FamilyMemberRepository;
 import com.doctorbooking.backend.model.FamilyAppointment;
 import com.doctorbooking.backend.model.FamilyMember;
 import com.doctorbooking.backend.service.EmailService;
+import com.doctorbooking.backend.util.EntityStreams;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,7 +26,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -40,6 +46,8 @@ public class AppointmentService {
     private final FamilyAppointmentRepository familyAppointmentRepository;
     private final FamilyMemberRepository familyMemberRepository;
     private final com.doctorbooking.backend.repository.FeedbackRepository feedbackRepository;
+    private final MeterRegistry meterRegistry;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     public List<AppointmentResponse> getAllAppointments() {
         // Use custom query to fetch all with relationships
@@ -57,10 +65,23 @@ public class AppointmentService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Danh sách cho admin dạng stream: từng AppointmentResponse được đưa cho sink ngay khi đọc từ cursor,
+     * không dựng List đầy đủ (date null = mọi lịch hẹn)
+     */
+    @Transactional(readOnly = true)
+    public long streamAppointments(LocalDate date, Consumer<AppointmentResponse> sink) {
+        Stream<Appointment> appointments = date != null
+                ? appointmentRepository.streamByAppointmentDate(date)
+                : appointmentRepository.streamAllWithRelations();
+        return EntityStreams.forEach(entityManager, appointments, AppointmentResponse::fromEntity, sink);
+    }
+
     /**
      * Lấy danh sách time slots available của bác sĩ trong ngày
      * CHỈ tính các appointments PENDING hoặc CONFIRMED (không tính CANCELLED và COMPLETED)
      */
+    @Timed(value = "appointments.slots.available", description = "Available time slot lookup")
     public List<String> getAvailableTimeSlots(Long doctorId, LocalDate date) {
         // Danh sách tất cả time slots trong ngày
         List<String> allSlots = List.of(
@@ -96,6 +117,7 @@ public class AppointmentService {
 
     // Patient Appointment Booking
     @Transactional
+    @Timed(value = "appointments.create", histogram = true, description = "Appointment booking")
     public AppointmentResponse createAppointment(Long patientId, CreateAppointmentRequest request) {
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new RuntimeException("Patient not found with id: " + patientId));
@@ -123,6 +145,7 @@ public class AppointmentService {
                 );
 
         if (slotTaken) {
+            meterRegistry.counter("appointments.slot.conflicts").increment();
             throw new RuntimeException("Appointment slot is already taken");
         }
         
@@ -204,6 +227,7 @@ public class AppointmentService {
             appointment.setPaymentStatus(Appointment.PaymentStatus.PENDING);
             appointment = appointmentRepository.save(appointment);
         }
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.APPOINTMENT, appointment.getId());
         
         // Nếu đặt lịch cho người nhà (có familyMemberId), tạo record trong family_appointments
         if (request.getFamilyMemberId() != null) {
@@ -357,6 +381,7 @@ public class AppointmentService {
         appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
         appointment.setPaymentStatus(Appointment.PaymentStatus.UNPAID);
         appointmentRepository.save(appointment);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.APPOINTMENT, appointmentId);
     }
 
     public List<AppointmentResponse> getPatientAppointments(Long patientId) {
@@ -426,6 +451,7 @@ public class AppointmentService {
         // Cập nhật status thành CANCELLED
         appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
         appointmentRepository.save(appointment);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.APPOINTMENT, appointmentId);
         logger.info("Appointment cancelled successfully: appointmentId={}", appointmentId);
     }
 
@@ -503,6 +529,7 @@ public class AppointmentService {
         }
 
         Appointment updated = appointmentRepository.save(appointment);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.APPOINTMENT, id);
         
         // Send confirmation email if status changed to CONFIRMED
         if (statusChangedToConfirmed) {
@@ -523,6 +550,7 @@ public class AppointmentService {
         Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
         appointmentRepository.delete(appointment);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.APPOINTMENT, id);
     }
     
     /**
@@ -642,6 +670,7 @@ public class AppointmentService {
         appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
         appointment.setCancellationReason(cancellationReason);
         appointmentRepository.save(appointment);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.APPOINTMENT, appointmentId);
 
         // Send notification email to patient
         try {
@@ -692,6 +721,7 @@ public class AppointmentService {
         appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
         appointment.setCancellationReason(cancellationReason);
         appointmentRepository.save(appointment);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.APPOINTMENT, appointmentId);
 
         // Send notification email to patient
         try {
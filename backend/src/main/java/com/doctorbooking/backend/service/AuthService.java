@@ -1,10 +1,13 @@
 package com.doctorbooking.backend.service;
 
+import com.doctorbooking.backend.config.AuthenticatedUser;
 import com.doctorbooking.backend.dto.request.LoginRequest;
+import com.doctorbooking.backend.dto.request.RefreshTokenRequest;
 import com.doctorbooking.backend.dto.request.RegisterRequest;
 import com.doctorbooking.backend.dto.response.AuthResponse;
 import com.doctorbooking.backend.model.Admin;
 import com.doctorbooking.backend.model.Doctor;
+import com.doctorbooking.backend.model.EntityChangeEvent;
 import com.doctorbooking.backend.model.Patient;
 import com.doctorbooking.backend.model.User;
 import com.doctorbooking.backend.repository.AdminRepository;
@@ -12,8 +15,13 @@ import com.doctorbooking.backend.repository.DoctorRepository;
 import com.doctorbooking.backend.repository.PatientRepository;
 import com.doctorbooking.backend.repository.UserRepository;
 import com.doctorbooking.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,12 +30,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
     private final UserRepository userRepository;
     private final PatientRepository patientRepository;
     private final AdminRepository adminRepository;
@@ -35,6 +46,8 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final RefreshTokenReplayCache refreshTokenReplayCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -50,10 +63,7 @@ public class AuthService {
         // Create user
         User user = new User();
         user.setUsername(request.getUsername());
-        // Tạm thời dùng plain text password (KHÔNG hash)
-        user.setPassword(request.getPassword()); // Plain text
-        // user.setPassword(passwordEncoder.encode(request.getPassword())); // BCrypt -
-        // uncomment sau khi test xong
+        user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setEmail(request.getEmail());
 
         // Determine role
@@ -64,7 +74,7 @@ public class AuthService {
             } catch (IllegalArgumentException e) {
                 // Invalid role, stick to default or throw error
                 // For now, let's default to PATIENT but log it
-                System.err.println("Invalid role provided: " + request.getRole());
+                logger.warn("Invalid role provided at registration: {}", request.getRole());
             }
         }
         user.setRole(role);
@@ -73,13 +83,14 @@ public class AuthService {
         user = userRepository.save(user);
 
         // Create specific role entity
+        Long profileId = null;
         switch (role) {
             case PATIENT:
                 Patient patient = new Patient();
                 patient.setUser(user);
                 patient.setFullName(request.getFullName());
                 patient.setPhone(request.getPhone());
-                patientRepository.save(patient);
+                profileId = patientRepository.save(patient).getId();
                 break;
             case DOCTOR:
                 Doctor doctor = new Doctor();
@@ -87,24 +98,26 @@ public class AuthService {
                 doctor.setFullName(request.getFullName());
                 doctor.setPhone(request.getPhone());
                 // Initialize other doctor fields if necessary
-                doctorRepository.save(doctor);
+                profileId = doctorRepository.save(doctor).getId();
+                cacheInvalidationBus.publish(EntityChangeEvent.EntityType.DOCTOR, profileId);
                 break;
             case ADMIN:
                 Admin admin = new Admin();
                 admin.setUser(user);
                 admin.setFullName(request.getFullName());
                 // Initialize other admin fields if necessary
-                adminRepository.save(admin);
+                profileId = adminRepository.save(admin).getId();
                 break;
         }
 
         // Generate tokens
         Map<String, Object> extraClaims = new HashMap<>();
-        extraClaims.put("role", user.getRole().name());
-        extraClaims.put("userId", user.getId());
+        extraClaims.put(AuthenticatedUser.CLAIM_ROLE, user.getRole().name());
+        extraClaims.put(AuthenticatedUser.CLAIM_USER_ID, user.getId());
+        extraClaims.put(AuthenticatedUser.profileIdClaim(role), profileId);
 
         String token = jwtUtil.generateToken(user, extraClaims);
-        String refreshToken = jwtUtil.generateRefreshToken(user);
+        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername(), extraClaims, null);
 
         return AuthResponse.builder()
                 .token(token)
@@ -118,9 +131,6 @@ public class AuthService {
     }
 
     public AuthResponse login(LoginRequest request) {
-        // Log login attempt
-        System.out.println("🔵 AuthService.login - Attempting login for: " + request.getUsername());
-
         // Authenticate user - username field can be either username or email
         Authentication authentication;
         try {
@@ -128,10 +138,9 @@ public class AuthService {
                     new UsernamePasswordAuthenticationToken(
                             request.getUsername(),
                             request.getPassword()));
-            System.out.println("✅ AuthService.login - Authentication successful for: " + request.getUsername());
+            logger.debug("Authentication successful for: {}", request.getUsername());
         } catch (org.springframework.security.core.AuthenticationException e) {
-            System.err.println("❌ AuthService.login - Authentication failed: " + e.getMessage());
-            e.printStackTrace();
+            logger.info("Authentication failed for {}: {}", request.getUsername(), e.getMessage());
             throw e; // Re-throw để GlobalExceptionHandler xử lý
         }
 
@@ -145,19 +154,12 @@ public class AuthService {
         if (userDetails instanceof User) {
             // Nếu UserDetails là User entity, sử dụng trực tiếp (không cần query lại)
             user = (User) userDetails;
-            System.out.println("🔵 AuthService.login - Using User from authentication principal (ID: " + user.getId()
-                    + ", Username: " + user.getUsername() + ")");
         } else {
             // Fallback: nếu không phải User entity, load từ database
             String usernameFromDetails = userDetails.getUsername();
-            System.out.println("⚠️ AuthService.login - Principal is not User entity, loading from DB with username: "
-                    + usernameFromDetails);
             user = userRepository.findByUsername(usernameFromDetails)
                     .orElse(userRepository.findByEmail(usernameFromDetails)
-                            .orElseThrow(() -> {
-                                System.err.println("❌ User not found with username/email: " + usernameFromDetails);
-                                return new RuntimeException("User not found: " + usernameFromDetails);
-                            }));
+                            .orElseThrow(() -> new RuntimeException("User not found: " + usernameFromDetails)));
         }
 
         // Generate tokens
@@ -165,9 +167,14 @@ public class AuthService {
         // userDetails.getUsername()
         // Vì userDetails.getUsername() có thể trả về email nếu login bằng email
         // Nhưng token phải có subject là username thực tế để validate đúng
+        // ID hồ sơ (patient/doctor/admin) được nhúng vào token để controller không phải query lại mỗi request
+        RoleProfile profile = getRoleProfile(user);
         Map<String, Object> extraClaims = new HashMap<>();
-        extraClaims.put("role", user.getRole().name());
-        extraClaims.put("userId", user.getId());
+        extraClaims.put(AuthenticatedUser.CLAIM_ROLE, user.getRole().name());
+        extraClaims.put(AuthenticatedUser.CLAIM_USER_ID, user.getId());
+        if (profile.id() != null) {
+            extraClaims.put(AuthenticatedUser.profileIdClaim(user.getRole()), profile.id());
+        }
 
         // Tạo UserDetails wrapper với username thực tế để tạo token
         UserDetails tokenUserDetails = org.springframework.security.core.userdetails.User.builder()
@@ -177,13 +184,10 @@ public class AuthService {
                 .build();
 
         String token = jwtUtil.generateToken(tokenUserDetails, extraClaims);
-        String refreshToken = jwtUtil.generateRefreshToken(tokenUserDetails);
-
-        System.out.println("🔵 AuthService.login - Token created with username: " + user.getUsername());
+        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername(), extraClaims, null);
 
         // Get full name based on role
-        String fullName = getFullNameByRole(user);
-        System.out.println("🔵 AuthService.login - FullName retrieved: " + fullName);
+        String fullName = profile.fullName();
 
         // Build response
         AuthResponse response = AuthResponse.builder()
@@ -195,38 +199,91 @@ public class AuthService {
                 .role(user.getRole().name())
                 .fullName(fullName)
                 .build();
-
-        System.out.println("✅ AuthService.login - Response built successfully");
+        logger.debug("Login succeeded for {} (id={})", user.getUsername(), user.getId());
         return response;
     }
 
-    private String getFullNameByRole(User user) {
+    /**
+     * Rotation refresh token: verify chữ ký (một lần HMAC, không query DB), đánh dấu token cũ đã dùng,
+     * cấp access token + refresh token mới cùng family. Token bị dùng lại -> thu hồi cả family.
+     * Family có tuổi thọ tối đa tính từ lần đăng nhập (JwtUtil) và bị thu hồi khi user bị khóa / xóa / đổi mật khẩu.
+     */
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseRefreshToken(request.getRefreshToken());
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        String familyId = claims.get(JwtUtil.CLAIM_FAMILY_ID, String.class);
+        long familyIssuedAt = JwtUtil.familyIssuedAt(claims);
+        Long userId = claims.get(AuthenticatedUser.CLAIM_USER_ID, Long.class);
+        if (!refreshTokenReplayCache.tryConsume(claims.getId(), familyId, userId, familyIssuedAt,
+                claims.getExpiration().getTime())) {
+            throw new BadCredentialsException("Refresh token has already been used or revoked");
+        }
+
+        String role = claims.get(AuthenticatedUser.CLAIM_ROLE, String.class);
+        Map<String, Object> extraClaims = new HashMap<>();
+        extraClaims.put(AuthenticatedUser.CLAIM_ROLE, role);
+        extraClaims.put(AuthenticatedUser.CLAIM_USER_ID, userId);
+        for (String claim : List.of(AuthenticatedUser.CLAIM_PATIENT_ID,
+                AuthenticatedUser.CLAIM_DOCTOR_ID, AuthenticatedUser.CLAIM_ADMIN_ID)) {
+            Long profileId = claims.get(claim, Long.class);
+            if (profileId != null) {
+                extraClaims.put(claim, profileId);
+            }
+        }
+
+        String username = claims.getSubject();
+        UserDetails tokenUserDetails = org.springframework.security.core.userdetails.User.builder()
+                .username(username)
+                .password("")
+                .authorities(new String[0])
+                .build();
+
+        return AuthResponse.builder()
+                .token(jwtUtil.generateToken(tokenUserDetails, extraClaims))
+                .refreshToken(jwtUtil.generateRefreshToken(username, extraClaims, familyId, familyIssuedAt))
+                .id(userId)
+                .username(username)
+                .role(role)
+                .build();
+    }
+
+    private record RoleProfile(Long id, String fullName) {
+    }
+
+    private RoleProfile getRoleProfile(User user) {
         try {
             return switch (user.getRole()) {
                 case PATIENT -> {
                     Patient patient = patientRepository.findByUserId(user.getId())
                             .orElse(null);
-                    yield patient != null ? patient.getFullName() : null;
+                    yield patient != null ? new RoleProfile(patient.getId(), patient.getFullName())
+                            : new RoleProfile(null, null);
                 }
                 case DOCTOR -> {
                     Doctor doctor = doctorRepository.findByUserId(user.getId())
                             .orElse(null);
-                    yield doctor != null ? doctor.getFullName() : null;
+                    yield doctor != null ? new RoleProfile(doctor.getId(), doctor.getFullName())
+                            : new RoleProfile(null, null);
                 }
                 case ADMIN -> {
                     Admin admin = adminRepository.findByUserId(user.getId())
                             .orElse(null);
-                    yield admin != null ? admin.getFullName() : "Admin User"; // Default fallback
+                    yield admin != null ? new RoleProfile(admin.getId(), admin.getFullName())
+                            : new RoleProfile(null, "Admin User"); // Default fallback
                 }
             };
         } catch (Exception e) {
-            System.err.println("❌ Error getting fullName for role " + user.getRole() + ": " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error loading profile for user {} with role {}", user.getId(), user.getRole(), e);
             // Return default based on role
             return switch (user.getRole()) {
-                case ADMIN -> "System Administrator";
-                case DOCTOR -> "Doctor";
-                case PATIENT -> "Patient";
+                case ADMIN -> new RoleProfile(null, "System Administrator");
+                case DOCTOR -> new RoleProfile(null, "Doctor");
+                case PATIENT -> new RoleProfile(null, "Patient");
             };
         }
     }
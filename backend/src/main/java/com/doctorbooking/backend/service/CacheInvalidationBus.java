@@ -0,0 +1,115 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.EntityChangeEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bus bỏ cache giữa các node: service layer publish "entity X đã đổi", sau khi transaction commit
+ * bus gọi các CacheInvalidationListener trên node này và gửi sự kiện qua CacheInvalidationTransport
+ * để các node khác làm tương tự. Sự kiện của chính node (originNode) nhận lại từ transport bị bỏ qua.
+ * Loại entity không có listener nào thì không gửi (mọi node chạy cùng code nên có cùng tập listener).
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final CacheInvalidationTransport transport;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId;
+    private final Map<EntityChangeEvent.EntityType, List<CacheInvalidationListener>> listenersByType =
+            new EnumMap<>(EntityChangeEvent.EntityType.class);
+
+    public CacheInvalidationBus(
+            CacheInvalidationTransport transport,
+            List<CacheInvalidationListener> listeners,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.invalidation.node-id:}") String nodeId) {
+        this.transport = transport;
+        this.meterRegistry = meterRegistry;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        for (EntityChangeEvent.EntityType type : EntityChangeEvent.EntityType.values()) {
+            List<CacheInvalidationListener> forType = listeners.stream()
+                    .filter(listener -> listener.getEntityTypes().contains(type))
+                    .toList();
+            if (!forType.isEmpty()) {
+                listenersByType.put(type, forType);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        transport.subscribe(this::receive);
+        logger.info("Cache invalidation bus started (node={}, transport={}, types={})",
+                nodeId, transport.getClass().getSimpleName(), listenersByType.keySet());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Báo entity đã thay đổi (entityId null = bỏ toàn bộ cache của loại này).
+     * Trong transaction: chỉ phát sau khi commit, để không node nào nạp lại dữ liệu cũ vào cache.
+     */
+    public void publish(EntityChangeEvent.EntityType type, Long entityId) {
+        if (!listenersByType.containsKey(type)) {
+            return;
+        }
+        EntityChangeEvent event = new EntityChangeEvent(type, entityId, nodeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    private void dispatch(EntityChangeEvent event) {
+        deliver(event);
+        meterRegistry.counter("cache.invalidation.published", "type", event.getEntityType().name()).increment();
+        try {
+            transport.send(event);
+        } catch (RuntimeException e) {
+            // Node khác chỉ còn dựa vào TTL cho thay đổi này; không làm hỏng request đã commit
+            logger.error("Không gửi được sự kiện bỏ cache {} #{}: {}",
+                    event.getEntityType(), event.getEntityId(), e.getMessage());
+        }
+    }
+
+    private void receive(EntityChangeEvent event) {
+        if (nodeId.equals(event.getOriginNode())) {
+            return;
+        }
+        meterRegistry.counter("cache.invalidation.received", "type", event.getEntityType().name()).increment();
+        deliver(event);
+    }
+
+    private void deliver(EntityChangeEvent event) {
+        for (CacheInvalidationListener listener : listenersByType.getOrDefault(event.getEntityType(), List.of())) {
+            try {
+                listener.onEntityChanged(event);
+            } catch (RuntimeException e) {
+                logger.error("Cache listener {} lỗi khi xử lý {} #{}", listener.getClass().getSimpleName(),
+                        event.getEntityType(), event.getEntityId(), e);
+            }
+        }
+    }
+}
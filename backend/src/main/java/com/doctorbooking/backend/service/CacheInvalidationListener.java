@@ -0,0 +1,18 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.EntityChangeEvent;
+
+import java.util.Set;
+
+/**
+ * Cache cục bộ đăng ký nhận sự kiện thay đổi entity từ CacheInvalidationBus (của node này và các node khác)
+ */
+public interface CacheInvalidationListener {
+
+    Set<EntityChangeEvent.EntityType> getEntityTypes();
+
+    /**
+     * Được gọi sau khi transaction thay đổi entity đã commit; chỉ nên bỏ cache, không truy vấn DB
+     */
+    void onEntityChanged(EntityChangeEvent event);
+}
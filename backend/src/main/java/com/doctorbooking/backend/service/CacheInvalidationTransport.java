@@ -0,0 +1,20 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.EntityChangeEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Kênh chuyển sự kiện thay đổi entity giữa các node (app.cache.invalidation.transport):
+ * - local: InProcessCacheInvalidationTransport, chỉ trong JVM (một node, hoặc nhiều context trong test)
+ * - jdbc: JdbcCacheInvalidationTransport, bảng entity_change_events được mọi node poll
+ */
+public interface CacheInvalidationTransport {
+
+    void send(EntityChangeEvent event);
+
+    /**
+     * Nhận mọi sự kiện đi qua transport, kể cả của chính node gửi (bus tự lọc theo originNode)
+     */
+    void subscribe(Consumer<EntityChangeEvent> receiver);
+}
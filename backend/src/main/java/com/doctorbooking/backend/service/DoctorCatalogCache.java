@@ -0,0 +1,170 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.dto.response.DoctorResponse;
+import com.doctorbooking.backend.model.Doctor;
+import com.doctorbooking.backend.model.EntityChangeEvent;
+import com.doctorbooking.backend.repository.DoctorRepository;
+import com.doctorbooking.backend.util.BoundedTtlCache;
+import com.doctorbooking.backend.util.ResourceVersion;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cache đọc-xuyên (read-through) cho danh mục bác sĩ: thẻ bác sĩ theo id, danh sách bác sĩ ACTIVE
+ * và tập chuyên khoa (dùng cho mỗi request AI). Dữ liệu đọc nhiều hơn ghi rất nhiều.
+ * - LRU giới hạn kích thước + TTL (BoundedTtlCache, dùng chung với SymptomResponseCache)
+ * - Invalidate tường minh khi tạo / sửa / xóa bác sĩ hoặc sửa user: nhận sự kiện từ CacheInvalidationBus
+ *   (sau khi transaction commit, trên mọi node)
+ * - Metric: cache.gets (result=hit|miss), cache.evictions, cache.size theo tag cache=doctors.*
+ * DoctorResponse là DTO mutable (@Data): cache giữ bản sao riêng và luôn trả bản sao cho caller.
+ */
+@Component
+public class DoctorCatalogCache implements CacheInvalidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorCatalogCache.class);
+    private static final String SINGLE_KEY = "all";
+
+    private final DoctorRepository doctorRepository;
+    private final BoundedTtlCache<Long, DoctorResponse> doctorsById;
+    private final BoundedTtlCache<String, List<DoctorResponse>> activeDoctors;
+    private final BoundedTtlCache<String, List<String>> specializations;
+
+    public DoctorCatalogCache(
+            DoctorRepository doctorRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.doctors.max-size:5000}") int maxSize,
+            @Value("${app.cache.doctors.ttl-seconds:300}") long ttlSeconds) {
+        this.doctorRepository = doctorRepository;
+        long ttlMillis = ttlSeconds * 1000L;
+        this.doctorsById = region("doctors.by_id", maxSize, ttlMillis, meterRegistry);
+        this.activeDoctors = region("doctors.active", 1, ttlMillis, meterRegistry);
+        this.specializations = region("doctors.specializations", 1, ttlMillis, meterRegistry);
+    }
+
+    public List<DoctorResponse> getActiveDoctors() {
+        return loadActiveDoctors().stream().map(DoctorCatalogCache::copyOf).toList();
+    }
+
+    /**
+     * Phiên bản của danh sách ACTIVE đang cache (cho ETag), không sao chép DTO.
+     * Hash nội dung bắt cả thay đổi không làm đổi doctors.updated_at (username / email của user).
+     */
+    public ResourceVersion getActiveDoctorsVersion() {
+        List<DoctorResponse> doctors = loadActiveDoctors();
+        LocalDateTime lastModified = doctors.stream()
+                .map(DoctorResponse::getUpdatedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        return new ResourceVersion((long) doctors.size(), lastModified, doctors.hashCode());
+    }
+
+    private List<DoctorResponse> loadActiveDoctors() {
+        return activeDoctors.get(SINGLE_KEY, () ->
+                doctorRepository.findByStatus(Doctor.DoctorStatus.ACTIVE).stream()
+                        .map(DoctorResponse::fromEntity)
+                        .toList());
+    }
+
+    /**
+     * Không cache kết quả "không tìm thấy": id sai luôn đi xuống DB và ném RuntimeException như trước
+     */
+    public DoctorResponse getDoctorById(Long id) {
+        DoctorResponse doctor = doctorsById.get(id, () -> doctorRepository.findById(id)
+                .map(DoctorResponse::fromEntity)
+                .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + id)));
+        return copyOf(doctor);
+    }
+
+    /**
+     * Chuyên khoa của các bác sĩ ACTIVE (danh sách bất biến, dùng chung được)
+     */
+    public List<String> getSpecializations() {
+        return specializations.get(SINGLE_KEY, () -> List.copyOf(doctorRepository.findDistinctSpecializations()));
+    }
+
+    @Override
+    public Set<EntityChangeEvent.EntityType> getEntityTypes() {
+        return Set.of(EntityChangeEvent.EntityType.DOCTOR, EntityChangeEvent.EntityType.USER);
+    }
+
+    /**
+     * Thẻ bác sĩ chứa username / email nên thay đổi user (ít khi xảy ra) bỏ toàn bộ cache
+     */
+    @Override
+    public void onEntityChanged(EntityChangeEvent event) {
+        if (event.getEntityType() == EntityChangeEvent.EntityType.DOCTOR && event.getEntityId() != null) {
+            invalidateDoctor(event.getEntityId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Bỏ cache của một bác sĩ cùng các danh sách tổng hợp (danh sách ACTIVE, chuyên khoa)
+     */
+    public void invalidateDoctor(Long doctorId) {
+        doctorsById.invalidate(doctorId);
+        activeDoctors.invalidateAll();
+        specializations.invalidateAll();
+        logger.debug("Invalidated doctor catalog cache (doctorId={})", doctorId);
+    }
+
+    public void invalidateAll() {
+        doctorsById.invalidateAll();
+        activeDoctors.invalidateAll();
+        specializations.invalidateAll();
+        logger.debug("Invalidated doctor catalog cache");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("doctorsById", statsOf("doctors.by_id", doctorsById));
+        stats.put("activeDoctors", statsOf("doctors.active", activeDoctors));
+        stats.put("specializations", statsOf("doctors.specializations", specializations));
+        return stats;
+    }
+
+    private static DoctorResponse copyOf(DoctorResponse source) {
+        return new DoctorResponse(source.getId(), source.getUserId(), source.getUsername(), source.getEmail(),
+                source.getFullName(), source.getSpecialization(), source.getQualification(), source.getExperience(),
+                source.getPhone(), source.getAddress(), source.getBio(), source.getStatus(),
+                source.getConsultationFee(), source.getCreatedAt(), source.getUpdatedAt());
+    }
+
+    /**
+     * Tạo một vùng cache và gắn metric (đọc bộ đếm của cache khi scrape, không thêm việc trên đường đọc)
+     */
+    private static <K, V> BoundedTtlCache<K, V> region(String name, int maxSize, long ttlMillis,
+                                                       MeterRegistry meterRegistry) {
+        BoundedTtlCache<K, V> cache = new BoundedTtlCache<>(maxSize, ttlMillis);
+        FunctionCounter.builder("cache.gets", cache, BoundedTtlCache::hitCount)
+                .tags("cache", name, "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", cache, BoundedTtlCache::missCount)
+                .tags("cache", name, "result", "miss").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", cache, BoundedTtlCache::evictionCount)
+                .tags("cache", name).register(meterRegistry);
+        meterRegistry.gauge("cache.size", Tags.of("cache", name), cache, BoundedTtlCache::size);
+        return cache;
+    }
+
+    private static Map<String, Object> statsOf(String name, BoundedTtlCache<?, ?> cache) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cache", name);
+        stats.putAll(cache.getStats());
+        return stats;
+    }
+}
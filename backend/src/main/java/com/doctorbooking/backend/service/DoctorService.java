@@ -5,9 +5,11 @@ import com.doctorbooking.backend.dto.request.DoctorRequest;
 import com.doctorbooking.backend.dto.request.UpdateProfileRequest;
 import com.doctorbooking.backend.dto.response.DoctorResponse;
 import com.doctorbooking.backend.model.Doctor;
+import com.doctorbooking.backend.model.EntityChangeEvent;
 import com.doctorbooking.backend.model.User;
 import com.doctorbooking.backend.repository.DoctorRepository;
 import com.doctorbooking.backend.repository.UserRepository;
+import com.doctorbooking.backend.util.ResourceVersion;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -23,6 +25,8 @@ public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final DoctorCatalogCache doctorCatalogCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     public List<DoctorResponse> getAllDoctors() {
         return doctorRepository.findAll().stream()
@@ -37,15 +41,15 @@ public class DoctorService {
     }
 
     public List<DoctorResponse> getActiveDoctors() {
-        return doctorRepository.findByStatus(Doctor.DoctorStatus.ACTIVE).stream()
-                .map(DoctorResponse::fromEntity)
-                .collect(Collectors.toList());
+        return doctorCatalogCache.getActiveDoctors();
+    }
+
+    public ResourceVersion getActiveDoctorsVersion() {
+        return doctorCatalogCache.getActiveDoctorsVersion();
     }
 
     public DoctorResponse getDoctorById(Long id) {
-        Doctor doctor = doctorRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + id));
-        return DoctorResponse.fromEntity(doctor);
+        return doctorCatalogCache.getDoctorById(id);
     }
 
     @Transactional
@@ -79,6 +83,7 @@ public class DoctorService {
         doctor.setBio(request.getBio());
         doctor.setStatus(Doctor.DoctorStatus.ACTIVE);
         doctor = doctorRepository.save(doctor);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.DOCTOR, doctor.getId());
 
         return DoctorResponse.fromEntity(doctor);
     }
@@ -105,14 +110,17 @@ public class DoctorService {
             user.setEmail(request.getEmail());
         }
 
+        boolean passwordChanged = false;
         if (request.getPassword() != null && !request.getPassword().isEmpty() 
                 && !"current_password_unchanged".equals(request.getPassword())) {
-            // Tạm thời dùng plain text password (KHÔNG hash)
-            user.setPassword(request.getPassword()); // Plain text
-            // user.setPassword(passwordEncoder.encode(request.getPassword())); // BCrypt - uncomment sau khi test xong
+            user.setPassword(passwordEncoder.encode(request.getPassword()));
+            passwordChanged = true;
         }
 
         userRepository.save(user);
+        if (passwordChanged) {
+            cacheInvalidationBus.publish(EntityChangeEvent.EntityType.USER, user.getId());
+        }
 
         // Update doctor
         if (request.getFullName() != null) {
@@ -138,6 +146,7 @@ public class DoctorService {
         }
 
         doctor = doctorRepository.save(doctor);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.DOCTOR, doctor.getId());
         return DoctorResponse.fromEntity(doctor);
     }
 
@@ -146,6 +155,9 @@ public class DoctorService {
         Doctor doctor = doctorRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Doctor not found with id: " + id));
         doctorRepository.delete(doctor);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.DOCTOR, id);
+        // Refresh token của user còn mang doctorId cũ
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.USER, doctor.getUser().getId());
         // User will be deleted by cascade if configured
     }
 
@@ -184,6 +196,7 @@ public class DoctorService {
         }
 
         doctor = doctorRepository.save(doctor);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.DOCTOR, doctor.getId());
         return DoctorResponse.fromEntity(doctor);
     }
 
@@ -192,15 +205,15 @@ public class DoctorService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
 
-        // Verify current password (plain text comparison)
-        if (!request.getCurrentPassword().equals(user.getPassword())) {
+        // Verify current password (hỗ trợ cả password plain text cũ)
+        if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
             throw new RuntimeException("Current password is incorrect");
         }
 
-        // Update password (plain text - tạm thời)
-        user.setPassword(request.getNewPassword()); // Plain text
-        // user.setPassword(passwordEncoder.encode(request.getNewPassword())); // BCrypt - uncomment sau khi test xong
+        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        // Thu hồi các refresh token đã cấp trước khi đổi mật khẩu (RefreshTokenReplayCache)
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.USER, userId);
     }
 }
 
@@ -1,5 +1,7 @@
 package com.doctorbooking.backend.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +23,7 @@ public class EmailService {
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
     private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
 
     @Value("${app.email.from:Doctor Booking System <noreply@doctorbooking.com>}")
     private String fromEmail;
@@ -39,6 +42,23 @@ public class EmailService {
         return true;
     }
 
+    /**
+     * Gửi qua SMTP và ghi thời gian gửi (metric email.send, tag type + outcome)
+     */
+    private void send(MimeMessage message, String type) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            mailSender.send(message);
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder("email.send")
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
     /**
      * Generic method to send plain text email
      */
@@ -58,7 +78,7 @@ public class EmailService {
             helper.setSubject(subject);
             helper.setText(content, false); // Plain text
 
-            mailSender.send(message);
+            send(message, "plain");
             logger.info("Email sent successfully to: {}", toEmail);
         } catch (org.springframework.mail.MailAuthenticationException e) {
             logger.error("❌ SMTP Authentication failed for email: {}. Error: {}", toEmail, e.getMessage());
@@ -129,7 +149,7 @@ public class EmailService {
             );
 
             helper.setText(htmlContent, true);
-            mailSender.send(message);
+            send(message, "confirmation");
 
             logger.info("Appointment confirmation email sent successfully to: {}", toEmail);
         } catch (org.springframework.mail.MailAuthenticationException e) {
@@ -375,7 +395,7 @@ public class EmailService {
             );
 
             helper.setText(htmlContent, true);
-            mailSender.send(message);
+            send(message, "reminder");
 
             logger.info("✅ Appointment reminder email ({}h before) sent successfully to: {}", hoursBefore, toEmail);
         } catch (org.springframework.mail.MailAuthenticationException e) {
@@ -696,7 +716,7 @@ public class EmailService {
             );
 
             helper.setText(htmlContent, true);
-            mailSender.send(message);
+            send(message, "prescription");
             logger.info("Prescription email sent successfully to: {}", toEmail);
         } catch (org.springframework.mail.MailAuthenticationException e) {
             logger.error("❌ SMTP Authentication failed for email: {}. Error: {}", toEmail, e.getMessage());
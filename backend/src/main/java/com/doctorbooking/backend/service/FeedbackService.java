@@ -12,6 +12,9 @@ import com.doctorbooking.backend.repository.AppointmentRepository;
 import com.doctorbooking.backend.repository.DoctorRepository;
 import com.doctorbooking.backend.repository.FeedbackRepository;
 import com.doctorbooking.backend.repository.PatientRepository;
+import com.doctorbooking.backend.util.EntityStreams;
+import com.doctorbooking.backend.util.ResourceVersion;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +23,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,6 +37,7 @@ public class FeedbackService {
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
+    private final EntityManager entityManager;
 
     // ========== PATIENT OPERATIONS ==========
 
@@ -115,6 +120,17 @@ public class FeedbackService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Phiên bản danh sách feedback (COUNT + MAX(updated_at)) cho ETag; ẩn / trả lời feedback đều đổi updated_at
+     */
+    public ResourceVersion getPatientFeedbacksVersion(Long patientId) {
+        return feedbackRepository.findVersionByPatientId(patientId);
+    }
+
+    public ResourceVersion getDoctorFeedbacksVersion(Long doctorId) {
+        return feedbackRepository.findVersionByDoctorId(doctorId);
+    }
+
     /**
      * Patient views specific feedback
      */
@@ -248,20 +264,20 @@ public class FeedbackService {
     }
 
     /**
-     * Admin filters feedbacks by status
+     * Admin filters feedbacks by status (status rỗng / không hợp lệ = tất cả), stream từng dòng cho sink
      */
-    public List<FeedbackResponse> getFeedbacksByStatus(String status) {
-        if (status == null || status.trim().isEmpty()) {
-            return getAllFeedbacks();
-        }
-        try {
-            Feedback.FeedbackStatus feedbackStatus = Feedback.FeedbackStatus.valueOf(status.toUpperCase());
-            return feedbackRepository.findByStatusOrderByCreatedAtDesc(feedbackStatus).stream()
-                    .map(FeedbackResponse::fromEntity)
-                    .collect(Collectors.toList());
-        } catch (IllegalArgumentException e) {
-            return getAllFeedbacks();
+    @Transactional(readOnly = true)
+    public long streamFeedbacksByStatus(String status, Consumer<FeedbackResponse> sink) {
+        Feedback.FeedbackStatus feedbackStatus = null;
+        if (status != null && !status.trim().isEmpty()) {
+            try {
+                feedbackStatus = Feedback.FeedbackStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Giữ hành vi cũ: status lạ thì trả mọi feedback
+            }
         }
+        return EntityStreams.forEach(entityManager, feedbackRepository.streamByStatus(feedbackStatus),
+                FeedbackResponse::fromEntity, sink);
     }
 
     /**
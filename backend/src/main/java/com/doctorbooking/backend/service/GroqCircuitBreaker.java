@@ -0,0 +1,173 @@
+package com.doctorbooking.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker cho Groq API.
+ * - CLOSED: ghi kết quả N lời gọi gần nhất (rolling window); tỉ lệ lỗi hoặc tỉ lệ gọi chậm vượt ngưỡng -> OPEN
+ * - OPEN: từ chối ngay (caller dùng fallback cục bộ) trong openDuration
+ * - HALF_OPEN: cho một số lời gọi thử; tất cả thành công -> CLOSED, có lỗi/chậm -> OPEN lại
+ */
+@Component
+public class GroqCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroqCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte OUTCOME_SUCCESS = 0;
+    private static final byte OUTCOME_FAILURE = 1;
+    private static final byte OUTCOME_SLOW = 2;
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallThresholdMillis;
+    private final int slowCallRateThreshold;
+    private final long openDurationMillis;
+    private final int halfOpenPermits;
+
+    // Rolling window theo số lời gọi (ring buffer)
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    private long rejectedCalls;
+    private long timesOpened;
+
+    public GroqCircuitBreaker(
+            @Value("${ai.groq.circuit.window-size:20}") int windowSize,
+            @Value("${ai.groq.circuit.minimum-calls:10}") int minimumCalls,
+            @Value("${ai.groq.circuit.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${ai.groq.circuit.slow-call-threshold-ms:10000}") long slowCallThresholdMillis,
+            @Value("${ai.groq.circuit.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+            @Value("${ai.groq.circuit.open-duration-ms:30000}") long openDurationMillis,
+            @Value("${ai.groq.circuit.half-open-permits:3}") int halfOpenPermits) {
+        this.window = new byte[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThresholdMillis = slowCallThresholdMillis;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenPermits = halfOpenPermits;
+    }
+
+    /**
+     * Có được phép gọi Groq không. Mỗi lần trả true phải đi kèm đúng một onSuccess/onError.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                rejectedCalls++;
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenSuccesses >= halfOpenPermits) {
+                rejectedCalls++;
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess(long durationMillis) {
+        record(durationMillis >= slowCallThresholdMillis ? OUTCOME_SLOW : OUTCOME_SUCCESS);
+    }
+
+    public synchronized void onError() {
+        record(OUTCOME_FAILURE);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("bufferedCalls", windowCount);
+        stats.put("failureRate", windowCount > 0 ? failureCount * 100.0 / windowCount : 0.0);
+        stats.put("slowCallRate", windowCount > 0 ? slowCount * 100.0 / windowCount : 0.0);
+        stats.put("rejectedCalls", rejectedCalls);
+        stats.put("timesOpened", timesOpened);
+        return stats;
+    }
+
+    private void record(byte outcome) {
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            if (outcome != OUTCOME_SUCCESS) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenSuccesses >= halfOpenPermits) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // Lời gọi bắt đầu trước khi mạch mở - không ảnh hưởng trạng thái
+            return;
+        }
+
+        if (windowCount == window.length) {
+            byte evicted = window[windowIndex];
+            if (evicted == OUTCOME_FAILURE) {
+                failureCount--;
+            } else if (evicted == OUTCOME_SLOW) {
+                slowCount--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % window.length;
+        if (outcome == OUTCOME_FAILURE) {
+            failureCount++;
+        } else if (outcome == OUTCOME_SLOW) {
+            slowCount++;
+        }
+
+        if (windowCount >= minimumCalls
+                && (failureCount * 100 >= failureRateThreshold * windowCount
+                || slowCount * 100 >= slowCallRateThreshold * windowCount)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State newState) {
+        if (newState == State.OPEN) {
+            logger.warn("Groq circuit breaker {} -> OPEN (failures={}, slow={}, calls={})",
+                    state, failureCount, slowCount, windowCount);
+            openedAt = System.currentTimeMillis();
+            timesOpened++;
+        } else {
+            logger.info("Groq circuit breaker {} -> {}", state, newState);
+        }
+        state = newState;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+        if (newState != State.HALF_OPEN) {
+            // Bắt đầu cửa sổ mới sau mỗi lần mở/đóng mạch
+            windowIndex = 0;
+            windowCount = 0;
+            failureCount = 0;
+            slowCount = 0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.EntityChangeEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Transport trong JVM: gửi đồng bộ tới mọi subscriber. Mặc định cho triển khai một node;
+ * dùng chung một instance cho nhiều application context để giả lập nhiều node khi test.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.invalidation.transport", havingValue = "local", matchIfMissing = true)
+public class InProcessCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private final List<Consumer<EntityChangeEvent>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(EntityChangeEvent event) {
+        receivers.forEach(receiver -> receiver.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<EntityChangeEvent> receiver) {
+        receivers.add(receiver);
+    }
+}
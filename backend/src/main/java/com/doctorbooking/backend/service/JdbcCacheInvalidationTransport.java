@@ -0,0 +1,94 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.EntityChangeEvent;
+import com.doctorbooking.backend.repository.EntityChangeEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Transport qua DB cho nhiều instance backend: mỗi thay đổi ghi một dòng vào entity_change_events,
+ * mỗi node poll các dòng có id lớn hơn dòng cuối đã đọc (mỗi poll-interval-ms một câu SELECT theo khóa chính).
+ * Id IDENTITY có thể commit không theo thứ tự, nên mỗi lần poll đọc lùi lại ID_GAP_WINDOW id và bỏ qua id đã giao.
+ * Node mới khởi động bắt đầu từ id lớn nhất hiện có (cache của nó đang rỗng, không cần phát lại lịch sử).
+ * Sự kiện bị lỡ (node tạm mất kết nối DB) vẫn được TTL của từng cache giới hạn độ cũ.
+ * send() được bus gọi trong afterCommit(), lúc transaction nghiệp vụ đã commit nhưng vẫn còn gắn vào thread:
+ * ghi trong transaction REQUIRES_NEW riêng, nếu join vào transaction cũ thì dòng sự kiện không bao giờ được commit.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.invalidation.transport", havingValue = "jdbc")
+public class JdbcCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcCacheInvalidationTransport.class);
+    private static final long ID_GAP_WINDOW = 50;
+    private static final int DELIVERED_IDS_KEPT = 1000;
+
+    private final EntityChangeEventRepository entityChangeEventRepository;
+    private final TransactionTemplate sendTransaction;
+    private final long retentionMinutes;
+    private final List<Consumer<EntityChangeEvent>> receivers = new CopyOnWriteArrayList<>();
+
+    // Chỉ truy cập từ thread của job poll
+    private final Set<Long> deliveredIds = new LinkedHashSet<>();
+    private long lastSeenId;
+
+    public JdbcCacheInvalidationTransport(
+            EntityChangeEventRepository entityChangeEventRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.cache.invalidation.retention-minutes:60}") long retentionMinutes) {
+        this.entityChangeEventRepository = entityChangeEventRepository;
+        this.sendTransaction = new TransactionTemplate(transactionManager);
+        this.sendTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retentionMinutes = retentionMinutes;
+        this.lastSeenId = entityChangeEventRepository.findMaxId();
+    }
+
+    @Override
+    public void send(EntityChangeEvent event) {
+        sendTransaction.executeWithoutResult(status -> entityChangeEventRepository.save(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<EntityChangeEvent> receiver) {
+        receivers.add(receiver);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.poll-interval-ms:1000}")
+    public void poll() {
+        List<EntityChangeEvent> events = entityChangeEventRepository
+                .findTop500ByIdGreaterThanOrderByIdAsc(Math.max(0, lastSeenId - ID_GAP_WINDOW));
+        for (EntityChangeEvent event : events) {
+            if (deliveredIds.add(event.getId())) {
+                receivers.forEach(receiver -> receiver.accept(event));
+            }
+            lastSeenId = Math.max(lastSeenId, event.getId());
+        }
+        Iterator<Long> oldest = deliveredIds.iterator();
+        while (deliveredIds.size() > DELIVERED_IDS_KEPT) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.purge-interval-ms:600000}")
+    public void purgeOldEvents() {
+        int deleted = entityChangeEventRepository.deleteOlderThan(LocalDateTime.now().minusMinutes(retentionMinutes));
+        if (deleted > 0) {
+            logger.debug("Purged {} entity change events older than {} minutes", deleted, retentionMinutes);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.doctorbooking.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Thread pool riêng, giới hạn, cho các tác vụ hash/verify password (BCrypt tốn ~100ms CPU mỗi lần).
+ * Đăng nhập dồn dập chỉ chiếm tối đa poolSize thread + hàng đợi queueCapacity;
+ * hàng đợi đầy -> từ chối ngay (503) thay vì làm cạn thread của Tomcat.
+ */
+@Component
+public class PasswordVerificationExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordVerificationExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    public PasswordVerificationExecutor(
+            @Value("${app.security.password.verify-pool-size:0}") int configuredPoolSize,
+            @Value("${app.security.password.verify-queue-capacity:200}") int queueCapacity) {
+        // Mặc định: số CPU - 1, để luôn còn CPU cho các request khác
+        int poolSize = configuredPoolSize > 0
+                ? configuredPoolSize
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.queueCapacity = queueCapacity;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-verify-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        logger.info("Password verification pool: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Chạy task trên pool; future thất bại với RejectedExecutionException nếu hàng đợi đã đầy
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                recordQueueWait(startedAt - enqueuedAt);
+                try {
+                    return task.get();
+                } finally {
+                    totalRunNanos.addAndGet(System.nanoTime() - startedAt);
+                    completed.incrementAndGet();
+                }
+            }, executor);
+            submitted.incrementAndGet();
+            return future;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            logger.warn("Password verification queue full ({} waiting) - rejecting request", executor.getQueue().size());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Thống kê pool: kích thước hàng đợi, thời gian chờ trong hàng đợi, số request bị từ chối
+     */
+    public Map<String, Object> getStats() {
+        long completedCount = completed.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", executor.getMaximumPoolSize());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("submitted", submitted.get());
+        stats.put("completed", completedCount);
+        stats.put("rejected", rejected.get());
+        stats.put("avgQueueWaitMs", completedCount > 0 ? totalQueueWaitNanos.get() / 1_000_000.0 / completedCount : 0.0);
+        stats.put("maxQueueWaitMs", maxQueueWaitNanos.get() / 1_000_000.0);
+        stats.put("avgRunMs", completedCount > 0 ? totalRunNanos.get() / 1_000_000.0 / completedCount : 0.0);
+        return stats;
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void recordQueueWait(long waitNanos) {
+        totalQueueWaitNanos.addAndGet(waitNanos);
+        maxQueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+}
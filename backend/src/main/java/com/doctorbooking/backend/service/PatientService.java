@@ -4,6 +4,7 @@ import com.doctorbooking.backend.dto.request.ChangePasswordRequest;
 import com.doctorbooking.backend.dto.request.UpdatePatientProfileRequest;
 import com.doctorbooking.backend.dto.response.PatientResponse;
 import com.doctorbooking.backend.dto.response.TreatmentResponse;
+import com.doctorbooking.backend.model.EntityChangeEvent;
 import com.doctorbooking.backend.model.Patient;
 import com.doctorbooking.backend.model.User;
 import com.doctorbooking.backend.repository.PatientRepository;
@@ -25,6 +26,7 @@ public class PatientService {
     private final TreatmentRepository treatmentRepository;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     public List<PatientResponse> searchPatients(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
@@ -104,15 +106,15 @@ public class PatientService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
 
-        // Verify current password (plain text comparison)
-        if (!request.getCurrentPassword().equals(user.getPassword())) {
+        // Verify current password (hỗ trợ cả password plain text cũ)
+        if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
             throw new RuntimeException("Current password is incorrect");
         }
 
-        // Update password (plain text - tạm thời)
-        user.setPassword(request.getNewPassword()); // Plain text
-        // user.setPassword(passwordEncoder.encode(request.getNewPassword())); // BCrypt - uncomment sau khi test xong
+        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        // Thu hồi các refresh token đã cấp trước khi đổi mật khẩu (RefreshTokenReplayCache)
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.USER, userId);
     }
 }
 
@@ -0,0 +1,110 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.PaymentCallback;
+import com.doctorbooking.backend.repository.PaymentCallbackRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Chống xử lý trùng callback VNPAY (VNPAY retry, người dùng refresh trang kết quả).
+ * Mỗi cặp vnp_TxnRef + vnp_TransactionNo chỉ được xử lý đúng một lần:
+ * - Cache in-memory các key gần đây để trả lời callback trùng trong O(1), không chạm DB
+ * - Unique constraint trên bảng payment_callbacks để chặn race giữa các request đồng thời / nhiều instance
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentCallbackService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentCallbackService.class);
+    private static final int RECENT_KEY_CAPACITY = 10_000;
+
+    private final PaymentCallbackRepository paymentCallbackRepository;
+    private final MeterRegistry meterRegistry;
+
+    // LRU giới hạn kích thước, key cũ nhất sẽ bị loại bỏ (DB vẫn giữ unique constraint)
+    private final Map<String, Boolean> recentKeys = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > RECENT_KEY_CAPACITY;
+                }
+            });
+
+    /**
+     * Đăng ký callback để xử lý.
+     * Trả về true nếu đây là lần đầu nhận callback này, false nếu đã được xử lý (hoặc đang xử lý) trước đó.
+     */
+    public boolean tryAcquire(PaymentCallback.CallbackType callbackType, String txnRef,
+                              String transactionNo, String responseCode) {
+        String normalizedTransactionNo = normalize(transactionNo);
+        String key = buildKey(txnRef, normalizedTransactionNo);
+
+        if (recentKeys.containsKey(key)) {
+            recordCallback(callbackType, responseCode, "duplicate");
+            logger.info("Duplicate VNPAY callback ignored (cache hit): txnRef={}, transactionNo={}",
+                    txnRef, normalizedTransactionNo);
+            return false;
+        }
+
+        PaymentCallback callback = new PaymentCallback();
+        callback.setTxnRef(txnRef);
+        callback.setTransactionNo(normalizedTransactionNo);
+        callback.setCallbackType(callbackType);
+        callback.setResponseCode(responseCode);
+
+        try {
+            paymentCallbackRepository.saveAndFlush(callback);
+        } catch (DataIntegrityViolationException e) {
+            recentKeys.put(key, Boolean.TRUE);
+            recordCallback(callbackType, responseCode, "duplicate");
+            logger.info("Duplicate VNPAY callback ignored (unique constraint): txnRef={}, transactionNo={}",
+                    txnRef, normalizedTransactionNo);
+            return false;
+        }
+
+        recentKeys.put(key, Boolean.TRUE);
+        recordCallback(callbackType, responseCode, "accepted");
+        return true;
+    }
+
+    /**
+     * Đếm callback VNPAY theo loại, kết quả thanh toán (vnp_ResponseCode 00 = thành công) và việc có bị trùng không
+     */
+    private void recordCallback(PaymentCallback.CallbackType callbackType, String responseCode, String result) {
+        meterRegistry.counter("vnpay.callbacks",
+                "type", callbackType.name(),
+                "payment", "00".equals(responseCode) ? "success" : "failed",
+                "result", result).increment();
+    }
+
+    /**
+     * Giải phóng key khi xử lý callback thất bại do lỗi hệ thống, để lần retry sau của VNPAY được xử lý lại
+     */
+    public void release(String txnRef, String transactionNo) {
+        String normalizedTransactionNo = normalize(transactionNo);
+        recentKeys.remove(buildKey(txnRef, normalizedTransactionNo));
+        try {
+            paymentCallbackRepository.findByTxnRefAndTransactionNo(txnRef, normalizedTransactionNo)
+                    .ifPresent(paymentCallbackRepository::delete);
+        } catch (Exception e) {
+            logger.error("Error releasing VNPAY callback key: txnRef={}, transactionNo={}",
+                    txnRef, normalizedTransactionNo, e);
+        }
+    }
+
+    private String normalize(String transactionNo) {
+        return transactionNo != null ? transactionNo : "";
+    }
+
+    private String buildKey(String txnRef, String transactionNo) {
+        return txnRef + '|' + transactionNo;
+    }
+}
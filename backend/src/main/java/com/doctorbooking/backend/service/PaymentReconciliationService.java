@@ -0,0 +1,122 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.Appointment;
+import com.doctorbooking.backend.model.EntityChangeEvent;
+import com.doctorbooking.backend.model.WalletTransaction;
+import com.doctorbooking.backend.repository.AppointmentRepository;
+import com.doctorbooking.backend.repository.WalletTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Dọn các thanh toán VNPAY bị bỏ dở (không bao giờ nhận callback):
+ * - Giao dịch nạp tiền PENDING quá hạn -> FAILED (giống failDepositTransaction)
+ * - Lịch hẹn VNPAY chưa thanh toán quá hạn -> CANCELLED + UNPAID, giải phóng slot
+ *   (giống cancelAppointmentDueToPaymentFailure)
+ * Mỗi lượt quét xử lý theo batch giới hạn, mỗi batch là một câu UPDATE hàng loạt trong transaction riêng.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    // URL VNPAY hết hạn sau 15 phút (vnp_ExpireDate), chờ thêm để callback trễ kịp về
+    @Value("${app.payment.reconciliation.pending-timeout-minutes:30}")
+    private long pendingTimeoutMinutes;
+
+    @Value("${app.payment.reconciliation.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.payment.reconciliation.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    /**
+     * Chạy mỗi 5 phút (tính từ khi lượt trước kết thúc)
+     */
+    @Scheduled(fixedDelayString = "${app.payment.reconciliation.interval-ms:300000}", initialDelay = 60000)
+    public void reconcileStalePayments() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(pendingTimeoutMinutes);
+        try {
+            int failedDeposits = failStaleDeposits(cutoff);
+            int cancelledAppointments = cancelStaleVnpayAppointments(cutoff);
+            if (cancelledAppointments > 0) {
+                // Hủy hàng loạt: không phát từng id, bỏ toàn bộ cache liên quan tới lịch hẹn
+                cacheInvalidationBus.publish(EntityChangeEvent.EntityType.APPOINTMENT, null);
+            }
+            if (failedDeposits > 0 || cancelledAppointments > 0) {
+                logger.info("Payment reconciliation: {} deposits marked FAILED, {} appointments cancelled (cutoff={})",
+                        failedDeposits, cancelledAppointments, cutoff);
+            } else {
+                logger.debug("Payment reconciliation: nothing to reconcile (cutoff={})", cutoff);
+            }
+        } catch (Exception e) {
+            logger.error("❌ Error in reconcileStalePayments scheduled task", e);
+        }
+    }
+
+    int failStaleDeposits(LocalDateTime cutoff) {
+        String reasonSuffix = " - Payment expired: no VNPAY callback received";
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = walletTransactionRepository.findStaleTransactionIds(
+                    WalletTransaction.TransactionType.DEPOSIT,
+                    WalletTransaction.TransactionStatus.PENDING,
+                    cutoff,
+                    PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            total += walletTransactionRepository.bulkUpdatePendingStatus(
+                    ids,
+                    WalletTransaction.TransactionStatus.PENDING,
+                    WalletTransaction.TransactionStatus.FAILED,
+                    reasonSuffix,
+                    LocalDateTime.now());
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    int cancelStaleVnpayAppointments(LocalDateTime cutoff) {
+        String reason = "Tự động hủy: không hoàn tất thanh toán VNPAY";
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = appointmentRepository.findStaleOnlinePaymentIds(
+                    "VNPAY",
+                    Appointment.PaymentStatus.PENDING,
+                    Appointment.AppointmentStatus.PENDING,
+                    cutoff,
+                    PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            total += appointmentRepository.bulkCancelUnpaid(
+                    ids,
+                    Appointment.PaymentStatus.PENDING,
+                    Appointment.AppointmentStatus.PENDING,
+                    Appointment.AppointmentStatus.CANCELLED,
+                    Appointment.PaymentStatus.UNPAID,
+                    reason,
+                    LocalDateTime.now());
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,117 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.EntityChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Phát hiện refresh token bị dùng lại (replay) và thu hồi phiên mà không cần DB.
+ * - Tập jti đã dùng (jti -> hạn token): dùng lại một token -> thu hồi cả chuỗi rotation (fid) của nó
+ * - User bị thu hồi (userId -> thời điểm): mọi family bắt đầu trước thời điểm đó bị từ chối.
+ *   Nhận qua CacheInvalidationBus (sự kiện USER: khóa / xóa / sửa user, đổi mật khẩu) nên áp dụng trên mọi node.
+ *   JwtAuthenticationFilter cũng kiểm tra access token với tập này (không query DB).
+ * Mục nhập tự hết hạn: token hết hạn thì tự bị từ chối, family không sống quá jwt.refresh-max-lifetime.
+ */
+@Component
+public class RefreshTokenReplayCache implements CacheInvalidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenReplayCache.class);
+
+    private final long familyMaxLifetimeMillis;
+    private final Map<String, Long> usedTokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedFamilies = new ConcurrentHashMap<>();
+    private final Map<Long, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private final AtomicLong replaysDetected = new AtomicLong();
+    private final AtomicLong revokedRefreshes = new AtomicLong();
+
+    public RefreshTokenReplayCache(
+            @Value("${jwt.refresh-max-lifetime:${jwt.refresh-expiration}}") long familyMaxLifetimeMillis) {
+        this.familyMaxLifetimeMillis = familyMaxLifetimeMillis;
+    }
+
+    /**
+     * Đánh dấu refresh token đã dùng. Trả về false nếu token đã bị dùng, hoặc family / user của nó đã bị thu hồi.
+     */
+    public boolean tryConsume(String tokenId, String familyId, Long userId, long familyIssuedAtMillis,
+                              long expiresAtMillis) {
+        if (isUserRevoked(userId, familyIssuedAtMillis)) {
+            revokedRefreshes.incrementAndGet();
+            return false;
+        }
+        if (familyId != null && revokedFamilies.containsKey(familyId)) {
+            revokedRefreshes.incrementAndGet();
+            return false;
+        }
+        if (usedTokens.putIfAbsent(tokenId, expiresAtMillis) != null) {
+            replaysDetected.incrementAndGet();
+            if (familyId != null) {
+                revokedFamilies.put(familyId, familyIssuedAtMillis + familyMaxLifetimeMillis);
+            }
+            logger.warn("Refresh token replay detected (jti={}, family={}) - family revoked", tokenId, familyId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Token (hoặc family) cấp lúc issuedAtMillis của user đã bị thu hồi sau đó
+     */
+    public boolean isUserRevoked(Long userId, long issuedAtMillis) {
+        Long revokedAt = userId != null ? revokedUsers.get(userId) : null;
+        return revokedAt != null && issuedAtMillis <= revokedAt;
+    }
+
+    /**
+     * Thu hồi mọi phiên (family) của user bắt đầu từ trước thời điểm này; đăng nhập lại sau đó vẫn dùng được
+     */
+    public void revokeUser(Long userId) {
+        revokedUsers.merge(userId, System.currentTimeMillis(), Math::max);
+        logger.debug("Revoked refresh token families of user {}", userId);
+    }
+
+    @Override
+    public Set<EntityChangeEvent.EntityType> getEntityTypes() {
+        return Set.of(EntityChangeEvent.EntityType.USER);
+    }
+
+    /**
+     * User bị khóa, xóa, đổi mật khẩu / quyền -> các refresh token đang có (mang role cũ) không còn dùng được
+     */
+    @Override
+    public void onEntityChanged(EntityChangeEvent event) {
+        if (event.getEntityId() != null) {
+            revokeUser(event.getEntityId());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("usedTokens", usedTokens.size());
+        stats.put("revokedFamilies", revokedFamilies.size());
+        stats.put("revokedUsers", revokedUsers.size());
+        stats.put("replaysDetected", replaysDetected.get());
+        stats.put("revokedRefreshes", revokedRefreshes.get());
+        return stats;
+    }
+
+    /**
+     * Dọn các mục đã hết hạn: token đã hết hạn, family / user thu hồi từ lâu hơn tuổi thọ tối đa của family
+     */
+    @Scheduled(fixedDelayString = "${app.auth.refresh.replay-cache.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        usedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        revokedFamilies.values().removeIf(expiresAt -> expiresAt < now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + familyMaxLifetimeMillis < now);
+    }
+}
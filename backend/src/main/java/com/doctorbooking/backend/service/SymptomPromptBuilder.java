@@ -0,0 +1,208 @@
+package com.doctorbooking.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Dựng prompt và request body cho Groq.
+ * System prompt (hướng dẫn + bảng mapping + danh sách chuyên khoa) chỉ được dựng lại khi tập chuyên khoa thay đổi,
+ * và được escape JSON sẵn một lần; mỗi request chỉ còn phải ghi input của người dùng.
+ * Danh sách chuyên khoa lấy từ DoctorCatalogCache (được invalidate khi sửa bác sĩ).
+ */
+@Component
+public class SymptomPromptBuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SymptomPromptBuilder.class);
+    private static final String MODEL = "llama-3.3-70b-versatile";
+
+    private final DoctorCatalogCache doctorCatalogCache;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private volatile PromptSnapshot snapshot;
+
+    public SymptomPromptBuilder(DoctorCatalogCache doctorCatalogCache) {
+        this.doctorCatalogCache = doctorCatalogCache;
+    }
+
+    /**
+     * Snapshot hiện tại; system prompt chỉ dựng lại khi danh sách chuyên khoa khác đi
+     */
+    public PromptSnapshot current() {
+        List<String> specializations = doctorCatalogCache.getSpecializations();
+        PromptSnapshot current = snapshot;
+        if (current != null && current.specializations().equals(specializations)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.specializations().equals(specializations)) {
+                return current;
+            }
+            current = buildSnapshot(specializations);
+            logger.info("Dựng lại system prompt cho {} chuyên khoa ({} ký tự)",
+                    specializations.size(), current.systemPrompt().length());
+            snapshot = current;
+            return current;
+        }
+    }
+
+    /**
+     * Request body OpenAI-compatible: system message dùng lại từ snapshot (đã escape sẵn), user message là input
+     */
+    public byte[] buildRequestBody(PromptSnapshot prompt, String userInput, boolean stream) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(prompt.systemPromptJson().length() * 2 + userInput.length() * 3 + 256);
+        try (JsonGenerator gen = jsonFactory.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("model", MODEL);
+            gen.writeArrayFieldStart("messages");
+
+            gen.writeStartObject();
+            gen.writeStringField("role", "system");
+            gen.writeFieldName("content");
+            gen.writeRawValue(prompt.systemPromptJson());
+            gen.writeEndObject();
+
+            gen.writeStartObject();
+            gen.writeStringField("role", "user");
+            gen.writeStringField("content", userInput);
+            gen.writeEndObject();
+
+            gen.writeEndArray();
+            gen.writeNumberField("temperature", 0.7);
+            gen.writeNumberField("max_tokens", 2000);
+            gen.writeBooleanField("stream", stream);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không tạo được request body cho Groq", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static PromptSnapshot buildSnapshot(List<String> specializations) {
+        String specializationsStr = String.join(", ", specializations);
+        String systemPrompt = buildSystemPrompt(specializationsStr);
+        String systemPromptJson = '"' + new String(JsonStringEncoder.getInstance().quoteAsString(systemPrompt)) + '"';
+        return new PromptSnapshot(specializations, specializationsStr, systemPrompt, systemPromptJson);
+    }
+
+    private static String buildSystemPrompt(String specializationsStr) {
+        // Tạo mapping triệu chứng -> chuyên khoa để AI hiểu rõ hơn
+        String symptomMappingGuide = buildSymptomMappingGuide(specializationsStr);
+
+        return String.format(
+                "Bạn là trợ lý sức khỏe thông minh và thân thiện của hệ thống đặt lịch khám bệnh. " +
+                        "Câu nói của người dùng nằm trong message tiếp theo. " +
+                        "Danh sách các chuyên khoa hiện có trong hệ thống: [%s]. " +
+                        "\n\n" +
+                        "%s" +
+                        "\n\n" +
+                        "NHIỆM VỤ CỦA BẠN (phân tích kỹ loại câu nói của người dùng): " +
+                        "\n\n" +
+                        "1. Nếu người dùng CHÀO HỎI hoặc NÓI CHUYỆN XÃ GIAO (ví dụ: 'xin chào', 'hello', 'chào bạn', 'cảm ơn', 'tạm biệt', v.v.): "
+                        +
+                        "   - Trả lời một cách tự nhiên, thân thiện và ngắn gọn như một cuộc trò chuyện bình thường. " +
+                        "   - Giới thiệu ngắn gọn về khả năng của bạn và hướng dẫn cách sử dụng. " +
+                        "   - 'suggestedSpecialization': 'Other'. " +
+                        "   - 'riskLevel': 'Low'. " +
+                        "   - 'advice': Câu trả lời tự nhiên, thân thiện, KHÔNG dùng từ 'chẩn đoán', KHÔNG đưa ra lời khuyên y tế. "
+                        +
+                        "   - 'reason': Để TRỐNG (empty string \"\") - KHÔNG đưa ra lý do kỹ thuật. " +
+                        "   - 'homeRemedies': Để TRỐNG (mảng rỗng []) - KHÔNG đưa ra lời khuyên tại nhà khi chỉ là chào hỏi. "
+                        +
+                        "\n\n" +
+                        "2. Nếu người dùng mô tả TRIỆU CHỨNG bệnh (ví dụ: 'đau đầu', 'sốt', 'ho', 'đau bụng', 'nôn', 'đau dạ dày', v.v.): "
+                        +
+                        "   - Phân tích triệu chứng một cách chuyên nghiệp và xác định chuyên khoa phù hợp NHẤT từ danh sách trên. "
+                        +
+                        "   - SỬ DỤNG BẢNG MAPPING Ở TRÊN để tìm chuyên khoa phù hợp. " +
+                        "   - Nếu có chuyên khoa phù hợp: 'suggestedSpecialization' = tên khoa (tiếng Anh, chính xác như trong danh sách). "
+                        +
+                        "   - Nếu không có khoa chính xác nhưng có khoa GẦN NHẤT: chọn khoa gần nhất (ví dụ: đau bụng -> Gastroenterology hoặc Internal Medicine nếu có). "
+                        +
+                        "   - CHỈ đặt 'Other' khi thực sự không có khoa nào liên quan. " +
+                        "   - 'riskLevel': Đánh giá mức độ nghiêm trọng dựa trên triệu chứng (Low/Medium/High). " +
+                        "   - 'advice': Lời khuyên cụ thể về việc nên làm gì, BAO GỒM gợi ý khám chuyên khoa nào (Tiếng Việt, chi tiết, chuyên nghiệp). "
+                        +
+                        "   - 'reason': Giải thích ngắn gọn tại sao nên khám khoa đó (Tiếng Việt, dễ hiểu, KHÔNG dùng từ kỹ thuật như 'người dùng'). "
+                        +
+                        "   - 'homeRemedies': Danh sách 2-3 biện pháp tại nhà để giảm triệu chứng (mảng JSON string, Tiếng Việt). "
+                        +
+                        "\n\n" +
+                        "3. Nếu người dùng hỏi CÂU HỎI FOLLOW-UP về khoa khám (ví dụ: 'vậy tôi nên khám khoa nào', 'nên khám ở khoa nào', 'khoa nào phù hợp', 'tôi nên khám khoa nào ở hệ thống bên bạn'): "
+                        +
+                        "   - Đây là câu hỏi follow-up, có nghĩa là người dùng đã nói về triệu chứng trước đó. " +
+                        "   - PHÂN TÍCH câu hỏi để tìm manh mối về triệu chứng (ví dụ: nếu câu hỏi có từ 'đau bụng' -> Gastroenterology). "
+                        +
+                        "   - Nếu câu hỏi KHÔNG chứa triệu chứng cụ thể: trả lời chung chung về cách sử dụng hệ thống và yêu cầu mô tả triệu chứng. "
+                        +
+                        "   - Nếu câu hỏi CÓ chứa triệu chứng: gợi ý khoa phù hợp dựa trên triệu chứng đó. " +
+                        "   - 'suggestedSpecialization': Khoa phù hợp hoặc 'Other' nếu không xác định được. " +
+                        "   - 'riskLevel': 'Low' (vì đây là câu hỏi thông tin). " +
+                        "   - 'advice': Trả lời câu hỏi một cách chi tiết, gợi ý khoa cụ thể nếu có thể. " +
+                        "   - 'reason': Giải thích ngắn gọn tại sao gợi ý khoa đó (Tiếng Việt, dễ hiểu). " +
+                        "   - 'homeRemedies': Để TRỐNG hoặc thêm 1-2 lời khuyên chung nếu phù hợp. " +
+                        "\n\n" +
+                        "4. Nếu người dùng hỏi CÂU HỎI CHUNG về y tế (ví dụ: 'các chuyên khoa có gì', 'tìm bác sĩ', v.v.): "
+                        +
+                        "   - Trả lời câu hỏi một cách hữu ích và chuyên nghiệp (Tiếng Việt). " +
+                        "   - Liệt kê các chuyên khoa có sẵn nếu được hỏi. " +
+                        "   - 'suggestedSpecialization': 'Other' hoặc khoa phù hợp nếu câu hỏi cụ thể. " +
+                        "   - 'riskLevel': 'Low'. " +
+                        "   - 'advice': Trả lời câu hỏi một cách chi tiết và hữu ích. " +
+                        "   - 'reason': Để TRỐNG hoặc giải thích ngắn gọn. " +
+                        "   - 'homeRemedies': Để TRỐNG. " +
+                        "\n\n" +
+                        "5. Nếu người dùng nói điều gì KHÔNG LIÊN QUAN đến y tế: " +
+                        "   - Trả lời lịch sự và chuyên nghiệp. " +
+                        "   - Nhẹ nhàng hướng dẫn người dùng cách sử dụng hệ thống. " +
+                        "   - 'suggestedSpecialization': 'Other'. " +
+                        "   - 'riskLevel': 'Low'. " +
+                        "   - 'advice': Câu trả lời thân thiện, hướng dẫn cách sử dụng. " +
+                        "   - 'reason': Để TRỐNG. " +
+                        "   - 'homeRemedies': Để TRỐNG. " +
+                        "\n\n" +
+                        "QUY TẮC QUAN TRỌNG: " +
+                        "- LUÔN cố gắng tìm chuyên khoa phù hợp từ danh sách, CHỈ dùng 'Other' khi thực sự không có khoa nào liên quan. "
+                        +
+                        "- Nếu không có khoa chính xác, chọn khoa GẦN NHẤT (ví dụ: đau bụng -> Gastroenterology, không có thì Internal Medicine). "
+                        +
+                        "- 'reason' CHỈ điền khi có phân tích y tế thực sự, KHÔNG điền khi chỉ là chào hỏi. " +
+                        "- 'homeRemedies' CHỈ điền khi có triệu chứng cụ thể cần lời khuyên tại nhà. " +
+                        "- 'advice' phải tự nhiên, không dùng từ kỹ thuật như 'người dùng', 'hệ thống', 'phân tích', v.v. "
+                        +
+                        "- Luôn trả lời bằng Tiếng Việt, trừ tên chuyên khoa (tiếng Anh). " +
+                        "- Luôn trả về đúng định dạng JSON, KHÔNG dùng markdown, KHÔNG dùng code block. " +
+                        "\n\n" +
+                        "ĐỊNH DẠNG JSON BẮT BUỘC (chỉ trả về JSON thuần, không có text khác): " +
+                        "{ " +
+                        "\"suggestedSpecialization\": \"Tên khoa hoặc Other\", " +
+                        "\"riskLevel\": \"Low/Medium/High\", " +
+                        "\"advice\": \"Câu trả lời tự nhiên bằng Tiếng Việt\", " +
+                        "\"reason\": \"Lý do (để trống nếu không cần)\", " +
+                        "\"homeRemedies\": [\"Biện pháp 1\", \"Biện pháp 2\"] hoặc [] nếu không cần " +
+                        "}",
+                specializationsStr, symptomMappingGuide);
+    }
+
+    private static String buildSymptomMappingGuide(String specializationsStr) {
+        return "BẢNG MAPPING TRIỆU CHỨNG -> CHUYÊN KHOA (sử dụng để gợi ý chính xác):\n" +
+                SymptomTriageEngine.renderMappingTable() +
+                "\n" +
+                "LƯU Ý: Nếu trong danh sách chuyên khoa [" + specializationsStr
+                + "] không có khoa chính xác, hãy chọn khoa GẦN NHẤT hoặc phù hợp nhất. " +
+                "Ví dụ: Nếu không có 'Gastroenterology' nhưng có 'Internal Medicine', thì chọn 'Internal Medicine' cho đau bụng.\n";
+    }
+
+    public record PromptSnapshot(List<String> specializations, String specializationsStr, String systemPrompt,
+                                 String systemPromptJson) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.dto.response.SymptomCheckResponse;
+import com.doctorbooking.backend.util.BoundedTtlCache;
+import com.doctorbooking.backend.util.VietnameseTextNormalizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache câu trả lời AI theo input đã chuẩn hóa (chữ thường, bỏ dấu, bỏ stopword) + tập chuyên khoa hiện có.
+ * LRU giới hạn kích thước + TTL (BoundedTtlCache); chỉ lưu câu trả lời thật từ LLM (không lưu fallback).
+ */
+@Component
+public class SymptomResponseCache {
+
+    private final BoundedTtlCache<String, SymptomCheckResponse> entries;
+
+    public SymptomResponseCache(
+            @Value("${ai.cache.max-size:1000}") int maxSize,
+            @Value("${ai.cache.ttl-minutes:360}") long ttlMinutes) {
+        this.entries = new BoundedTtlCache<>(maxSize, ttlMinutes * 60_000L);
+    }
+
+    /**
+     * Tạo cache key từ input người dùng và tập chuyên khoa (đổi chuyên khoa -> key mới)
+     */
+    public String buildKey(String userInput, List<String> specializations) {
+        List<String> sorted = new ArrayList<>(specializations);
+        sorted.sort(String.CASE_INSENSITIVE_ORDER);
+        return VietnameseTextNormalizer.normalize(userInput) + '#' + Integer.toHexString(sorted.hashCode());
+    }
+
+    /**
+     * Trả về bản sao câu trả lời đã cache, hoặc null nếu miss / hết hạn
+     */
+    public SymptomCheckResponse get(String key) {
+        SymptomCheckResponse response = entries.getIfPresent(key);
+        return response != null ? copyOf(response) : null;
+    }
+
+    public void put(String key, SymptomCheckResponse response) {
+        entries.put(key, copyOf(response));
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    /**
+     * Thống kê cache: hits = số lần gọi LLM được tránh
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = entries.getStats();
+        stats.put("llmCallsAvoided", entries.hitCount());
+        return stats;
+    }
+
+    // SymptomCheckResponse là DTO mutable (@Data): luôn trả bản sao để caller không sửa được dữ liệu trong cache
+    private static SymptomCheckResponse copyOf(SymptomCheckResponse source) {
+        return new SymptomCheckResponse(
+                source.getSuggestedSpecialization(),
+                source.getRiskLevel(),
+                source.getAdvice(),
+                source.getReason(),
+                source.getHomeRemedies() != null ? new ArrayList<>(source.getHomeRemedies()) : new ArrayList<>());
+    }
+}
@@ -0,0 +1,442 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.dto.response.SymptomCheckResponse;
+import com.doctorbooking.backend.util.VietnameseTextNormalizer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Phân loại triệu chứng cục bộ trước khi gọi LLM.
+ * Bảng mapping triệu chứng -> chuyên khoa (trước đây chỉ được dán vào prompt) được biên dịch thành
+ * automaton Aho-Corasick. Câu chào hỏi và câu mà mọi từ (trừ từ đệm) đều nằm trong keyword của đúng một
+ * nhóm chuyên khoa được trả lời ngay; các trường hợp còn lại (từ lạ, dấu hiệu nặng, mơ hồ, phủ định, câu dài)
+ * chuyển cho LLM.
+ * So khớp trên văn bản CÒN dấu: bỏ dấu thì "ơi" thành "ói", "non tháng" thành "nôn", "họ" thành "ho".
+ * Người dùng gõ không dấu chỉ khớp được keyword nhiều từ (ít nhập nhằng), và chỉ trên các từ gõ không dấu.
+ */
+@Component
+public class SymptomTriageEngine {
+
+    // Câu dài hơn ngưỡng này thường có ngữ cảnh phức tạp -> để LLM phân tích
+    private static final int MAX_LOCAL_TOKENS = 10;
+
+    // So trên từ đã bỏ dấu: dư một phủ định thì chỉ chuyển cho LLM, không trả lời sai
+    private static final Set<String> NEGATION_TOKENS = Set.of("khong", "chua", "het", "not", "no", "never");
+    // Dấu hiệu nặng / cấp cứu, so trên từ đã bỏ dấu (trùng từ khác thì chỉ chuyển LLM thừa, không trả lời sai).
+    // Câu có các từ này không được trả lời bằng mức nguy cơ cố định và mẹo chăm sóc tại nhà.
+    private static final Set<String> RED_FLAG_PHRASES = Set.of(
+            "du doi", "ra mau", "chay mau", "cao", "kho tho", "ngat", "bat tinh", "co giat", "liet", "nang",
+            "severe", "blood", "bleeding", "faint", "fainted", "unconscious", "seizure", "breath", "breathing"
+    );
+    // Từ đệm không mang triệu chứng (so trên từ còn dấu); mọi từ khác phải nằm trong một keyword đã khớp
+    private static final Set<String> FILLER_TOKENS = Set.of(
+            "tôi", "toi", "mình", "minh", "em", "bị", "bi", "có", "thấy", "hơi", "và", "va", "với", "đang", "dang",
+            "mấy", "hôm", "nay", "bác", "bac", "sĩ", "si", "ạ", "à", "ơi", "oi", "nhé", "nhe",
+            "i", "have", "a", "my", "am", "feel", "and", "got"
+    );
+    // Các tập dưới đây so trên từ còn dấu (kèm cách gõ không dấu khi không trùng với từ khác)
+    private static final Set<String> GREETING_CORE_TOKENS = Set.of("chào", "chao", "hello", "hi", "hey", "alo");
+    private static final Set<String> THANKS_CORE_TOKENS = Set.of("thanks", "thank", "bye");
+    // "cảm" / "biết" đứng một mình không phải lời cảm ơn / tạm biệt ("bị cảm", "tôi biết")
+    private static final Set<String> THANKS_CORE_PHRASES = Set.of(
+            "cảm ơn", "cám ơn", "cam on", "tạm biệt", "tam biet"
+    );
+    private static final Set<String> GREETING_FILLER_TOKENS = Set.of(
+            "xin", "bạn", "ban", "you", "à", "ạ", "a", "ơi", "oi", "nhé", "nhe", "nha", "buổi", "buoi", "sáng",
+            "sang", "chiều", "chieu", "tôi", "toi", "nhiều", "nhieu", "very", "much", "so", "bác", "bac", "sĩ", "si",
+            "ad", "admin", "healthai", "there"
+    );
+
+    private static final List<SymptomRule> RULES = List.of(
+            new SymptomRule(
+                    "Đau bụng, đau dạ dày, nôn, buồn nôn, tiêu chảy, táo bón, đầy hơi, khó tiêu",
+                    List.of(new Specialty("Gastroenterology", "Tiêu hóa"), new Specialty("Internal Medicine", "Nội khoa")),
+                    "Low",
+                    List.of("đau bụng", "đau dạ dày", "nôn", "buồn nôn", "ói", "tiêu chảy", "táo bón", "đầy hơi",
+                            "khó tiêu", "ợ chua", "stomach ache", "stomachache", "diarrhea", "nausea"),
+                    List.of("Ăn thức ăn mềm, dễ tiêu, chia nhỏ bữa ăn.",
+                            "Uống đủ nước, bổ sung oresol nếu bị tiêu chảy hoặc nôn nhiều.",
+                            "Tránh đồ cay nóng, dầu mỡ, rượu bia và cà phê.")),
+            new SymptomRule(
+                    "Đau đầu, chóng mặt, đau nửa đầu, co giật",
+                    List.of(new Specialty("Neurology", "Thần kinh")),
+                    "Medium",
+                    List.of("đau đầu", "nhức đầu", "chóng mặt", "đau nửa đầu", "headache", "migraine",
+                            "dizziness", "dizzy"),
+                    List.of("Nghỉ ngơi ở nơi yên tĩnh, ít ánh sáng.",
+                            "Uống đủ nước và ngủ đủ giấc.",
+                            "Hạn chế nhìn màn hình điện thoại, máy tính trong thời gian dài.")),
+            new SymptomRule(
+                    "Đau ngực, khó thở, tim đập nhanh, huyết áp cao",
+                    List.of(new Specialty("Cardiology", "Tim mạch")),
+                    "High",
+                    // "khó thở", "huyết áp cao" là dấu hiệu nặng (RED_FLAG_PHRASES) -> luôn chuyển LLM
+                    List.of("đau ngực", "tức ngực", "tim đập nhanh", "hồi hộp", "chest pain", "palpitations"),
+                    List.of("Ngừng mọi hoạt động gắng sức, ngồi nghỉ ở tư thế thoải mái.",
+                            "Theo dõi huyết áp và nhịp tim nếu có máy đo tại nhà.")),
+            new SymptomRule(
+                    "Ho, đau họng, nghẹt mũi, đau tai",
+                    List.of(new Specialty("ENT", "Tai mũi họng"), new Specialty("Pulmonology", "Hô hấp")),
+                    "Low",
+                    // "ho" trần trùng với "họ", "hộ" khi gõ không dấu -> cần thêm ngữ cảnh
+                    List.of("bị ho", "ho khan", "ho có đờm", "ho nhiều", "ho kéo dài", "ho ra đờm", "đau họng", "viêm họng", "nghẹt mũi", "sổ mũi", "đau tai",
+                            "ù tai", "cough", "sore throat"),
+                    List.of("Súc miệng bằng nước muối ấm nhiều lần trong ngày.",
+                            "Uống nước ấm, có thể dùng mật ong chanh ấm.",
+                            "Giữ ấm cổ và tránh đồ uống lạnh.")),
+            new SymptomRule(
+                    "Đau khớp, đau lưng, đau cổ, viêm khớp",
+                    List.of(new Specialty("Orthopedics", "Xương khớp"), new Specialty("Rheumatology", "Thấp khớp")),
+                    "Low",
+                    List.of("đau khớp", "đau lưng", "đau cổ", "đau vai gáy", "viêm khớp", "đau gối", "back pain",
+                            "joint pain"),
+                    List.of("Nghỉ ngơi, tránh mang vác vật nặng.",
+                            "Chườm ấm vùng đau 15-20 phút mỗi lần.",
+                            "Vận động nhẹ nhàng, giữ tư thế đúng khi ngồi làm việc.")),
+            new SymptomRule(
+                    "Phát ban, ngứa, mụn, viêm da",
+                    List.of(new Specialty("Dermatology", "Da liễu")),
+                    "Low",
+                    List.of("phát ban", "ngứa", "mụn", "viêm da", "nổi mẩn", "mẩn đỏ", "nổi mề đay", "rash", "acne",
+                            "itchy"),
+                    List.of("Giữ vùng da sạch sẽ, khô thoáng.",
+                            "Tránh gãi hoặc nặn mụn để không gây nhiễm trùng.",
+                            "Hạn chế mỹ phẩm, xà phòng có chất tẩy mạnh.")),
+            new SymptomRule(
+                    "Đau mắt, mờ mắt, đỏ mắt",
+                    List.of(new Specialty("Ophthalmology", "Mắt")),
+                    "Medium",
+                    List.of("đau mắt", "mờ mắt", "đỏ mắt", "ngứa mắt", "nhìn mờ", "blurred vision"),
+                    List.of("Cho mắt nghỉ ngơi, hạn chế nhìn màn hình.",
+                            "Rửa mắt bằng nước muối sinh lý, không dụi mắt.")),
+            new SymptomRule(
+                    "Lo âu, trầm cảm, mất ngủ, stress",
+                    List.of(new Specialty("Psychiatry", "Tâm thần"), new Specialty("Psychology", "Tâm lý")),
+                    "Medium",
+                    List.of("lo âu", "trầm cảm", "mất ngủ", "khó ngủ", "stress", "căng thẳng", "anxiety",
+                            "depression", "insomnia"),
+                    List.of("Duy trì giờ ngủ cố định, tránh dùng điện thoại trước khi ngủ.",
+                            "Tập thể dục nhẹ nhàng, thiền hoặc hít thở sâu mỗi ngày.",
+                            "Chia sẻ với người thân hoặc bạn bè đáng tin cậy.")),
+            new SymptomRule(
+                    "Vấn đề về kinh nguyệt, mang thai, phụ khoa",
+                    List.of(new Specialty("Obstetrics/Gynecology", "Sản phụ khoa")),
+                    "Medium",
+                    List.of("kinh nguyệt", "trễ kinh", "đau bụng kinh", "mang thai", "có thai", "phụ khoa",
+                            "khí hư", "pregnant"),
+                    List.of("Nghỉ ngơi đầy đủ, tránh làm việc quá sức.",
+                            "Ghi lại chu kỳ và các triệu chứng để cung cấp cho bác sĩ.")),
+            new SymptomRule(
+                    "Bệnh trẻ em, sốt ở trẻ, phát triển trẻ",
+                    List.of(new Specialty("Pediatrics", "Nhi khoa")),
+                    "Medium",
+                    List.of("trẻ em", "sốt ở trẻ", "trẻ bị sốt", "phát triển trẻ", "trẻ sơ sinh", "em bé",
+                            "con nhỏ"),
+                    List.of("Cho trẻ uống đủ nước, mặc quần áo thoáng mát.",
+                            "Theo dõi nhiệt độ thường xuyên, lau người bằng nước ấm khi trẻ sốt.")),
+            new SymptomRule(
+                    "Tiểu đường, béo phì, rối loạn hormone",
+                    List.of(new Specialty("Endocrinology", "Nội tiết")),
+                    "Medium",
+                    List.of("tiểu đường", "đái tháo đường", "béo phì", "rối loạn hormone",
+                            "rối loạn nội tiết", "tuyến giáp", "diabetes"),
+                    List.of("Hạn chế đồ ngọt, tinh bột và đồ uống có đường.",
+                            "Tăng cường vận động ít nhất 30 phút mỗi ngày.")),
+            new SymptomRule(
+                    "Ung thư, khối u",
+                    List.of(new Specialty("Oncology", "Ung bướu")),
+                    "High",
+                    List.of("ung thư", "khối u", "ung bướu", "cancer", "tumor"),
+                    List.of())
+    );
+
+    private final KeywordMatcher accentedMatcher = new KeywordMatcher(RULES, false);
+    private final KeywordMatcher unaccentedMatcher = new KeywordMatcher(RULES, true);
+    private final AtomicLong localAnswers = new AtomicLong();
+    private final AtomicLong escalations = new AtomicLong();
+
+    /**
+     * Thử trả lời cục bộ. Optional.empty() nghĩa là cần chuyển cho LLM.
+     */
+    public Optional<SymptomCheckResponse> triage(String userInput, List<String> availableSpecializations) {
+        String words = VietnameseTextNormalizer.words(userInput);
+        if (words.isEmpty()) {
+            return escalate();
+        }
+        String[] tokens = words.split(" ");
+
+        SymptomCheckResponse greeting = answerGreeting(tokens);
+        if (greeting != null) {
+            localAnswers.incrementAndGet();
+            return Optional.of(greeting);
+        }
+
+        if (tokens.length > MAX_LOCAL_TOKENS) {
+            return escalate();
+        }
+        StringBuilder unaccented = new StringBuilder(" ");
+        StringBuilder allFolded = new StringBuilder(" ");
+        for (String token : tokens) {
+            String folded = VietnameseTextNormalizer.fold(token);
+            if (NEGATION_TOKENS.contains(folded)) {
+                return escalate();
+            }
+            // Từ có dấu không được khớp với keyword không dấu (thay bằng ký tự không có trong keyword nào)
+            unaccented.append(folded.equals(token) ? token : "#").append(' ');
+            allFolded.append(folded).append(' ');
+        }
+        for (String redFlag : RED_FLAG_PHRASES) {
+            if (allFolded.indexOf(" " + redFlag + " ") >= 0) {
+                return escalate();
+            }
+        }
+
+        List<KeywordMatch> matches = new ArrayList<>(accentedMatcher.findAll(" " + words + " "));
+        matches.addAll(unaccentedMatcher.findAll(unaccented.toString()));
+        boolean[] covered = new boolean[tokens.length];
+        for (KeywordMatch match : matches) {
+            for (int i = match.firstToken(); i <= match.lastToken(); i++) {
+                covered[i] = true;
+            }
+        }
+        for (int i = 0; i < tokens.length; i++) {
+            if (!covered[i] && !FILLER_TOKENS.contains(tokens[i])) {
+                // Từ không thuộc keyword nào có thể đổi hẳn ý nghĩa ("sốt", "từ tuần trước") -> để LLM đọc
+                return escalate();
+            }
+        }
+        Set<Integer> matchedRules = matches.stream().map(m -> m.hit().ruleIndex()).collect(Collectors.toSet());
+        if (matchedRules.size() != 1) {
+            // Không có triệu chứng nào, hoặc triệu chứng thuộc nhiều nhóm -> mơ hồ
+            return escalate();
+        }
+
+        SymptomRule rule = RULES.get(matchedRules.iterator().next());
+        for (Specialty target : rule.targets()) {
+            String available = findAvailable(target, availableSpecializations);
+            if (available != null) {
+                Set<String> keywords = new LinkedHashSet<>();
+                matches.forEach(match -> keywords.add(match.hit().keyword()));
+                localAnswers.incrementAndGet();
+                return Optional.of(buildSymptomResponse(rule, target, available, String.join(", ", keywords)));
+            }
+        }
+        // Hệ thống chưa có khoa phù hợp -> để LLM chọn khoa gần nhất
+        return escalate();
+    }
+
+    /**
+     * Bảng mapping triệu chứng -> chuyên khoa dạng text (dùng trong prompt cho LLM)
+     */
+    public static String renderMappingTable() {
+        StringBuilder sb = new StringBuilder();
+        for (SymptomRule rule : RULES) {
+            sb.append("- ").append(rule.label()).append(" -> ")
+                    .append(rule.targets().stream()
+                            .map(t -> t.name() + " (" + t.vietnameseName() + ")")
+                            .collect(Collectors.joining(" hoặc ")))
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    public long getLocalAnswerCount() {
+        return localAnswers.get();
+    }
+
+    public long getEscalationCount() {
+        return escalations.get();
+    }
+
+    private Optional<SymptomCheckResponse> escalate() {
+        escalations.incrementAndGet();
+        return Optional.empty();
+    }
+
+    private SymptomCheckResponse answerGreeting(String[] tokens) {
+        boolean hasGreeting = false;
+        boolean hasThanks = false;
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (i + 1 < tokens.length && THANKS_CORE_PHRASES.contains(token + " " + tokens[i + 1])) {
+                hasThanks = true;
+                i++;
+            } else if (GREETING_CORE_TOKENS.contains(token)) {
+                hasGreeting = true;
+            } else if (THANKS_CORE_TOKENS.contains(token)) {
+                hasThanks = true;
+            } else if (!GREETING_FILLER_TOKENS.contains(token)) {
+                return null;
+            }
+        }
+        if (hasThanks) {
+            return new SymptomCheckResponse("Other", "Low",
+                    "Rất vui được hỗ trợ bạn! Chúc bạn luôn khỏe mạnh. " +
+                            "Nếu cần tư vấn thêm, bạn cứ mô tả triệu chứng để tôi gợi ý chuyên khoa phù hợp nhé.",
+                    "", new ArrayList<>());
+        }
+        if (hasGreeting) {
+            return new SymptomCheckResponse("Other", "Low",
+                    "Xin chào! Tôi là HealthAI, trợ lý sức khỏe thông minh của bạn. " +
+                            "Tôi có thể giúp bạn phân tích triệu chứng và gợi ý chuyên khoa phù hợp. " +
+                            "Bạn hãy mô tả triệu chứng hoặc đặt câu hỏi để tôi hỗ trợ bạn nhé!",
+                    "", new ArrayList<>());
+        }
+        return null;
+    }
+
+    private SymptomCheckResponse buildSymptomResponse(SymptomRule rule, Specialty target, String specialization,
+                                                      String matchedKeywords) {
+        StringBuilder advice = new StringBuilder()
+                .append("Với các triệu chứng bạn mô tả (").append(matchedKeywords).append("), ")
+                .append("bạn nên đặt lịch khám chuyên khoa ").append(target.vietnameseName())
+                .append(" (").append(specialization).append(") để bác sĩ thăm khám và tư vấn cụ thể.");
+        if ("High".equals(rule.riskLevel())) {
+            advice.append(" Nếu triệu chứng xuất hiện đột ngột hoặc nặng lên, hãy đến cơ sở y tế gần nhất ngay.");
+        } else {
+            advice.append(" Nếu triệu chứng kéo dài hoặc nặng hơn, hãy đi khám sớm.");
+        }
+        String reason = "Các triệu chứng " + matchedKeywords + " thường liên quan đến chuyên khoa "
+                + target.vietnameseName() + ".";
+        return new SymptomCheckResponse(specialization, rule.riskLevel(), advice.toString(), reason,
+                new ArrayList<>(rule.homeRemedies()));
+    }
+
+    /**
+     * Khoa trong hệ thống có tên trùng hẳn (không phân biệt hoa thường / dấu) với tên, bí danh ("A/B")
+     * hoặc tên tiếng Việt của khoa đích. Không so chuỗi con: "ENT" nằm trong "Gastroenterology", "Dentistry".
+     */
+    private static String findAvailable(Specialty target, List<String> availableSpecializations) {
+        List<String> aliases = new ArrayList<>(List.of(target.name().split("/")));
+        aliases.add(target.name());
+        aliases.add(target.vietnameseName());
+        for (String alias : aliases) {
+            String foldedAlias = VietnameseTextNormalizer.fold(alias.trim());
+            for (String available : availableSpecializations) {
+                if (available != null && VietnameseTextNormalizer.fold(available.trim()).equals(foldedAlias)) {
+                    return available;
+                }
+            }
+        }
+        return null;
+    }
+
+    private record Specialty(String name, String vietnameseName) {
+    }
+
+    private record SymptomRule(String label, List<Specialty> targets, String riskLevel, List<String> keywords,
+                               List<String> homeRemedies) {
+    }
+
+    private record KeywordHit(int ruleIndex, String keyword, int wordCount) {
+    }
+
+    /**
+     * Vị trí (chỉ số từ, tính cả hai đầu) của một keyword trong câu
+     */
+    private record KeywordMatch(KeywordHit hit, int firstToken, int lastToken) {
+    }
+
+    /**
+     * Automaton Aho-Corasick: tìm mọi keyword trong một lượt duyệt văn bản.
+     * Keyword và văn bản được bọc bởi khoảng trắng để chỉ khớp trọn từ ("ho" không khớp trong "kho").
+     * unaccented=true: chỉ nạp keyword nhiều từ, ở dạng đã bỏ dấu.
+     */
+    private static final class KeywordMatcher {
+
+        private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+        private final List<Integer> failLinks = new ArrayList<>();
+        private final List<List<KeywordHit>> outputs = new ArrayList<>();
+
+        KeywordMatcher(List<SymptomRule> rules, boolean unaccented) {
+            newNode();
+            for (int i = 0; i < rules.size(); i++) {
+                for (String keyword : rules.get(i).keywords()) {
+                    String pattern = unaccented
+                            ? VietnameseTextNormalizer.foldWords(keyword)
+                            : VietnameseTextNormalizer.words(keyword);
+                    if (unaccented && !pattern.contains(" ")) {
+                        continue;
+                    }
+                    addPattern(" " + pattern + " ", new KeywordHit(i, keyword, pattern.split(" ").length));
+                }
+            }
+            buildFailLinks();
+        }
+
+        /**
+         * text có dạng " t0 t1 ... tn ": keyword kết thúc ở khoảng trắng thứ k (đếm từ 1) thì từ cuối của nó là t(k-2)
+         */
+        List<KeywordMatch> findAll(String text) {
+            List<KeywordMatch> matches = new ArrayList<>();
+            int state = 0;
+            int spaces = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == ' ') {
+                    spaces++;
+                }
+                while (state != 0 && !transitions.get(state).containsKey(c)) {
+                    state = failLinks.get(state);
+                }
+                state = transitions.get(state).getOrDefault(c, 0);
+                for (KeywordHit hit : outputs.get(state)) {
+                    int lastToken = spaces - 2;
+                    matches.add(new KeywordMatch(hit, lastToken - hit.wordCount() + 1, lastToken));
+                }
+            }
+            return matches;
+        }
+
+        private int newNode() {
+            transitions.add(new HashMap<>());
+            failLinks.add(0);
+            outputs.add(new ArrayList<>());
+            return transitions.size() - 1;
+        }
+
+        private void addPattern(String pattern, KeywordHit hit) {
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                Integer next = transitions.get(state).get(c);
+                if (next == null) {
+                    next = newNode();
+                    transitions.get(state).put(c, next);
+                }
+                state = next;
+            }
+            outputs.get(state).add(hit);
+        }
+
+        private void buildFailLinks() {
+            Queue<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (Map.Entry<Character, Integer> edge : transitions.get(state).entrySet()) {
+                    char c = edge.getKey();
+                    int child = edge.getValue();
+                    int fallback = failLinks.get(state);
+                    while (fallback != 0 && !transitions.get(fallback).containsKey(c)) {
+                        fallback = failLinks.get(fallback);
+                    }
+                    Integer target = transitions.get(fallback).get(c);
+                    failLinks.set(child, target != null && target != child ? target : 0);
+                    outputs.get(child).addAll(outputs.get(failLinks.get(child)));
+                    queue.add(child);
+                }
+            }
+        }
+    }
+}
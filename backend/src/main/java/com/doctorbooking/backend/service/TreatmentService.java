@@ -16,18 +16,30 @@ import com.doctorbooking.backend.repository.MedicationRepository;
 import com.doctorbooking.backend.repository.PatientRepository;
 import com.doctorbooking.backend.repository.PrescriptionMedicationRepository;
 import com.doctorbooking.backend.repository.TreatmentRepository;
+import com.doctorbooking.backend.util.ResourceVersion;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TreatmentService {
 
+    private static final Logger logger = LoggerFactory.getLogger(TreatmentService.class);
+
     private final TreatmentRepository treatmentRepository;
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
@@ -48,6 +60,13 @@ public class TreatmentService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Phiên bản danh sách điều trị của bệnh nhân (COUNT + MAX(updated_at)) cho ETag
+     */
+    public ResourceVersion getTreatmentsVersionByPatientId(Long patientId) {
+        return treatmentRepository.findVersionByPatientId(patientId);
+    }
+
     public List<TreatmentResponse> getTreatmentsByPatientId(Long patientId) {
         return treatmentRepository.findByPatientId(patientId).stream()
                 .map(TreatmentResponse::fromEntity)
@@ -100,7 +119,7 @@ public class TreatmentService {
         treatment = treatmentRepository.save(treatment);
 
         // Save medications
-        saveMedications(treatment, request.getMedications());
+        List<PrescriptionMedication> medications = saveMedications(treatment, request.getMedications());
 
         // If treatment is created for an appointment, mark appointment as COMPLETED
         if (appointment != null && appointment.getStatus() == Appointment.AppointmentStatus.CONFIRMED) {
@@ -111,7 +130,7 @@ public class TreatmentService {
         // Send e-prescription email to patient
         sendPrescriptionEmail(patient, doctor, treatment);
 
-        return TreatmentResponse.fromEntity(treatment);
+        return TreatmentResponse.fromEntity(treatment, medications);
     }
 
     @Transactional
@@ -141,37 +160,60 @@ public class TreatmentService {
             treatment.setFollowUpDate(request.getFollowUpDate());
         }
 
+        if (request.getMedications() != null) {
+            // Chỉ sửa dòng đơn thuốc thì không cột nào của treatment đổi (@PreUpdate không chạy),
+            // mà ETag lịch sử điều trị của bệnh nhân dựa trên MAX(updated_at)
+            treatment.setUpdatedAt(LocalDateTime.now());
+        }
+
         treatment = treatmentRepository.save(treatment);
-        // update medications: clear then save
+        // Dòng cũ bị xóa bằng deleteByTreatmentId (DELETE hàng loạt), dòng mới được INSERT bằng JDBC batch; không dòng nào
+        // được thêm vào treatment.getMedications() nên caller không được đọc collection đó trong transaction này
+        List<PrescriptionMedication> medications = null;
         if (request.getMedications() != null) {
             prescriptionMedicationRepository.deleteByTreatmentId(treatment.getId());
-            treatment.getMedications().clear();
-            saveMedications(treatment, request.getMedications());
+            medications = saveMedications(treatment, request.getMedications());
         }
         // resend email on update
         sendPrescriptionEmail(treatment.getPatient(), treatment.getDoctor(), treatment);
-        return TreatmentResponse.fromEntity(treatment);
+        return medications != null
+                ? TreatmentResponse.fromEntity(treatment, medications)
+                : TreatmentResponse.fromEntity(treatment);
     }
 
     @Transactional
     public void deleteTreatment(Long id) {
         Treatment treatment = treatmentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Treatment not found with id: " + id));
+        // Một câu DELETE cho các dòng đơn thuốc, cascade REMOVE không còn phải xóa từng dòng
+        prescriptionMedicationRepository.deleteByTreatmentId(treatment.getId());
         treatmentRepository.delete(treatment);
     }
 
-    private void saveMedications(Treatment treatment, List<TreatmentMedicationRequest> meds) {
+    /**
+     * Tra tất cả medicationId bằng một findAllById, rồi ghi các dòng bằng một JDBC batch.
+     * Các dòng trả về đã có id nhưng không được thêm vào treatment.getMedications().
+     */
+    private List<PrescriptionMedication> saveMedications(Treatment treatment, List<TreatmentMedicationRequest> meds) {
         if (meds == null || meds.isEmpty()) {
-            return;
+            return new ArrayList<>();
         }
+        Set<Long> medicationIds = meds.stream()
+                .map(TreatmentMedicationRequest::getMedicationId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Medication> medicationsById = medicationIds.isEmpty()
+                ? Map.of()
+                : medicationRepository.findAllById(medicationIds).stream()
+                        .collect(Collectors.toMap(Medication::getId, Function.identity()));
+
+        List<PrescriptionMedication> lines = new ArrayList<>(meds.size());
         int idx = 0;
         for (TreatmentMedicationRequest req : meds) {
             PrescriptionMedication pm = new PrescriptionMedication();
             pm.setTreatment(treatment);
             if (req.getMedicationId() != null) {
-                Medication med = medicationRepository.findById(req.getMedicationId())
-                        .orElse(null);
-                pm.setMedication(med);
+                pm.setMedication(medicationsById.get(req.getMedicationId()));
             }
             pm.setMedicationName(req.getMedicationName() != null ? req.getMedicationName() : "Unknown");
             pm.setDosage(req.getDosage() != null ? req.getDosage() : "");
@@ -183,9 +225,10 @@ public class TreatmentService {
             pm.setPrice(req.getPrice());
             pm.setOrderIndex(req.getOrderIndex() != null ? req.getOrderIndex() : idx);
             idx++;
-            prescriptionMedicationRepository.save(pm);
-            treatment.getMedications().add(pm);
+            lines.add(pm);
         }
+        prescriptionMedicationRepository.insertAll(lines);
+        return lines;
     }
 
     private String generatePrescriptionId(Long doctorId) {
@@ -224,8 +267,7 @@ public class TreatmentService {
             );
         } catch (Exception ex) {
             // Không chặn luồng chính nếu email lỗi
-            System.err.println("⚠️ Không gửi được email đơn thuốc: " + ex.getMessage());
-            ex.printStackTrace();
+            logger.warn("Không gửi được email đơn thuốc: {}", ex.getMessage(), ex);
         }
     }
 }
@@ -6,13 +6,19 @@ import com.doctorbooking.backend.dto.request.UserRequest;
 import com.doctorbooking.backend.dto.response.UserResponse;
 import com.doctorbooking.backend.model.User;
 import com.doctorbooking.backend.model.Doctor;
+import com.doctorbooking.backend.model.EntityChangeEvent;
 import com.doctorbooking.backend.model.Patient;
 import com.doctorbooking.backend.repository.UserRepository;
 import com.doctorbooking.backend.repository.DoctorRepository;
 import com.doctorbooking.backend.repository.PatientRepository;
+import com.doctorbooking.backend.util.EntityStreams;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -21,53 +27,66 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final EntityManager entityManager;
 
     public UserService(UserRepository userRepository, 
                       @Lazy PasswordEncoder passwordEncoder,
                       DoctorRepository doctorRepository,
-                      PatientRepository patientRepository) {
+                      PatientRepository patientRepository,
+                      CacheInvalidationBus cacheInvalidationBus,
+                      EntityManager entityManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.entityManager = entityManager;
     }
 
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        System.out.println("🔵 UserService.loadUserByUsername - Searching for: " + usernameOrEmail);
-        
         // Try to find by username first, if not found, try email
         User user = userRepository.findByUsername(usernameOrEmail)
                 .orElse(userRepository.findByEmail(usernameOrEmail)
                         .orElse(null));
         
         if (user != null) {
-            System.out.println("✅ UserService.loadUserByUsername - Found user: " + user.getUsername() + " (ID: " + user.getId() + ", Role: " + user.getRole() + ")");
+            logger.debug("Loaded user {} (id={}, role={})", user.getUsername(), user.getId(), user.getRole());
             return user;
         } else {
-            System.err.println("❌ UserService.loadUserByUsername - User not found with username or email: " + usernameOrEmail);
-            // Debug: List all usernames and emails
-            long totalUsers = userRepository.count();
-            System.err.println("❌ Total users in database: " + totalUsers);
-            if (totalUsers > 0) {
-                userRepository.findAll().forEach(u -> 
-                    System.err.println("   - Username: '" + u.getUsername() + "', Email: '" + u.getEmail() + "', Role: " + u.getRole())
-                );
-            }
+            logger.debug("User not found with username or email: {}", usernameOrEmail);
             throw new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail);
         }
     }
 
+    /**
+     * Được DaoAuthenticationProvider gọi sau khi đăng nhập thành công nếu hash hiện tại cần nâng cấp
+     * (password plain text cũ, hoặc BCrypt cost thấp hơn cấu hình)
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newEncodedPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + userDetails.getUsername()));
+        user.setPassword(newEncodedPassword);
+        return userRepository.save(user);
+    }
+
     public User findByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
@@ -98,16 +117,18 @@ public class UserService implements UserDetailsService {
                 .collect(Collectors.toList());
     }
 
-    public List<UserResponse> searchUsers(String search) {
-        if (search == null || search.trim().isEmpty()) {
-            return getAllUsers();
+    /**
+     * Danh sách user cho admin dạng stream; search lọc không phân biệt hoa thường trên username / email
+     */
+    @Transactional(readOnly = true)
+    public long streamUsers(String search, Consumer<UserResponse> sink) {
+        Stream<User> users = userRepository.streamAll();
+        if (search != null && !search.trim().isEmpty()) {
+            String searchLower = search.toLowerCase();
+            users = users.filter(user -> user.getUsername().toLowerCase().contains(searchLower) ||
+                                         user.getEmail().toLowerCase().contains(searchLower));
         }
-        String searchLower = search.toLowerCase();
-        return userRepository.findAll().stream()
-                .filter(user -> user.getUsername().toLowerCase().contains(searchLower) ||
-                               user.getEmail().toLowerCase().contains(searchLower))
-                .map(UserResponse::fromUser)
-                .collect(Collectors.toList());
+        return EntityStreams.forEach(entityManager, users, UserResponse::fromUser, sink);
     }
 
     public UserResponse getUserById(Long id) {
@@ -164,6 +185,7 @@ public class UserService implements UserDetailsService {
         }
 
         User updatedUser = userRepository.save(user);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.USER, id);
         return UserResponse.fromUser(updatedUser);
     }
 
@@ -177,6 +199,7 @@ public class UserService implements UserDetailsService {
             Optional<Doctor> doctor = doctorRepository.findByUserId(id);
             if (doctor.isPresent()) {
                 doctorRepository.delete(doctor.get());
+                cacheInvalidationBus.publish(EntityChangeEvent.EntityType.DOCTOR, doctor.get().getId());
             }
 
             // Delete associated patient if exists
@@ -187,6 +210,7 @@ public class UserService implements UserDetailsService {
 
             // Now delete the user
             userRepository.delete(user);
+            cacheInvalidationBus.publish(EntityChangeEvent.EntityType.USER, id);
         } catch (DataIntegrityViolationException e) {
             throw new RuntimeException("Không thể xóa người dùng này vì vẫn còn dữ liệu liên quan (ví dụ: lịch hẹn, phản hồi, v.v.). Bạn cần xóa hoặc chuyển các dữ liệu liên quan trước khi xóa người dùng này.");
         } catch (Exception e) {
@@ -200,6 +224,7 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         user.setEnabled(!user.getEnabled());
         User updatedUser = userRepository.save(user);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.USER, id);
         return UserResponse.fromUser(updatedUser);
     }
 
@@ -209,6 +234,7 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        cacheInvalidationBus.publish(EntityChangeEvent.EntityType.USER, id);
     }
 }
 
@@ -8,8 +8,8 @@ import jakarta.annotation.PostConstruct;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.text.Normalizer;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -19,6 +19,10 @@ import java.util.regex.Pattern;
 public class VNPayService {
 
     private static final Logger logger = LoggerFactory.getLogger(VNPayService.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA512";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] UPPER_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final Pattern DIACRITICS_PATTERN = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
 
     @Value("${vnpay.tmnCode}")
     private String tmnCode;
@@ -35,6 +39,10 @@ public class VNPayService {
     @Value("${vnpay.appointmentReturnUrl}")
     private String appointmentReturnUrl;
 
+    // Mac không thread-safe: mỗi thread giữ một instance đã init sẵn với secret key (tạo key một lần ở init())
+    private SecretKeySpec hmacKey;
+    private final ThreadLocal<Mac> threadMac = ThreadLocal.withInitial(this::newMac);
+
     @PostConstruct
     public void init() {
         // Trim và validate VNPAY configuration
@@ -61,6 +69,9 @@ public class VNPayService {
         if (tmnCode == null || tmnCode.isEmpty()) {
             logger.error("❌ VNPAY Terminal Code is NULL or EMPTY! Please check your .env file.");
         }
+        if (hashSecret != null && !hashSecret.isEmpty()) {
+            hmacKey = new SecretKeySpec(hashSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        }
         logger.info("===================================");
     }
 
@@ -78,8 +89,7 @@ public class VNPayService {
             String normalized = Normalizer.normalize(str, Normalizer.Form.NFD);
             
             // Remove dấu thanh (combining diacritical marks)
-            Pattern pattern = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
-            String withoutAccents = pattern.matcher(normalized).replaceAll("");
+            String withoutAccents = DIACRITICS_PATTERN.matcher(normalized).replaceAll("");
             
             // Replace Đ/đ (không được normalize bởi NFD)
             withoutAccents = withoutAccents.replace("Đ", "D").replace("đ", "d");
@@ -121,23 +131,14 @@ public class VNPayService {
     private String createPaymentUrl(Long amount, String orderInfo, String orderId, String customReturnUrl) {
         try {
             String vnp_TmnCode = tmnCode;
-            String vnp_HashSecret = hashSecret;
             String vnp_Url = vnpUrl;
             String vnp_ReturnUrl = customReturnUrl;
 
             // ✅ Normalize orderInfo để tránh lỗi encoding với ký tự tiếng Việt
             String normalizedOrderInfo = removeVietnameseAccents(orderInfo);
 
-            // Log để kiểm tra Secret Key
-            logger.info("=== VNPAY Payment URL Creation ===");
-            logger.info("Terminal Code: {}", vnp_TmnCode);
-            logger.info("Hash Secret (first 10 chars): {}", vnp_HashSecret != null && vnp_HashSecret.length() > 10 
-                ? vnp_HashSecret.substring(0, 10) + "..." : "NULL or EMPTY");
-            logger.info("Return URL: {}", vnp_ReturnUrl);
-            logger.info("Amount: {} (will be multiplied by 100: {})", amount, amount * 100);
-            logger.info("Order Info (original): {}", orderInfo);
-            logger.info("Order Info (normalized): {}", normalizedOrderInfo);
-            logger.info("Order ID: {}", orderId);
+            logger.debug("Creating VNPAY payment URL: orderId={}, amount={}, returnUrl={}, orderInfo='{}'",
+                    orderId, amount, vnp_ReturnUrl, normalizedOrderInfo);
 
             Map<String, String> vnp_Params = new HashMap<>();
             vnp_Params.put("vnp_Version", "2.1.0");
@@ -161,97 +162,40 @@ public class VNPayService {
             String vnp_ExpireDate = formatter.format(cld.getTime());
             vnp_Params.put("vnp_ExpireDate", vnp_ExpireDate);
 
-            // Sắp xếp params theo thứ tự alphabet
-            List<String> fieldNames = new ArrayList<>(vnp_Params.keySet());
-            Collections.sort(fieldNames);
-            
-            // Build hash data (theo tài liệu VNPAY: chỉ encode fieldValue, không encode fieldName)
-            StringBuilder hashData = new StringBuilder();
-            StringBuilder query = new StringBuilder();
-            
-            List<String> validFields = new ArrayList<>();
-            for (String fieldName : fieldNames) {
-                String fieldValue = vnp_Params.get(fieldName);
-                if (fieldValue != null && !fieldValue.isEmpty()) {
-                    validFields.add(fieldName);
-                }
-            }
-            
-            for (int i = 0; i < validFields.size(); i++) {
-                String fieldName = validFields.get(i);
-                String fieldValue = vnp_Params.get(fieldName);
-                
-                // Build hash data (chỉ encode fieldValue)
-                String encodedValue = URLEncoder.encode(fieldValue, StandardCharsets.UTF_8);
-                hashData.append(fieldName);
-                hashData.append('=');
-                hashData.append(encodedValue);
-                
-                // Build query (encode cả fieldName và fieldValue)
-                query.append(URLEncoder.encode(fieldName, StandardCharsets.UTF_8));
-                query.append('=');
-                query.append(encodedValue);
-                
-                // Thêm & nếu không phải field cuối cùng
-                if (i < validFields.size() - 1) {
-                    hashData.append('&');
-                    query.append('&');
-                }
-            }
-            
-            String queryUrl = query.toString();
-            String hashDataString = hashData.toString();
-            String vnp_SecureHash = hmacSHA512(vnp_HashSecret, hashDataString);
-            queryUrl += "&vnp_SecureHash=" + vnp_SecureHash;
-            String paymentUrl = vnp_Url + "?" + queryUrl;
-
-            // Log chi tiết để debug
-            logger.info("=== Hash Data Construction ===");
-            logger.info("Hash Data String: {}", hashDataString);
-            logger.info("Secure Hash: {}", vnp_SecureHash);
-            logger.info("Final Payment URL: {}", paymentUrl);
-            logger.info("===============================");
+            // Field name của VNPAY chỉ gồm ký tự ASCII an toàn nên query string và hash data trùng nhau:
+            // canonicalize một lần, dùng cho cả chữ ký và URL
+            String hashDataString = canonicalize(vnp_Params);
+            String vnp_SecureHash = hmacSHA512(hashDataString);
+            String paymentUrl = vnp_Url + "?" + hashDataString + "&vnp_SecureHash=" + vnp_SecureHash;
+
+            logger.debug("VNPAY hash data: {}", hashDataString);
+            logger.debug("VNPAY payment URL: {}", paymentUrl);
             
             return paymentUrl;
         } catch (Exception e) {
             logger.error("Error creating VNPAY payment URL", e);
-            e.printStackTrace();
             throw new RuntimeException("Failed to create payment URL", e);
         }
     }
 
     /**
      * Verify checksum từ VNPAY callback
+     * (không sửa map đầu vào: vnp_SecureHash / vnp_SecureHashType được bỏ qua khi canonicalize)
      */
     public boolean verifyPayment(Map<String, String> params) {
         try {
             String vnp_SecureHash = params.get("vnp_SecureHash");
-            params.remove("vnp_SecureHash");
-            params.remove("vnp_SecureHashType");
-
-            List<String> fieldNames = new ArrayList<>(params.keySet());
-            Collections.sort(fieldNames);
-            StringBuilder hashData = new StringBuilder();
-            Iterator<String> itr = fieldNames.iterator();
-            while (itr.hasNext()) {
-                String fieldName = itr.next();
-                String fieldValue = params.get(fieldName);
-                if ((fieldValue != null) && (fieldValue.length() > 0)) {
-                    // Build hash data (theo tài liệu VNPAY: chỉ encode fieldValue, không encode fieldName)
-                    hashData.append(fieldName);
-                    hashData.append('=');
-                    hashData.append(URLEncoder.encode(fieldValue, StandardCharsets.UTF_8.toString()));
-                    if (itr.hasNext()) {
-                        hashData.append('&');
-                    }
-                }
+            if (vnp_SecureHash == null || vnp_SecureHash.isEmpty()) {
+                logger.warn("❌ Missing vnp_SecureHash in VNPAY callback");
+                return false;
             }
 
-            String vnp_HashSecret = hashSecret;
-            String hashDataString = hashData.toString();
-            String calculatedHash = hmacSHA512(vnp_HashSecret, hashDataString);
+            String hashDataString = canonicalize(params);
+            String calculatedHash = hmacSHA512(hashDataString);
 
-            boolean isValid = vnp_SecureHash.equals(calculatedHash);
+            boolean isValid = MessageDigest.isEqual(
+                    vnp_SecureHash.getBytes(StandardCharsets.US_ASCII),
+                    calculatedHash.getBytes(StandardCharsets.US_ASCII));
             if (!isValid) {
                 logger.warn("❌ Invalid VNPAY checksum!");
                 logger.warn("Hash Data: {}", hashDataString);
@@ -259,7 +203,7 @@ public class VNPayService {
                 logger.warn("Received Hash: {}", vnp_SecureHash);
                 logger.warn("Terminal Code used: {}", tmnCode);
             } else {
-                logger.info("✅ VNPAY checksum verified successfully");
+                logger.debug("✅ VNPAY checksum verified successfully");
             }
             return isValid;
         } catch (Exception e) {
@@ -269,25 +213,106 @@ public class VNPayService {
     }
 
     /**
-     * HMAC SHA512
+     * Tạo chuỗi hash data theo tài liệu VNPAY trong một lượt duyệt:
+     * fieldName=URLEncode(fieldValue) nối bằng '&', sắp xếp theo fieldName, bỏ qua giá trị rỗng và các field chữ ký
      */
-    private String hmacSHA512(String key, String data) {
-        try {
-            Mac hmacSHA512 = Mac.getInstance("HmacSHA512");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
-            hmacSHA512.init(secretKeySpec);
-            byte[] digest = hmacSHA512.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
+    String canonicalize(Map<String, String> params) {
+        String[] fieldNames = params.keySet().toArray(new String[0]);
+        Arrays.sort(fieldNames);
+
+        StringBuilder hashData = new StringBuilder(fieldNames.length * 32);
+        for (String fieldName : fieldNames) {
+            if ("vnp_SecureHash".equals(fieldName) || "vnp_SecureHashType".equals(fieldName)) {
+                continue;
+            }
+            String fieldValue = params.get(fieldName);
+            if (fieldValue == null || fieldValue.isEmpty()) {
+                continue;
+            }
+            if (hashData.length() > 0) {
+                hashData.append('&');
+            }
+            hashData.append(fieldName).append('=');
+            appendUrlEncoded(hashData, fieldValue);
+        }
+        return hashData.toString();
+    }
+
+    /**
+     * URL encode tương đương URLEncoder.encode(value, UTF_8) nhưng ghi thẳng vào StringBuilder,
+     * chỉ cấp phát mảng byte cho các đoạn ký tự non-ASCII
+     */
+    private static void appendUrlEncoded(StringBuilder out, String value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            char c = value.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-' || c == '*' || c == '_') {
+                out.append(c);
+                i++;
+            } else if (c == ' ') {
+                out.append('+');
+                i++;
+            } else if (c < 0x80) {
+                appendPercentEncoded(out, (byte) c);
+                i++;
+            } else {
+                // Gom cả đoạn non-ASCII (kể cả surrogate pair) rồi encode UTF-8 một lần
+                int runStart = i;
+                while (i < length && value.charAt(i) >= 0x80) {
+                    i++;
+                }
+                byte[] bytes = value.substring(runStart, i).getBytes(StandardCharsets.UTF_8);
+                for (byte b : bytes) {
+                    appendPercentEncoded(out, b);
+                }
             }
-            return sb.toString();
+        }
+    }
+
+    private static void appendPercentEncoded(StringBuilder out, byte b) {
+        out.append('%')
+                .append(UPPER_HEX_DIGITS[(b >> 4) & 0x0F])
+                .append(UPPER_HEX_DIGITS[b & 0x0F]);
+    }
+
+    /**
+     * HMAC SHA512 với Mac dùng lại theo thread (doFinal tự reset Mac về trạng thái đã init)
+     */
+    private String hmacSHA512(String data) {
+        try {
+            byte[] digest = threadMac.get().doFinal(data.getBytes(StandardCharsets.UTF_8));
+            return toHex(digest);
         } catch (Exception e) {
             logger.error("Error generating HMAC SHA512", e);
             return "";
         }
     }
 
+    private Mac newMac() {
+        if (hmacKey == null) {
+            throw new IllegalStateException("VNPAY Hash Secret is not configured");
+        }
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            return mac;
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot initialize " + HMAC_ALGORITHM, e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0, j = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            hex[j++] = HEX_DIGITS[v >>> 4];
+            hex[j++] = HEX_DIGITS[v & 0x0F];
+        }
+        return new String(hex);
+    }
+
     /**
      * Parse response code từ VNPAY
      */
@@ -4,6 +4,7 @@ import com.doctorbooking.backend.model.Patient;
 import com.doctorbooking.backend.model.WalletTransaction;
 import com.doctorbooking.backend.repository.PatientRepository;
 import com.doctorbooking.backend.repository.WalletTransactionRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,7 @@ public class WalletService {
      * Tạo transaction cho nạp tiền (PENDING)
      */
     @Transactional
+    @Timed(value = "wallet.operations", extraTags = {"operation", "deposit.create"})
     public WalletTransaction createDepositTransaction(Long patientId, BigDecimal amount, String paymentMethod) {
         Patient patient = getWalletByPatientId(patientId);
         
@@ -59,6 +61,7 @@ public class WalletService {
      * Xác nhận và hoàn tất giao dịch nạp tiền
      */
     @Transactional
+    @Timed(value = "wallet.operations", extraTags = {"operation", "deposit.complete"})
     public WalletTransaction completeDepositTransaction(String referenceId, String vnpTransactionNo) {
         logger.info("Starting completeDepositTransaction: referenceId={}, vnpTransactionNo={}", referenceId, vnpTransactionNo);
         
@@ -137,6 +140,7 @@ public class WalletService {
      * Hủy giao dịch nạp tiền (khi thanh toán thất bại)
      */
     @Transactional
+    @Timed(value = "wallet.operations", extraTags = {"operation", "deposit.fail"})
     public WalletTransaction failDepositTransaction(String referenceId, String reason) {
         WalletTransaction transaction = walletTransactionRepository.findByReferenceId(referenceId);
         if (transaction == null) {
@@ -176,6 +180,7 @@ public class WalletService {
      * Thanh toán cho appointment bằng ví
      */
     @Transactional
+    @Timed(value = "wallet.operations", extraTags = {"operation", "appointment.pay"})
     public WalletTransaction payForAppointment(Long patientId, Long appointmentId, BigDecimal amount, String description) {
         logger.info("Processing wallet payment: patientId={}, appointmentId={}, amount={}", patientId, appointmentId, amount);
         
@@ -225,6 +230,7 @@ public class WalletService {
      * Hoàn tiền cho appointment bị hủy
      */
     @Transactional
+    @Timed(value = "wallet.operations", extraTags = {"operation", "appointment.refund"})
     public WalletTransaction refundAppointment(Long patientId, Long appointmentId, BigDecimal amount, String description) {
         logger.info("Processing appointment refund: patientId={}, appointmentId={}, amount={}", patientId, appointmentId, amount);
         
@@ -0,0 +1,148 @@
+package com.doctorbooking.backend.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache trong bộ nhớ dùng chung: LRU giới hạn kích thước + TTL, đếm hit / miss / eviction.
+ * Mục hết hạn bị bỏ khi đọc tới (tính là eviction), vượt maxSize thì bỏ mục ít dùng nhất.
+ * Mỗi lần invalidate tăng generation: giá trị nạp từ DB bắt đầu trước lần invalidate sẽ không được ghi vào cache
+ * (tránh ghi đè dữ liệu cũ lên bản vừa bị bỏ).
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, CacheEntry<V>> entries;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BoundedTtlCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > BoundedTtlCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Giá trị còn hạn, hoặc null nếu miss / hết hạn
+     */
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            CacheEntry<V> entry = lookup(key);
+            return entry != null ? entry.value() : null;
+        }
+    }
+
+    /**
+     * Đọc-xuyên: miss thì gọi loader ngoài lock. Miss đồng thời có thể cùng gọi loader,
+     * chấp nhận được với dữ liệu ít thay đổi.
+     */
+    public V get(K key, Supplier<V> loader) {
+        long loadGeneration;
+        synchronized (entries) {
+            CacheEntry<V> entry = lookup(key);
+            if (entry != null) {
+                return entry.value();
+            }
+            loadGeneration = generation.get();
+        }
+
+        V value = loader.get();
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                entries.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        CacheEntry<V> entry = new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Thống kê: size, maxSize, hits, misses, evictions, hitRate
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("hitRate", total > 0 ? (double) hitCount / total : 0.0);
+        return stats;
+    }
+
+    // Gọi trong synchronized (entries)
+    private CacheEntry<V> lookup(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    private record CacheEntry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.doctorbooking.backend.util;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Duyệt kết quả truy vấn dạng Stream (cursor phía DB) mà bộ nhớ không tăng theo số dòng:
+ * mỗi dòng được map sang DTO rồi đưa cho sink ngay, persistence context được clear sau mỗi FETCH_SIZE dòng
+ * (không clear thì Hibernate giữ lại mọi entity đã đọc cho tới khi transaction kết thúc).
+ * Gọi trong @Transactional(readOnly = true) - Spring Data yêu cầu transaction cho Stream, readOnly bỏ snapshot.
+ */
+public final class EntityStreams {
+
+    /**
+     * Số dòng mỗi lần driver lấy về; MySQL chỉ dùng con số này khi bật useCursorFetch
+     * (spring.datasource.hikari.data-source-properties.useCursorFetch), nếu không sẽ đọc hết result set vào RAM
+     */
+    public static final String FETCH_SIZE = "500";
+    public static final String FETCH_SIZE_HINT = HibernateHints.HINT_FETCH_SIZE;
+    public static final String READ_ONLY_HINT = HibernateHints.HINT_READ_ONLY;
+
+    private static final int CLEAR_INTERVAL = Integer.parseInt(FETCH_SIZE);
+
+    private EntityStreams() {
+    }
+
+    /**
+     * @return số dòng đã xử lý
+     */
+    public static <E, R> long forEach(EntityManager entityManager, Stream<E> rows,
+                                      Function<? super E, ? extends R> mapper, Consumer<? super R> sink) {
+        long count = 0;
+        try (rows) {
+            var iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                sink.accept(mapper.apply(iterator.next()));
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,172 @@
+package com.doctorbooking.backend.util;
+
+/**
+ * Parse dần JSON câu trả lời của AI khi LLM đang stream từng token.
+ * Không đợi JSON hoàn chỉnh: phát ra từng đoạn của "advice" ngay khi nhận được,
+ * và từng phần tử của "homeRemedies" ngay khi chuỗi đó kết thúc.
+ * Chỉ hiểu đúng cấu trúc phẳng mà prompt yêu cầu; text ngoài object (```json ...) bị bỏ qua.
+ */
+public class IncrementalSymptomJsonParser {
+
+    public interface Listener {
+        void onAdviceDelta(String delta);
+
+        void onHomeRemedy(String remedy);
+    }
+
+    private static final String ADVICE_FIELD = "advice";
+    private static final String HOME_REMEDIES_FIELD = "homeRemedies";
+
+    private final Listener listener;
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder currentString = new StringBuilder();
+    private final StringBuilder adviceDelta = new StringBuilder();
+
+    private int depth;
+    private boolean inString;
+    private boolean stringIsKey;
+    private boolean streamingAdvice;
+    private boolean afterColon;
+    private boolean escape;
+    private int unicodeRemaining;
+    private int unicodeValue;
+    private String lastKey;
+    private String arrayKey;
+
+    public IncrementalSymptomJsonParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Nhận thêm một đoạn text từ LLM (mỗi đoạn advice phát ra tối đa một lần cho mỗi lần feed)
+     */
+    public void feed(String chunk) {
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        text.append(chunk);
+        for (int i = 0; i < chunk.length(); i++) {
+            process(chunk.charAt(i));
+        }
+        flushAdvice();
+    }
+
+    /**
+     * Toàn bộ text đã nhận (để parse lại đầy đủ khi stream kết thúc)
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    private void process(char c) {
+        if (inString) {
+            processStringChar(c);
+            return;
+        }
+        switch (c) {
+            case '{' -> {
+                depth++;
+                if (depth == 1) {
+                    afterColon = false;
+                }
+            }
+            case '}' -> depth = Math.max(0, depth - 1);
+            case '[' -> {
+                depth++;
+                if (depth == 2) {
+                    arrayKey = lastKey;
+                }
+            }
+            case ']' -> {
+                depth = Math.max(0, depth - 1);
+                if (depth == 1) {
+                    arrayKey = null;
+                }
+            }
+            case ':' -> {
+                if (depth == 1) {
+                    afterColon = true;
+                }
+            }
+            case ',' -> {
+                if (depth == 1) {
+                    afterColon = false;
+                }
+            }
+            case '"' -> {
+                if (depth >= 1) {
+                    inString = true;
+                    currentString.setLength(0);
+                    stringIsKey = depth == 1 && !afterColon;
+                    streamingAdvice = depth == 1 && afterColon && ADVICE_FIELD.equals(lastKey);
+                }
+            }
+            default -> {
+                // Khoảng trắng, số, true/false/null: không cần xử lý
+            }
+        }
+    }
+
+    private void processStringChar(char c) {
+        if (unicodeRemaining > 0) {
+            unicodeValue = (unicodeValue << 4) + Character.digit(c, 16);
+            if (--unicodeRemaining == 0) {
+                appendStringChar((char) unicodeValue);
+            }
+            return;
+        }
+        if (escape) {
+            escape = false;
+            switch (c) {
+                case 'n' -> appendStringChar('\n');
+                case 't' -> appendStringChar('\t');
+                case 'r' -> appendStringChar('\r');
+                case 'b' -> appendStringChar('\b');
+                case 'f' -> appendStringChar('\f');
+                case 'u' -> {
+                    unicodeRemaining = 4;
+                    unicodeValue = 0;
+                }
+                default -> appendStringChar(c);
+            }
+            return;
+        }
+        if (c == '\\') {
+            escape = true;
+        } else if (c == '"') {
+            endString();
+        } else {
+            appendStringChar(c);
+        }
+    }
+
+    private void appendStringChar(char c) {
+        currentString.append(c);
+        if (streamingAdvice) {
+            adviceDelta.append(c);
+        }
+    }
+
+    private void endString() {
+        inString = false;
+        if (stringIsKey) {
+            lastKey = currentString.toString();
+        } else if (depth == 2 && HOME_REMEDIES_FIELD.equals(arrayKey)) {
+            listener.onHomeRemedy(currentString.toString());
+        }
+        streamingAdvice = false;
+        flushAdvice();
+    }
+
+    private void flushAdvice() {
+        int end = adviceDelta.length();
+        // Giữ lại nửa đầu của cặp surrogate (emoji) bị cắt giữa hai chunk
+        if (end > 0 && streamingAdvice && Character.isHighSurrogate(adviceDelta.charAt(end - 1))) {
+            end--;
+        }
+        if (end > 0) {
+            listener.onAdviceDelta(adviceDelta.substring(0, end));
+            adviceDelta.delete(0, end);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.doctorbooking.backend.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Ghi một JSON array thẳng vào response, từng phần tử một khi nguồn dữ liệu đẩy ra
+ * (thay cho dựng List<...Response> đầy đủ rồi serialize một lần). Body giống hệt ResponseEntity.ok(list)
+ * vì dùng cùng ObjectMapper của Spring. Buffer của generator / servlet tự đẩy dữ liệu ra socket khi đầy;
+ * nén gzip do server.compression của Tomcat đảm nhận (Content-Encoding theo Accept-Encoding của client).
+ * Lỗi giữa chừng: không ghi dấu đóng array, client nhận JSON cụt thay vì một danh sách thiếu dòng trông như hợp lệ.
+ */
+public final class JsonArrayStreamer {
+
+    private JsonArrayStreamer() {
+    }
+
+    /**
+     * @param source nhận một sink và đẩy lần lượt từng phần tử vào đó (thường là một service method stream từ DB)
+     */
+    public static <T> void write(HttpServletResponse response, ObjectMapper objectMapper,
+                                 Consumer<Consumer<T>> source) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+        try {
+            generator.writeStartArray();
+            source.accept(row -> {
+                try {
+                    generator.writeObject(row);
+                } catch (IOException e) {
+                    // Thường là client ngắt kết nối: dừng đọc DB ngay
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.close();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.doctorbooking.backend.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -12,11 +14,18 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_TOKEN_TYPE = "typ";
+    public static final String CLAIM_FAMILY_ID = "fid";
+    // Thời điểm (epoch ms) bắt đầu chuỗi rotation = lần đăng nhập; giới hạn tuổi thọ của cả phiên
+    public static final String CLAIM_FAMILY_ISSUED_AT = "fat";
+    public static final String TOKEN_TYPE_REFRESH = "refresh";
+
     @Value("${jwt.secret}")
     private String secret;
 
@@ -26,8 +35,20 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration}")
     private Long refreshExpiration;
 
+    // Tuổi thọ tối đa của một family: rotation không kéo dài phiên quá mốc này tính từ lúc đăng nhập
+    @Value("${jwt.refresh-max-lifetime:${jwt.refresh-expiration}}")
+    private Long refreshMaxLifetime;
+
+    private SecretKey signingKey;
+
+    @PostConstruct
+    void init() {
+        // Tạo key một lần thay vì mỗi lần ký/verify token
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
     }
 
     public String extractUsername(String token) {
@@ -51,10 +72,6 @@ public class JwtUtil {
                 .getPayload();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, userDetails.getUsername(), expiration);
@@ -65,8 +82,56 @@ public class JwtUtil {
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), refreshExpiration);
+        return generateRefreshToken(userDetails.getUsername(), new HashMap<>(), null);
+    }
+
+    /**
+     * Refresh token mang đủ claim (role, userId...) để cấp access token mới mà không cần query DB.
+     * familyId null -> bắt đầu chuỗi rotation mới (đăng nhập/đăng ký)
+     */
+    public String generateRefreshToken(String username, Map<String, Object> extraClaims, String familyId) {
+        return generateRefreshToken(username, extraClaims, familyId, null);
+    }
+
+    /**
+     * Token kế tiếp trong family: hạn = min(bây giờ + refresh-expiration, familyIssuedAt + refresh-max-lifetime)
+     */
+    public String generateRefreshToken(String username, Map<String, Object> extraClaims, String familyId,
+                                       Long familyIssuedAt) {
+        long now = System.currentTimeMillis();
+        long familyStart = familyId != null && familyIssuedAt != null ? familyIssuedAt : now;
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_REFRESH);
+        claims.put(CLAIM_FAMILY_ID, familyId != null ? familyId : UUID.randomUUID().toString());
+        claims.put(CLAIM_FAMILY_ISSUED_AT, familyStart);
+        return Jwts.builder()
+                .claims(claims)
+                .id(UUID.randomUUID().toString())
+                .subject(username)
+                .issuedAt(new Date(now))
+                .expiration(new Date(Math.min(now + refreshExpiration, familyStart + refreshMaxLifetime)))
+                .signWith(getSigningKey())
+                .compact();
+    }
+
+    /**
+     * Thời điểm bắt đầu family của refresh token (token cũ chưa có claim -> thời điểm cấp token)
+     */
+    public static long familyIssuedAt(Claims claims) {
+        Long familyIssuedAt = claims.get(CLAIM_FAMILY_ISSUED_AT, Long.class);
+        return familyIssuedAt != null ? familyIssuedAt : claims.getIssuedAt().getTime();
+    }
+
+    /**
+     * Verify chữ ký + hạn của refresh token (một lần HMAC, không cần DB).
+     * Ném JwtException nếu token không hợp lệ, hết hạn hoặc không phải refresh token.
+     */
+    public Claims parseRefreshToken(String token) {
+        Claims claims = extractAllClaims(token);
+        if (!TOKEN_TYPE_REFRESH.equals(claims.get(CLAIM_TOKEN_TYPE, String.class)) || claims.getId() == null) {
+            throw new JwtException("Not a refresh token");
+        }
+        return claims;
     }
 
     private String createToken(Map<String, Object> claims, String subject, Long expirationTime) {
@@ -79,21 +144,16 @@ public class JwtUtil {
                 .compact();
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String usernameFromToken = extractUsername(token);
-        final String usernameFromDetails = userDetails.getUsername();
-        
-        // Token được tạo với username từ User entity (không phải email)
-        // Nên cần so sánh với username thực tế
-        // Nếu userDetails là User entity, thì getUsername() trả về username thực tế từ DB
-        boolean isValid = usernameFromToken.equals(usernameFromDetails) && !isTokenExpired(token);
-        
-        // Log for debugging
-        System.out.println("🔵 JwtUtil.validateToken - Token username: " + usernameFromToken + 
-                ", UserDetails username: " + usernameFromDetails + 
-                ", Valid: " + isValid);
-        
-        return isValid;
+    /**
+     * Verify chữ ký + hạn của access token (ném JwtException nếu không hợp lệ).
+     * Refresh token chỉ dùng cho /api/auth/refresh, không được dùng như access token
+     */
+    public Claims parseAccessToken(String token) {
+        Claims claims = extractAllClaims(token);
+        if (TOKEN_TYPE_REFRESH.equals(claims.get(CLAIM_TOKEN_TYPE, String.class))) {
+            throw new JwtException("Refresh token cannot be used as access token");
+        }
+        return claims;
     }
 
     // Helper method to extract role from token
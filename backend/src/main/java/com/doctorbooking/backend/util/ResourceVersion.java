@@ -0,0 +1,50 @@
+package com.doctorbooking.backend.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Phiên bản của một danh sách / tài nguyên cho HTTP conditional request (ETag + Last-Modified):
+ * số dòng + updatedAt lớn nhất, lấy bằng một câu COUNT/MAX (hoặc từ cache) mà không cần dựng body.
+ * Thêm / sửa dòng làm đổi updatedAt lớn nhất, xóa dòng làm đổi count.
+ * contentHash dùng khi body lấy từ cache và có trường không nằm trong updatedAt (vd. email của user bác sĩ).
+ */
+public record ResourceVersion(Long count, LocalDateTime lastModified, int contentHash) {
+
+    // Client luôn hỏi lại server (no-cache) và cache trung gian không được giữ dữ liệu của người dùng (private)
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    // Constructor cho JPQL: SELECT new ...ResourceVersion(COUNT(x), MAX(x.updatedAt))
+    public ResourceVersion(Long count, LocalDateTime lastModified) {
+        this(count, lastModified, 0);
+    }
+
+    /**
+     * Weak ETag (nội dung tương đương về nghĩa, không cam kết giống từng byte sau khi nén)
+     */
+    public String eTag(String resource) {
+        StringBuilder tag = new StringBuilder("W/\"").append(resource).append('-').append(count != null ? count : 0)
+                .append('-').append(Long.toHexString(lastModifiedMillis()));
+        if (contentHash != 0) {
+            tag.append('-').append(Integer.toHexString(contentHash));
+        }
+        return tag.append('"').toString();
+    }
+
+    public long lastModifiedMillis() {
+        return lastModified != null ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+
+    /**
+     * true nếu client đã có bản này (If-None-Match / If-Modified-Since khớp): response đã được đặt 304,
+     * controller trả về ngay mà không gọi service dựng body. ETag / Last-Modified luôn được ghi vào response.
+     */
+    public boolean isNotModified(WebRequest request, String resource) {
+        return lastModified != null
+                ? request.checkNotModified(eTag(resource), lastModifiedMillis())
+                : request.checkNotModified(eTag(resource));
+    }
+}
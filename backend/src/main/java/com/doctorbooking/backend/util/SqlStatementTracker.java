@@ -0,0 +1,101 @@
+package com.doctorbooking.backend.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Đếm câu SQL Hibernate phát ra trong một phạm vi (một HTTP request, một test) trên thread hiện tại.
+ * Câu lệnh được gom theo "shape" (SQL đã chuẩn hóa): cùng một shape lặp lại nhiều lần trong một request
+ * gần như luôn là N+1 (load quan hệ lazy từng dòng một).
+ * Dữ liệu được ghi bởi SqlStatementInspector (Hibernate StatementInspector).
+ */
+public final class SqlStatementTracker {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlStatementTracker() {
+    }
+
+    /**
+     * Bắt đầu đếm trên thread hiện tại; đóng scope để dừng. Scope lồng nhau khi đóng cộng số câu và shape
+     * của mình vào scope ngoài rồi khôi phục scope ngoài (vd. scope của SqlStatementBudgetFilter dưới MockMvc
+     * nằm trong scope của @SqlStatementBudget).
+     */
+    public static Scope begin() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    public static void record(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+    }
+
+    /**
+     * Chuẩn hóa SQL thành shape: gộp khoảng trắng, IN (?, ?, ?) -> IN (?)
+     */
+    static String shapeOf(String sql) {
+        String collapsed = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(collapsed).replaceAll("(?)");
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, Integer> shapeCounts = new HashMap<>();
+        private int statementCount;
+        private boolean closed;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private void record(String sql) {
+            statementCount++;
+            shapeCounts.merge(shapeOf(sql), 1, Integer::sum);
+        }
+
+        public int getStatementCount() {
+            return statementCount;
+        }
+
+        /**
+         * Các shape xuất hiện ít nhất threshold lần (nghi N+1), sắp xếp giảm dần theo số lần
+         */
+        public Map<String, Integer> getRepeatedShapes(int threshold) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            shapeCounts.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= threshold)
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+            return repeated;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (parent != null) {
+                parent.statementCount += statementCount;
+                shapeCounts.forEach((shape, count) -> parent.shapeCounts.merge(shape, count, Integer::sum));
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
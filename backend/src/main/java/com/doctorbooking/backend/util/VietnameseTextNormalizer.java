@@ -0,0 +1,80 @@
+package com.doctorbooking.backend.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa câu tiếng Việt để so khớp "gần đúng":
+ * chữ thường, bỏ dấu (kể cả đ -> d), bỏ dấu câu, gộp khoảng trắng, bỏ các từ đệm không mang nghĩa
+ */
+public final class VietnameseTextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{M}\\p{N}]+");
+
+    // Từ đệm / đại từ không ảnh hưởng đến nội dung câu hỏi, so trên từ CÒN dấu: bỏ dấu rồi mới lọc thì
+    // trùng với từ chuyên môn ("hỏi" / "hôi miệng", "vậy" / "vảy nến", "bạn" / "nổi ban", "rồi" / "rối loạn").
+    // Vì vậy không có bản không dấu của các từ này. KHÔNG đưa từ phủ định hay từ chỉ mức độ vào đây.
+    private static final Set<String> STOPWORDS = Set.of(
+            "tôi", "mình", "em", "bị", "thấy", "đang", "hỏi", "thì", "là", "à", "ạ", "ơi", "nhé", "nha", "hả",
+            "vậy", "rồi", "bạn", "please", "i", "im", "have", "has", "my", "the", "an"
+    );
+
+    private VietnameseTextNormalizer() {
+    }
+
+    /**
+     * Chữ thường + bỏ dấu tiếng Việt, giữ nguyên khoảng trắng và dấu câu
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").replace('đ', 'd');
+    }
+
+    /**
+     * fold + thay dấu câu bằng khoảng trắng + gộp khoảng trắng (giữ nguyên mọi từ)
+     */
+    public static String foldWords(String text) {
+        return NON_ALPHANUMERIC.matcher(fold(text)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Chữ thường (NFC, giữ dấu tiếng Việt) + thay dấu câu bằng khoảng trắng + gộp khoảng trắng
+     */
+    public static String words(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFC);
+        return NON_WORD.matcher(lower).replaceAll(" ").trim();
+    }
+
+    /**
+     * Chuẩn hóa đầy đủ (dùng làm cache key): bỏ dấu câu + gộp khoảng trắng + bỏ stopword (trên từ còn dấu) + fold
+     */
+    public static String normalize(String text) {
+        String words = words(text);
+        if (words.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(words.length());
+        for (String token : words.split(" ")) {
+            if (token.isEmpty() || STOPWORDS.contains(token)) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(fold(token));
+        }
+        // Câu chỉ gồm stopword (ví dụ "à", "ơi") -> giữ bản đã fold để không trùng key rỗng
+        return sb.length() > 0 ? sb.toString() : foldWords(text);
+    }
+}
@@ -0,0 +1,231 @@
+-- Baseline: the schema Hibernate (ddl-auto=update) produced for the entities in com.doctorbooking.backend.model
+-- before the switch to Flyway. Existing databases already have these tables: spring.flyway.baseline-on-migrate
+-- marks them as V1 without running this script, so anything added later (tables, constraints, indexes)
+-- goes in V2+, never here.
+
+CREATE TABLE users (
+    id          BIGINT NOT NULL AUTO_INCREMENT,
+    username    VARCHAR(50) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    email       VARCHAR(100) NOT NULL,
+    role        ENUM ('ADMIN', 'DOCTOR', 'PATIENT') NOT NULL,
+    enabled     BIT NOT NULL,
+    created_at  DATETIME(6),
+    updated_at  DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE admins (
+    id          BIGINT NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT NOT NULL,
+    full_name   VARCHAR(100) NOT NULL,
+    phone       VARCHAR(20),
+    created_at  DATETIME(6),
+    updated_at  DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_admins_user UNIQUE (user_id),
+    CONSTRAINT fk_admins_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE doctors (
+    id                BIGINT NOT NULL AUTO_INCREMENT,
+    user_id           BIGINT NOT NULL,
+    full_name         VARCHAR(100) NOT NULL,
+    specialization    VARCHAR(500) NOT NULL,
+    qualification     VARCHAR(200),
+    experience        INT NOT NULL,
+    phone             VARCHAR(20),
+    address           VARCHAR(255),
+    bio               TEXT,
+    status            ENUM ('ACTIVE', 'INACTIVE') NOT NULL,
+    consultation_fee  DECIMAL(10, 2),
+    buffer_time       INT,
+    created_at        DATETIME(6),
+    updated_at        DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_doctors_user UNIQUE (user_id),
+    CONSTRAINT fk_doctors_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE patients (
+    id                 BIGINT NOT NULL AUTO_INCREMENT,
+    user_id            BIGINT NOT NULL,
+    full_name          VARCHAR(100) NOT NULL,
+    date_of_birth      DATE,
+    gender             ENUM ('MALE', 'FEMALE', 'OTHER'),
+    phone              VARCHAR(20),
+    address            VARCHAR(255),
+    emergency_contact  VARCHAR(100),
+    emergency_phone    VARCHAR(20),
+    wallet_balance     DECIMAL(10, 2),
+    loyalty_points     INT,
+    loyalty_tier       VARCHAR(20),
+    created_at         DATETIME(6),
+    updated_at         DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_patients_user UNIQUE (user_id),
+    CONSTRAINT fk_patients_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE appointments (
+    id                   BIGINT NOT NULL AUTO_INCREMENT,
+    patient_id           BIGINT NOT NULL,
+    doctor_id            BIGINT NOT NULL,
+    appointment_date     DATE NOT NULL,
+    appointment_time     TIME NOT NULL,
+    status               ENUM ('PENDING', 'CONFIRMED', 'COMPLETED', 'CANCELLED') NOT NULL,
+    notes                TEXT,
+    price                DECIMAL(10, 2),
+    payment_status       ENUM ('PENDING', 'PAID', 'UNPAID', 'REFUNDED'),
+    payment_method       VARCHAR(50),
+    created_at           DATETIME(6),
+    updated_at           DATETIME(6),
+    reminder_24h_sent    BIT NOT NULL,
+    reminder_1h_sent     BIT NOT NULL,
+    cancellation_reason  TEXT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_appointments_doctor_slot UNIQUE (doctor_id, appointment_date, appointment_time),
+    CONSTRAINT fk_appointments_patient FOREIGN KEY (patient_id) REFERENCES patients (id),
+    CONSTRAINT fk_appointments_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE family_members (
+    id                  BIGINT NOT NULL AUTO_INCREMENT,
+    main_patient_id     BIGINT NOT NULL,
+    full_name           VARCHAR(100) NOT NULL,
+    date_of_birth       DATE,
+    gender              ENUM ('MALE', 'FEMALE', 'OTHER'),
+    relationship        ENUM ('SELF', 'CHILD', 'PARENT', 'SPOUSE', 'SIBLING', 'OTHER') NOT NULL,
+    phone               VARCHAR(20),
+    address             VARCHAR(255),
+    blood_type          VARCHAR(10),
+    allergies           TEXT,
+    chronic_conditions  TEXT,
+    is_main_account     BIT,
+    created_at          DATETIME(6),
+    updated_at          DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_family_members_patient FOREIGN KEY (main_patient_id) REFERENCES patients (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE family_appointments (
+    id                    BIGINT NOT NULL AUTO_INCREMENT,
+    family_member_id      BIGINT NOT NULL,
+    appointment_id        BIGINT NOT NULL,
+    booked_by_patient_id  BIGINT NOT NULL,
+    created_at            DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_family_appointments_appointment UNIQUE (appointment_id),
+    CONSTRAINT fk_family_appointments_member FOREIGN KEY (family_member_id) REFERENCES family_members (id),
+    CONSTRAINT fk_family_appointments_appointment FOREIGN KEY (appointment_id) REFERENCES appointments (id),
+    CONSTRAINT fk_family_appointments_patient FOREIGN KEY (booked_by_patient_id) REFERENCES patients (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE feedbacks (
+    id                 BIGINT NOT NULL AUTO_INCREMENT,
+    patient_id         BIGINT NOT NULL,
+    doctor_id          BIGINT NOT NULL,
+    appointment_id     BIGINT NOT NULL,
+    rating             INT NOT NULL,
+    comment            TEXT,
+    status             ENUM ('PENDING', 'READ', 'REPLIED') NOT NULL,
+    doctor_reply       TEXT,
+    doctor_replied_at  DATETIME(6),
+    is_hidden          BIT NOT NULL,
+    created_at         DATETIME(6),
+    updated_at         DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_feedbacks_patient FOREIGN KEY (patient_id) REFERENCES patients (id),
+    CONSTRAINT fk_feedbacks_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id),
+    CONSTRAINT fk_feedbacks_appointment FOREIGN KEY (appointment_id) REFERENCES appointments (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE medications (
+    id                  BIGINT NOT NULL AUTO_INCREMENT,
+    name                VARCHAR(200) NOT NULL,
+    generic_name        VARCHAR(200),
+    category            VARCHAR(100),
+    common_dosages      TEXT,
+    common_frequencies  TEXT,
+    unit_price          DECIMAL(38, 2),
+    unit                VARCHAR(50),
+    is_available        BIT,
+    created_at          DATETIME(6),
+    updated_at          DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE notifications (
+    id              BIGINT NOT NULL AUTO_INCREMENT,
+    patient_id      BIGINT NOT NULL,
+    title           VARCHAR(100) NOT NULL,
+    message         TEXT NOT NULL,
+    type            ENUM ('APPOINTMENT_CONFIRMED', 'APPOINTMENT_REMINDER_24H', 'APPOINTMENT_REMINDER_1H',
+                          'APPOINTMENT_CANCELLED', 'PAYMENT_SUCCESS', 'WALLET_DEPOSIT_SUCCESS', 'OTHER') NOT NULL,
+    is_read         BIT NOT NULL,
+    appointment_id  BIGINT,
+    created_at      DATETIME(6),
+    updated_at      DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_notifications_patient FOREIGN KEY (patient_id) REFERENCES patients (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE treatments (
+    id                     BIGINT NOT NULL AUTO_INCREMENT,
+    appointment_id         BIGINT,
+    doctor_id              BIGINT NOT NULL,
+    patient_id             BIGINT NOT NULL,
+    diagnosis              TEXT,
+    prescription_id        VARCHAR(50),
+    diagnosis_code         VARCHAR(50),
+    prescription           TEXT,
+    treatment_notes        TEXT,
+    advice                 TEXT,
+    pharmacy_instructions  TEXT,
+    qr_code_url            VARCHAR(500),
+    follow_up_date         DATE,
+    created_at             DATETIME(6),
+    updated_at             DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_treatments_appointment FOREIGN KEY (appointment_id) REFERENCES appointments (id),
+    CONSTRAINT fk_treatments_doctor FOREIGN KEY (doctor_id) REFERENCES doctors (id),
+    CONSTRAINT fk_treatments_patient FOREIGN KEY (patient_id) REFERENCES patients (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE prescription_medications (
+    id               BIGINT NOT NULL AUTO_INCREMENT,
+    treatment_id     BIGINT NOT NULL,
+    medication_id    BIGINT,
+    medication_name  VARCHAR(200) NOT NULL,
+    dosage           VARCHAR(100) NOT NULL,
+    frequency        VARCHAR(100) NOT NULL,
+    duration         VARCHAR(100),
+    quantity         INT,
+    unit             VARCHAR(50),
+    instructions     TEXT,
+    price            DECIMAL(38, 2),
+    order_index      INT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_prescription_medications_treatment FOREIGN KEY (treatment_id) REFERENCES treatments (id),
+    CONSTRAINT fk_prescription_medications_medication FOREIGN KEY (medication_id) REFERENCES medications (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE wallet_transactions (
+    id                BIGINT NOT NULL AUTO_INCREMENT,
+    patient_id        BIGINT NOT NULL,
+    transaction_type  ENUM ('PAYMENT', 'REFUND', 'REWARD', 'DEPOSIT', 'WITHDRAWAL') NOT NULL,
+    amount            DECIMAL(10, 2) NOT NULL,
+    points_earned     INT,
+    description       TEXT,
+    appointment_id    BIGINT,
+    status            ENUM ('PENDING', 'COMPLETED', 'FAILED', 'CANCELLED') NOT NULL,
+    payment_method    VARCHAR(50),
+    reference_id      VARCHAR(100),
+    created_at        DATETIME(6),
+    updated_at        DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_wallet_transactions_patient FOREIGN KEY (patient_id) REFERENCES patients (id),
+    CONSTRAINT fk_wallet_transactions_appointment FOREIGN KEY (appointment_id) REFERENCES appointments (id)
+) ENGINE = InnoDB;
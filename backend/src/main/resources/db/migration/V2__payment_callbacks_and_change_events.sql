@@ -0,0 +1,43 @@
+-- Tables and constraints added after the baseline. Databases that ran a build with ddl-auto=update may
+-- already have some of them (under Hibernate-generated constraint names), so every step is idempotent.
+
+-- VNPay callback idempotency (PaymentCallbackService)
+CREATE TABLE IF NOT EXISTS payment_callbacks (
+    id              BIGINT NOT NULL AUTO_INCREMENT,
+    txn_ref         VARCHAR(100) NOT NULL,
+    transaction_no  VARCHAR(50) NOT NULL,
+    callback_type   ENUM ('WALLET_DEPOSIT', 'APPOINTMENT') NOT NULL,
+    response_code   VARCHAR(10),
+    created_at      DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_payment_callbacks_txn UNIQUE (txn_ref, transaction_no)
+) ENGINE = InnoDB;
+
+-- Cross-node cache invalidation (JdbcCacheInvalidationTransport)
+CREATE TABLE IF NOT EXISTS entity_change_events (
+    id           BIGINT NOT NULL AUTO_INCREMENT,
+    entity_type  ENUM ('DOCTOR', 'USER', 'APPOINTMENT') NOT NULL,
+    entity_id    BIGINT,
+    origin_node  VARCHAR(64) NOT NULL,
+    created_at   DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- One wallet transaction per gateway reference. MySQL has no ADD CONSTRAINT IF NOT EXISTS: add the key only
+-- when no single-column unique index on reference_id exists yet. Duplicate reference_id rows make this fail
+-- (and Flyway stop) without touching data; they have to be reconciled by hand first.
+SET @reference_keys = (
+    SELECT COUNT(*) FROM (
+        SELECT index_name
+        FROM information_schema.statistics
+        WHERE table_schema = DATABASE() AND table_name = 'wallet_transactions' AND non_unique = 0
+        GROUP BY index_name
+        HAVING COUNT(*) = 1 AND MAX(column_name) = 'reference_id'
+    ) reference_unique_indexes
+);
+SET @add_reference_key = IF(@reference_keys = 0,
+    'ALTER TABLE wallet_transactions ADD CONSTRAINT uk_wallet_transactions_reference UNIQUE (reference_id)',
+    'DO 0');
+PREPARE add_reference_key FROM @add_reference_key;
+EXECUTE add_reference_key;
+DEALLOCATE PREPARE add_reference_key;
@@ -0,0 +1,34 @@
+-- Indexes for the hot repository predicates (checked by IndexUsageExplainTest).
+-- appointments(doctor_id, appointment_date, ...) is already served by the doctor/date/time unique key
+-- (findExistingAppointment, findByDoctorAndDate), so no extra doctor index here.
+
+-- AppointmentRepository.findAppointmentsFor24hReminder / findAppointmentsFor1hReminder,
+-- findByAppointmentDate / streamByAppointmentDate (date prefix)
+CREATE INDEX idx_appointments_date_reminder ON appointments (appointment_date, reminder_24h_sent, status);
+
+-- AppointmentRepository.findByPatientIdOrderByDateDesc / findByPatientId (no filesort for patient history)
+CREATE INDEX idx_appointments_patient_date ON appointments (patient_id, appointment_date, appointment_time);
+
+-- AppointmentRepository.findStaleOnlinePaymentIds (PaymentReconciliationService, every few minutes)
+CREATE INDEX idx_appointments_payment_created ON appointments (payment_status, status, created_at);
+
+-- NotificationRepository.countUnreadByPatientId / findUnreadByPatientIdOrderByCreatedAtDesc
+CREATE INDEX idx_notifications_patient_read_created ON notifications (patient_id, is_read, created_at);
+
+-- FeedbackRepository.findByDoctorIdOrderByCreatedAtDesc, findByPatientIdOrderByCreatedAtDesc
+CREATE INDEX idx_feedbacks_doctor_created ON feedbacks (doctor_id, created_at);
+CREATE INDEX idx_feedbacks_patient_created ON feedbacks (patient_id, created_at);
+
+-- TreatmentRepository.findByPatientId / findVersionByPatientId (MAX(updated_at) from the index alone)
+CREATE INDEX idx_treatments_patient_updated ON treatments (patient_id, updated_at);
+
+-- PrescriptionMedicationRepository.findByTreatmentIdOrderByOrderIndexAsc
+CREATE INDEX idx_prescription_medications_treatment_order ON prescription_medications (treatment_id, order_index);
+
+-- WalletTransactionRepository.findByPatientIdOrderByCreatedAtDesc (paged history),
+-- findStaleTransactionIds; reference_id lookups use the unique key from V2
+CREATE INDEX idx_wallet_transactions_patient_created ON wallet_transactions (patient_id, created_at);
+CREATE INDEX idx_wallet_transactions_type_status_created ON wallet_transactions (transaction_type, status, created_at);
+
+-- EntityChangeEventRepository.deleteOlderThan (JdbcCacheInvalidationTransport purge)
+CREATE INDEX idx_entity_change_events_created ON entity_change_events (created_at);
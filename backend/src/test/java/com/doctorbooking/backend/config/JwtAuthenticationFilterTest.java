@@ -0,0 +1,98 @@
+package com.doctorbooking.backend.config;
+
+import com.doctorbooking.backend.service.RefreshTokenReplayCache;
+import com.doctorbooking.backend.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Access token cấp trước khi user bị thu hồi (khóa / xóa / đổi role, mật khẩu) không còn xác thực được
+ */
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "test-secret-key-test-secret-key-test-secret-0123456789";
+    private static final Map<String, Object> PATIENT_CLAIMS = Map.of(
+            AuthenticatedUser.CLAIM_USER_ID, 7L,
+            AuthenticatedUser.CLAIM_ROLE, "PATIENT",
+            AuthenticatedUser.CLAIM_PATIENT_ID, 3L);
+
+    private final RefreshTokenReplayCache replayCache = new RefreshTokenReplayCache(86_400_000L);
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        filter = new JwtAuthenticationFilter(jwtUtil, replayCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesFromClaims() throws Exception {
+        Authentication authentication = authenticate(jwtUtil.generateToken(patient(), PATIENT_CLAIMS));
+
+        assertNotNull(authentication);
+        assertEquals(7L, ((AuthenticatedUser) authentication.getPrincipal()).userId());
+    }
+
+    @Test
+    void rejectsTokenIssuedBeforeUserWasRevoked() throws Exception {
+        long issuedAt = System.currentTimeMillis() - 60_000;
+        String oldToken = Jwts.builder()
+                .claims(PATIENT_CLAIMS)
+                .subject("patient")
+                .issuedAt(new Date(issuedAt))
+                .expiration(new Date(issuedAt + 3_600_000L))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        assertNotNull(authenticate(oldToken));
+
+        replayCache.revokeUser(7L);
+
+        assertNull(authenticate(oldToken));
+        // Đăng nhập lại sau khi thu hồi vẫn dùng được; user khác không bị ảnh hưởng
+        assertNotNull(authenticate(jwtUtil.generateToken(patient(), PATIENT_CLAIMS)));
+        replayCache.revokeUser(8L);
+        assertNotNull(authenticate(jwtUtil.generateToken(patient(), PATIENT_CLAIMS)));
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patient/profile");
+        request.setServletPath("/api/patient/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> seen.set(SecurityContextHolder.getContext().getAuthentication()));
+        SecurityContextHolder.clearContext();
+        return seen.get();
+    }
+
+    private static User patient() {
+        return (User) User.withUsername("patient").password("unused").roles("PATIENT").build();
+    }
+}
@@ -0,0 +1,421 @@
+package com.doctorbooking.backend.loadtest;
+
+import com.doctorbooking.backend.service.AppointmentReminderService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load test end-to-end luồng đặt lịch, không cần MySQL / Gmail / Groq / VNPAY thật:
+ * H2 (MySQL mode) + SmtpSink + GroqStub + VNPayGatewayStub, dữ liệu do LoadTestDataSeeder tạo.
+ * Scenario: booking storm, dashboard reads, reminder burst, payment callbacks.
+ * Báo cáo throughput và p50/p99 theo endpoint ra log và target/loadtest-report.json.
+ * Chỉ chạy với ./mvnw -Ploadtest test; quy mô chỉnh bằng -Dloadtest.* (xem các hằng số bên dưới).
+ */
+@Tag("loadtest")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BookingFlowLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingFlowLoadTest.class);
+
+    private static final int DOCTORS = Integer.getInteger("loadtest.doctors", 20);
+    private static final int PATIENTS = Integer.getInteger("loadtest.patients", 200);
+    private static final int HISTORY_APPOINTMENTS = Integer.getInteger("loadtest.appointments", 5000);
+    private static final int REMINDER_APPOINTMENTS = Integer.getInteger("loadtest.reminders", 200);
+    private static final int ACTIVE_PATIENTS = Integer.getInteger("loadtest.active-patients", 100);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+    private static final int BOOKINGS = Integer.getInteger("loadtest.bookings", 400);
+    private static final int READS = Integer.getInteger("loadtest.reads", 4000);
+    private static final int TOP_UPS = Integer.getInteger("loadtest.top-ups", 100);
+    private static final long SMTP_LATENCY_MS = Long.getLong("loadtest.smtp-latency-ms", 0);
+    private static final long GROQ_LATENCY_MS = Long.getLong("loadtest.groq-latency-ms", 300);
+
+    // Booking storm dồn vào vài bác sĩ "hot" trong vài ngày để có tranh chấp slot thật
+    private static final int HOT_DOCTORS = 5;
+    private static final int STORM_DAYS = 3;
+    private static final String PASSWORD = "LoadTest-123";
+    private static final String VNPAY_HASH_SECRET = "LOADTESTSECRETLOADTESTSECRET0001";
+    private static final BigDecimal TOP_UP_AMOUNT = new BigDecimal("100000");
+
+    private static SmtpSink smtpSink;
+    private static GroqStub groqStub;
+    private static VNPayGatewayStub vnPayGateway;
+
+    @DynamicPropertySource
+    static void externalServices(DynamicPropertyRegistry registry) throws IOException {
+        smtpSink = new SmtpSink(SMTP_LATENCY_MS);
+        groqStub = new GroqStub(GROQ_LATENCY_MS);
+        vnPayGateway = new VNPayGatewayStub(VNPAY_HASH_SECRET);
+        registry.add("spring.mail.port", smtpSink::getPort);
+        registry.add("groq.base-url", groqStub::getBaseUrl);
+        registry.add("vnpay.url", vnPayGateway::getPayUrl);
+        registry.add("vnpay.hashSecret", () -> VNPAY_HASH_SECRET);
+    }
+
+    @AfterAll
+    static void stopExternalServices() throws IOException {
+        smtpSink.close();
+        groqStub.close();
+        vnPayGateway.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private AppointmentReminderService reminderService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    @Test
+    void bookingFlowUnderLoad() throws Exception {
+        LoadTestDataSeeder.Dataset dataset = new LoadTestDataSeeder(jdbcTemplate)
+                .seed(DOCTORS, PATIENTS, HISTORY_APPOINTMENTS, REMINDER_APPOINTMENTS, passwordEncoder.encode(PASSWORD));
+        LoadTestReport report = new LoadTestReport(config());
+
+        LoadTestReport.Scenario login = report.scenario("login");
+        List<String> patientTokens = login(login,
+                dataset.patientUsernames().subList(0, Math.min(ACTIVE_PATIENTS, PATIENTS)), PASSWORD);
+        List<String> doctorTokens = login(login, dataset.doctorUsernames(), PASSWORD);
+        String adminToken = login(login, List.of("admin"), "admin123").get(0);
+
+        bookingStorm(report.scenario("booking-storm"), dataset, patientTokens);
+        dashboardReads(report.scenario("dashboard-reads"), dataset, patientTokens, doctorTokens, adminToken);
+        reminderBurst(report.scenario("reminder-burst"), dataset);
+        paymentCallbacks(report.scenario("payment-callbacks"), dataset, patientTokens);
+
+        report.log();
+        report.writeJson(Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json")));
+
+        for (String scenario : List.of("login", "booking-storm", "dashboard-reads", "payment-callbacks")) {
+            assertEquals(0, report.scenario(scenario).getErrorCount(), scenario + " có lỗi 5xx / lỗi kết nối");
+        }
+    }
+
+    /**
+     * Đăng nhập song song (bị giới hạn bởi pool verify password), trả về access token theo thứ tự usernames
+     */
+    private List<String> login(LoadTestReport.Scenario scenario, List<String> usernames, String password)
+            throws InterruptedException {
+        String[] tokens = new String[usernames.size()];
+        long wall = runConcurrently(Math.min(CONCURRENCY, 8), usernames.size(), i -> {
+            String body = json(Map.of("username", usernames.get(i), "password", password));
+            for (int attempt = 0; attempt < 5 && tokens[i] == null; attempt++) {
+                HttpResponse<String> response = send(scenario, "POST /api/auth/login", post("/api/auth/login", null, body));
+                if (response != null && response.statusCode() == 200) {
+                    tokens[i] = read(response).get("token").asText();
+                } else if (response == null || response.statusCode() != 503) {
+                    throw new IllegalStateException("Login failed for " + usernames.get(i));
+                }
+            }
+        });
+        scenario.addWallNanos(wall);
+        long failed = Arrays.stream(tokens).filter(Objects::isNull).count();
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " logins failed");
+        }
+        return List.of(tokens);
+    }
+
+    /**
+     * Nhiều bệnh nhân cùng xem slot trống rồi đặt lịch vào ít bác sĩ / ít ngày; một phần hỏi AI trước khi đặt.
+     * 400 (slot đã có người đặt) được tính là rejected, không phải lỗi.
+     */
+    private void bookingStorm(LoadTestReport.Scenario scenario, LoadTestDataSeeder.Dataset dataset,
+                              List<String> patientTokens) throws InterruptedException {
+        AtomicInteger booked = new AtomicInteger();
+        LocalDate firstDay = LocalDate.now().plusDays(3);
+        long wall = runConcurrently(CONCURRENCY, BOOKINGS, i -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String token = patientTokens.get(i % patientTokens.size());
+            Long doctorId = dataset.doctorIds().get(random.nextInt(Math.min(HOT_DOCTORS, dataset.doctorIds().size())));
+            LocalDate date = firstDay.plusDays(random.nextInt(STORM_DAYS));
+
+            if (i % 4 == 0) {
+                // Một nửa câu hỏi lặp lại (cache hit), một nửa mới (gọi Groq stub)
+                String symptoms = "Tôi bị sốt nhẹ và mệt mỏi kéo dài " + (i % 8 == 0 ? "vài ngày" : i + " giờ");
+                send(scenario, "POST /api/patient/ai/check-symptoms",
+                        post("/api/patient/ai/check-symptoms", token, json(Map.of("symptoms", symptoms))));
+            }
+
+            HttpResponse<String> slots = send(scenario, "GET /api/patient/appointments/available-slots",
+                    get("/api/patient/appointments/available-slots?doctorId=" + doctorId + "&date=" + date, token));
+            List<String> available = new ArrayList<>();
+            if (slots != null && slots.statusCode() == 200) {
+                read(slots).forEach(slot -> available.add(slot.asText()));
+            }
+            String time = available.isEmpty()
+                    ? LoadTestDataSeeder.SLOTS.get(random.nextInt(LoadTestDataSeeder.SLOTS.size())).toString()
+                    : available.get(random.nextInt(Math.min(3, available.size())));
+
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("doctorId", doctorId);
+            request.put("appointmentDate", date.toString());
+            request.put("appointmentTime", time);
+            request.put("paymentMethod", "CASH");
+            HttpResponse<String> response = send(scenario, "POST /api/patient/appointments",
+                    post("/api/patient/appointments", token, json(request)));
+            if (response != null && response.statusCode() == 201) {
+                booked.incrementAndGet();
+            }
+        });
+        scenario.addWallNanos(wall);
+        scenario.put("booked", booked.get());
+        scenario.put("groqCalls", groqStub.getCallCount());
+    }
+
+    /**
+     * Các màn hình đọc nhiều nhất: danh sách / chi tiết bác sĩ, lịch hẹn và ví của bệnh nhân, lịch khám của bác sĩ,
+     * danh sách lịch hẹn của admin (ít hơn hẳn)
+     */
+    private void dashboardReads(LoadTestReport.Scenario scenario, LoadTestDataSeeder.Dataset dataset,
+                                List<String> patientTokens, List<String> doctorTokens, String adminToken)
+            throws InterruptedException {
+        long wall = runConcurrently(CONCURRENCY, READS, i -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String patientToken = patientTokens.get(random.nextInt(patientTokens.size()));
+            int pick = random.nextInt(100);
+            if (pick < 25) {
+                send(scenario, "GET /api/patient/doctors", get("/api/patient/doctors", patientToken));
+            } else if (pick < 40) {
+                Long doctorId = dataset.doctorIds().get(random.nextInt(dataset.doctorIds().size()));
+                send(scenario, "GET /api/patient/doctors/{id}", get("/api/patient/doctors/" + doctorId, patientToken));
+            } else if (pick < 65) {
+                send(scenario, "GET /api/patient/appointments", get("/api/patient/appointments", patientToken));
+            } else if (pick < 75) {
+                send(scenario, "GET /api/patient/wallet", get("/api/patient/wallet", patientToken));
+            } else if (pick < 90) {
+                String doctorToken = doctorTokens.get(random.nextInt(doctorTokens.size()));
+                send(scenario, "GET /api/doctor/appointments", get("/api/doctor/appointments", doctorToken));
+            } else if (pick < 98) {
+                String doctorToken = doctorTokens.get(random.nextInt(doctorTokens.size()));
+                send(scenario, "GET /api/doctor/appointments?date", get("/api/doctor/appointments?date="
+                        + LocalDate.now().minusDays(1 + random.nextInt(7)), doctorToken));
+            } else {
+                send(scenario, "GET /api/admin/appointments", get("/api/admin/appointments", adminToken));
+            }
+        });
+        scenario.addWallNanos(wall);
+    }
+
+    /**
+     * Job nhắc hẹn 24h gặp cả lô lịch hẹn ngày mai cùng lúc (gọi thẳng job, không đợi lịch @Scheduled)
+     */
+    private void reminderBurst(LoadTestReport.Scenario scenario, LoadTestDataSeeder.Dataset dataset)
+            throws InterruptedException {
+        int before = smtpSink.getMessageCount();
+        long start = System.nanoTime();
+        reminderService.send24HourReminders();
+        long elapsed = System.nanoTime() - start;
+        scenario.record("job send24HourReminders", elapsed, 200);
+        scenario.addWallNanos(elapsed);
+
+        int delivered = smtpSink.awaitMessages(before + dataset.reminderAppointments(), 30_000) - before;
+        Integer flagged = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointments WHERE appointment_date = ? AND reminder_24h_sent = TRUE",
+                Integer.class, java.sql.Date.valueOf(LocalDate.now().plusDays(1)));
+        scenario.put("emailsDelivered", delivered);
+        scenario.put("emailsPerSec", Math.round(delivered / (elapsed / 1e9) * 10) / 10.0);
+
+        assertEquals(dataset.reminderAppointments(), delivered, "số email nhắc hẹn nhận được");
+        assertEquals(dataset.reminderAppointments(), flagged, "số lịch hẹn đã đánh dấu reminder_24h_sent");
+    }
+
+    /**
+     * Nạp ví qua VNPAY: top-up -> cổng giả ký callback -> callback về backend; 1/5 callback bị gửi lặp lại
+     * (VNPAY retry) để kiểm tra idempotency. Mỗi top-up dùng một bệnh nhân riêng.
+     */
+    private void paymentCallbacks(LoadTestReport.Scenario scenario, LoadTestDataSeeder.Dataset dataset,
+                                  List<String> patientTokens) throws Exception {
+        int topUps = Math.min(TOP_UPS, patientTokens.size());
+        BigDecimal balanceBefore = totalWalletBalance();
+        long wall = runConcurrently(CONCURRENCY, topUps, i -> {
+            String token = patientTokens.get(i);
+            HttpResponse<String> topUp = send(scenario, "POST /api/patient/wallet/top-up", post("/api/patient/wallet/top-up",
+                    token, json(Map.of("amount", TOP_UP_AMOUNT, "paymentMethod", "VNPAY"))));
+            if (topUp == null || topUp.statusCode() != 200) {
+                return;
+            }
+            String paymentUrl = read(topUp).get("paymentUrl").asText();
+            HttpResponse<String> gateway = send(scenario, "GET vnpay-gateway (stub)",
+                    HttpRequest.newBuilder(URI.create(paymentUrl)).GET().build());
+            if (gateway == null || gateway.statusCode() != 302) {
+                throw new IllegalStateException("VNPAY stub rejected payment URL: " + paymentUrl);
+            }
+            // Cổng giả redirect về vnpay.returnUrl (host cố định); gọi lại đúng path/query trên port thật
+            URI callback = URI.create(gateway.headers().firstValue("Location").orElseThrow());
+            HttpRequest callbackRequest = get(callback.getRawPath() + "?" + callback.getRawQuery(), null);
+            send(scenario, "GET /api/patient/payments/vnpay/callback", callbackRequest);
+            if (i % 5 == 0) {
+                send(scenario, "GET /api/patient/payments/vnpay/callback (duplicate)", callbackRequest);
+            }
+        });
+        scenario.addWallNanos(wall);
+
+        Integer completed = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_transactions "
+                + "WHERE transaction_type = 'DEPOSIT' AND status = 'COMPLETED'", Integer.class);
+        BigDecimal credited = totalWalletBalance().subtract(balanceBefore);
+        scenario.put("depositsCompleted", completed);
+
+        assertEquals(topUps, completed, "số giao dịch nạp ví hoàn tất");
+        assertEquals(0, TOP_UP_AMOUNT.multiply(BigDecimal.valueOf(topUps)).compareTo(credited),
+                "tổng tiền cộng vào ví (callback lặp không được cộng hai lần)");
+    }
+
+    private BigDecimal totalWalletBalance() {
+        return jdbcTemplate.queryForObject("SELECT SUM(wallet_balance) FROM patients", BigDecimal.class);
+    }
+
+    private Map<String, Object> config() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("doctors", DOCTORS);
+        config.put("patients", PATIENTS);
+        config.put("historyAppointments", HISTORY_APPOINTMENTS);
+        config.put("reminderAppointments", REMINDER_APPOINTMENTS);
+        config.put("activePatients", ACTIVE_PATIENTS);
+        config.put("concurrency", CONCURRENCY);
+        config.put("bookings", BOOKINGS);
+        config.put("reads", READS);
+        config.put("topUps", TOP_UPS);
+        config.put("smtpLatencyMs", SMTP_LATENCY_MS);
+        config.put("groqLatencyMs", GROQ_LATENCY_MS);
+        return Collections.unmodifiableMap(config);
+    }
+
+    // ========== HTTP / concurrency helpers ==========
+
+    @FunctionalInterface
+    private interface Operation {
+        void run(int index) throws Exception;
+    }
+
+    /**
+     * Closed-loop: concurrency worker lần lượt lấy operation tiếp theo cho tới khi đủ operations; trả về wall time (ns).
+     * Lỗi của một operation được log lại, không dừng các worker khác.
+     */
+    private long runConcurrently(int concurrency, int operations, Operation operation) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < operations) {
+                    try {
+                        operation.run(index);
+                    } catch (Exception e) {
+                        logger.warn("Load test operation {} failed: {}", index, e.getMessage());
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.MINUTES)) {
+            workers.shutdownNow();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Gửi request, ghi latency + status vào scenario; null nếu request không hoàn thành
+     */
+    private HttpResponse<String> send(LoadTestReport.Scenario scenario, String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            scenario.record(endpoint, System.nanoTime() - start, response.statusCode());
+            return response;
+        } catch (IOException e) {
+            scenario.record(endpoint, System.nanoTime() - start, -1);
+            logger.warn("{} failed: {}", endpoint, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode read(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
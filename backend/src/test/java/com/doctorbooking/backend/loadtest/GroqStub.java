@@ -0,0 +1,74 @@
+package com.doctorbooking.backend.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Groq (OpenAI-compatible) giả: /openai/v1/chat/completions trả một câu trả lời cố định sau latencyMillis
+ * (mô phỏng độ trễ LLM). Chỉ hỗ trợ chế độ non-stream mà /api/patient/ai/check-symptoms dùng.
+ */
+public class GroqStub implements AutoCloseable {
+
+    private static final String AI_CONTENT = "{\\\"suggestedSpecialization\\\":\\\"Internal Medicine\\\","
+            + "\\\"riskLevel\\\":\\\"Medium\\\",\\\"advice\\\":\\\"Bạn nên đi khám nội tổng quát để được kiểm tra.\\\","
+            + "\\\"reason\\\":\\\"Triệu chứng kéo dài cần được bác sĩ đánh giá.\\\","
+            + "\\\"homeRemedies\\\":[\\\"Nghỉ ngơi\\\",\\\"Uống đủ nước\\\"]}";
+
+    private static final byte[] RESPONSE = ("{\"id\":\"chatcmpl-loadtest\",\"object\":\"chat.completion\","
+            + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"" + AI_CONTENT + "\"},"
+            + "\"finish_reason\":\"stop\"}]}").getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger callCount = new AtomicInteger();
+    private final long latencyMillis;
+
+    public GroqStub(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 200);
+        server.createContext("/openai/v1/chat/completions", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/openai/v1";
+    }
+
+    public int getCallCount() {
+        return callCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+            callCount.incrementAndGet();
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RESPONSE.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(RESPONSE);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,167 @@
+package com.doctorbooking.backend.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Tạo dữ liệu cho load test bằng JDBC batch insert (không qua repository.save):
+ * N bác sĩ, M bệnh nhân, K lịch hẹn đã qua (COMPLETED / CANCELLED / CONFIRMED) và một lô lịch hẹn ngày mai
+ * chưa nhắc (cho reminder burst). Mọi user dùng chung một password (hash một lần).
+ * Seed cố định nên hai lần chạy với cùng tham số cho cùng dữ liệu.
+ */
+public class LoadTestDataSeeder {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestDataSeeder.class);
+
+    static final List<String> SPECIALIZATIONS = List.of("Cardiology", "Neurology", "Internal Medicine", "Pediatrics",
+            "Dermatology", "Orthopedics", "Gastroenterology", "Ophthalmology", "ENT", "Psychiatry");
+
+    // Khung giờ khám giống AppointmentService.getAvailableTimeSlots
+    static final List<LocalTime> SLOTS = List.of(
+            LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(9, 0), LocalTime.of(9, 30),
+            LocalTime.of(10, 0), LocalTime.of(10, 30), LocalTime.of(11, 0), LocalTime.of(11, 30),
+            LocalTime.of(13, 0), LocalTime.of(13, 30), LocalTime.of(14, 0), LocalTime.of(14, 30),
+            LocalTime.of(15, 0), LocalTime.of(15, 30), LocalTime.of(16, 0), LocalTime.of(16, 30),
+            LocalTime.of(17, 0));
+
+    static final BigDecimal INITIAL_WALLET_BALANCE = new BigDecimal("1000000.00");
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(42);
+
+    public LoadTestDataSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record Dataset(List<Long> doctorIds, List<String> doctorUsernames,
+                          List<Long> patientIds, List<String> patientUsernames,
+                          int historyAppointments, int reminderAppointments) {
+    }
+
+    public Dataset seed(int doctors, int patients, int historyAppointments, int reminderAppointments,
+                        String passwordHash) {
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<String> doctorUsernames = insertUsers("lt_doctor_", doctors, "DOCTOR", passwordHash, now);
+        List<String> patientUsernames = insertUsers("lt_patient_", patients, "PATIENT", passwordHash, now);
+        Map<String, Long> userIds = jdbcTemplate.query("SELECT id, username FROM users WHERE username LIKE 'lt\\_%'",
+                        (rs, row) -> Map.entry(rs.getString("username"), rs.getLong("id")))
+                .stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        List<Object[]> doctorRows = new ArrayList<>(doctors);
+        for (int i = 0; i < doctors; i++) {
+            doctorRows.add(new Object[]{userIds.get(doctorUsernames.get(i)), "BS. Load Test " + i,
+                    SPECIALIZATIONS.get(i % SPECIALIZATIONS.size()), "Thạc sĩ Y khoa", 5 + i % 20,
+                    "09" + String.format("%08d", i), "Bệnh viện Load Test", "Bác sĩ dữ liệu giả cho load test",
+                    "ACTIVE", new BigDecimal(200000 + (i % 5) * 50000), 15, now, now});
+        }
+        batch("INSERT INTO doctors (user_id, full_name, specialization, qualification, experience, phone, address, "
+                + "bio, status, consultation_fee, buffer_time, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", doctorRows);
+
+        List<Object[]> patientRows = new ArrayList<>(patients);
+        String[] genders = {"MALE", "FEMALE", "OTHER"};
+        for (int i = 0; i < patients; i++) {
+            patientRows.add(new Object[]{userIds.get(patientUsernames.get(i)), "Bệnh Nhân " + i,
+                    Date.valueOf(LocalDate.of(1960 + i % 45, 1 + i % 12, 1 + i % 28)), genders[i % 3],
+                    "03" + String.format("%08d", i), "TP.HCM", INITIAL_WALLET_BALANCE, 0, "BRONZE", now, now});
+        }
+        batch("INSERT INTO patients (user_id, full_name, date_of_birth, gender, phone, address, wallet_balance, "
+                + "loyalty_points, loyalty_tier, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                patientRows);
+
+        List<Long> doctorIds = jdbcTemplate.queryForList(
+                "SELECT d.id FROM doctors d JOIN users u ON u.id = d.user_id WHERE u.username LIKE 'lt\\_doctor\\_%' "
+                        + "ORDER BY u.id", Long.class);
+        List<Long> patientIds = jdbcTemplate.queryForList(
+                "SELECT p.id FROM patients p JOIN users u ON u.id = p.user_id WHERE u.username LIKE 'lt\\_patient\\_%' "
+                        + "ORDER BY u.id", Long.class);
+
+        // Lịch sử: lùi dần từng ngày, mỗi ngày lấp (bác sĩ x khung giờ) nên không vi phạm unique (doctor, date, time)
+        List<Object[]> appointmentRows = new ArrayList<>(BATCH_SIZE);
+        LocalDate day = LocalDate.now().minusDays(1);
+        int slotIndex = 0;
+        for (int i = 0; i < historyAppointments; i++) {
+            if (slotIndex == doctors * SLOTS.size()) {
+                slotIndex = 0;
+                day = day.minusDays(1);
+            }
+            int roll = random.nextInt(100);
+            String status = roll < 70 ? "COMPLETED" : roll < 90 ? "CANCELLED" : "CONFIRMED";
+            appointmentRows.add(appointmentRow(patientIds.get(random.nextInt(patients)),
+                    doctorIds.get(slotIndex % doctors), day, SLOTS.get(slotIndex / doctors), status,
+                    true, now));
+            slotIndex++;
+            if (appointmentRows.size() == BATCH_SIZE) {
+                insertAppointments(appointmentRows);
+                appointmentRows.clear();
+            }
+        }
+
+        // Ngày mai, chưa gửi nhắc 24h
+        int reminders = Math.min(reminderAppointments, doctors * SLOTS.size());
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        for (int i = 0; i < reminders; i++) {
+            appointmentRows.add(appointmentRow(patientIds.get(i % patients), doctorIds.get(i % doctors), tomorrow,
+                    SLOTS.get(i / doctors), "CONFIRMED", false, now));
+            if (appointmentRows.size() == BATCH_SIZE) {
+                insertAppointments(appointmentRows);
+                appointmentRows.clear();
+            }
+        }
+        insertAppointments(appointmentRows);
+
+        logger.info("Seeded {} doctors, {} patients, {} history + {} reminder appointments in {} ms",
+                doctors, patients, historyAppointments, reminders, (System.nanoTime() - start) / 1_000_000);
+        return new Dataset(doctorIds, doctorUsernames, patientIds, patientUsernames, historyAppointments, reminders);
+    }
+
+    private List<String> insertUsers(String prefix, int count, String role, String passwordHash, Timestamp now) {
+        List<String> usernames = new ArrayList<>(count);
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = prefix + i;
+            usernames.add(username);
+            rows.add(new Object[]{username, passwordHash, username + "@loadtest.local", role, true, now, now});
+        }
+        batch("INSERT INTO users (username, password, email, role, enabled, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        return usernames;
+    }
+
+    private Object[] appointmentRow(Long patientId, Long doctorId, LocalDate date, LocalTime time, String status,
+                                    boolean reminderSent, Timestamp now) {
+        return new Object[]{patientId, doctorId, Date.valueOf(date), Time.valueOf(time), status, null,
+                new BigDecimal("300000"), "COMPLETED".equals(status) ? "PAID" : "PENDING", "CASH",
+                reminderSent, reminderSent, now, now};
+    }
+
+    private void insertAppointments(List<Object[]> rows) {
+        batch("INSERT INTO appointments (patient_id, doctor_id, appointment_date, appointment_time, status, notes, "
+                + "price, payment_status, payment_method, reminder_24h_sent, reminder_1h_sent, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
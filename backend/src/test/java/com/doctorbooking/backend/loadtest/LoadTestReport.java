@@ -0,0 +1,169 @@
+package com.doctorbooking.backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gom latency theo scenario + endpoint và xuất báo cáo: số request, lỗi (5xx / lỗi kết nối),
+ * bị từ chối (4xx), throughput (req/s trên thời gian chạy của scenario), p50/p99/max.
+ */
+public class LoadTestReport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestReport.class);
+
+    private final Map<String, Scenario> scenarios = new LinkedHashMap<>();
+    private final Map<String, Object> config;
+
+    public LoadTestReport(Map<String, Object> config) {
+        this.config = config;
+    }
+
+    public synchronized Scenario scenario(String name) {
+        return scenarios.computeIfAbsent(name, Scenario::new);
+    }
+
+    public synchronized List<Map<String, Object>> toRows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Scenario scenario : scenarios.values()) {
+            rows.add(scenario.toMap());
+        }
+        return rows;
+    }
+
+    public void log() {
+        logger.info(String.format("%-16s %-48s %8s %6s %8s %9s %9s %9s %9s",
+                "scenario", "endpoint", "requests", "errors", "rejected", "req/s", "p50 ms", "p99 ms", "max ms"));
+        for (Map<String, Object> scenario : toRows()) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> endpoints = (List<Map<String, Object>>) scenario.get("endpoints");
+            for (Map<String, Object> row : endpoints) {
+                logger.info(String.format("%-16s %-48s %8d %6d %8d %9.1f %9.2f %9.2f %9.2f",
+                        scenario.get("name"), row.get("endpoint"), row.get("requests"), row.get("errors"),
+                        row.get("rejected"), row.get("throughputPerSec"), row.get("p50Ms"), row.get("p99Ms"),
+                        row.get("maxMs")));
+            }
+        }
+    }
+
+    public void writeJson(Path file) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", java.time.OffsetDateTime.now().toString());
+        report.put("config", config);
+        report.put("scenarios", toRows());
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        logger.info("Load test report written to {}", file.toAbsolutePath());
+    }
+
+    public static final class Scenario {
+
+        private final String name;
+        private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+        private final Map<String, Object> extras = new ConcurrentHashMap<>();
+        private volatile long wallNanos;
+
+        private Scenario(String name) {
+            this.name = name;
+        }
+
+        /**
+         * status: mã HTTP, hoặc -1 nếu request không hoàn thành (timeout / lỗi kết nối)
+         */
+        public void record(String endpoint, long latencyNanos, int status) {
+            endpoints.computeIfAbsent(endpoint, key -> new EndpointStats()).record(latencyNanos, status);
+        }
+
+        /**
+         * Cộng dồn thời gian chạy (scenario có thể gồm nhiều pha, ví dụ login bệnh nhân rồi bác sĩ)
+         */
+        public synchronized void addWallNanos(long nanos) {
+            this.wallNanos += nanos;
+        }
+
+        public void put(String key, Object value) {
+            extras.put(key, value);
+        }
+
+        public long getErrorCount() {
+            return endpoints.values().stream().mapToLong(EndpointStats::getErrors).sum();
+        }
+
+        private Map<String, Object> toMap() {
+            double seconds = Math.max(wallNanos, 1) / 1e9;
+            List<Map<String, Object>> rows = new ArrayList<>();
+            endpoints.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> rows.add(entry.getValue().toMap(entry.getKey(), seconds)));
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("wallTimeMs", Math.round(wallNanos / 1e6));
+            map.putAll(new java.util.TreeMap<>(extras));
+            map.put("endpoints", rows);
+            return map;
+        }
+    }
+
+    private static final class EndpointStats {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long rejected;
+
+        synchronized void record(long latencyNanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (status < 0 || status >= 500) {
+                errors++;
+            } else if (status >= 400) {
+                rejected++;
+            }
+        }
+
+        synchronized long getErrors() {
+            return errors;
+        }
+
+        synchronized Map<String, Object> toMap(String endpoint, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", endpoint);
+            row.put("requests", count);
+            row.put("errors", errors);
+            row.put("rejected", rejected);
+            row.put("throughputPerSec", round(count / seconds));
+            row.put("p50Ms", round(percentile(sorted, 0.50) / 1e6));
+            row.put("p99Ms", round(percentile(sorted, 0.99) / 1e6));
+            row.put("maxMs", round((count == 0 ? 0 : sorted[count - 1]) / 1e6));
+            return row;
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
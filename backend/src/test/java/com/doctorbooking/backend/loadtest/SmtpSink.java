@@ -0,0 +1,121 @@
+package com.doctorbooking.backend.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SMTP server giả (kiểu GreenMail) chỉ để nhận thư: trả lời đủ EHLO/MAIL/RCPT/DATA/QUIT, đếm số thư nhận được,
+ * không lưu nội dung. Không hỗ trợ AUTH/STARTTLS (load test tắt cả hai).
+ * latencyMillis mô phỏng SMTP chậm (trả lời DATA sau một khoảng trễ).
+ */
+public class SmtpSink implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpSink.class);
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "smtp-sink");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger messageCount = new AtomicInteger();
+    private final long latencyMillis;
+
+    public SmtpSink(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "smtp-sink-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getMessageCount() {
+        return messageCount.get();
+    }
+
+    /**
+     * Chờ tới khi nhận đủ expected thư hoặc hết timeout; trả về số thư đã nhận
+     */
+    public int awaitMessages(int expected, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (messageCount.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        return messageCount.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warn("SMTP sink accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 loadtest-smtp ESMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-loadtest-smtp\r\n250 8BITMIME");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Bỏ qua nội dung thư
+                        }
+                        if (latencyMillis > 0) {
+                            Thread.sleep(latencyMillis);
+                        }
+                        messageCount.incrementAndGet();
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("SMTP sink connection closed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+}
@@ -0,0 +1,130 @@
+package com.doctorbooking.backend.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cổng VNPAY giả: nhận payment URL do backend ký (/paymentv2/vpcpay.html), kiểm tra chữ ký như VNPAY thật,
+ * rồi redirect 302 về vnp_ReturnUrl với bộ tham số callback đã ký lại (thanh toán thành công, vnp_ResponseCode=00).
+ * Ký bằng cài đặt độc lập với VNPayService để chữ ký hai phía được kiểm tra chéo.
+ */
+public class VNPayGatewayStub implements AutoCloseable {
+
+    private static final String PAY_PATH = "/paymentv2/vpcpay.html";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final String hashSecret;
+    private final AtomicLong transactionNo = new AtomicLong(14000000);
+
+    public VNPayGatewayStub(String hashSecret) throws IOException {
+        this.hashSecret = hashSecret;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 200);
+        server.createContext(PAY_PATH, this::handlePay);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getPayUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PAY_PATH;
+    }
+
+    private void handlePay(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> request = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (!sign(request).equals(request.get("vnp_SecureHash"))) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+
+            Map<String, String> callback = new HashMap<>();
+            for (String field : new String[]{"vnp_Amount", "vnp_TmnCode", "vnp_TxnRef", "vnp_OrderInfo"}) {
+                callback.put(field, request.get(field));
+            }
+            callback.put("vnp_ResponseCode", "00");
+            callback.put("vnp_TransactionStatus", "00");
+            callback.put("vnp_TransactionNo", String.valueOf(transactionNo.incrementAndGet()));
+            callback.put("vnp_BankCode", "NCB");
+            callback.put("vnp_CardType", "ATM");
+            callback.put("vnp_PayDate", new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()));
+
+            String location = request.get("vnp_ReturnUrl") + "?" + canonicalize(callback)
+                    + "&vnp_SecureHash=" + sign(callback);
+            exchange.getResponseHeaders().set("Location", location);
+            exchange.sendResponseHeaders(302, -1);
+        }
+    }
+
+    /**
+     * Chữ ký theo tài liệu VNPAY: HMAC-SHA512(hashSecret, field=URLEncode(value) sắp theo tên field, nối bằng '&')
+     */
+    private String sign(Map<String, String> params) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA512");
+            mac.init(new SecretKeySpec(hashSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+            byte[] digest = mac.doFinal(canonicalize(params).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String canonicalize(Map<String, String> params) {
+        StringBuilder data = new StringBuilder();
+        for (Map.Entry<String, String> entry : new TreeMap<>(params).entrySet()) {
+            String field = entry.getKey();
+            if (field.equals("vnp_SecureHash") || field.equals("vnp_SecureHashType")
+                    || entry.getValue() == null || entry.getValue().isEmpty()) {
+                continue;
+            }
+            if (data.length() > 0) {
+                data.append('&');
+            }
+            data.append(field).append('=').append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+        }
+        return data.toString();
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int idx = pair.indexOf('=');
+            if (idx > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, idx), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(idx + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
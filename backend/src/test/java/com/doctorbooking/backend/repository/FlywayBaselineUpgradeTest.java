@@ -0,0 +1,115 @@
+package com.doctorbooking.backend.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Nâng cấp DB có sẵn (tạo bởi ddl-auto=update, chưa có flyway_schema_history) giống cấu hình production:
+ * baseline-on-migrate đánh dấu V1 mà không chạy, V2+ phải tự bổ sung bảng / ràng buộc mới
+ * và chạy được cả khi một phần đã được Hibernate tạo trước đó.
+ * Cần Docker; không có Docker thì cả lớp được bỏ qua.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class FlywayBaselineUpgradeTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @Test
+    void baselinedDatabaseGetsTablesAndReferenceKey() throws SQLException {
+        String schema = createPreFlywaySchema("upgrade_plain");
+
+        migrateLikeProduction(schema);
+
+        try (Connection connection = connect(schema)) {
+            assertEquals(1, count(connection, "SELECT COUNT(*) FROM information_schema.tables "
+                    + "WHERE table_schema = DATABASE() AND table_name = 'payment_callbacks'"));
+            assertEquals(1, count(connection, "SELECT COUNT(*) FROM information_schema.tables "
+                    + "WHERE table_schema = DATABASE() AND table_name = 'entity_change_events'"));
+            assertEquals(1, uniqueReferenceKeys(connection));
+            assertEquals(1, count(connection, "SELECT COUNT(*) FROM information_schema.statistics "
+                    + "WHERE table_schema = DATABASE() AND index_name = 'idx_entity_change_events_created'"));
+        }
+    }
+
+    @Test
+    void partsCreatedByHibernateAreNotAddedTwice() throws SQLException {
+        String schema = createPreFlywaySchema("upgrade_partial");
+        try (Connection connection = connect(schema); Statement statement = connection.createStatement()) {
+            // Như một bản build cũ chạy ddl-auto=update: bảng và unique key với tên Hibernate tự sinh
+            statement.execute("CREATE TABLE entity_change_events (id BIGINT NOT NULL AUTO_INCREMENT, "
+                    + "entity_type ENUM ('DOCTOR', 'USER', 'APPOINTMENT') NOT NULL, entity_id BIGINT, "
+                    + "origin_node VARCHAR(64) NOT NULL, created_at DATETIME(6), PRIMARY KEY (id))");
+            statement.execute("ALTER TABLE wallet_transactions ADD CONSTRAINT UK_8x2kq1s5fjvq0 UNIQUE (reference_id)");
+        }
+
+        migrateLikeProduction(schema);
+
+        try (Connection connection = connect(schema)) {
+            assertEquals(1, uniqueReferenceKeys(connection));
+            assertEquals(1, count(connection, "SELECT COUNT(*) FROM information_schema.tables "
+                    + "WHERE table_schema = DATABASE() AND table_name = 'payment_callbacks'"));
+        }
+    }
+
+    /**
+     * Schema trước khi có Flyway = V1, nhưng không để lại lịch sử Flyway
+     */
+    private static String createPreFlywaySchema(String schema) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(MYSQL.getJdbcUrl(), "root", MYSQL.getPassword());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + schema);
+            statement.execute("GRANT ALL ON " + schema + ".* TO '" + MYSQL.getUsername() + "'@'%'");
+        }
+        Flyway.configure()
+                .dataSource(url(schema), MYSQL.getUsername(), MYSQL.getPassword())
+                .target("1")
+                .load()
+                .migrate();
+        try (Connection connection = connect(schema); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE flyway_schema_history");
+        }
+        return schema;
+    }
+
+    private static void migrateLikeProduction(String schema) {
+        Flyway.configure()
+                .dataSource(url(schema), MYSQL.getUsername(), MYSQL.getPassword())
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    private static int uniqueReferenceKeys(Connection connection) throws SQLException {
+        return count(connection, "SELECT COUNT(*) FROM (SELECT index_name FROM information_schema.statistics "
+                + "WHERE table_schema = DATABASE() AND table_name = 'wallet_transactions' AND non_unique = 0 "
+                + "GROUP BY index_name HAVING COUNT(*) = 1 AND MAX(column_name) = 'reference_id') k");
+    }
+
+    private static int count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static Connection connect(String schema) throws SQLException {
+        return DriverManager.getConnection(url(schema), MYSQL.getUsername(), MYSQL.getPassword());
+    }
+
+    private static String url(String schema) {
+        return MYSQL.getJdbcUrl().replace("/" + MYSQL.getDatabaseName(), "/" + schema);
+    }
+}
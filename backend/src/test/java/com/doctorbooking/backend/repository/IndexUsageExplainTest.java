@@ -0,0 +1,332 @@
+package com.doctorbooking.backend.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Chạy các migration Flyway trên MySQL thật, nạp dữ liệu cỡ vừa rồi EXPLAIN các câu SQL tương ứng
+ * truy vấn nóng của repository: mỗi câu phải dùng đúng index đã thiết kế (và không filesort khi có ORDER BY).
+ * Đổi / xóa index trong migration mà quên truy vấn dựa vào nó thì test này báo.
+ * Cần Docker; không có Docker thì cả lớp được bỏ qua.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class IndexUsageExplainTest {
+
+    private static final int DOCTORS = 50;
+    private static final int PATIENTS = 2000;
+    private static final int APPOINTMENTS = 30000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final LocalDate REMINDER_DAY = FIRST_DAY.plusDays(200);
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure()
+                .dataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword())
+                .load()
+                .migrate();
+
+        Properties properties = new Properties();
+        properties.setProperty("user", MYSQL.getUsername());
+        properties.setProperty("password", MYSQL.getPassword());
+        properties.setProperty("rewriteBatchedStatements", "true");
+        connection = DriverManager.getConnection(MYSQL.getJdbcUrl(), properties);
+        seed();
+    }
+
+    @Test
+    void reminderJobsUseDateReminderIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM appointments a WHERE a.status IN ('PENDING', 'CONFIRMED') "
+                        + "AND a.reminder_24h_sent = false AND a.appointment_date = '" + REMINDER_DAY + "'",
+                "a", "idx_appointments_date_reminder");
+        assertUsesIndex("SELECT * FROM appointments a WHERE a.status IN ('PENDING', 'CONFIRMED') "
+                        + "AND a.reminder_1h_sent = false AND a.appointment_date = '" + REMINDER_DAY + "' "
+                        + "AND a.appointment_time = '09:00:00'",
+                "a", "idx_appointments_date_reminder");
+    }
+
+    @Test
+    void doctorDayScheduleUsesSlotUniqueKey() throws SQLException {
+        assertUsesIndex("SELECT * FROM appointments a WHERE a.doctor_id = 7 AND a.appointment_date = '"
+                        + REMINDER_DAY + "'",
+                "a", "uk_appointments_doctor_slot");
+        assertUsesIndex("SELECT * FROM appointments a WHERE a.doctor_id = 7 AND a.appointment_date = '"
+                        + REMINDER_DAY + "' AND a.appointment_time = '09:00:00' AND a.status <> 'CANCELLED'",
+                "a", "uk_appointments_doctor_slot");
+    }
+
+    @Test
+    void patientHistoryIsReadInIndexOrder() throws SQLException {
+        String sql = "SELECT * FROM appointments a WHERE a.patient_id = 42 "
+                + "ORDER BY a.appointment_date DESC, a.appointment_time DESC";
+        assertUsesIndex(sql, "a", "idx_appointments_patient_date");
+        assertNoFilesort(sql);
+    }
+
+    @Test
+    void paymentReconciliationUsesPaymentIndex() throws SQLException {
+        assertUsesIndex("SELECT a.id FROM appointments a WHERE a.payment_method = 'VNPAY' "
+                        + "AND a.payment_status = 'PENDING' AND a.status = 'PENDING' "
+                        + "AND a.created_at < '" + FIRST_DAY.plusDays(300) + "' ORDER BY a.id",
+                "a", "idx_appointments_payment_created");
+        assertUsesIndex("SELECT t.id FROM wallet_transactions t WHERE t.transaction_type = 'DEPOSIT' "
+                        + "AND t.status = 'PENDING' AND t.created_at < '" + FIRST_DAY.plusDays(300) + "' ORDER BY t.id",
+                "t", "idx_wallet_transactions_type_status_created");
+        assertUsesIndex("SELECT * FROM wallet_transactions t WHERE t.reference_id = 'REF-123'",
+                "t", "uk_wallet_transactions_reference");
+    }
+
+    @Test
+    void unreadNotificationsUsePatientReadIndex() throws SQLException {
+        assertUsesIndex("SELECT COUNT(n.id) FROM notifications n WHERE n.patient_id = 42 AND n.is_read = false",
+                "n", "idx_notifications_patient_read_created");
+        String unread = "SELECT * FROM notifications n WHERE n.patient_id = 42 AND n.is_read = false "
+                + "ORDER BY n.created_at DESC";
+        assertUsesIndex(unread, "n", "idx_notifications_patient_read_created");
+        assertNoFilesort(unread);
+    }
+
+    @Test
+    void feedbackListsAreReadInIndexOrder() throws SQLException {
+        String byDoctor = "SELECT * FROM feedbacks f WHERE f.doctor_id = 7 ORDER BY f.created_at DESC";
+        assertUsesIndex(byDoctor, "f", "idx_feedbacks_doctor_created");
+        assertNoFilesort(byDoctor);
+
+        String byPatient = "SELECT * FROM feedbacks f WHERE f.patient_id = 42 ORDER BY f.created_at DESC";
+        assertUsesIndex(byPatient, "f", "idx_feedbacks_patient_created");
+        assertNoFilesort(byPatient);
+    }
+
+    @Test
+    void treatmentAndPrescriptionLookupsUseIndexes() throws SQLException {
+        assertUsesIndex("SELECT COUNT(t.id), MAX(t.updated_at) FROM treatments t WHERE t.patient_id = 42",
+                "t", "idx_treatments_patient_updated");
+        assertUsesIndex("SELECT * FROM treatments t WHERE t.patient_id = 42",
+                "t", "idx_treatments_patient_updated");
+
+        String medications = "SELECT * FROM prescription_medications pm WHERE pm.treatment_id = 100 "
+                + "ORDER BY pm.order_index ASC";
+        assertUsesIndex(medications, "pm", "idx_prescription_medications_treatment_order");
+        assertNoFilesort(medications);
+    }
+
+    @Test
+    void walletHistoryPageIsReadInIndexOrder() throws SQLException {
+        String page = "SELECT * FROM wallet_transactions t WHERE t.patient_id = 42 "
+                + "ORDER BY t.created_at DESC LIMIT 20";
+        assertUsesIndex(page, "t", "idx_wallet_transactions_patient_created");
+        assertNoFilesort(page);
+    }
+
+    @Test
+    void changeEventPurgeUsesCreatedAtIndex() throws SQLException {
+        assertUsesIndex("SELECT e.id FROM entity_change_events e WHERE e.created_at < '"
+                        + FIRST_DAY.plusDays(1) + "'",
+                "e", "idx_entity_change_events_created");
+    }
+
+    // ========== EXPLAIN helpers ==========
+
+    private static void assertUsesIndex(String sql, String table, String expectedIndex) throws SQLException {
+        Map<String, String> row = explain(sql, table);
+        assertEquals(expectedIndex, row.get("key"), () -> "EXPLAIN " + sql + " -> " + row);
+    }
+
+    private static void assertNoFilesort(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                String extra = rs.getString("Extra");
+                assertFalse(extra != null && extra.contains("filesort"), () -> "EXPLAIN " + sql + " -> " + extra);
+            }
+        }
+    }
+
+    private static Map<String, String> explain(String sql, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                if (table.equals(rs.getString("table"))) {
+                    Map<String, String> row = new HashMap<>();
+                    for (String column : List.of("type", "possible_keys", "key", "rows", "Extra")) {
+                        row.put(column, rs.getString(column));
+                    }
+                    return row;
+                }
+            }
+        }
+        return fail("No EXPLAIN row for table " + table + ": " + sql);
+    }
+
+    // ========== Seed data ==========
+
+    /**
+     * Phân bố gần với thực tế: đa số lịch hẹn đã qua (COMPLETED / PAID, đã gửi nhắc), ít PENDING
+     */
+    private static void seed() throws SQLException {
+        Random random = new Random(42);
+        Timestamp now = Timestamp.valueOf(FIRST_DAY.plusDays(365).atStartOfDay());
+
+        batch("INSERT INTO users (id, username, password, email, role, enabled, created_at, updated_at) "
+                + "VALUES (?, ?, 'x', ?, ?, b'1', ?, ?)", DOCTORS + PATIENTS, (ps, i) -> {
+            long id = i + 1;
+            ps.setLong(1, id);
+            ps.setString(2, "user" + id);
+            ps.setString(3, "user" + id + "@example.com");
+            ps.setString(4, id <= DOCTORS ? "DOCTOR" : "PATIENT");
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+        });
+        batch("INSERT INTO doctors (id, user_id, full_name, specialization, experience, status, created_at, updated_at) "
+                + "VALUES (?, ?, ?, 'Cardiology', 5, 'ACTIVE', ?, ?)", DOCTORS, (ps, i) -> {
+            ps.setLong(1, i + 1);
+            ps.setLong(2, i + 1);
+            ps.setString(3, "Doctor " + (i + 1));
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+        });
+        batch("INSERT INTO patients (id, user_id, full_name, created_at, updated_at) VALUES (?, ?, ?, ?, ?)",
+                PATIENTS, (ps, i) -> {
+                    ps.setLong(1, i + 1);
+                    ps.setLong(2, DOCTORS + i + 1);
+                    ps.setString(3, "Patient " + (i + 1));
+                    ps.setTimestamp(4, now);
+                    ps.setTimestamp(5, now);
+                });
+
+        List<Long> completed = new ArrayList<>();
+        batch("INSERT INTO appointments (id, patient_id, doctor_id, appointment_date, appointment_time, status, price, "
+                + "payment_status, payment_method, created_at, updated_at, reminder_24h_sent, reminder_1h_sent) "
+                + "VALUES (?, ?, ?, ?, ?, ?, 200000, ?, ?, ?, ?, ?, ?)", APPOINTMENTS, (ps, i) -> {
+            long id = i + 1;
+            LocalDate date = FIRST_DAY.plusDays((i / DOCTORS) % 365);
+            int slot = i / (DOCTORS * 365);
+            boolean pending = random.nextInt(100) < 3;
+            String status = pending ? "PENDING" : random.nextInt(100) < 10 ? "CANCELLED" : "COMPLETED";
+            if ("COMPLETED".equals(status)) {
+                completed.add(id);
+            }
+            Timestamp createdAt = Timestamp.valueOf(date.minusDays(3).atTime(10, 0));
+            ps.setLong(1, id);
+            ps.setLong(2, random.nextInt(PATIENTS) + 1);
+            ps.setLong(3, (i % DOCTORS) + 1);
+            ps.setObject(4, date);
+            ps.setString(5, String.format("%02d:00:00", 8 + slot));
+            ps.setString(6, status);
+            ps.setString(7, pending ? "PENDING" : "PAID");
+            ps.setString(8, random.nextBoolean() ? "VNPAY" : "CASH");
+            ps.setTimestamp(9, createdAt);
+            ps.setTimestamp(10, createdAt);
+            ps.setBoolean(11, !pending);
+            ps.setBoolean(12, !pending);
+        });
+
+        batch("INSERT INTO notifications (patient_id, title, message, type, is_read, created_at, updated_at) "
+                + "VALUES (?, 'Nhắc hẹn', 'Bạn có lịch hẹn', 'APPOINTMENT_REMINDER_24H', ?, ?, ?)", APPOINTMENTS, (ps, i) -> {
+            Timestamp createdAt = Timestamp.valueOf(FIRST_DAY.atStartOfDay().plusMinutes(i * 17L));
+            ps.setLong(1, random.nextInt(PATIENTS) + 1);
+            ps.setBoolean(2, random.nextInt(100) < 90);
+            ps.setTimestamp(3, createdAt);
+            ps.setTimestamp(4, createdAt);
+        });
+
+        int feedbackCount = completed.size() / 3;
+        batch("INSERT INTO feedbacks (patient_id, doctor_id, appointment_id, rating, status, is_hidden, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, 'PENDING', b'0', ?, ?)", feedbackCount, (ps, i) -> {
+            Timestamp createdAt = Timestamp.valueOf(FIRST_DAY.atStartOfDay().plusMinutes(i * 53L));
+            ps.setLong(1, random.nextInt(PATIENTS) + 1);
+            ps.setLong(2, random.nextInt(DOCTORS) + 1);
+            ps.setLong(3, completed.get(i * 3));
+            ps.setInt(4, 1 + random.nextInt(5));
+            ps.setTimestamp(5, createdAt);
+            ps.setTimestamp(6, createdAt);
+        });
+
+        int treatmentCount = completed.size() / 2;
+        batch("INSERT INTO treatments (id, appointment_id, doctor_id, patient_id, diagnosis, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, 'Theo dõi', ?, ?)", treatmentCount, (ps, i) -> {
+            Timestamp createdAt = Timestamp.valueOf(FIRST_DAY.atStartOfDay().plusMinutes(i * 31L));
+            ps.setLong(1, i + 1);
+            ps.setLong(2, completed.get(i * 2));
+            ps.setLong(3, random.nextInt(DOCTORS) + 1);
+            ps.setLong(4, random.nextInt(PATIENTS) + 1);
+            ps.setTimestamp(5, createdAt);
+            ps.setTimestamp(6, createdAt);
+        });
+        batch("INSERT INTO prescription_medications (treatment_id, medication_name, dosage, frequency, order_index) "
+                + "VALUES (?, 'Paracetamol', '500mg', '2 lần/ngày', ?)", treatmentCount * 3, (ps, i) -> {
+            ps.setLong(1, i / 3 + 1);
+            ps.setInt(2, i % 3);
+        });
+
+        batch("INSERT INTO wallet_transactions (patient_id, transaction_type, amount, status, reference_id, created_at, updated_at) "
+                + "VALUES (?, ?, 100000, ?, ?, ?, ?)", APPOINTMENTS, (ps, i) -> {
+            boolean deposit = i % 2 == 0;
+            Timestamp createdAt = Timestamp.valueOf(FIRST_DAY.atStartOfDay().plusMinutes(i * 17L));
+            ps.setLong(1, random.nextInt(PATIENTS) + 1);
+            ps.setString(2, deposit ? "DEPOSIT" : "PAYMENT");
+            ps.setString(3, random.nextInt(100) < 2 ? "PENDING" : "COMPLETED");
+            ps.setString(4, deposit ? "REF-" + i : null);
+            ps.setTimestamp(5, createdAt);
+            ps.setTimestamp(6, createdAt);
+        });
+
+        batch("INSERT INTO entity_change_events (entity_type, entity_id, origin_node, created_at) "
+                + "VALUES ('DOCTOR', ?, 'node-a', ?)", 5000, (ps, i) -> {
+            ps.setLong(1, random.nextInt(DOCTORS) + 1);
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.of(FIRST_DAY.plusDays(364), LocalTime.MIN)
+                    .plusSeconds(i)));
+        });
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE users, doctors, patients, appointments, notifications, feedbacks, "
+                    + "treatments, prescription_medications, wallet_transactions, entity_change_events");
+        }
+    }
+
+    private interface RowBinder {
+        void bind(PreparedStatement ps, int index) throws SQLException;
+    }
+
+    private static void batch(String sql, int rows, RowBinder binder) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < rows; i++) {
+                binder.bind(ps, i);
+                ps.addBatch();
+                if ((i + 1) % 1000 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+}
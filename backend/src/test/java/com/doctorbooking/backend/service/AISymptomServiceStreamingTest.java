@@ -0,0 +1,152 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.dto.response.SymptomCheckResponse;
+import com.doctorbooking.backend.repository.DoctorRepository;
+import com.doctorbooking.backend.util.IncrementalSymptomJsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Streaming symptom-checker chạy với stub server OpenAI-compatible (không gọi Groq thật)
+ */
+class AISymptomServiceStreamingTest {
+
+    // Input có triệu chứng thuộc nhiều khoa -> triage cục bộ chuyển cho LLM
+    private static final String USER_INPUT = "Tôi bị đau đầu và đau ngực từ hôm qua";
+
+    private static final List<String> AI_CHUNKS = List.of(
+            "```json\n{\"suggestedSpecialization\": \"Card",
+            "iology\", \"riskLevel\": \"High\", \"advice\": \"Bạn nên ",
+            "đi khám tim mạch \\\"sớm\\\"",
+            " ngay.\", \"reason\": \"Đau ngực\", \"homeRemedies\": [\"Nghỉ ",
+            "ngơi\", \"Uống nước\"]}\n```"
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+
+    private HttpServer stubServer;
+    private int stubStatus;
+    private AISymptomService aiSymptomService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stubStatus = 200;
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.createContext("/openai/v1/chat/completions", this::handleChatCompletion);
+        stubServer.start();
+
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findDistinctSpecializations())
+                .thenReturn(List.of("Cardiology", "Neurology", "Internal Medicine"));
+
+        aiSymptomService = new AISymptomService(new SymptomResponseCache(100, 60), new SymptomTriageEngine(),
+                HttpClient.newHttpClient(), new SymptomPromptBuilder(
+                new DoctorCatalogCache(doctorRepository, new SimpleMeterRegistry(), 100, 60)),
+                new GroqCircuitBreaker(20, 10, 50, 10_000, 80, 30_000, 3), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(aiSymptomService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(aiSymptomService, "groqBaseUrl",
+                "http://127.0.0.1:" + stubServer.getAddress().getPort() + "/openai/v1/");
+        ReflectionTestUtils.setField(aiSymptomService, "maxConcurrentCalls", 2);
+        ReflectionTestUtils.setField(aiSymptomService, "retryBaseDelayMs", 10L);
+        aiSymptomService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.stop(0);
+    }
+
+    @Test
+    void streamsAdviceAndHomeRemediesBeforeFinalResult() throws Exception {
+        RecordingListener listener = new RecordingListener();
+
+        SymptomCheckResponse response = aiSymptomService.analyzeSymptomsStreaming(USER_INPUT, listener)
+                .get(10, TimeUnit.SECONDS);
+
+        assertTrue(requestBodies.get(0).contains("\"stream\":true"));
+        assertTrue(requestBodies.get(0).contains("{\"role\":\"user\",\"content\":\"" + USER_INPUT + "\"}"));
+        assertTrue(listener.adviceDeltas.size() > 1, "advice phải được gửi thành nhiều đoạn");
+        assertEquals("Bạn nên đi khám tim mạch \"sớm\" ngay.", String.join("", listener.adviceDeltas));
+        assertEquals(List.of("Nghỉ ngơi", "Uống nước"), listener.homeRemedies);
+
+        assertEquals("Cardiology", response.getSuggestedSpecialization());
+        assertEquals("High", response.getRiskLevel());
+        assertEquals("Bạn nên đi khám tim mạch \"sớm\" ngay.", response.getAdvice());
+        assertEquals(List.of("Nghỉ ngơi", "Uống nước"), response.getHomeRemedies());
+    }
+
+    @Test
+    void upstreamErrorCompletesWithFallback() throws Exception {
+        stubStatus = 500;
+        RecordingListener listener = new RecordingListener();
+
+        SymptomCheckResponse response = aiSymptomService.analyzeSymptomsStreaming(USER_INPUT, listener)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals("Other", response.getSuggestedSpecialization());
+        assertTrue(listener.adviceDeltas.isEmpty());
+        assertTrue(listener.homeRemedies.isEmpty());
+    }
+
+    private void handleChatCompletion(HttpExchange exchange) throws IOException {
+        requestBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+
+        if (stubStatus != 200) {
+            byte[] error = "{\"error\":{\"message\":\"stub failure\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(stubStatus, error.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(error);
+            }
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String chunk : AI_CHUNKS) {
+                Map<String, Object> event = Map.of("choices", List.of(Map.of("delta", Map.of("content", chunk))));
+                out.write(("data: " + objectMapper.writeValueAsString(event) + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static class RecordingListener implements IncrementalSymptomJsonParser.Listener {
+
+        private final List<String> adviceDeltas = new CopyOnWriteArrayList<>();
+        private final List<String> homeRemedies = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onAdviceDelta(String delta) {
+            adviceDeltas.add(delta);
+        }
+
+        @Override
+        public void onHomeRemedy(String remedy) {
+            homeRemedies.add(remedy);
+        }
+    }
+}
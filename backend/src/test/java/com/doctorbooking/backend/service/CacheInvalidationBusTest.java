@@ -0,0 +1,131 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.Doctor;
+import com.doctorbooking.backend.model.EntityChangeEvent;
+import com.doctorbooking.backend.model.User;
+import com.doctorbooking.backend.repository.DoctorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hai "node" = hai application context độc lập (mỗi context có DoctorCatalogCache + CacheInvalidationBus riêng),
+ * dùng chung một DB (repository mock) và một transport trong JVM.
+ */
+class CacheInvalidationBusTest {
+
+    private DoctorRepository doctorRepository;
+    private AnnotationConfigApplicationContext nodeA;
+    private AnnotationConfigApplicationContext nodeB;
+
+    @BeforeEach
+    void setUp() {
+        doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor("Cardiology")));
+        when(doctorRepository.findDistinctSpecializations()).thenReturn(List.of("Cardiology"));
+
+        CacheInvalidationTransport transport = new InProcessCacheInvalidationTransport();
+        nodeA = startNode("node-a", transport);
+        nodeB = startNode("node-b", transport);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void doctorUpdateOnOneNodeInvalidatesTheOtherNode() {
+        warmUp(nodeA);
+        warmUp(nodeB);
+
+        // Node A sửa bác sĩ trong DB rồi publish
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor("Neurology")));
+        when(doctorRepository.findDistinctSpecializations()).thenReturn(List.of("Neurology"));
+        nodeA.getBean(CacheInvalidationBus.class).publish(EntityChangeEvent.EntityType.DOCTOR, 1L);
+
+        for (AnnotationConfigApplicationContext node : List.of(nodeA, nodeB)) {
+            DoctorCatalogCache cache = node.getBean(DoctorCatalogCache.class);
+            assertEquals("Neurology", cache.getDoctorById(1L).getSpecialization());
+            assertEquals(List.of("Neurology"), cache.getSpecializations());
+        }
+    }
+
+    @Test
+    void eventsAreDispatchedOnlyAfterCommit() {
+        warmUp(nodeA);
+        warmUp(nodeB);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor("Neurology")));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            nodeA.getBean(CacheInvalidationBus.class).publish(EntityChangeEvent.EntityType.DOCTOR, 1L);
+            assertEquals("Cardiology", nodeA.getBean(DoctorCatalogCache.class).getDoctorById(1L).getSpecialization());
+            assertEquals("Cardiology", nodeB.getBean(DoctorCatalogCache.class).getDoctorById(1L).getSpecialization());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("Neurology", nodeA.getBean(DoctorCatalogCache.class).getDoctorById(1L).getSpecialization());
+        assertEquals("Neurology", nodeB.getBean(DoctorCatalogCache.class).getDoctorById(1L).getSpecialization());
+    }
+
+    @Test
+    void userChangeInvalidatesWholeDoctorCatalog() {
+        warmUp(nodeB);
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor("Dermatology")));
+
+        nodeA.getBean(CacheInvalidationBus.class).publish(EntityChangeEvent.EntityType.USER, 101L);
+
+        assertEquals("Dermatology", nodeB.getBean(DoctorCatalogCache.class).getDoctorById(1L).getSpecialization());
+    }
+
+    private AnnotationConfigApplicationContext startNode(String nodeId, CacheInvalidationTransport transport) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(
+                new MapPropertySource("node", Map.of("app.cache.invalidation.node-id", nodeId)));
+        context.registerBean(DoctorRepository.class, () -> doctorRepository);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(CacheInvalidationTransport.class, () -> transport);
+        context.register(DoctorCatalogCache.class, CacheInvalidationBus.class);
+        context.refresh();
+        return context;
+    }
+
+    private static void warmUp(AnnotationConfigApplicationContext node) {
+        DoctorCatalogCache cache = node.getBean(DoctorCatalogCache.class);
+        assertEquals("Cardiology", cache.getDoctorById(1L).getSpecialization());
+        assertEquals(List.of("Cardiology"), cache.getSpecializations());
+    }
+
+    private static Doctor doctor(String specialization) {
+        User user = new User();
+        user.setId(101L);
+        user.setUsername("doctor1");
+        user.setEmail("doctor1@example.com");
+
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setUser(user);
+        doctor.setFullName("BS. Một");
+        doctor.setSpecialization(specialization);
+        return doctor;
+    }
+}
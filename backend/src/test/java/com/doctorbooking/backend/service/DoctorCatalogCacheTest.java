@@ -0,0 +1,107 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.dto.response.DoctorResponse;
+import com.doctorbooking.backend.model.Doctor;
+import com.doctorbooking.backend.model.User;
+import com.doctorbooking.backend.repository.DoctorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache danh mục bác sĩ: hit/miss, invalidate khi sửa bác sĩ, không cache "không tìm thấy"
+ */
+class DoctorCatalogCacheTest {
+
+    private DoctorRepository doctorRepository;
+    private DoctorCatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        doctorRepository = mock(DoctorRepository.class);
+        cache = new DoctorCatalogCache(doctorRepository, new SimpleMeterRegistry(), 2, 60);
+    }
+
+    @Test
+    void readsHitDatabaseOnceUntilInvalidated() {
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor(1L, "Cardiology")));
+        when(doctorRepository.findByStatus(Doctor.DoctorStatus.ACTIVE)).thenReturn(List.of(doctor(1L, "Cardiology")));
+        when(doctorRepository.findDistinctSpecializations()).thenReturn(List.of("Cardiology"));
+
+        for (int i = 0; i < 3; i++) {
+            cache.getDoctorById(1L);
+            cache.getActiveDoctors();
+            cache.getSpecializations();
+        }
+        verify(doctorRepository, times(1)).findById(1L);
+        verify(doctorRepository, times(1)).findByStatus(Doctor.DoctorStatus.ACTIVE);
+        verify(doctorRepository, times(1)).findDistinctSpecializations();
+
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor(1L, "Neurology")));
+        cache.invalidateDoctor(1L);
+
+        assertEquals("Neurology", cache.getDoctorById(1L).getSpecialization());
+        cache.getActiveDoctors();
+        cache.getSpecializations();
+        verify(doctorRepository, times(2)).findById(1L);
+        verify(doctorRepository, times(2)).findByStatus(Doctor.DoctorStatus.ACTIVE);
+        verify(doctorRepository, times(2)).findDistinctSpecializations();
+    }
+
+    @Test
+    void callersGetCopiesAndMissingDoctorsAreNotCached() {
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor(1L, "Cardiology")));
+        when(doctorRepository.findById(99L)).thenReturn(Optional.empty());
+
+        DoctorResponse first = cache.getDoctorById(1L);
+        first.setSpecialization("changed by caller");
+        assertEquals("Cardiology", cache.getDoctorById(1L).getSpecialization());
+
+        assertThrows(RuntimeException.class, () -> cache.getDoctorById(99L));
+        assertThrows(RuntimeException.class, () -> cache.getDoctorById(99L));
+        verify(doctorRepository, times(2)).findById(99L);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> byId = (Map<String, Object>) cache.getStats().get("doctorsById");
+        assertEquals(1L, byId.get("hits"));
+        assertEquals(3L, byId.get("misses"));
+    }
+
+    @Test
+    void sizeBoundEvictsLeastRecentlyUsed() {
+        for (long id = 1; id <= 3; id++) {
+            when(doctorRepository.findById(id)).thenReturn(Optional.of(doctor(id, "Cardiology")));
+            cache.getDoctorById(id);
+        }
+        cache.getDoctorById(3L);
+        cache.getDoctorById(1L);
+
+        verify(doctorRepository, times(2)).findById(1L);
+        verify(doctorRepository, times(1)).findById(3L);
+    }
+
+    private static Doctor doctor(Long id, String specialization) {
+        User user = new User();
+        user.setId(100 + id);
+        user.setUsername("doctor" + id);
+        user.setEmail("doctor" + id + "@example.com");
+
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setUser(user);
+        doctor.setFullName("BS. " + id);
+        doctor.setSpecialization(specialization);
+        return doctor;
+    }
+}
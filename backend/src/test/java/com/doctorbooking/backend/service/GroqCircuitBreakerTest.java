@@ -0,0 +1,159 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.dto.response.SymptomCheckResponse;
+import com.doctorbooking.backend.repository.DoctorRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Circuit breaker của Groq chạy với fake server có thể bơm lỗi và độ trễ
+ */
+class GroqCircuitBreakerTest {
+
+    private static final long SLOW_CALL_THRESHOLD_MS = 150;
+    private static final long OPEN_DURATION_MS = 300;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private volatile int fakeStatus;
+    private volatile long fakeDelayMs;
+    private HttpServer fakeGroq;
+    private GroqCircuitBreaker circuitBreaker;
+    private AISymptomService aiSymptomService;
+    private int inputCounter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fakeStatus = 200;
+        fakeDelayMs = 0;
+        fakeGroq = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        fakeGroq.createContext("/openai/v1/chat/completions", this::handleChatCompletion);
+        fakeGroq.start();
+
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findDistinctSpecializations())
+                .thenReturn(List.of("Cardiology", "Neurology", "Internal Medicine"));
+
+        // Cửa sổ 10 lời gọi, mở mạch khi >= 4 lời gọi có >= 50% lỗi hoặc chậm, 1 lời gọi thử khi half-open
+        circuitBreaker = new GroqCircuitBreaker(10, 4, 50, SLOW_CALL_THRESHOLD_MS, 50, OPEN_DURATION_MS, 1);
+        aiSymptomService = new AISymptomService(new SymptomResponseCache(100, 60), new SymptomTriageEngine(),
+                HttpClient.newHttpClient(), new SymptomPromptBuilder(
+                new DoctorCatalogCache(doctorRepository, new SimpleMeterRegistry(), 100, 60)), circuitBreaker,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(aiSymptomService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(aiSymptomService, "groqBaseUrl",
+                "http://127.0.0.1:" + fakeGroq.getAddress().getPort() + "/openai/v1");
+        ReflectionTestUtils.setField(aiSymptomService, "maxConcurrentCalls", 4);
+        ReflectionTestUtils.setField(aiSymptomService, "retryBaseDelayMs", 1L);
+        aiSymptomService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fakeGroq.stop(0);
+    }
+
+    @Test
+    void serverErrorsOpenCircuitAndShortCircuitToFallback() throws Exception {
+        fakeStatus = 500;
+
+        // Mỗi lần phân tích = 2 lần thử -> 4 lỗi liên tiếp
+        analyze();
+        analyze();
+        assertEquals(GroqCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(4, requestCount.get());
+
+        SymptomCheckResponse response = analyze();
+        assertEquals("Other", response.getSuggestedSpecialization());
+        assertEquals(4, requestCount.get(), "mạch mở: không được gọi Groq");
+    }
+
+    @Test
+    void halfOpenProbeClosesCircuitAfterRecovery() throws Exception {
+        fakeStatus = 500;
+        analyze();
+        analyze();
+        assertEquals(GroqCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        fakeStatus = 200;
+        Thread.sleep(OPEN_DURATION_MS + 50);
+
+        SymptomCheckResponse response = analyze();
+        assertEquals("Cardiology", response.getSuggestedSpecialization());
+        assertEquals(GroqCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(5, requestCount.get());
+    }
+
+    @Test
+    void slowResponsesOpenCircuit() throws Exception {
+        fakeDelayMs = SLOW_CALL_THRESHOLD_MS + 100;
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Cardiology", analyze().getSuggestedSpecialization());
+        }
+        assertEquals(GroqCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        analyze();
+        assertEquals(4, requestCount.get(), "mạch mở do chậm: không được gọi Groq");
+    }
+
+    // Mỗi lần một input khác nhau (nhiều khoa -> không trả lời cục bộ, không trúng cache)
+    private SymptomCheckResponse analyze() throws Exception {
+        String input = "Tôi bị đau đầu và đau ngực lần " + (++inputCounter);
+        return aiSymptomService.analyzeSymptomsAsync(input).get(10, TimeUnit.SECONDS);
+    }
+
+    private void handleChatCompletion(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        if (fakeDelayMs > 0) {
+            try {
+                Thread.sleep(fakeDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String body;
+        if (fakeStatus == 200) {
+            String content = objectMapper.writeValueAsString(Map.of(
+                    "suggestedSpecialization", "Cardiology",
+                    "riskLevel", "High",
+                    "advice", "Bạn nên đi khám tim mạch sớm.",
+                    "reason", "Đau ngực",
+                    "homeRemedies", List.of("Nghỉ ngơi")));
+            body = objectMapper.writeValueAsString(
+                    Map.of("choices", List.of(Map.of("message", Map.of("content", content)))));
+        } else {
+            body = "{\"error\":{\"message\":\"injected failure\"}}";
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(fakeStatus, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
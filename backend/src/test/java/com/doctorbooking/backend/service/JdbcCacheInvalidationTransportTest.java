@@ -0,0 +1,101 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.EntityChangeEvent;
+import com.doctorbooking.backend.repository.EntityChangeEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Transport jdbc trên DB thật (H2 nhúng, JPA + JpaTransactionManager như production):
+ * sự kiện publish trong một transaction nghiệp vụ phải được commit và node khác poll được.
+ */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JdbcCacheInvalidationTransportTest {
+
+    @Autowired
+    private EntityChangeEventRepository entityChangeEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CacheInvalidationBus nodeA;
+    private List<EntityChangeEvent> receivedByNodeB;
+    private JdbcCacheInvalidationTransport transportB;
+
+    @BeforeEach
+    void setUp() {
+        entityChangeEventRepository.deleteAll();
+        nodeA = startNode("node-a", new CopyOnWriteArrayList<>(),
+                new JdbcCacheInvalidationTransport(entityChangeEventRepository, transactionManager, 60));
+        receivedByNodeB = new CopyOnWriteArrayList<>();
+        transportB = new JdbcCacheInvalidationTransport(entityChangeEventRepository, transactionManager, 60);
+        startNode("node-b", receivedByNodeB, transportB);
+    }
+
+    @Test
+    void eventPublishedInsideTransactionReachesOtherNode() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                nodeA.publish(EntityChangeEvent.EntityType.DOCTOR, 7L));
+
+        transportB.poll();
+
+        assertEquals(1, receivedByNodeB.size());
+        assertEquals(7L, receivedByNodeB.get(0).getEntityId());
+        assertEquals("node-a", receivedByNodeB.get(0).getOriginNode());
+    }
+
+    @Test
+    void eventPublishedOutsideTransactionReachesOtherNode() {
+        nodeA.publish(EntityChangeEvent.EntityType.DOCTOR, null);
+
+        transportB.poll();
+
+        assertEquals(1, receivedByNodeB.size());
+    }
+
+    @Test
+    void rolledBackTransactionPublishesNothing() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            nodeA.publish(EntityChangeEvent.EntityType.DOCTOR, 7L);
+            status.setRollbackOnly();
+        });
+
+        transportB.poll();
+
+        assertEquals(0, receivedByNodeB.size());
+        assertEquals(0, entityChangeEventRepository.count());
+    }
+
+    private static CacheInvalidationBus startNode(String nodeId, List<EntityChangeEvent> received,
+                                                  CacheInvalidationTransport transport) {
+        CacheInvalidationListener listener = new CacheInvalidationListener() {
+            @Override
+            public Set<EntityChangeEvent.EntityType> getEntityTypes() {
+                return Set.of(EntityChangeEvent.EntityType.DOCTOR);
+            }
+
+            @Override
+            public void onEntityChanged(EntityChangeEvent event) {
+                received.add(event);
+            }
+        };
+        CacheInvalidationBus bus = new CacheInvalidationBus(transport, List.of(listener),
+                new SimpleMeterRegistry(), nodeId);
+        bus.init();
+        return bus;
+    }
+}
@@ -0,0 +1,53 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.model.EntityChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replay một refresh token thu hồi cả family; sự kiện USER thu hồi mọi family đang có của user
+ */
+class RefreshTokenReplayCacheTest {
+
+    private static final long DAY = 86_400_000L;
+
+    private final RefreshTokenReplayCache cache = new RefreshTokenReplayCache(7 * DAY);
+
+    @Test
+    void replayRevokesWholeFamily() {
+        long start = System.currentTimeMillis();
+        assertTrue(cache.tryConsume("jti-1", "family-a", 1L, start, start + DAY));
+        assertFalse(cache.tryConsume("jti-1", "family-a", 1L, start, start + DAY));
+        // Token kế tiếp của family (cấp từ jti-1 trước khi bị đánh cắp) cũng không dùng được
+        assertFalse(cache.tryConsume("jti-2", "family-a", 1L, start, start + DAY));
+
+        assertTrue(cache.tryConsume("jti-3", "family-b", 1L, start, start + DAY));
+        assertEquals(1L, cache.getStats().get("replaysDetected"));
+    }
+
+    @Test
+    void userChangeRevokesFamiliesStartedBeforeIt() throws InterruptedException {
+        long loggedInEarlier = System.currentTimeMillis() - 1000;
+        cache.onEntityChanged(new EntityChangeEvent(EntityChangeEvent.EntityType.USER, 1L, "node-a"));
+        Thread.sleep(2);
+        long loggedInAfter = System.currentTimeMillis();
+
+        assertFalse(cache.tryConsume("jti-1", "family-old", 1L, loggedInEarlier, loggedInEarlier + DAY));
+        assertTrue(cache.tryConsume("jti-2", "family-new", 1L, loggedInAfter, loggedInAfter + DAY));
+        // User khác không bị ảnh hưởng
+        assertTrue(cache.tryConsume("jti-3", "family-other", 2L, loggedInEarlier, loggedInEarlier + DAY));
+    }
+
+    @Test
+    void purgeKeepsRevocationsThatCanStillMatchALiveFamily() {
+        long now = System.currentTimeMillis();
+        cache.revokeUser(1L);
+        cache.purgeExpired();
+
+        assertFalse(cache.tryConsume("jti-1", "family-a", 1L, now - DAY, now + DAY));
+        assertEquals(1, cache.getStats().get("revokedUsers"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.dto.response.SymptomCheckResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Trả lời cục bộ chỉ khi chắc chắn; từ lạ, dấu hiệu nặng, từ bỏ dấu trùng nhau hoặc khoa không có trong hệ thống -> chuyển LLM
+ */
+class SymptomTriageEngineTest {
+
+    private static final List<String> SPECIALIZATIONS = List.of("Cardiology", "Neurology", "Dermatology",
+            "Orthopedics", "Gastroenterology", "Ophthalmology", "ENT", "Psychiatry");
+
+    private final SymptomTriageEngine engine = new SymptomTriageEngine();
+
+    @Test
+    void answersClearSymptomsWithAndWithoutDiacritics() {
+        assertEquals("Gastroenterology", specialization("Tôi bị đau bụng và buồn nôn"));
+        assertEquals("Gastroenterology", specialization("toi bi dau bung"));
+        assertEquals("ENT", specialization("mình bị ho khan mấy hôm nay"));
+        assertEquals("ENT", specialization("bi ho khan"));
+        assertEquals("Cardiology", specialization("chest pain"));
+    }
+
+    @Test
+    void wordsThatOnlyCollideWithoutDiacriticsAreNotSymptoms() {
+        assertTrue(engine.triage("bác sĩ ơi", SPECIALIZATIONS).isEmpty());
+        assertTrue(engine.triage("trẻ non tháng", SPECIALIZATIONS).isEmpty());
+        assertTrue(engine.triage("giúp hộ tôi", SPECIALIZATIONS).isEmpty());
+        assertTrue(engine.triage("họ", SPECIALIZATIONS).isEmpty());
+        // Một từ không dấu có thể là nhiều từ khác nhau -> để LLM hiểu
+        assertTrue(engine.triage("toi bi non", SPECIALIZATIONS).isEmpty());
+    }
+
+    @Test
+    void redFlagsAndUnknownWordsGoToLlm() {
+        assertTrue(engine.triage("nôn ra máu", SPECIALIZATIONS).isEmpty());
+        assertTrue(engine.triage("đau bụng dữ dội, sốt cao", SPECIALIZATIONS).isEmpty());
+        assertTrue(engine.triage("dau bung du doi", SPECIALIZATIONS).isEmpty());
+        assertTrue(engine.triage("tôi bị khó thở", SPECIALIZATIONS).isEmpty());
+        assertTrue(engine.triage("đau đầu rồi ngất", SPECIALIZATIONS).isEmpty());
+        assertTrue(engine.triage("severe headache", SPECIALIZATIONS).isEmpty());
+        // Từ không thuộc keyword nào ("sốt", "từ tuần trước") không được bỏ qua
+        assertTrue(engine.triage("đau bụng và sốt", SPECIALIZATIONS).isEmpty());
+        assertTrue(engine.triage("đau đầu từ tuần trước", SPECIALIZATIONS).isEmpty());
+    }
+
+    @Test
+    void coldIsNotThanks() {
+        assertTrue(engine.triage("cảm", SPECIALIZATIONS).isEmpty());
+        assertEquals("Other", specialization("cảm ơn bác sĩ nhé"));
+        assertEquals("Other", specialization("cam on ban"));
+        assertEquals("Other", specialization("Chào bác sĩ ạ"));
+    }
+
+    @Test
+    void specialtyMustMatchExactly() {
+        // Không có khoa ENT: "ENT" không được khớp chuỗi con trong "Gastroenterology" / "Dentistry"
+        List<String> noEnt = List.of("Gastroenterology", "Dentistry", "Cardiology");
+        assertTrue(engine.triage("đau họng", noEnt).isEmpty());
+
+        assertEquals("Tai mũi họng", engine.triage("đau họng", List.of("Cardiology", "Tai mũi họng"))
+                .map(SymptomCheckResponse::getSuggestedSpecialization).orElse(null));
+        assertEquals("Gynecology", engine.triage("trễ kinh", List.of("Gynecology"))
+                .map(SymptomCheckResponse::getSuggestedSpecialization).orElse(null));
+    }
+
+    private String specialization(String input) {
+        Optional<SymptomCheckResponse> response = engine.triage(input, SPECIALIZATIONS);
+        assertTrue(response.isPresent(), () -> "expected a local answer for: " + input);
+        return response.get().getSuggestedSpecialization();
+    }
+}
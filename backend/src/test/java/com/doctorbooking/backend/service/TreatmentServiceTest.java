@@ -0,0 +1,135 @@
+package com.doctorbooking.backend.service;
+
+import com.doctorbooking.backend.dto.request.TreatmentMedicationRequest;
+import com.doctorbooking.backend.dto.request.UpdateTreatmentRequest;
+import com.doctorbooking.backend.dto.response.TreatmentResponse;
+import com.doctorbooking.backend.model.Doctor;
+import com.doctorbooking.backend.model.Medication;
+import com.doctorbooking.backend.model.Patient;
+import com.doctorbooking.backend.model.PrescriptionMedication;
+import com.doctorbooking.backend.model.Treatment;
+import com.doctorbooking.backend.repository.AppointmentRepository;
+import com.doctorbooking.backend.repository.DoctorRepository;
+import com.doctorbooking.backend.repository.MedicationRepository;
+import com.doctorbooking.backend.repository.PatientRepository;
+import com.doctorbooking.backend.repository.PrescriptionMedicationRepository;
+import com.doctorbooking.backend.repository.TreatmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ghi đơn thuốc: một findAllById cho cả đơn, một batch insert, một câu DELETE khi sửa
+ */
+class TreatmentServiceTest {
+
+    private TreatmentRepository treatmentRepository;
+    private MedicationRepository medicationRepository;
+    private PrescriptionMedicationRepository prescriptionMedicationRepository;
+    private TreatmentService treatmentService;
+
+    @BeforeEach
+    void setUp() {
+        treatmentRepository = mock(TreatmentRepository.class);
+        medicationRepository = mock(MedicationRepository.class);
+        prescriptionMedicationRepository = mock(PrescriptionMedicationRepository.class);
+        treatmentService = new TreatmentService(treatmentRepository, mock(DoctorRepository.class),
+                mock(PatientRepository.class), mock(AppointmentRepository.class), medicationRepository,
+                prescriptionMedicationRepository, mock(EmailService.class));
+    }
+
+    @Test
+    void updateResolvesMedicationsOnceAndInsertsLinesInOneBatch() {
+        Treatment treatment = treatment(5L);
+        when(treatmentRepository.findById(5L)).thenReturn(Optional.of(treatment));
+        when(treatmentRepository.save(treatment)).thenReturn(treatment);
+        when(medicationRepository.findAllById(Set.of(1L, 2L)))
+                .thenReturn(List.of(medication(1L), medication(2L)));
+
+        UpdateTreatmentRequest request = new UpdateTreatmentRequest();
+        request.setMedications(List.of(line(1L, "Paracetamol"), line(2L, "Amoxicillin"),
+                line(1L, "Paracetamol"), line(null, "Vitamin C")));
+
+        TreatmentResponse response = treatmentService.updateTreatment(5L, request);
+
+        verify(prescriptionMedicationRepository, times(1)).deleteByTreatmentId(5L);
+        verify(medicationRepository, times(1)).findAllById(Set.of(1L, 2L));
+        verify(medicationRepository, times(0)).findById(1L);
+        verify(medicationRepository, times(0)).findById(2L);
+
+        List<PrescriptionMedication> expected = List.of(
+                expectedLine(treatment, medication(1L), "Paracetamol", 0),
+                expectedLine(treatment, medication(2L), "Amoxicillin", 1),
+                expectedLine(treatment, medication(1L), "Paracetamol", 2),
+                expectedLine(treatment, null, "Vitamin C", 3));
+        verify(prescriptionMedicationRepository, times(1)).insertAll(expected);
+
+        assertEquals(4, response.getMedications().size());
+        assertEquals("Amoxicillin", response.getMedications().get(1).getMedicationName());
+        assertNull(response.getMedications().get(3).getMedicationId());
+        // Các dòng ghi bằng JDBC không được gắn vào collection (cascade sẽ persist lại lần nữa)
+        assertEquals(0, treatment.getMedications().size());
+    }
+
+    @Test
+    void replacingOnlyMedicationsBumpsTreatmentVersion() {
+        Treatment treatment = treatment(5L);
+        LocalDateTime lastUpdate = LocalDateTime.now().minusDays(1);
+        treatment.setUpdatedAt(lastUpdate);
+        when(treatmentRepository.findById(5L)).thenReturn(Optional.of(treatment));
+        when(treatmentRepository.save(treatment)).thenReturn(treatment);
+
+        UpdateTreatmentRequest request = new UpdateTreatmentRequest();
+        request.setMedications(List.of(line(null, "Vitamin C")));
+        treatmentService.updateTreatment(5L, request);
+
+        // ETag của GET /api/patient/treatments = COUNT + MAX(updated_at)
+        assertTrue(treatment.getUpdatedAt().isAfter(lastUpdate));
+    }
+
+    private static Treatment treatment(Long id) {
+        Treatment treatment = new Treatment();
+        treatment.setId(id);
+        treatment.setDoctor(new Doctor());
+        treatment.setPatient(new Patient()); // không có user -> không gửi email
+        return treatment;
+    }
+
+    private static Medication medication(Long id) {
+        Medication medication = new Medication();
+        medication.setId(id);
+        return medication;
+    }
+
+    private static TreatmentMedicationRequest line(Long medicationId, String name) {
+        TreatmentMedicationRequest req = new TreatmentMedicationRequest();
+        req.setMedicationId(medicationId);
+        req.setMedicationName(name);
+        return req;
+    }
+
+    private static PrescriptionMedication expectedLine(Treatment treatment, Medication medication, String name,
+                                                       int orderIndex) {
+        PrescriptionMedication pm = new PrescriptionMedication();
+        pm.setTreatment(treatment);
+        pm.setMedication(medication);
+        pm.setMedicationName(name);
+        pm.setDosage("");
+        pm.setFrequency("");
+        pm.setDuration("");
+        pm.setOrderIndex(orderIndex);
+        return pm;
+    }
+}
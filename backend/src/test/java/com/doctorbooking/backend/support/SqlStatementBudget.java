@@ -0,0 +1,27 @@
+package com.doctorbooking.backend.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ngân sách câu SQL cho một test (hoặc mọi test trong class). Test fail nếu số câu SQL Hibernate phát ra
+ * trên thread của test vượt max, hoặc có shape SQL lặp lại >= nPlusOneThreshold lần (N+1).
+ * Dùng với @SpringBootTest + MockMvc để khóa số query của từng endpoint: số câu của mọi request
+ * trong test (scope của SqlStatementBudgetFilter) được cộng dồn vào ngân sách của test.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+
+    int max();
+
+    /**
+     * Số lần lặp của cùng một shape SQL bị coi là N+1; 0 = không kiểm tra
+     */
+    int nPlusOneThreshold() default 3;
+}
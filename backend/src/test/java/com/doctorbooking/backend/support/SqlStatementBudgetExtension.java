@@ -0,0 +1,56 @@
+package com.doctorbooking.backend.support;
+
+import com.doctorbooking.backend.util.SqlStatementTracker;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.Map;
+
+/**
+ * Extension của @SqlStatementBudget: mở SqlStatementTracker scope trước test, kiểm tra ngân sách sau test
+ */
+public class SqlStatementBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        SqlStatementTracker.begin();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        SqlStatementTracker.Scope scope = SqlStatementTracker.current();
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+
+        SqlStatementBudget budget = findBudget(context);
+        if (budget == null) {
+            return;
+        }
+        if (scope.getStatementCount() > budget.max()) {
+            throw new AssertionError(String.format("%s issued %d SQL statements, budget is %d",
+                    context.getDisplayName(), scope.getStatementCount(), budget.max()));
+        }
+        if (budget.nPlusOneThreshold() > 0) {
+            Map<String, Integer> repeated = scope.getRepeatedShapes(budget.nPlusOneThreshold());
+            if (!repeated.isEmpty()) {
+                throw new AssertionError(String.format("%s looks like N+1, repeated statements: %s",
+                        context.getDisplayName(), repeated));
+            }
+        }
+    }
+
+    private SqlStatementBudget findBudget(ExtensionContext context) {
+        SqlStatementBudget budget = context.getTestMethod()
+                .map(method -> method.getAnnotation(SqlStatementBudget.class))
+                .orElse(null);
+        if (budget != null) {
+            return budget;
+        }
+        return context.getTestClass()
+                .map(testClass -> testClass.getAnnotation(SqlStatementBudget.class))
+                .orElse(null);
+    }
+}
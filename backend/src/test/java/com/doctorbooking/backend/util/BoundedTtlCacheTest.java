@@ -0,0 +1,50 @@
+package com.doctorbooking.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * LRU + TTL dùng chung cho DoctorCatalogCache và SymptomResponseCache
+ */
+class BoundedTtlCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedOverMaxSize() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(2, 60_000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.getIfPresent("a");
+        cache.put("c", 3);
+
+        assertNull(cache.getIfPresent("b"));
+        assertEquals(1, cache.getIfPresent("a"));
+        assertEquals(3, cache.getIfPresent("c"));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void expiredEntriesAreMissesAndReloaded() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(10, 0);
+        cache.put("a", 1);
+
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(2, cache.get("a", () -> 2));
+        assertEquals(0, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void loadStartedBeforeInvalidateIsNotCached() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(10, 60_000);
+        Integer stale = cache.get("a", () -> {
+            cache.invalidate("a");
+            return 1;
+        });
+
+        assertEquals(1, stale);
+        assertEquals(2, cache.get("a", () -> 2));
+        assertEquals(2, cache.getIfPresent("a"));
+    }
+}
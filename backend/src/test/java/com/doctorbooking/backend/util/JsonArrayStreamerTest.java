@@ -0,0 +1,96 @@
+package com.doctorbooking.backend.util;
+
+import com.doctorbooking.backend.dto.response.UserResponse;
+import com.doctorbooking.backend.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Body stream phải giống hệt ResponseEntity.ok(list); lỗi giữa chừng không được trông như một danh sách hợp lệ
+ */
+class JsonArrayStreamerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ByteArrayOutputStream body;
+    private HttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        body = new ByteArrayOutputStream();
+        response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        });
+    }
+
+    @Test
+    void streamedBodyMatchesListSerialization() throws Exception {
+        List<UserResponse> users = IntStream.rangeClosed(1, 2000).mapToObj(JsonArrayStreamerTest::user).toList();
+
+        JsonArrayStreamer.<UserResponse>write(response, objectMapper, users::forEach);
+
+        assertEquals(objectMapper.writeValueAsString(users), body.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void emptySourceWritesEmptyArray() throws Exception {
+        JsonArrayStreamer.<UserResponse>write(response, objectMapper, sink -> { });
+
+        assertEquals("[]", body.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void failureMidStreamLeavesArrayUnterminated() {
+        assertThrows(IllegalStateException.class, () ->
+                JsonArrayStreamer.<UserResponse>write(response, objectMapper, sink -> {
+                    IntStream.rangeClosed(1, 2000).mapToObj(JsonArrayStreamerTest::user).forEach(sink);
+                    throw new IllegalStateException("connection lost");
+                }));
+
+        assertFalse(body.toString(StandardCharsets.UTF_8).endsWith("]"));
+    }
+
+    private static UserResponse user(int i) {
+        User user = new User();
+        user.setId((long) i);
+        user.setUsername("user" + i);
+        user.setEmail("user" + i + "@example.com");
+        user.setRole(User.Role.PATIENT);
+        user.setEnabled(true);
+        user.setCreatedAt(LocalDateTime.of(2025, 1, 1, 8, 0).plusMinutes(i));
+        return UserResponse.fromUser(user);
+    }
+}
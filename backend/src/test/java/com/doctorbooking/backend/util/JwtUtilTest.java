@@ -0,0 +1,52 @@
+package com.doctorbooking.backend.util;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rotation không kéo dài phiên: token mới của family hết hạn chậm nhất ở mốc familyIssuedAt + refresh-max-lifetime
+ */
+class JwtUtilTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret-key-test-secret-key-test-secret-0123456789");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", HOUR);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 24 * HOUR);
+        ReflectionTestUtils.setField(jwtUtil, "refreshMaxLifetime", 72 * HOUR);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+    }
+
+    @Test
+    void newFamilyStartsNowWithFullExpiration() {
+        long before = System.currentTimeMillis();
+        Claims claims = jwtUtil.parseRefreshToken(jwtUtil.generateRefreshToken("patient", Map.of(), null));
+
+        assertTrue(JwtUtil.familyIssuedAt(claims) >= before - 1000);
+        assertTrue(claims.getExpiration().getTime() >= before + 24 * HOUR - 1000);
+    }
+
+    @Test
+    void rotationKeepsFamilyStartAndCapsExpiration() {
+        long familyStart = System.currentTimeMillis() - 60 * HOUR;
+        Claims claims = jwtUtil.parseRefreshToken(
+                jwtUtil.generateRefreshToken("patient", Map.of(), "family-a", familyStart));
+
+        assertEquals("family-a", claims.get(JwtUtil.CLAIM_FAMILY_ID, String.class));
+        assertEquals(familyStart, JwtUtil.familyIssuedAt(claims));
+        // Còn 12h tới mốc 72h, không phải 24h
+        assertEquals((familyStart + 72 * HOUR) / 1000, claims.getExpiration().getTime() / 1000);
+    }
+}
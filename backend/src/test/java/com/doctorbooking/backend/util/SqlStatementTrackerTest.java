@@ -0,0 +1,186 @@
+package com.doctorbooking.backend.util;
+
+import com.doctorbooking.backend.config.SqlStatementBudgetFilter;
+import com.doctorbooking.backend.config.SqlStatementInspector;
+import com.doctorbooking.backend.support.SqlStatementBudget;
+import com.doctorbooking.backend.support.SqlStatementBudgetExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SqlStatementTrackerTest {
+
+    private static final String FEEDBACK_BY_APPOINTMENT =
+            "select f1_0.id,f1_0.rating from feedbacks f1_0 where f1_0.appointment_id=?";
+
+    private final SqlStatementInspector inspector = new SqlStatementInspector();
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementTracker.Scope scope = SqlStatementTracker.current();
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+    @Test
+    void countsStatementsAndGroupsThemByShape() {
+        try (SqlStatementTracker.Scope scope = SqlStatementTracker.begin()) {
+            inspector.inspect("select a1_0.id from appointments a1_0 where a1_0.patient_id=?");
+            for (int i = 0; i < 4; i++) {
+                inspector.inspect(FEEDBACK_BY_APPOINTMENT);
+            }
+            // IN-list có độ dài khác nhau vẫn là cùng một shape
+            inspector.inspect("select d1_0.id from doctors d1_0 where d1_0.id in (?,?)");
+            inspector.inspect("select d1_0.id from doctors d1_0 where d1_0.id in (?, ?, ?)");
+
+            assertEquals(7, scope.getStatementCount());
+            Map<String, Integer> repeated = scope.getRepeatedShapes(2);
+            assertEquals(2, repeated.size());
+            assertEquals(4, repeated.get(FEEDBACK_BY_APPOINTMENT));
+            assertEquals(2, repeated.get("select d1_0.id from doctors d1_0 where d1_0.id in (?)"));
+        }
+        assertNull(SqlStatementTracker.current());
+    }
+
+    @Test
+    void statementsOutsideScopeAreNotCounted() {
+        inspector.inspect(FEEDBACK_BY_APPOINTMENT);
+        try (SqlStatementTracker.Scope scope = SqlStatementTracker.begin()) {
+            assertEquals(0, scope.getStatementCount());
+        }
+    }
+
+    @Test
+    void nestedScopeAddsItsStatementsToParent() {
+        try (SqlStatementTracker.Scope outer = SqlStatementTracker.begin()) {
+            inspector.inspect("select 1");
+            try (SqlStatementTracker.Scope inner = SqlStatementTracker.begin()) {
+                inspector.inspect(FEEDBACK_BY_APPOINTMENT);
+                inspector.inspect(FEEDBACK_BY_APPOINTMENT);
+                assertEquals(2, inner.getStatementCount());
+            }
+            inspector.inspect(FEEDBACK_BY_APPOINTMENT);
+
+            assertEquals(4, outer.getStatementCount());
+            assertEquals(3, outer.getRepeatedShapes(3).get(FEEDBACK_BY_APPOINTMENT));
+        }
+    }
+
+    @Test
+    void extensionSeesStatementsOfFilteredMockMvcRequest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new NPlusOneController(inspector))
+                .addFilters(new SqlStatementBudgetFilter(new SimpleMeterRegistry(), 30, 5))
+                .build();
+        SqlStatementBudgetExtension extension = new SqlStatementBudgetExtension();
+        ExtensionContext context = contextFor("budgetOfTwo");
+
+        extension.beforeEach(context);
+        mockMvc.perform(get("/appointments")).andExpect(status().isOk());
+
+        AssertionError error = assertThrows(AssertionError.class, () -> extension.afterEach(context));
+        assertTrue(error.getMessage().contains("4 SQL statements, budget is 2"), error.getMessage());
+        assertNull(SqlStatementTracker.current());
+    }
+
+    @Test
+    void extensionFailsTestOverBudget() throws Exception {
+        SqlStatementBudgetExtension extension = new SqlStatementBudgetExtension();
+        ExtensionContext context = contextFor("budgetOfTwo");
+
+        extension.beforeEach(context);
+        inspector.inspect("select 1");
+        inspector.inspect("select 2");
+        inspector.inspect("select 3");
+
+        AssertionError error = assertThrows(AssertionError.class, () -> extension.afterEach(context));
+        assertTrue(error.getMessage().contains("3 SQL statements, budget is 2"));
+        assertNull(SqlStatementTracker.current());
+    }
+
+    @Test
+    void extensionFailsTestWithNPlusOne() throws Exception {
+        SqlStatementBudgetExtension extension = new SqlStatementBudgetExtension();
+        ExtensionContext context = contextFor("budgetOfTen");
+
+        extension.beforeEach(context);
+        for (int i = 0; i < 3; i++) {
+            inspector.inspect(FEEDBACK_BY_APPOINTMENT);
+        }
+
+        AssertionError error = assertThrows(AssertionError.class, () -> extension.afterEach(context));
+        assertTrue(error.getMessage().contains("N+1"));
+    }
+
+    @Test
+    void extensionPassesWithinBudget() throws Exception {
+        SqlStatementBudgetExtension extension = new SqlStatementBudgetExtension();
+        ExtensionContext context = contextFor("budgetOfTen");
+
+        extension.beforeEach(context);
+        inspector.inspect("select 1");
+        inspector.inspect(FEEDBACK_BY_APPOINTMENT);
+        extension.afterEach(context);
+
+        assertNull(SqlStatementTracker.current());
+    }
+
+    private ExtensionContext contextFor(String methodName) throws NoSuchMethodException {
+        Method method = BudgetFixtures.class.getDeclaredMethod(methodName);
+        ExtensionContext context = mock(ExtensionContext.class);
+        when(context.getTestMethod()).thenReturn(Optional.of(method));
+        when(context.getDisplayName()).thenReturn(methodName);
+        return context;
+    }
+
+    /**
+     * Endpoint giả lập một danh sách + load feedback từng dòng (SQL đi qua inspector như Hibernate)
+     */
+    @RestController
+    static class NPlusOneController {
+
+        private final SqlStatementInspector inspector;
+
+        NPlusOneController(SqlStatementInspector inspector) {
+            this.inspector = inspector;
+        }
+
+        @GetMapping("/appointments")
+        String appointments() {
+            inspector.inspect("select a1_0.id from appointments a1_0 where a1_0.patient_id=?");
+            for (int i = 0; i < 3; i++) {
+                inspector.inspect(FEEDBACK_BY_APPOINTMENT);
+            }
+            return "[]";
+        }
+    }
+
+    static class BudgetFixtures {
+
+        @SqlStatementBudget(max = 2)
+        void budgetOfTwo() {
+        }
+
+        @SqlStatementBudget(max = 10)
+        void budgetOfTen() {
+        }
+    }
+}
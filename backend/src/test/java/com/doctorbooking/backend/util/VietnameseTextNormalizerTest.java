@@ -0,0 +1,42 @@
+package com.doctorbooking.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Cache key của SymptomResponseCache: từ đệm được bỏ, nhưng từ chuyên môn trùng chữ khi bỏ dấu thì phải giữ
+ */
+class VietnameseTextNormalizerTest {
+
+    @Test
+    void dropsFillerWordsAndFoldsTheRest() {
+        assertEquals("dau bung", VietnameseTextNormalizer.normalize("Tôi bị đau bụng ạ!"));
+        assertEquals(VietnameseTextNormalizer.normalize("đau bụng"),
+                VietnameseTextNormalizer.normalize("Bạn ơi, mình đang bị đau   bụng vậy?"));
+    }
+
+    @Test
+    void keepsClinicalWordsThatFoldToFillerWords() {
+        assertNotEquals(VietnameseTextNormalizer.normalize("miệng"), VietnameseTextNormalizer.normalize("hôi miệng"));
+        assertNotEquals(VietnameseTextNormalizer.normalize("nến"), VietnameseTextNormalizer.normalize("vảy nến"));
+        assertNotEquals(VietnameseTextNormalizer.normalize("nổi đỏ"), VietnameseTextNormalizer.normalize("nổi ban đỏ"));
+        assertNotEquals(VietnameseTextNormalizer.normalize("loạn tiêu hóa"),
+                VietnameseTextNormalizer.normalize("rối loạn tiêu hóa"));
+        assertEquals("roi loan tieu hoa", VietnameseTextNormalizer.normalize("rối loạn tiêu hóa"));
+    }
+
+    @Test
+    void decomposedInputGivesSameKey() {
+        String decomposed = Normalizer.normalize("vảy nến", Normalizer.Form.NFD);
+        assertEquals(VietnameseTextNormalizer.normalize("vảy nến"), VietnameseTextNormalizer.normalize(decomposed));
+    }
+
+    @Test
+    void onlyFillerWordsKeepsFoldedText() {
+        assertEquals("a oi", VietnameseTextNormalizer.normalize("À ơi"));
+    }
+}